@@ -0,0 +1,156 @@
+package gamesleague;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded synthetic data for the benchmarks: a GamesLeague with registered
+ * players, leagues of a given size and days of closed gameplay history.
+ * <p>
+ * The same settings and seed always build the same league, so runs of the
+ * same benchmark are comparable. Each league has an owner, members who were
+ * invited by email and accepted, a few outstanding email invites to
+ * unregistered addresses, and one gameplay day per day of history where most
+ * members register a report before the day's scores are closed. The clock is
+ * left on the last day of history, which is still open for finalising.
+ */
+class BenchmarkData {
+
+    static final int FIRST_DAY = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+
+    private static final String[] REPORT_WORDS = {
+        "crane", "slate", "trace", "adieu", "roast", "pious", "lemon", "ghost"
+    };
+
+    final GamesLeague gamesLeague;
+    final int[] playerIds;
+    final String[] emails;
+    final int[] leagueIds;
+    final int firstDay;
+    final int lastDay;
+
+    private BenchmarkData(GamesLeague gamesLeague, int[] playerIds, String[] emails,
+            int[] leagueIds, int firstDay, int lastDay) {
+        this.gamesLeague = gamesLeague;
+        this.playerIds = playerIds;
+        this.emails = emails;
+        this.leagueIds = leagueIds;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+    }
+
+    /**
+     * Builds the data set.
+     *
+     * @param players Players to register.
+     * @param leagues Leagues to create.
+     * @param leagueSize Members of each league, including its owner; at most players.
+     * @param days Days of gameplay history, at least 1.
+     * @param seed Seed for every random choice.
+     */
+    static BenchmarkData generate(int players, int leagues, int leagueSize, int days, long seed) {
+        return generate(players, leagues, leagueSize, days, seed, null);
+    }
+
+    /**
+     * Builds the data set with every league playing the game type.
+     *
+     * @param gameType The game of every league, or null for each league to
+     *        pick one at random.
+     */
+    static BenchmarkData generate(int players, int leagues, int leagueSize, int days, long seed,
+            GameType gameType) {
+        if (players < 1 || leagues < 1 || leagueSize < 1 || leagueSize > players || days < 1) {
+            throw new IllegalArgumentException("Invalid data set: players=" + players
+                + " leagues=" + leagues + " leagueSize=" + leagueSize + " days=" + days);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        GamesLeague gamesLeague = new GamesLeague();
+        int firstDay = FIRST_DAY;
+        int lastDay = firstDay + days - 1;
+
+        // leagues are set up the day before the first day of play
+        setDay(gamesLeague, firstDay - 1);
+        int[] playerIds = new int[players];
+        String[] emails = new String[players];
+        for (int i = 0; i < players; i++) {
+            emails[i] = "player" + i + "@example.com";
+            playerIds[i] = gamesLeague.createPlayer(emails[i], "Player " + i,
+                "Player Number " + i, "0700000" + i);
+        }
+
+        int[] leagueIds = new int[leagues];
+        for (int l = 0; l < leagues; l++) {
+            int[] members = pick(random, players, leagueSize);
+            int owner = playerIds[members[0]];
+            // drawn either way so a fixed game type leaves the rest of the data set unchanged
+            GameType drawn = random.nextInt(2) == 0 ? GameType.WORDMASTER : GameType.DICEROLL;
+            int leagueId = gamesLeague.createLeague(owner, "League " + l,
+                gameType == null ? drawn : gameType);
+            for (int m = 1; m < members.length; m++) {
+                gamesLeague.invitePlayerToLeague(leagueId, emails[members[m]]);
+                gamesLeague.acceptInviteToLeague(leagueId, playerIds[members[m]]);
+            }
+            for (int e = 0; e < leagueSize / 10; e++) {
+                gamesLeague.invitePlayerToLeague(leagueId, "pending" + l + "-" + e + "@example.com");
+            }
+            gamesLeague.setLeagueStartDate(leagueId, firstDay);
+            leagueIds[l] = leagueId;
+        }
+
+        for (int day = firstDay; day <= lastDay; day++) {
+            setDay(gamesLeague, day);
+            for (int leagueId : leagueIds) {
+                int[] members = gamesLeague.getLeaguePlayers(leagueId);
+                int[] scores = new int[members.length];
+                for (int m = 0; m < members.length; m++) {
+                    // about one in five members skips the day
+                    if (random.nextInt(5) != 0) {
+                        gamesLeague.registerGameReport(day, leagueId, members[m], report(random));
+                        scores[m] = 1 + random.nextInt(6);
+                    }
+                }
+                gamesLeague.registerDayScores(day, leagueId, scores);
+            }
+        }
+        return new BenchmarkData(gamesLeague, playerIds, emails, leagueIds, firstDay, lastDay);
+    }
+
+    /**
+     * Moves the league's clock to the start of the epoch day.
+     */
+    static void setDay(GamesLeague gamesLeague, int day) {
+        gamesLeague.setClock(Clock.fixed(LocalDate.ofEpochDay(day).atStartOfDay()
+            .toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    /**
+     * @return A report in the shape of a word game share, from a small vocabulary
+     *         so that reports repeat as they do in real leagues.
+     */
+    static String report(SplittableRandom random) {
+        return REPORT_WORDS[random.nextInt(REPORT_WORDS.length)] + " "
+            + (1 + random.nextInt(6)) + "/6";
+    }
+
+    /**
+     * @return count distinct indexes below n, in random order.
+     */
+    private static int[] pick(SplittableRandom random, int n, int count) {
+        int[] all = new int[n];
+        for (int i = 0; i < n; i++) {
+            all[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(n - i);
+            int swap = all[i];
+            all[i] = all[j];
+            all[j] = swap;
+        }
+        int[] picked = new int[count];
+        System.arraycopy(all, 0, picked, 0, count);
+        return picked;
+    }
+}
@@ -0,0 +1,74 @@
+package gamesleague;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cloning one large league, 100,000 members unless set otherwise with
+ * {@code -p members=...}. A clone's members are the source's owners and
+ * every other member is invited, so the cost grows with the source's member
+ * count; each clone is removed again so the invites do not pile up. Run with
+ * {@code -prof gc} for the bytes allocated per clone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CloneBenchmarks {
+
+    private static final int OWNERS = 3;
+
+    @State(Scope.Benchmark)
+    public static class LargeLeague {
+
+        @Param("100000")
+        public int members;
+
+        GamesLeague gamesLeague;
+        int leagueId;
+        private int sequence = 0;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            gamesLeague = new GamesLeague();
+            int owner = gamesLeague.createPlayer("member0@example.com", "Member 0",
+                "Large League Member 0", "07000000000");
+            leagueId = gamesLeague.createLeague(owner, "Large", GameType.WORDMASTER);
+            for (int m = 1; m < members; m++) {
+                String email = "member" + m + "@example.com";
+                int playerId = gamesLeague.createPlayer(email, "Member " + m,
+                    "Large League Member " + m, "07000000000");
+                gamesLeague.invitePlayerToLeague(leagueId, email);
+                gamesLeague.acceptInviteToLeague(leagueId, playerId);
+                if (m < OWNERS) {
+                    gamesLeague.addOwner(leagueId, playerId);
+                }
+            }
+        }
+
+        int nextSequence() {
+            return sequence++;
+        }
+    }
+
+    @Benchmark
+    public int cloneAndRemoveLeague(LargeLeague state) {
+        int cloneId = state.gamesLeague.cloneLeague(state.leagueId,
+            "Clone " + state.nextSequence());
+        state.gamesLeague.removeLeague(cloneId);
+        return cloneId;
+    }
+}
@@ -0,0 +1,136 @@
+package gamesleague;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A mix of league reads and game reports from 1, 2, 4 and 8 threads, on a
+ * ConcurrentGamesLeague and, as the baseline, on a GamesLeague with every
+ * call synchronized on one monitor. Each call is a game report with
+ * probability writePercent, and otherwise a week ranking, day points or
+ * player's leagues read. The throughput is the total over all threads, so
+ * it should grow with the threads for the concurrent league, up to the
+ * cores available, and stay flat for the synchronized one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrencyBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class Target {
+
+        @Param({"concurrent", "synchronized"})
+        public String league;
+
+        @Param({"10", "50"})
+        public int writePercent;
+
+        GamesLeagueInterface gamesLeague;
+        // the monitor every call holds, or null to call the league directly
+        Object monitor;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) {
+            if (league.equals("concurrent")) {
+                gamesLeague = new ConcurrentGamesLeague(state.gamesLeague, 64);
+            } else {
+                gamesLeague = state.gamesLeague;
+                monitor = state.gamesLeague;
+            }
+        }
+    }
+
+    /**
+     * The calls made by one thread; LeagueState's random is not thread safe.
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+
+        private static final AtomicInteger THREADS = new AtomicInteger();
+
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) {
+            random = new SplittableRandom(state.seed + 3 + THREADS.getAndIncrement());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void mixedOneThread(LeagueState state, Target target, Caller caller, Blackhole blackhole) {
+        call(state, target, caller.random, blackhole);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void mixedTwoThreads(LeagueState state, Target target, Caller caller, Blackhole blackhole) {
+        call(state, target, caller.random, blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void mixedFourThreads(LeagueState state, Target target, Caller caller, Blackhole blackhole) {
+        call(state, target, caller.random, blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void mixedEightThreads(LeagueState state, Target target, Caller caller, Blackhole blackhole) {
+        call(state, target, caller.random, blackhole);
+    }
+
+    private static void call(LeagueState state, Target target, SplittableRandom random,
+            Blackhole blackhole) {
+        if (target.monitor == null) {
+            call(state, target.gamesLeague, target.writePercent, random, blackhole);
+        } else {
+            synchronized (target.monitor) {
+                call(state, target.gamesLeague, target.writePercent, random, blackhole);
+            }
+        }
+    }
+
+    private static void call(LeagueState state, GamesLeagueInterface gamesLeague, int writePercent,
+            SplittableRandom random, Blackhole blackhole) {
+        int leagueIndex = random.nextInt(state.data.leagueIds.length);
+        int leagueId = state.data.leagueIds[leagueIndex];
+        int[] members = state.members[leagueIndex];
+        int day = state.data.firstDay + random.nextInt(state.data.lastDay - state.data.firstDay + 1);
+        if (random.nextInt(100) < writePercent) {
+            gamesLeague.registerGameReport(state.data.lastDay, leagueId,
+                members[random.nextInt(members.length)], BenchmarkData.report(random));
+            return;
+        }
+        switch (random.nextInt(3)) {
+            case 0:
+                blackhole.consume(gamesLeague.getWeekRanking(leagueId, day));
+                break;
+            case 1:
+                blackhole.consume(gamesLeague.getDayPoints(leagueId, day));
+                break;
+            default:
+                blackhole.consume(gamesLeague.getPlayerLeagues(members[random.nextInt(members.length)]));
+                break;
+        }
+    }
+}
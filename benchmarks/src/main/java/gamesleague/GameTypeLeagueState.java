@@ -0,0 +1,22 @@
+package gamesleague;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The generated data set with every league playing one game type, for the
+ * benchmarks whose cost depends on how the game scores its reports. The
+ * rest of the data set is the same for either type.
+ */
+@State(Scope.Benchmark)
+public class GameTypeLeagueState extends LeagueState {
+
+    @Param({"WORDMASTER", "DICEROLL"})
+    public GameType gameType;
+
+    @Override
+    GameType gameType() {
+        return gameType;
+    }
+}
@@ -0,0 +1,117 @@
+package gamesleague;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Gameplay registration: game reports, closing days with their scores and
+ * voiding them. Closing a day needs a day that is still open, so the score
+ * benchmarks move the clock on a day at a time past the generated history,
+ * which grows by a day each time every league has been closed. Each runs
+ * with every league playing WORDMASTER and then DICEROLL, as scoring differs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameplayBenchmarks {
+
+    /**
+     * The current day and which leagues have been closed on it.
+     */
+    @State(Scope.Benchmark)
+    public static class OpenDays {
+
+        int today;
+        // index of the next league to close today
+        int next;
+        // a fixed set of scores for each league, by league index
+        int[][] scores;
+        int[] batchDays;
+
+        @Setup(Level.Trial)
+        public void setup(GameTypeLeagueState state) {
+            today = state.data.lastDay;
+            next = state.data.leagueIds.length;
+            SplittableRandom random = new SplittableRandom(state.seed + 2);
+            scores = new int[state.members.length][];
+            for (int l = 0; l < scores.length; l++) {
+                scores[l] = new int[state.members[l].length];
+                for (int m = 0; m < scores[l].length; m++) {
+                    scores[l][m] = random.nextInt(7);
+                }
+            }
+            batchDays = new int[scores.length];
+        }
+
+        /**
+         * Moves the clock on to the next day.
+         */
+        void nextDay(GameTypeLeagueState state) {
+            today++;
+            next = 0;
+            BenchmarkData.setDay(state.gamesLeague, today);
+        }
+    }
+
+    @Benchmark
+    public void registerGameReport(GameTypeLeagueState state) {
+        int leagueIndex = state.randomLeagueIndex();
+        state.gamesLeague.registerGameReport(state.data.lastDay, state.data.leagueIds[leagueIndex],
+            state.randomMember(leagueIndex), BenchmarkData.report(state.random));
+    }
+
+    @Benchmark
+    public String getGameReport(GameTypeLeagueState state) {
+        int leagueIndex = state.randomLeagueIndex();
+        return state.gamesLeague.getGameReport(state.randomDay(), state.data.leagueIds[leagueIndex],
+            state.randomMember(leagueIndex));
+    }
+
+    /**
+     * Closes the current day of one league.
+     */
+    @Benchmark
+    public void registerDayScores(GameTypeLeagueState state, OpenDays open) {
+        if (open.next == state.data.leagueIds.length) {
+            open.nextDay(state);
+        }
+        int leagueIndex = open.next++;
+        state.gamesLeague.registerDayScores(open.today, state.data.leagueIds[leagueIndex],
+            open.scores[leagueIndex]);
+    }
+
+    /**
+     * Closes the current day of every league in one batch.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BatchResult registerDayScoresBatch(GameTypeLeagueState state, OpenDays open) {
+        open.nextDay(state);
+        Arrays.fill(open.batchDays, open.today);
+        return state.gamesLeague.registerDayScores(open.batchDays, state.data.leagueIds, open.scores);
+    }
+
+    /**
+     * Voids the points of the last day of history, which is still open for
+     * finalising, in a random league.
+     */
+    @Benchmark
+    public void voidDayPoints(GameTypeLeagueState state) {
+        state.gamesLeague.voidDayPoints(state.data.lastDay, state.randomLeague());
+    }
+}
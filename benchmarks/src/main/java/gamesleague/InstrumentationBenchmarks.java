@@ -0,0 +1,65 @@
+package gamesleague;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of InstrumentedGamesLeague: the same calls made on the GamesLeague
+ * directly, through the wrapper with recording off, and with it on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class Target {
+
+        @Param({"direct", "disabled", "enabled"})
+        public String instrumentation;
+
+        GamesLeagueInterface league;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) {
+            if (instrumentation.equals("direct")) {
+                league = state.gamesLeague;
+                return;
+            }
+            InstrumentedGamesLeague instrumented = new InstrumentedGamesLeague(state.gamesLeague, "bench");
+            instrumented.setEnabled(instrumentation.equals("enabled"));
+            league = instrumented;
+        }
+    }
+
+    @Benchmark
+    public String getPlayerDisplayName(LeagueState state, Target target) {
+        return target.league.getPlayerDisplayName(state.randomPlayer());
+    }
+
+    @Benchmark
+    public int[] getWeekRanking(LeagueState state, Target target) {
+        return target.league.getWeekRanking(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public void registerGameReport(LeagueState state, Target target) {
+        int leagueIndex = state.randomLeagueIndex();
+        target.league.registerGameReport(state.data.lastDay, state.data.leagueIds[leagueIndex],
+            state.randomMember(leagueIndex), BenchmarkData.report(state.random));
+    }
+}
@@ -0,0 +1,90 @@
+package gamesleague;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Invites and league membership. Calls that add something are paired with
+ * the call that takes it away again, so the data set keeps its shape; the
+ * exception is joinLeague, which adds a member to a league on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InviteBenchmarks {
+
+    /**
+     * Invites an unregistered email and takes the invite back.
+     */
+    @Benchmark
+    public void inviteAndRemoveEmail(LeagueState state) {
+        int leagueId = state.randomLeague();
+        String email = "invitee" + state.nextSequence() + "@example.com";
+        state.gamesLeague.invitePlayerToLeague(leagueId, email);
+        state.gamesLeague.removeInviteFromLeague(leagueId, email);
+    }
+
+    /**
+     * Signs up a new player who was invited by email and has them accept.
+     */
+    @Benchmark
+    public void joinLeague(LeagueState state) {
+        int leagueId = state.randomLeague();
+        int n = state.nextSequence();
+        String email = "joiner" + n + "@example.com";
+        state.gamesLeague.invitePlayerToLeague(leagueId, email);
+        int playerId = state.gamesLeague.createPlayer(email, "Joiner " + n,
+            "Joining Player " + n, "0722222" + n);
+        state.gamesLeague.acceptInviteToLeague(leagueId, playerId);
+    }
+
+    @Benchmark
+    public String[] getLeagueEmailInvites(LeagueState state) {
+        return state.gamesLeague.getLeagueEmailInvites(state.randomLeague());
+    }
+
+    @Benchmark
+    public int[] getLeaguePlayerInvites(LeagueState state) {
+        return state.gamesLeague.getLeaguePlayerInvites(state.randomLeague());
+    }
+
+    @Benchmark
+    public int[] getLeaguePlayers(LeagueState state) {
+        return state.gamesLeague.getLeaguePlayers(state.randomLeague());
+    }
+
+    @Benchmark
+    public int[] getLeagueOwners(LeagueState state) {
+        return state.gamesLeague.getLeagueOwners(state.randomLeague());
+    }
+
+    @Benchmark
+    public Status getLeagueStatus(LeagueState state) {
+        return state.gamesLeague.getLeagueStatus(state.randomLeague());
+    }
+
+    @Benchmark
+    public int createAndRemoveLeague(LeagueState state) {
+        int leagueId = state.gamesLeague.createLeague(state.randomPlayer(),
+            "Created " + state.nextSequence(), GameType.WORDMASTER);
+        state.gamesLeague.removeLeague(leagueId);
+        return leagueId;
+    }
+
+    @Benchmark
+    public int cloneAndRemoveLeague(LeagueState state) {
+        int leagueId = state.gamesLeague.cloneLeague(state.randomLeague(),
+            "Clone " + state.nextSequence());
+        state.gamesLeague.removeLeague(leagueId);
+        return leagueId;
+    }
+}
@@ -0,0 +1,135 @@
+package gamesleague;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Making a game report durable: through a JournaledGamesLeague under each
+ * fsync policy, on one thread and on four so BATCH can share its forces, and
+ * as the baseline without a journal, the report followed by a full
+ * saveGamesLeagueData. The journal is started from a checkpoint of the
+ * generated data set, in a temporary directory on the default file system;
+ * fsync costs depend heavily on the disk behind it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmarks {
+
+    /**
+     * A JournaledGamesLeague holding the data set.
+     */
+    @State(Scope.Benchmark)
+    public static class Journaled {
+
+        @Param({"ALWAYS", "BATCH", "NEVER"})
+        public FsyncPolicy policy;
+
+        Path directory;
+        JournaledGamesLeague league;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) throws IOException, ClassNotFoundException {
+            directory = Files.createTempDirectory("gamesleague-journal-");
+            Path saved = directory.resolve("data.ser");
+            state.gamesLeague.saveGamesLeagueData(saved.toString());
+            league = new JournaledGamesLeague(directory.toString(), policy, 64, 0);
+            league.loadGamesLeagueData(saved.toString());
+            Files.delete(saved);
+            // fails the trial now rather than timing rejected, retracted calls
+            league.registerGameReport(state.data.lastDay, state.data.leagueIds[0],
+                state.members[0][0], "setup");
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            league.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * The calls made by one thread; LeagueState's random is not thread safe.
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+
+        private static final AtomicInteger THREADS = new AtomicInteger();
+
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) {
+            random = new SplittableRandom(state.seed + 3 + THREADS.getAndIncrement());
+        }
+    }
+
+    /**
+     * The file the baseline saves to.
+     */
+    @State(Scope.Benchmark)
+    public static class SaveFile {
+
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            file = Files.createTempFile("gamesleague-bench-", ".ser");
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public void journaledGameReport(LeagueState state, Journaled journaled, Caller caller) {
+        registerGameReport(state, journaled.league, caller.random);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void journaledGameReportFourThreads(LeagueState state, Journaled journaled, Caller caller) {
+        registerGameReport(state, journaled.league, caller.random);
+    }
+
+    @Benchmark
+    public void savedGameReport(LeagueState state, SaveFile save) throws IOException {
+        registerGameReport(state, state.gamesLeague, state.random);
+        state.gamesLeague.saveGamesLeagueData(save.file.toString());
+    }
+
+    private static void registerGameReport(LeagueState state, GamesLeagueInterface league,
+            SplittableRandom random) {
+        int leagueIndex = random.nextInt(state.data.leagueIds.length);
+        int[] members = state.members[leagueIndex];
+        league.registerGameReport(state.data.lastDay, state.data.leagueIds[leagueIndex],
+            members[random.nextInt(members.length)], BenchmarkData.report(random));
+    }
+}
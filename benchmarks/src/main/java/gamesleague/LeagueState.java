@@ -0,0 +1,99 @@
+package gamesleague;
+
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The generated data set shared by a benchmark's invocations, sized by JMH
+ * parameters (override with e.g. {@code -p players=100000}). A fresh data set
+ * is built for each trial, so benchmarks that change it do not affect others.
+ * <p>
+ * GamesLeague is not thread safe, so benchmarks that call it directly are run
+ * on a single thread (the JMH default); those that set their own threads go
+ * through a thread-safe wrapper and their own per-thread randoms.
+ */
+@State(Scope.Benchmark)
+public class LeagueState {
+
+    @Param("2000")
+    public int players;
+
+    @Param("100")
+    public int leagues;
+
+    @Param("20")
+    public int leagueSize;
+
+    @Param("180")
+    public int days;
+
+    @Param("42")
+    public long seed;
+
+    BenchmarkData data;
+    GamesLeague gamesLeague;
+    // separate from the generator's random so the calls made do not depend on the data set size
+    SplittableRandom random;
+    // members of each league as generated, by league index
+    int[][] members;
+    // numbers names and emails created during the trial, so each is new
+    private int sequence = 0;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        data = BenchmarkData.generate(players, leagues, leagueSize, days, seed, gameType());
+        gamesLeague = data.gamesLeague;
+        random = new SplittableRandom(seed + 1);
+        members = new int[data.leagueIds.length][];
+        for (int l = 0; l < members.length; l++) {
+            members[l] = gamesLeague.getLeaguePlayers(data.leagueIds[l]);
+        }
+    }
+
+    /**
+     * @return The game every league plays, or null for a random mix.
+     */
+    GameType gameType() {
+        return null;
+    }
+
+    int nextSequence() {
+        return sequence++;
+    }
+
+    int randomPlayerIndex() {
+        return random.nextInt(data.playerIds.length);
+    }
+
+    int randomPlayer() {
+        return data.playerIds[randomPlayerIndex()];
+    }
+
+    int randomLeagueIndex() {
+        return random.nextInt(data.leagueIds.length);
+    }
+
+    int randomLeague() {
+        return data.leagueIds[randomLeagueIndex()];
+    }
+
+    /**
+     * @return A random day of the history.
+     */
+    int randomDay() {
+        return data.firstDay + random.nextInt(data.lastDay - data.firstDay + 1);
+    }
+
+    /**
+     * @return A random member of the league with the index.
+     */
+    int randomMember(int leagueIndex) {
+        int[] leagueMembers = members[leagueIndex];
+        return leagueMembers[random.nextInt(leagueMembers.length)];
+    }
+}
@@ -0,0 +1,163 @@
+package gamesleague;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Invites, sign-ups and joining with millions of email invites outstanding
+ * to people who have not signed up, each email invited to two leagues.
+ * Every sign-up of an invited email is replaced by a new email invited to
+ * two leagues, so the number outstanding stays the same through the trial,
+ * and the player invites it turns into are taken back or accepted so they
+ * do not pile up in the leagues.
+ * The invites take a few hundred bytes each, hence the larger heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PendingInviteBenchmarks {
+
+    private static final int LEAGUES_PER_EMAIL = 2;
+
+    /**
+     * The outstanding invites, as a ring of invited emails in the order they
+     * were invited: sign-ups take the oldest and invite a new one.
+     */
+    @State(Scope.Benchmark)
+    public static class PendingInvites {
+
+        @Param("2000000")
+        public int pendingInvites;
+
+        String[] emails;
+        // leagues that invited each email, by ring position
+        int[][] leagueIds;
+        int oldest = 0;
+        // email of the player signed up last and the leagues that invited it
+        String lastEmail;
+        int[] lastLeagueIds;
+        private int sequence = 0;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) {
+            int count = Math.max(1, pendingInvites / LEAGUES_PER_EMAIL);
+            if (state.data.leagueIds.length < LEAGUES_PER_EMAIL) {
+                throw new IllegalArgumentException("Needs at least " + LEAGUES_PER_EMAIL + " leagues.");
+            }
+            emails = new String[count];
+            leagueIds = new int[count][];
+            SplittableRandom random = new SplittableRandom(state.seed + 4);
+            for (int i = 0; i < count; i++) {
+                invite(state, random, i);
+            }
+        }
+
+        /**
+         * Invites a new email to two leagues at the position in the ring.
+         */
+        void invite(LeagueState state, SplittableRandom random, int position) {
+            String email = "pending" + sequence++ + "@example.com";
+            int first = random.nextInt(state.data.leagueIds.length);
+            int second = (first + 1 + random.nextInt(state.data.leagueIds.length - 1))
+                % state.data.leagueIds.length;
+            int[] invitedBy = {state.data.leagueIds[first], state.data.leagueIds[second]};
+            for (int leagueId : invitedBy) {
+                state.gamesLeague.invitePlayerToLeague(leagueId, email);
+            }
+            emails[position] = email;
+            leagueIds[position] = invitedBy;
+        }
+
+        /**
+         * Signs up the oldest invited email, replacing it with a new one.
+         *
+         * @return The new player's ID.
+         */
+        int signUpOldest(LeagueState state) {
+            int position = oldest;
+            oldest = (oldest + 1) % emails.length;
+            int n = state.nextSequence();
+            int playerId = state.gamesLeague.createPlayer(emails[position], "Invitee " + n,
+                "Invited Player " + n, "0733333" + n);
+            lastEmail = emails[position];
+            lastLeagueIds = leagueIds[position];
+            invite(state, state.random, position);
+            return playerId;
+        }
+    }
+
+    /**
+     * Invites an email no one has invited and takes the invite back.
+     */
+    @Benchmark
+    public void inviteAndRemoveEmail(LeagueState state, PendingInvites pending) {
+        int leagueId = state.randomLeague();
+        String email = "invitee" + state.nextSequence() + "@example.com";
+        state.gamesLeague.invitePlayerToLeague(leagueId, email);
+        state.gamesLeague.removeInviteFromLeague(leagueId, email);
+    }
+
+    /**
+     * Invites an email that other leagues have already invited and takes the
+     * invite back.
+     */
+    @Benchmark
+    public void inviteAndRemoveInvitedEmail(LeagueState state, PendingInvites pending) {
+        int leagueId = state.randomLeague();
+        String email = pending.emails[state.random.nextInt(pending.emails.length)];
+        state.gamesLeague.invitePlayerToLeague(leagueId, email);
+        state.gamesLeague.removeInviteFromLeague(leagueId, email);
+    }
+
+    /**
+     * Signs up an email with no invites, which only has to find it missing
+     * from the pending invites.
+     */
+    @Benchmark
+    public int signUpUninvited(LeagueState state, PendingInvites pending) {
+        int n = state.nextSequence();
+        return state.gamesLeague.createPlayer("uninvited" + n + "@example.com", "Uninvited " + n,
+            "Uninvited Player " + n, "0744444" + n);
+    }
+
+    /**
+     * Signs up an invited email, which turns its email invites into player
+     * invites, looks the player's invites up and takes them back.
+     */
+    @Benchmark
+    public int[] signUpInvited(LeagueState state, PendingInvites pending) {
+        int playerId = pending.signUpOldest(state);
+        int[] invites = state.gamesLeague.getPlayerInvites(playerId);
+        for (int leagueId : pending.lastLeagueIds) {
+            state.gamesLeague.removeInviteFromLeague(leagueId, pending.lastEmail);
+        }
+        return invites;
+    }
+
+    /**
+     * Signs up an invited email, accepts one of its invites and takes the
+     * other back.
+     */
+    @Benchmark
+    public int signUpAndAccept(LeagueState state, PendingInvites pending) {
+        int playerId = pending.signUpOldest(state);
+        state.gamesLeague.acceptInviteToLeague(pending.lastLeagueIds[0], playerId);
+        state.gamesLeague.removeInviteFromLeague(pending.lastLeagueIds[1], pending.lastEmail);
+        return playerId;
+    }
+}
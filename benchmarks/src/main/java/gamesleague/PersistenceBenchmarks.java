@@ -0,0 +1,115 @@
+package gamesleague;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving the generated data set to a file and loading it back, with the
+ * snapshot format of saveGamesLeagueData and, as the baseline, Java
+ * serialization of the same players, leagues and round stats through an
+ * ObjectOutputStream. The size of the file in each format is printed at the
+ * start of each trial, as it depends only on the data set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmarks {
+
+    /**
+     * Files holding the saved data set in each format, and a league to load
+     * the snapshot into.
+     */
+    @State(Scope.Benchmark)
+    public static class SavedData {
+
+        Path saved;
+        Path serialized;
+        Path target;
+        GamesLeague loader;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) throws IOException {
+            saved = Files.createTempFile("gamesleague-bench-", ".ser");
+            serialized = Files.createTempFile("gamesleague-bench-", ".obj");
+            target = Files.createTempFile("gamesleague-bench-", ".ser");
+            state.gamesLeague.saveGamesLeagueData(saved.toString());
+            serialize(state.gamesLeague, serialized);
+            loader = new GamesLeague();
+            System.out.println("Snapshot: " + Files.size(saved) + " bytes, ObjectOutputStream: "
+                + Files.size(serialized) + " bytes");
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(saved);
+            Files.deleteIfExists(serialized);
+            Files.deleteIfExists(target);
+        }
+    }
+
+    @Benchmark
+    public void saveGamesLeagueData(LeagueState state, SavedData files) throws IOException {
+        state.gamesLeague.saveGamesLeagueData(files.target.toString());
+    }
+
+    @Benchmark
+    public GamesLeague loadGamesLeagueData(SavedData files) throws IOException, ClassNotFoundException {
+        files.loader.loadGamesLeagueData(files.saved.toString());
+        return files.loader;
+    }
+
+    @Benchmark
+    public void saveObjectStream(LeagueState state, SavedData files) throws IOException {
+        serialize(state.gamesLeague, files.target);
+    }
+
+    @Benchmark
+    public Object loadObjectStream(SavedData files) throws IOException, ClassNotFoundException {
+        Object leagues;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(files.serialized), 1 << 16))) {
+            in.readObject();
+            leagues = in.readObject();
+            in.readInt();
+            in.readObject();
+        }
+        return leagues;
+    }
+
+    /**
+     * Writes what a snapshot holds with Java serialization. The leagues
+     * carry their derived period totals and indexes, which the snapshot
+     * format leaves out and rebuilds on load.
+     */
+    private static void serialize(GamesLeague gamesLeague, Path file) throws IOException {
+        Snapshot snapshot = gamesLeague.snapshot();
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeObject(snapshot.players);
+            out.writeObject(snapshot.leagues);
+            out.writeInt(snapshot.nextLeagueId);
+            out.writeObject(snapshot.roundStats);
+        }
+    }
+}
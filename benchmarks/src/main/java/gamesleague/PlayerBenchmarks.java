@@ -0,0 +1,102 @@
+package gamesleague;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Player registry: sign-up, lookups and the per-player views and stats.
+ * createPlayer registers a new player on every call, so the registry grows
+ * through the trial; its memory footprint is printed before and after.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerBenchmarks {
+
+    /**
+     * Prints the player registry's footprint at the start and end of a trial.
+     */
+    @State(Scope.Benchmark)
+    public static class Footprint {
+
+        LeagueState state;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) {
+            this.state = state;
+            System.out.println("Player registry before: " + state.gamesLeague.getPlayerRegistryStats());
+        }
+
+        @TearDown(Level.Trial)
+        public void print() {
+            System.out.println("Player registry after: " + state.gamesLeague.getPlayerRegistryStats());
+        }
+    }
+
+    @Benchmark
+    public int createPlayer(LeagueState state, Footprint footprint) {
+        int n = state.nextSequence();
+        return state.gamesLeague.createPlayer("new" + n + "@example.com", "New " + n,
+            "New Player " + n, "0711111" + n);
+    }
+
+    @Benchmark
+    public void updatePlayerDisplayName(LeagueState state) {
+        state.gamesLeague.updatePlayerDisplayName(state.randomPlayer(),
+            "Renamed " + state.nextSequence());
+    }
+
+    @Benchmark
+    public int getPlayerId(LeagueState state) {
+        return state.gamesLeague.getPlayerId(state.data.emails[state.randomPlayerIndex()]);
+    }
+
+    @Benchmark
+    public String getPlayerDisplayName(LeagueState state) {
+        return state.gamesLeague.getPlayerDisplayName(state.randomPlayer());
+    }
+
+    @Benchmark
+    public int[] getPlayerIds(LeagueState state) {
+        return state.gamesLeague.getPlayerIds();
+    }
+
+    @Benchmark
+    public int[] getPlayerLeagues(LeagueState state) {
+        return state.gamesLeague.getPlayerLeagues(state.randomPlayer());
+    }
+
+    @Benchmark
+    public int[] getPlayerOwnedLeagues(LeagueState state) {
+        return state.gamesLeague.getPlayerOwnedLeagues(state.randomPlayer());
+    }
+
+    @Benchmark
+    public int[] getPlayerInvites(LeagueState state) {
+        return state.gamesLeague.getPlayerInvites(state.randomPlayer());
+    }
+
+    @Benchmark
+    public int getPlayerRoundsPlayed(LeagueState state) {
+        return state.gamesLeague.getPlayerRoundsPlayed(state.randomPlayer());
+    }
+
+    @Benchmark
+    public double getPlayerRoundsPercentage(LeagueState state) {
+        return state.gamesLeague.getPlayerRoundsPercentage(state.randomPlayer());
+    }
+}
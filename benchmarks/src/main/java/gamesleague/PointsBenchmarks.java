@@ -0,0 +1,90 @@
+package gamesleague;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Day, week, month and year statuses, points and rankings of random leagues
+ * on random days of the history. Rankings are cached, so after warm-up the
+ * ranking benchmarks mostly measure cache hits; see getRankingCacheStats.
+ * Each runs with every league playing WORDMASTER and then DICEROLL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointsBenchmarks {
+
+    @Benchmark
+    public Status getDayStatus(GameTypeLeagueState state) {
+        return state.gamesLeague.getDayStatus(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getDayScores(GameTypeLeagueState state) {
+        return state.gamesLeague.getDayScores(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getDayPoints(GameTypeLeagueState state) {
+        return state.gamesLeague.getDayPoints(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getDayRanking(GameTypeLeagueState state) {
+        return state.gamesLeague.getDayRanking(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public Status getWeekStatus(GameTypeLeagueState state) {
+        return state.gamesLeague.getWeekStatus(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getWeekPoints(GameTypeLeagueState state) {
+        return state.gamesLeague.getWeekPoints(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getWeekRanking(GameTypeLeagueState state) {
+        return state.gamesLeague.getWeekRanking(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public Status getMonthStatus(GameTypeLeagueState state) {
+        return state.gamesLeague.getMonthStatus(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getMonthPoints(GameTypeLeagueState state) {
+        return state.gamesLeague.getMonthPoints(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getMonthRanking(GameTypeLeagueState state) {
+        return state.gamesLeague.getMonthRanking(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public Status getYearStatus(GameTypeLeagueState state) {
+        return state.gamesLeague.getYearStatus(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getYearPoints(GameTypeLeagueState state) {
+        return state.gamesLeague.getYearPoints(state.randomLeague(), state.randomDay());
+    }
+
+    @Benchmark
+    public int[] getYearRanking(GameTypeLeagueState state) {
+        return state.gamesLeague.getYearRanking(state.randomLeague(), state.randomDay());
+    }
+}
@@ -0,0 +1,76 @@
+package gamesleague;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RankingEngine on its own, without the league or the ranking cache, for
+ * leagues of n players whose points spread over pointsRange values: a few
+ * for day points, thousands for a season's totals. Whether the engine counts
+ * or radix sorts depends on the range against n, so the grid crosses that
+ * threshold for each n. A few arrays of points are drawn and used in turn,
+ * so the branches do not learn a single one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RankingBenchmarks {
+
+    private static final int ARRAYS = 16;
+
+    @State(Scope.Benchmark)
+    public static class Points {
+
+        @Param({"10", "1000", "100000"})
+        public int n;
+
+        @Param({"16", "4096", "65536", "4194304"})
+        public int pointsRange;
+
+        @Param("42")
+        public long seed;
+
+        int[][] points;
+        int next = 0;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            SplittableRandom random = new SplittableRandom(seed);
+            points = new int[ARRAYS][n];
+            for (int[] array : points) {
+                for (int i = 0; i < n; i++) {
+                    array[i] = random.nextInt(pointsRange);
+                }
+                // span the whole range, as the engine decides on max - min
+                array[0] = 0;
+                array[n - 1] = pointsRange - 1;
+            }
+        }
+
+        int[] next() {
+            int[] array = points[next];
+            next = (next + 1) % ARRAYS;
+            return array;
+        }
+    }
+
+    @Benchmark
+    public int[] rank(Points points) {
+        return RankingEngine.rank(points.next());
+    }
+}
@@ -0,0 +1,106 @@
+package gamesleague;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * League table reads during a burst of game reports, on a
+ * ConcurrentGamesLeague: three threads read week points and rankings while
+ * one registers reports for the current day, pausing writeBackoff JMH CPU
+ * tokens between them (0 writes flat out). With snapshots the tables are read
+ * from the league's current version without locking, so the readers'
+ * throughput should stay flat as the write rate grows; locked reads them
+ * under the league stripe every time, for comparison.
+ * <p>
+ * JMH reports the throughput of each method of the group separately.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmarks {
+
+    @State(Scope.Group)
+    public static class Target {
+
+        @Param({"snapshots", "locked"})
+        public String reads;
+
+        @Param({"10000", "1000", "100", "0"})
+        public long writeBackoff;
+
+        ConcurrentGamesLeague league;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) {
+            league = new ConcurrentGamesLeague(state.gamesLeague, 64, reads.equals("snapshots"));
+        }
+    }
+
+    /**
+     * The calls made by one thread; LeagueState's random is not thread safe.
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+
+        private static final AtomicInteger THREADS = new AtomicInteger();
+
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setup(LeagueState state) {
+            random = new SplittableRandom(state.seed + 3 + THREADS.getAndIncrement());
+        }
+
+        int leagueIndex(LeagueState state) {
+            return random.nextInt(state.data.leagueIds.length);
+        }
+
+        int day(LeagueState state) {
+            return state.data.firstDay + random.nextInt(state.data.lastDay - state.data.firstDay + 1);
+        }
+
+        int member(LeagueState state, int leagueIndex) {
+            int[] members = state.members[leagueIndex];
+            return members[random.nextInt(members.length)];
+        }
+    }
+
+    @Benchmark
+    @Group("reports")
+    @GroupThreads(3)
+    public void readWeekTable(LeagueState state, Target target, Caller caller, Blackhole blackhole) {
+        int leagueId = state.data.leagueIds[caller.leagueIndex(state)];
+        int day = caller.day(state);
+        blackhole.consume(target.league.getWeekPoints(leagueId, day));
+        blackhole.consume(target.league.getWeekRanking(leagueId, day));
+    }
+
+    @Benchmark
+    @Group("reports")
+    @GroupThreads(1)
+    public void registerGameReport(LeagueState state, Target target, Caller caller) {
+        Blackhole.consumeCPU(target.writeBackoff);
+        int leagueIndex = caller.leagueIndex(state);
+        target.league.registerGameReport(state.data.lastDay, state.data.leagueIds[leagueIndex],
+            caller.member(state, leagueIndex), BenchmarkData.report(caller.random));
+    }
+}
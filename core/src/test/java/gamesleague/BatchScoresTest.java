@@ -0,0 +1,165 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the batch registerDayScores against the same entries registered one
+ * call at a time: each entry must be applied or fail as its single call
+ * does, in batch order within a league, and leave the same scores, points,
+ * statuses and round stats. Batches mix unknown league IDs, scores of the
+ * wrong length, days already closed or past their deadline, and several
+ * entries for one league, over enough leagues to split between workers.
+ */
+class BatchScoresTest {
+
+    private static final int SEEDS = 10;
+    private static final int LEAGUES = 150;
+    private static final int PLAYERS = 6;
+    private static final int ENTRIES = 400;
+    private static final int TODAY = Fixtures.epochDay(2024, 3, 13);
+    private static final int START = TODAY - 5;
+
+    @Test
+    void batchMatchesSingleCalls() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            GamesLeague batched = setUp();
+            GamesLeague serial = setUp();
+            int[] days = new int[ENTRIES];
+            int[] leagueIds = new int[ENTRIES];
+            int[][] scores = new int[ENTRIES][];
+            for (int i = 0; i < ENTRIES; i++) {
+                // a few IDs match no league
+                leagueIds[i] = 1 + random.nextInt(LEAGUES + 5);
+                days[i] = TODAY - 2 + random.nextInt(3);
+                int members = leagueIds[i] <= LEAGUES ? members(leagueIds[i]) : 3;
+                scores[i] = new int[random.nextInt(8) == 0 ? members + 1 : members];
+                for (int m = 0; m < scores[i].length; m++) {
+                    scores[i][m] = random.nextInt(8);
+                }
+            }
+
+            BatchResult result = batched.registerDayScores(days, leagueIds, scores);
+            String when = "seed " + seed;
+            assertEquals(ENTRIES, result.size(), when);
+            List<Integer> failed = new ArrayList<>();
+            for (int i = 0; i < ENTRIES; i++) {
+                int entry = i;
+                String expected = outcome(
+                    () -> serial.registerDayScores(days[entry], leagueIds[entry], scores[entry]));
+                assertEquals(expected, outcome(result.getFailure(i)), when + " entry " + i);
+                if (!result.isApplied(i)) {
+                    failed.add(i);
+                }
+            }
+            assertEquals(failed.toString(), Arrays.toString(result.getFailedIndexes()), when);
+            assertEquals(ENTRIES - failed.size(), result.getAppliedCount(), when);
+            assertSameState(serial, batched, when);
+        });
+    }
+
+    @Test
+    void entriesForOneLeagueApplyInBatchOrder() {
+        GamesLeague gamesLeague = setUp();
+        int[] days = {TODAY, TODAY, TODAY, TODAY - 1, TODAY - 1, TODAY - 1, TODAY};
+        int[] leagueIds = {1, 2, 1, 1, 1, LEAGUES + 1, 3};
+        // leagues 1, 2 and 3 have 3, 4 and 5 members
+        int[][] scores = {
+            {1, 2, 3}, {3, 4, 5, 6}, {6, 5, 4}, {1, 2}, {4, 4, 4}, {1}, {2, 2, 2, 2, 2},
+        };
+        BatchResult result = gamesLeague.registerDayScores(days, leagueIds, scores);
+
+        // the second entry for league 1 today finds the day closed by the first,
+        // and its wrong-length entry for yesterday leaves the next one to close it
+        assertEquals("applied=4 failed=3", result.toString());
+        assertArrayEquals(new int[] {2, 3, 5}, result.getFailedIndexes());
+        assertEquals(IllegalArgumentException.class, result.getFailure(2).getClass());
+        assertEquals(IllegalArgumentException.class, result.getFailure(3).getClass());
+        assertEquals(IDInvalidException.class, result.getFailure(5).getClass());
+        assertArrayEquals(new int[] {1, LEAGUES + 1}, result.getFailedLeagueIds());
+        assertArrayEquals(new int[] {1, 2, 3}, gamesLeague.getDayScores(1, TODAY));
+        assertArrayEquals(new int[] {4, 4, 4}, gamesLeague.getDayScores(1, TODAY - 1));
+        assertArrayEquals(new int[] {3, 4, 5, 6}, gamesLeague.getDayScores(2, TODAY));
+    }
+
+    @Test
+    void batchArraysMustMatch() {
+        GamesLeague gamesLeague = setUp();
+        assertThrows(IllegalArgumentException.class,
+            () -> gamesLeague.registerDayScores(new int[] {TODAY}, new int[] {1, 2},
+                new int[][] {{1, 2, 3}}));
+    }
+
+    /**
+     * @return LEAGUES leagues of 2 to 5 members started five days ago, with
+     *         game reports on yesterday and today in some of them.
+     */
+    private static GamesLeague setUp() {
+        GamesLeague gamesLeague = new GamesLeague();
+        Fixtures.setToday(gamesLeague, TODAY);
+        int[] players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+        for (int l = 1; l <= LEAGUES; l++) {
+            int leagueId = gamesLeague.createLeague(players[0], "League " + l,
+                l % 2 == 0 ? GameType.WORDMASTER : GameType.DICEROLL);
+            for (int p = 1; p < members(l); p++) {
+                Fixtures.join(gamesLeague, leagueId, p, players[p]);
+            }
+            gamesLeague.setLeagueStartDate(leagueId, START);
+            if (l % 3 == 0) {
+                gamesLeague.registerGameReport(TODAY - 1, leagueId, players[1], "report");
+                gamesLeague.registerGameReport(TODAY, leagueId, players[0], "report");
+            }
+        }
+        return gamesLeague;
+    }
+
+    private static int members(int leagueId) {
+        return 2 + leagueId % 4;
+    }
+
+    private static String outcome(Runnable call) {
+        try {
+            call.run();
+            return "applied";
+        } catch (RuntimeException e) {
+            return outcome(e);
+        }
+    }
+
+    private static String outcome(RuntimeException failure) {
+        return failure == null
+            ? "applied" : failure.getClass().getSimpleName() + ": " + failure.getMessage();
+    }
+
+    private static void assertSameState(GamesLeague expected, GamesLeague actual, String when) {
+        for (int leagueId = 1; leagueId <= LEAGUES; leagueId++) {
+            for (int day = TODAY - 2; day <= TODAY; day++) {
+                String at = when + " league " + leagueId + " day " + day;
+                assertEquals(expected.getDayStatus(leagueId, day), actual.getDayStatus(leagueId, day),
+                    at);
+                assertArrayEquals(expected.getDayScores(leagueId, day), actual.getDayScores(leagueId, day),
+                    at);
+                assertArrayEquals(expected.getDayPoints(leagueId, day), actual.getDayPoints(leagueId, day),
+                    at);
+                assertArrayEquals(expected.getDayRanking(leagueId, day),
+                    actual.getDayRanking(leagueId, day), at);
+            }
+            assertArrayEquals(expected.getWeekPoints(leagueId, TODAY), actual.getWeekPoints(leagueId, TODAY),
+                when + " league " + leagueId);
+        }
+        for (int playerId : expected.getPlayerIds()) {
+            assertEquals(expected.getPlayerRoundsPlayed(playerId), actual.getPlayerRoundsPlayed(playerId),
+                when + " player " + playerId);
+            assertEquals(expected.getPlayerRoundsPercentage(playerId),
+                actual.getPlayerRoundsPercentage(playerId), when + " player " + playerId);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.IsoFields;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the week, month and year of every day in CalendarTable's range, and
+ * a year either side where it falls back to LocalDate, against LocalDate and
+ * IsoFields: the key of each period and its first and last day. Also checks
+ * that GamesLeague.today, which only rereads the date when the clock passes
+ * midnight, turns with the clock's zone across daylight saving changes.
+ */
+class CalendarTableTest {
+
+    private static final int FIRST_DAY = (int) LocalDate.of(CalendarTable.FIRST_YEAR, 1, 1).toEpochDay();
+    private static final int LAST_DAY = (int) LocalDate.of(CalendarTable.LAST_YEAR, 12, 31).toEpochDay();
+
+    @Test
+    void monthsAndYearsMatchLocalDate() {
+        for (int day = FIRST_DAY - 366; day <= LAST_DAY + 366; day++) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            String when = date.toString();
+            assertEquals(date.getYear() * 12 + date.getMonthValue() - 1, Period.MONTH.key(day), when);
+            assertEquals(epochDay(date.withDayOfMonth(1)), Period.MONTH.firstDay(day), when);
+            assertEquals(epochDay(date.withDayOfMonth(date.lengthOfMonth())), Period.MONTH.lastDay(day),
+                when);
+            assertEquals(date.getYear(), Period.YEAR.key(day), when);
+            assertEquals(epochDay(date.withDayOfYear(1)), Period.YEAR.firstDay(day), when);
+            assertEquals(epochDay(date.withDayOfYear(date.lengthOfYear())), Period.YEAR.lastDay(day), when);
+        }
+    }
+
+    @Test
+    void weeksMatchIsoWeeks() {
+        for (int day = FIRST_DAY - 366; day <= LAST_DAY + 366; day++) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            String when = date.toString();
+            LocalDate monday = date.with(DayOfWeek.MONDAY);
+            assertEquals(epochDay(monday), Period.WEEK.firstDay(day), when);
+            assertEquals(epochDay(monday.plusDays(6)), Period.WEEK.lastDay(day), when);
+            // keys run on by one from week to week, so each ISO week has its own
+            assertEquals(Period.WEEK.key(epochDay(monday)), Period.WEEK.key(day), when);
+            assertEquals(Period.WEEK.key(epochDay(monday.minusWeeks(1))) + 1, Period.WEEK.key(day), when);
+            assertEquals(isoWeek(date), isoWeek(monday), when);
+        }
+    }
+
+    @Test
+    void weeksAcrossTheYearEnd() {
+        // 2020 and 2026 have an ISO week 53; 2021 does not
+        assertWeek(LocalDate.of(2020, 12, 31), LocalDate.of(2020, 12, 28), "2020-W53");
+        assertWeek(LocalDate.of(2021, 1, 3), LocalDate.of(2020, 12, 28), "2020-W53");
+        assertWeek(LocalDate.of(2021, 1, 4), LocalDate.of(2021, 1, 4), "2021-W1");
+        assertWeek(LocalDate.of(2021, 12, 31), LocalDate.of(2021, 12, 27), "2021-W52");
+        assertWeek(LocalDate.of(2026, 12, 31), LocalDate.of(2026, 12, 28), "2026-W53");
+        assertWeek(LocalDate.of(2027, 1, 3), LocalDate.of(2026, 12, 28), "2026-W53");
+        // 2008-12-29 starts week 1 of 2009
+        assertWeek(LocalDate.of(2008, 12, 31), LocalDate.of(2008, 12, 29), "2009-W1");
+    }
+
+    @Test
+    void rangeLimits() {
+        for (int day : new int[] {FIRST_DAY - 1, FIRST_DAY, LAST_DAY, LAST_DAY + 1}) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            String when = date.toString();
+            assertEquals(date.getYear(), Period.YEAR.key(day), when);
+            assertEquals(date.getYear() * 12 + date.getMonthValue() - 1, Period.MONTH.key(day), when);
+            assertEquals(epochDay(date.withDayOfMonth(1)), Period.MONTH.firstDay(day), when);
+            assertEquals(epochDay(date.withDayOfYear(date.lengthOfYear())), Period.YEAR.lastDay(day), when);
+        }
+    }
+
+    @Test
+    void todayTurnsAtMidnightInTheClockZone() {
+        ZoneId london = ZoneId.of("Europe/London");
+        MovingClock clock = new MovingClock(london);
+        GamesLeague gamesLeague = new GamesLeague();
+        gamesLeague.setClock(clock);
+        // the spring change shortens a day to 23 hours and the autumn one lengthens it to 25
+        for (LocalDate from : new LocalDate[] {LocalDate.of(2024, 3, 29), LocalDate.of(2024, 10, 25)}) {
+            Instant end = from.plusDays(4).atStartOfDay(london).toInstant();
+            for (Instant now = from.atStartOfDay(london).toInstant(); now.isBefore(end);
+                    now = now.plusSeconds(15 * 60)) {
+                clock.instant = now;
+                assertEquals(epochDay(LocalDate.ofInstant(now, london)), gamesLeague.today(),
+                    now.toString());
+                clock.instant = now.minusMillis(1);
+                assertEquals(epochDay(LocalDate.ofInstant(now.minusMillis(1), london)),
+                    gamesLeague.today(), now.minusMillis(1).toString());
+            }
+        }
+        // a new clock is read afresh, even at the same instant
+        Fixtures.setToday(gamesLeague, FIRST_DAY);
+        assertEquals(FIRST_DAY, gamesLeague.today());
+        gamesLeague.setClock(Clock.fixed(Fixtures.startOf(FIRST_DAY), ZoneOffset.ofHours(-1)));
+        assertEquals(FIRST_DAY - 1, gamesLeague.today());
+    }
+
+    private static void assertWeek(LocalDate date, LocalDate monday, String isoWeek) {
+        int day = epochDay(date);
+        assertEquals(isoWeek, isoWeek(date), date.toString());
+        assertEquals(epochDay(monday), Period.WEEK.firstDay(day), date.toString());
+        assertEquals(Period.WEEK.key(epochDay(monday)), Period.WEEK.key(day), date.toString());
+    }
+
+    private static String isoWeek(LocalDate date) {
+        return date.get(IsoFields.WEEK_BASED_YEAR) + "-W" + date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    /**
+     * A clock the test moves by hand.
+     */
+    private static final class MovingClock extends Clock {
+
+        private final ZoneId zone;
+        Instant instant = Instant.EPOCH;
+
+        MovingClock(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a cloned league and its source stay independent: seeded random
+ * calls on one leave the members, owners, invites, active flags and scores
+ * of the other as they were.
+ */
+class CloneLeagueTest {
+
+    private static final int SEEDS = 20;
+    private static final int STEPS = 60;
+    private static final int PLAYERS = 10;
+    private static final int FIRST_DAY = Fixtures.epochDay(2024, 9, 2);
+
+    @Test
+    void changingOneLeavesTheOther() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            GamesLeague gamesLeague = new GamesLeague();
+            Fixtures.setToday(gamesLeague, FIRST_DAY);
+            int[] players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+            int source = gamesLeague.createLeague(players[0], "Source", GameType.DICEROLL);
+            for (int p = 1; p < PLAYERS; p++) {
+                gamesLeague.invitePlayerToLeague(source, Fixtures.email(p));
+                if (p < PLAYERS - 3) {
+                    gamesLeague.acceptInviteToLeague(source, players[p]);
+                    if (p % 3 == 0) {
+                        gamesLeague.addOwner(source, players[p]);
+                    }
+                }
+            }
+            gamesLeague.setLeagueStartDate(source, FIRST_DAY);
+            int clone = gamesLeague.cloneLeague(source, "Clone");
+            gamesLeague.setLeagueStartDate(clone, FIRST_DAY);
+            Fixtures.setToday(gamesLeague, FIRST_DAY + 1);
+
+            String when = "seed " + seed;
+            State sourceBefore = new State(gamesLeague, source, players);
+            State cloneBefore = new State(gamesLeague, clone, players);
+            for (int step = 0; step < STEPS; step++) {
+                change(gamesLeague, clone, players, random);
+            }
+            State cloneAfter = new State(gamesLeague, clone, players);
+            assertNotEquals(cloneBefore, cloneAfter, when + " clone changed");
+            assertEquals(sourceBefore, new State(gamesLeague, source, players), when + " source");
+
+            for (int step = 0; step < STEPS; step++) {
+                change(gamesLeague, source, players, random);
+            }
+            assertNotEquals(sourceBefore, new State(gamesLeague, source, players),
+                when + " source changed");
+            assertEquals(cloneAfter, new State(gamesLeague, clone, players), when + " clone");
+        });
+    }
+
+    /**
+     * One random call on the league. Calls the GamesLeague rejects (an owner
+     * already, no invitation, the last owner) are fine, they change nothing.
+     */
+    private static void change(GamesLeague gamesLeague, int leagueId, int[] players,
+            SplittableRandom random) {
+        int p = random.nextInt(PLAYERS);
+        int playerId = players[p];
+        try {
+            switch (random.nextInt(7)) {
+                case 0:
+                    gamesLeague.invitePlayerToLeague(leagueId, Fixtures.email(p));
+                    break;
+                case 1:
+                    gamesLeague.acceptInviteToLeague(leagueId, playerId);
+                    break;
+                case 2:
+                    gamesLeague.removeInviteFromLeague(leagueId, Fixtures.email(p));
+                    break;
+                case 3:
+                    gamesLeague.addOwner(leagueId, playerId);
+                    break;
+                case 4:
+                    gamesLeague.removeOwner(leagueId, playerId);
+                    break;
+                case 5:
+                    gamesLeague.setLeaguePlayerInactive(leagueId, playerId);
+                    break;
+                default:
+                    int[] scores = new int[gamesLeague.getLeaguePlayers(leagueId).length];
+                    for (int m = 0; m < scores.length; m++) {
+                        scores[m] = random.nextInt(7);
+                    }
+                    gamesLeague.registerDayScores(FIRST_DAY, leagueId, scores);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // rejected, so nothing changed
+        }
+    }
+
+    /**
+     * What a league and its players' indexes say about it.
+     */
+    private static final class State {
+
+        private final List<Object> values = new ArrayList<>();
+
+        State(GamesLeague gamesLeague, int leagueId, int[] players) {
+            int[] members = gamesLeague.getLeaguePlayers(leagueId);
+            add(members);
+            add(gamesLeague.getLeagueOwners(leagueId));
+            add(gamesLeague.getLeaguePlayerInvites(leagueId));
+            values.add(String.join(",", gamesLeague.getLeagueEmailInvites(leagueId)));
+            for (int member : members) {
+                values.add(gamesLeague.isLeaguePlayerActive(leagueId, member));
+            }
+            add(gamesLeague.getDayScores(leagueId, FIRST_DAY));
+            add(gamesLeague.getDayPoints(leagueId, FIRST_DAY));
+            for (int playerId : players) {
+                values.add(contains(gamesLeague.getPlayerLeagues(playerId), leagueId));
+                values.add(contains(gamesLeague.getPlayerOwnedLeagues(playerId), leagueId));
+                values.add(contains(gamesLeague.getPlayerInvites(playerId), leagueId));
+            }
+        }
+
+        private void add(int[] array) {
+            values.add(Arrays.toString(array));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof State && values.equals(((State) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return values.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return values.toString();
+        }
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        for (int i : ids) {
+            if (i == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,535 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks ConcurrentGamesLeague against a plain GamesLeague: on one thread,
+ * every call of seeded random sequences must answer the same, and with
+ * writers and readers running at once on the same and on different leagues,
+ * the writers must leave the state a serial replay of their calls does while
+ * the readers only ever see consistent tables and players. The optimistic
+ * player read is also checked on its own, for a query that races a writer.
+ */
+class ConcurrentGamesLeagueTest {
+
+    private static final int SEEDS = 10;
+    private static final int STEPS = 400;
+    private static final int PLAYERS = 8;
+    private static final int TODAY = Fixtures.epochDay(2024, 5, 15);
+    private static final int START = TODAY - 10;
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 2;
+    private static final int WRITES = 400;
+    private static final int LEAGUES = 3;
+    // players a writer signs up, reports for and renames; no other writer touches them
+    private static final int PLAYERS_PER_WRITER = 3;
+
+    // Optimistic reads
+
+    @Test
+    void optimisticReadTakesNoLock() {
+        StampedLock lock = new StampedLock();
+        AtomicInteger calls = new AtomicInteger();
+        String result = ConcurrentGamesLeague.readOptimistically(lock, () -> {
+            calls.incrementAndGet();
+            assertFalse(lock.isReadLocked());
+            return "read";
+        });
+        assertEquals("read", result);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void staleOptimisticReadIsRunAgainUnderTheLock() {
+        StampedLock lock = new StampedLock();
+        AtomicInteger calls = new AtomicInteger();
+        String result = ConcurrentGamesLeague.readOptimistically(lock, () -> {
+            if (calls.incrementAndGet() == 1) {
+                // a writer gets in while the query runs
+                lock.unlockWrite(lock.writeLock());
+                return "stale";
+            }
+            assertTrue(lock.isReadLocked());
+            return "fresh";
+        });
+        assertEquals("fresh", result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void tornReadExceptionIsDroppedAndTheQueryRunAgain() {
+        StampedLock lock = new StampedLock();
+        AtomicInteger calls = new AtomicInteger();
+        int[] table = {1, 2, 3};
+        int result = ConcurrentGamesLeague.readOptimistically(lock, () -> {
+            if (calls.incrementAndGet() == 1) {
+                lock.unlockWrite(lock.writeLock());
+                // what a read of a table being replaced may throw
+                return table[table.length];
+            }
+            return table[0];
+        });
+        assertEquals(1, result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void exceptionWithoutAWriterIsThrown() {
+        StampedLock lock = new StampedLock();
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(IDInvalidException.class, () -> ConcurrentGamesLeague.readOptimistically(lock,
+            () -> {
+                calls.incrementAndGet();
+                throw new IDInvalidException("No player with ID 9.");
+            }));
+        assertEquals(1, calls.get());
+    }
+
+    // One thread
+
+    /**
+     * Makes the same random calls on a ConcurrentGamesLeague, with its league
+     * table versions, and on a GamesLeague, and compares every answer and
+     * every exception, reading tables after each call so cached answers are
+     * checked against changes made since.
+     */
+    @Test
+    void answersLikeGamesLeague() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            GamesLeague inner = new GamesLeague();
+            Fixtures.setToday(inner, START);
+            ConcurrentGamesLeague concurrent = new ConcurrentGamesLeague(inner, 4);
+            GamesLeague plain = new GamesLeague();
+            Fixtures.setToday(plain, START);
+            int today = START;
+            Same same = new Same(concurrent, plain);
+            same.check("players", g -> Fixtures.createPlayers(g, PLAYERS));
+            for (int l = 0; l < 2; l++) {
+                String name = "League " + l;
+                int leagueId = same.check("create league", g -> g.createLeague(1, name,
+                    GameType.DICEROLL));
+                for (int p = 1; p < PLAYERS; p += 1 + l) {
+                    int playerId = p + 1;
+                    int index = p;
+                    same.check("join", g -> {
+                        Fixtures.join(g, leagueId, index, playerId);
+                        return null;
+                    });
+                }
+                same.check("start", g -> {
+                    g.setLeagueStartDate(leagueId, START);
+                    return null;
+                });
+            }
+            for (int step = 0; step < STEPS; step++) {
+                String when = "seed " + seed + " step " + step;
+                int leagueId = 1 + random.nextInt(3);
+                int playerId = 1 + random.nextInt(PLAYERS + 1);
+                int day = today - random.nextInt(3);
+                int op = random.nextInt(100);
+                if (op < 30) {
+                    String report = "report " + step;
+                    same.check(when + " report", g -> {
+                        g.registerGameReport(day, leagueId, playerId, report);
+                        return null;
+                    });
+                } else if (op < 45) {
+                    int[] scores = new int[1 + random.nextInt(PLAYERS)];
+                    for (int m = 0; m < scores.length; m++) {
+                        scores[m] = random.nextInt(7);
+                    }
+                    same.check(when + " scores", g -> {
+                        g.registerDayScores(day, leagueId, scores);
+                        return null;
+                    });
+                } else if (op < 50) {
+                    same.check(when + " void", g -> {
+                        g.voidDayPoints(day, leagueId);
+                        return null;
+                    });
+                } else if (op < 55) {
+                    boolean active = random.nextBoolean();
+                    same.check(when + " active", g -> {
+                        if (active) {
+                            g.setLeaguePlayerActive(leagueId, playerId);
+                        } else {
+                            g.setLeaguePlayerInactive(leagueId, playerId);
+                        }
+                        return null;
+                    });
+                } else if (op < 60) {
+                    int index = playerId - 1;
+                    same.check(when + " join", g -> {
+                        Fixtures.join(g, leagueId, index, playerId);
+                        return null;
+                    });
+                } else if (op < 63) {
+                    String name = "renamed" + step;
+                    same.check(when + " rename", g -> {
+                        g.updatePlayerDisplayName(playerId, name);
+                        return null;
+                    });
+                } else if (op < 65) {
+                    same.check(when + " reset", g -> {
+                        g.resetLeague(leagueId);
+                        g.setLeagueStartDate(leagueId, START);
+                        return null;
+                    });
+                } else if (op < 67) {
+                    same.check(when + " clone", g -> g.cloneLeague(leagueId, "Clone " + leagueId));
+                } else if (op < 70) {
+                    today++;
+                    Fixtures.setToday(inner, today);
+                    Fixtures.setToday(plain, today);
+                }
+                same.checkTables(when, leagueId, today - random.nextInt(3));
+                same.checkPlayer(when, playerId);
+            }
+            for (int leagueId : plain.getLeagueIds()) {
+                for (int day = START; day <= today; day++) {
+                    same.checkTables("seed " + seed + " end", leagueId, day);
+                }
+            }
+        });
+    }
+
+    /**
+     * Calls made on both GamesLeagues, which must give the same answer or
+     * throw the same exception.
+     */
+    private static final class Same {
+
+        private final ConcurrentGamesLeague concurrent;
+        private final GamesLeague plain;
+
+        Same(ConcurrentGamesLeague concurrent, GamesLeague plain) {
+            this.concurrent = concurrent;
+            this.plain = plain;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T check(String when, Function<GamesLeagueInterface, T> call) {
+            Object expected = outcome(plain, call);
+            Object actual = outcome(concurrent, call);
+            assertEquals(text(expected), text(actual), when);
+            return expected instanceof RuntimeException ? null : (T) expected;
+        }
+
+        void checkTables(String when, int leagueId, int day) {
+            String at = when + " league " + leagueId + " day " + day;
+            check(at + " players", g -> g.getLeaguePlayers(leagueId));
+            check(at + " status", g -> g.getDayStatus(leagueId, day));
+            check(at + " scores", g -> g.getDayScores(leagueId, day));
+            check(at + " points", g -> g.getDayPoints(leagueId, day));
+            check(at + " ranking", g -> g.getDayRanking(leagueId, day));
+            check(at + " week status", g -> g.getWeekStatus(leagueId, day));
+            check(at + " week points", g -> g.getWeekPoints(leagueId, day));
+            check(at + " week ranking", g -> g.getWeekRanking(leagueId, day));
+            check(at + " month ranking", g -> g.getMonthRanking(leagueId, day));
+            check(at + " year status", g -> g.getYearStatus(leagueId, day));
+            check(at + " year ranking", g -> g.getYearRanking(leagueId, day));
+            Object table = outcome(concurrent, g -> ((ConcurrentGamesLeague) g).getWeekTable(leagueId,
+                day));
+            if (table instanceof LeagueTable) {
+                LeagueTable week = (LeagueTable) table;
+                assertArrayEquals(plain.getLeaguePlayers(leagueId), week.getPlayers(), at);
+                assertEquals(plain.getWeekStatus(leagueId, day), week.getStatus(), at);
+                assertArrayEquals(plain.getWeekPoints(leagueId, day), week.getPoints(), at);
+                assertArrayEquals(plain.getWeekRanking(leagueId, day), week.getRanking(), at);
+            } else {
+                assertEquals(text(outcome(plain, g -> g.getWeekPoints(leagueId, day))), text(table),
+                    at + " week table");
+            }
+        }
+
+        void checkPlayer(String when, int playerId) {
+            String at = when + " player " + playerId;
+            check(at + " email", g -> g.getPlayerEmail(playerId));
+            check(at + " name", g -> g.getPlayerDisplayName(playerId));
+            check(at + " leagues", g -> g.getPlayerLeagues(playerId));
+            check(at + " invites", g -> g.getPlayerInvites(playerId));
+            check(at + " rounds", g -> g.getPlayerRoundsPlayed(playerId));
+        }
+
+        private static Object outcome(GamesLeagueInterface gamesLeague,
+                Function<GamesLeagueInterface, ?> call) {
+            try {
+                return call.apply(gamesLeague);
+            } catch (RuntimeException e) {
+                return e;
+            }
+        }
+
+        private static String text(Object outcome) {
+            if (outcome instanceof RuntimeException) {
+                return outcome.getClass().getSimpleName();
+            }
+            if (outcome instanceof int[]) {
+                return Arrays.toString((int[]) outcome);
+            }
+            return String.valueOf(outcome);
+        }
+    }
+
+    // Many threads
+
+    /**
+     * Writers report, register and void scores, rename players and sign up
+     * and invite new emails on the same leagues at once, while readers read
+     * league tables and players. Each writer has its own players and its own
+     * league days to close, so the writers' calls commute and a serial replay
+     * of them, writer by writer, must end in the same state.
+     */
+    @Test
+    void concurrentWritersMatchSerialReplay() throws Exception {
+        Fixtures.forEachSeed(3, (seed, random) -> {
+            List<List<Write>> writes = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                writes.add(writes(w, new SplittableRandom(seed * 31 + w)));
+            }
+
+            GamesLeague inner = new GamesLeague();
+            Fixtures.setToday(inner, TODAY);
+            ConcurrentGamesLeague concurrent = new ConcurrentGamesLeague(inner, 2);
+            int[] leagueIds = setUp(concurrent);
+            ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch writersDone = new CountDownLatch(WRITERS);
+            List<Thread> threads = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                List<Write> own = writes.get(w);
+                threads.add(new Thread(() -> {
+                    try {
+                        start.await();
+                        for (Write write : own) {
+                            write.apply(concurrent);
+                        }
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    } finally {
+                        writersDone.countDown();
+                    }
+                }));
+            }
+            for (int r = 0; r < READERS; r++) {
+                SplittableRandom readerRandom = new SplittableRandom(seed * 97 + r);
+                threads.add(new Thread(() -> {
+                    try {
+                        start.await();
+                        while (writersDone.getCount() > 0) {
+                            read(concurrent, leagueIds, readerRandom);
+                        }
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join(60_000);
+                assertFalse(thread.isAlive(), "seed " + seed + " thread stuck");
+            }
+            if (!failures.isEmpty()) {
+                throw new AssertionError("seed " + seed + " failed in a thread", failures.peek());
+            }
+
+            GamesLeague serial = new GamesLeague();
+            Fixtures.setToday(serial, TODAY);
+            setUp(serial);
+            for (List<Write> own : writes) {
+                for (Write write : own) {
+                    write.apply(serial);
+                }
+            }
+            assertSameState(serial, concurrent, leagueIds, "seed " + seed);
+        });
+    }
+
+    /**
+     * A call made by one writer, replayed the same on the serial GamesLeague.
+     */
+    private interface Write {
+        void apply(GamesLeagueInterface gamesLeague);
+    }
+
+    private static int[] setUp(GamesLeagueInterface gamesLeague) {
+        int players = WRITERS * PLAYERS_PER_WRITER;
+        int[] playerIds = Fixtures.createPlayers(gamesLeague, players);
+        int[] leagueIds = new int[LEAGUES];
+        for (int l = 0; l < LEAGUES; l++) {
+            leagueIds[l] = gamesLeague.createLeague(playerIds[0], "League " + l,
+                l % 2 == 0 ? GameType.WORDMASTER : GameType.DICEROLL);
+            for (int p = 1; p < players; p++) {
+                Fixtures.join(gamesLeague, leagueIds[l], p, playerIds[p]);
+            }
+            gamesLeague.setLeagueStartDate(leagueIds[l], START);
+        }
+        return leagueIds;
+    }
+
+    /**
+     * @return The calls of writer w. League days that can still be closed,
+     *         yesterday and today, are dealt round the writers, and each
+     *         writer reports for and renames only its own players.
+     */
+    private static List<Write> writes(int w, SplittableRandom random) {
+        List<Write> writes = new ArrayList<>();
+        int members = WRITERS * PLAYERS_PER_WRITER;
+        List<int[]> ownDays = new ArrayList<>();
+        for (int l = 0; l < LEAGUES; l++) {
+            for (int d = 0; d < 2; d++) {
+                if ((l * 2 + d) % WRITERS == w) {
+                    ownDays.add(new int[] {l + 1, TODAY - 1 + d});
+                }
+            }
+        }
+        for (int i = 0; i < WRITES; i++) {
+            int op = random.nextInt(100);
+            int player = w * PLAYERS_PER_WRITER + random.nextInt(PLAYERS_PER_WRITER);
+            int playerId = player + 1;
+            int leagueId = 1 + random.nextInt(LEAGUES);
+            int day = TODAY - random.nextInt(2);
+            if (op < 60) {
+                String report = "w" + w + " report " + i;
+                writes.add(g -> attempt(() -> g.registerGameReport(day, leagueId, playerId, report)));
+            } else if (op < 75 && !ownDays.isEmpty()) {
+                int[] own = ownDays.get(random.nextInt(ownDays.size()));
+                int[] scores = new int[members];
+                for (int m = 0; m < members; m++) {
+                    scores[m] = random.nextInt(7);
+                }
+                if (random.nextInt(4) == 0) {
+                    writes.add(g -> attempt(() -> g.voidDayPoints(own[1], own[0])));
+                } else {
+                    writes.add(g -> attempt(() -> g.registerDayScores(own[1], own[0], scores)));
+                }
+            } else if (op < 85) {
+                String name = "w" + w + "name" + i;
+                writes.add(g -> g.updatePlayerDisplayName(playerId, name));
+            } else if (op < 92) {
+                String email = "w" + w + "signup" + i + "@example.com";
+                String displayName = "w" + w + "new" + i;
+                writes.add(g -> g.createPlayer(email, displayName, "New Player " + displayName, ""));
+            } else {
+                String email = "w" + w + "invite" + i + "@example.com";
+                boolean takeBack = random.nextBoolean();
+                writes.add(g -> {
+                    g.invitePlayerToLeague(leagueId, email);
+                    if (takeBack) {
+                        g.removeInviteFromLeague(leagueId, email);
+                    }
+                });
+            }
+        }
+        return writes;
+    }
+
+    private static void attempt(Runnable call) {
+        try {
+            call.run();
+        } catch (IllegalArgumentException | IllegalOperationException e) {
+            // a day closed already; the same call fails in the serial replay
+        }
+    }
+
+    /**
+     * Reads a random league's tables and the set-up players, checking what
+     * must hold whatever the writers are doing.
+     */
+    private static void read(ConcurrentGamesLeague gamesLeague, int[] leagueIds,
+            SplittableRandom random) {
+        int members = WRITERS * PLAYERS_PER_WRITER;
+        int leagueId = leagueIds[random.nextInt(leagueIds.length)];
+        int day = TODAY - random.nextInt(3);
+        LeagueTable table = random.nextBoolean()
+            ? gamesLeague.getDayTable(leagueId, day) : gamesLeague.getWeekTable(leagueId, day);
+        assertEquals(members, table.getPlayers().length);
+        int[] points = table.getPoints();
+        assertTrue(points.length == 0 || points.length == members, Arrays.toString(points));
+        assertArrayEquals(Fixtures.naiveRank(points), table.getRanking(),
+            "points " + Arrays.toString(points));
+        int[] dayPoints = gamesLeague.getDayPoints(leagueId, day);
+        assertTrue(dayPoints.length == 0 || dayPoints.length == members);
+        assertEquals(members, gamesLeague.getLeaguePlayers(leagueId).length);
+
+        int player = random.nextInt(members);
+        int playerId = player + 1;
+        assertEquals(Fixtures.email(player), gamesLeague.getPlayerEmail(playerId));
+        assertEquals(playerId, gamesLeague.getPlayerId(Fixtures.email(player)));
+        String report = gamesLeague.getGameReport(day, leagueId, playerId);
+        int writer = player / PLAYERS_PER_WRITER;
+        assertTrue(report.isEmpty() || report.startsWith("w" + writer + " "), report);
+    }
+
+    private static void assertSameState(GamesLeague expected, ConcurrentGamesLeague actual,
+            int[] leagueIds, String when) {
+        int members = WRITERS * PLAYERS_PER_WRITER;
+        for (int leagueId : leagueIds) {
+            String league = when + " league " + leagueId;
+            assertArrayEquals(expected.getLeaguePlayers(leagueId), actual.getLeaguePlayers(leagueId),
+                league);
+            assertEquals(sorted(expected.getLeagueEmailInvites(leagueId)),
+                sorted(actual.getLeagueEmailInvites(leagueId)), league);
+            for (int day = START; day <= TODAY; day++) {
+                String at = league + " day " + day;
+                assertEquals(expected.getDayStatus(leagueId, day), actual.getDayStatus(leagueId, day),
+                    at);
+                assertArrayEquals(expected.getDayScores(leagueId, day),
+                    actual.getDayScores(leagueId, day), at);
+                assertArrayEquals(expected.getDayPoints(leagueId, day),
+                    actual.getDayPoints(leagueId, day), at);
+                assertArrayEquals(expected.getDayRanking(leagueId, day),
+                    actual.getDayRanking(leagueId, day), at);
+                for (int playerId = 1; playerId <= members; playerId++) {
+                    assertEquals(expected.getGameReport(day, leagueId, playerId),
+                        actual.getGameReport(day, leagueId, playerId), at + " player " + playerId);
+                }
+            }
+            assertArrayEquals(expected.getWeekPoints(leagueId, TODAY),
+                actual.getWeekPoints(leagueId, TODAY), league);
+            assertArrayEquals(expected.getMonthRanking(leagueId, TODAY),
+                actual.getMonthRanking(leagueId, TODAY), league);
+            assertEquals(expected.getYearStatus(leagueId, TODAY), actual.getYearStatus(leagueId, TODAY),
+                league);
+        }
+        assertEquals(expected.getPlayerIds().length, actual.getPlayerIds().length, when);
+        for (int playerId : expected.getPlayerIds()) {
+            String email = expected.getPlayerEmail(playerId);
+            int actualId = actual.getPlayerId(email);
+            String player = when + " " + email;
+            assertTrue(actualId != -1, player);
+            assertEquals(expected.getPlayerDisplayName(playerId), actual.getPlayerDisplayName(actualId),
+                player);
+            assertEquals(expected.getPlayerRoundsPlayed(playerId),
+                actual.getPlayerRoundsPlayed(actualId), player);
+            assertArrayEquals(expected.getPlayerLeagues(playerId), actual.getPlayerLeagues(actualId),
+                player);
+        }
+    }
+
+    private static List<String> sorted(String[] values) {
+        String[] copy = values.clone();
+        Arrays.sort(copy);
+        return Arrays.asList(copy);
+    }
+}
@@ -0,0 +1,219 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the day, week, month, year and league statuses kept in each league's
+ * DayStatusBitmap and period counters against statuses derived from scratch
+ * from the calls made, on seeded random histories of game reports, closed and
+ * voided days and moved close days.
+ */
+class DayStatusTest {
+
+    private static final int SEEDS = 25;
+    private static final int STEPS = 300;
+    private static final int MEMBERS = 4;
+    private static final int FIRST_DAY = Fixtures.epochDay(2024, 12, 20);
+
+    @Test
+    void statusesMatchDerivedHistory() {
+        for (long seed = 1; seed <= SEEDS; seed++) {
+            new History(seed).run();
+        }
+    }
+
+    /**
+     * One random history and the statuses it should give: a day is CLOSED
+     * once its scores are registered or it is voided, IN_PROGRESS once it
+     * has a report, and PENDING otherwise.
+     */
+    private static final class History {
+
+        private final long seed;
+        private final SplittableRandom random;
+        private final GamesLeague gamesLeague = new GamesLeague();
+        private final int leagueId;
+        private final int[] members;
+        private final BitSet reported = new BitSet();
+        private final BitSet closed = new BitSet();
+        private final int start;
+        private int close = -1;
+        private int today;
+
+        History(long seed) {
+            this.seed = seed;
+            random = new SplittableRandom(seed);
+            setToday(FIRST_DAY);
+            members = Fixtures.createPlayers(gamesLeague, MEMBERS);
+            leagueId = gamesLeague.createLeague(members[0], "League " + seed, GameType.DICEROLL);
+            for (int m = 1; m < MEMBERS; m++) {
+                Fixtures.join(gamesLeague, leagueId, m, members[m]);
+            }
+            start = FIRST_DAY + 1 + random.nextInt(5);
+            gamesLeague.setLeagueStartDate(leagueId, start);
+        }
+
+        void run() {
+            check("start");
+            for (int step = 0; step < STEPS; step++) {
+                int op = random.nextInt(100);
+                if (op < 45) {
+                    report(today - random.nextInt(4) + (random.nextInt(8) == 0 ? 1 : 0));
+                } else if (op < 65) {
+                    registerScores(today - random.nextInt(4));
+                } else if (op < 72) {
+                    voidDay(today - random.nextInt(4));
+                } else if (op < 75) {
+                    closeLeague(start + 1 + random.nextInt(today - start + 30));
+                } else {
+                    setToday(today + 1);
+                }
+                check("step " + step + " op " + op);
+            }
+        }
+
+        private void report(int day) {
+            boolean valid = isValidDay(day) && day <= today;
+            if (succeeds(() -> gamesLeague.registerGameReport(day, leagueId,
+                    members[random.nextInt(MEMBERS)], "report"), valid, "report " + day)) {
+                reported.set(day - FIRST_DAY);
+            }
+        }
+
+        private void registerScores(int day) {
+            boolean valid = isValidDay(day) && day <= today && today - day < 2
+                && !closed.get(day - FIRST_DAY);
+            int[] scores = new int[MEMBERS];
+            for (int m = 0; m < MEMBERS; m++) {
+                scores[m] = random.nextInt(7);
+            }
+            if (succeeds(() -> gamesLeague.registerDayScores(day, leagueId, scores), valid,
+                    "scores " + day)) {
+                closed.set(day - FIRST_DAY);
+            }
+        }
+
+        private void voidDay(int day) {
+            boolean valid = isValidDay(day) && day <= today && today - day < 2;
+            if (succeeds(() -> gamesLeague.voidDayPoints(day, leagueId), valid, "void " + day)) {
+                closed.set(day - FIRST_DAY);
+            }
+        }
+
+        private void closeLeague(int day) {
+            boolean valid = (close == -1 || today < close) && day > start;
+            if (succeeds(() -> gamesLeague.setLeagueEndDate(leagueId, day), valid, "close " + day)) {
+                close = day;
+            }
+        }
+
+        private boolean succeeds(Runnable call, boolean expected, String what) {
+            boolean succeeded;
+            try {
+                call.run();
+                succeeded = true;
+            } catch (IllegalOperationException | IllegalArgumentException e) {
+                succeeded = false;
+            }
+            assertEquals(expected, succeeded, () -> "seed " + seed + " " + what + " today " + today);
+            return succeeded;
+        }
+
+        private void setToday(int day) {
+            today = day;
+            Fixtures.setToday(gamesLeague, day);
+        }
+
+        private boolean isValidDay(int day) {
+            return day >= start && (close == -1 || day < close);
+        }
+
+        private Status derivedDayStatus(int day) {
+            if (closed.get(day - FIRST_DAY)) {
+                return Status.CLOSED;
+            }
+            return reported.get(day - FIRST_DAY) ? Status.IN_PROGRESS : Status.PENDING;
+        }
+
+        /**
+         * Status of the period from first to last: PENDING if none of its
+         * valid days has been played, CLOSED if all of them are closed or the
+         * last has passed, otherwise IN_PROGRESS; null if it has no valid day.
+         */
+        private Status derivedPeriodStatus(LocalDate first, LocalDate last) {
+            int from = Math.max((int) first.toEpochDay(), start);
+            int to = (int) last.toEpochDay();
+            if (close != -1) {
+                to = Math.min(to, close - 1);
+            }
+            if (from > to) {
+                return null;
+            }
+            int played = 0;
+            int closedDays = 0;
+            for (int day = from; day <= to; day++) {
+                Status status = derivedDayStatus(day);
+                if (status != Status.PENDING) {
+                    played++;
+                }
+                if (status == Status.CLOSED) {
+                    closedDays++;
+                }
+            }
+            if (played == 0) {
+                return Status.PENDING;
+            }
+            return closedDays == to - from + 1 || today > to ? Status.CLOSED : Status.IN_PROGRESS;
+        }
+
+        private Status derivedLeagueStatus() {
+            if (close != -1 && today >= close) {
+                return Status.CLOSED;
+            }
+            return today >= start ? Status.IN_PROGRESS : Status.PENDING;
+        }
+
+        private void check(String when) {
+            assertEquals(derivedLeagueStatus(), gamesLeague.getLeagueStatus(leagueId),
+                () -> "seed " + seed + " " + when + ": league status");
+            for (int day = FIRST_DAY; day <= today + 10; day++) {
+                int d = day;
+                LocalDate date = LocalDate.ofEpochDay(day);
+                expect(isValidDay(day) ? derivedDayStatus(day) : null,
+                    () -> gamesLeague.getDayStatus(leagueId, d), when, "day", day);
+                LocalDate monday = date.with(DayOfWeek.MONDAY);
+                expect(derivedPeriodStatus(monday, monday.plusDays(6)),
+                    () -> gamesLeague.getWeekStatus(leagueId, d), when, "week", day);
+                LocalDate firstOfMonth = date.withDayOfMonth(1);
+                expect(derivedPeriodStatus(firstOfMonth, firstOfMonth.plusMonths(1).minusDays(1)),
+                    () -> gamesLeague.getMonthStatus(leagueId, d), when, "month", day);
+                LocalDate firstOfYear = date.withDayOfYear(1);
+                expect(derivedPeriodStatus(firstOfYear, firstOfYear.plusYears(1).minusDays(1)),
+                    () -> gamesLeague.getYearStatus(leagueId, d), when, "year", day);
+            }
+        }
+
+        /**
+         * @param expected The derived status, or null if the query should be an invalid date.
+         */
+        private void expect(Status expected, Supplier<Status> query, String when, String what, int day) {
+            Status actual;
+            try {
+                actual = query.get();
+            } catch (InvalidDateException e) {
+                actual = null;
+            }
+            assertEquals(expected, actual, () -> "seed " + seed + " " + when + ": " + what
+                + " status of day " + day + " (today " + today + ", start " + start
+                + ", close " + close + ")");
+        }
+    }
+}
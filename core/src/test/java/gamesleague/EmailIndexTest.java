@@ -0,0 +1,59 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that emails are found whatever their case, including emails with
+ * characters whose lower-case form is longer than they are, both in the
+ * index itself and through the GamesLeague calls that use it.
+ */
+class EmailIndexTest {
+
+    // U+0130, capital I with dot above, lower-cases to two chars
+    private static final String DOTTED = "\u0130nci@example.com";
+
+    @Test
+    void findsEmailsInAnyCase() {
+        EmailIndex index = new EmailIndex();
+        for (int i = 1; i <= 100; i++) {
+            index.put("Player" + i + "@Example.com", i);
+        }
+        index.put(DOTTED, 101);
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, index.get("player" + i + "@example.com"));
+            assertEquals(i, index.get("PLAYER" + i + "@EXAMPLE.COM"));
+        }
+        assertEquals(101, index.get(DOTTED));
+        assertEquals(101, index.get(DOTTED.toUpperCase()));
+        assertEquals(EmailIndex.hash(DOTTED), EmailIndex.hash(EmailIndex.normalise(DOTTED)));
+        assertTrue(EmailIndex.matches(DOTTED, EmailIndex.normalise(DOTTED)));
+
+        assertEquals(101, index.remove(DOTTED));
+        assertEquals(-1, index.get(DOTTED));
+        for (int i = 1; i <= 100; i += 2) {
+            assertEquals(i, index.remove("PLAYER" + i + "@example.COM"));
+        }
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i % 2 == 0 ? i : -1, index.get("player" + i + "@example.com"));
+        }
+        assertEquals(50, index.size());
+    }
+
+    @Test
+    void gamesLeagueFindsPlayersAndInvitesByOriginalEmail() {
+        GamesLeague gamesLeague = new GamesLeague();
+        int owner = gamesLeague.createPlayer("owner@example.com", "owner", "Owner", "");
+        int leagueId = gamesLeague.createLeague(owner, "League", GameType.DICEROLL);
+        gamesLeague.invitePlayerToLeague(leagueId, DOTTED);
+        assertEquals(1, gamesLeague.getLeagueEmailInvites(leagueId).length);
+
+        int playerId = gamesLeague.createPlayer(DOTTED, "inci", "Inci Player", "");
+        assertEquals(playerId, gamesLeague.getPlayerId(DOTTED));
+        assertEquals(playerId, gamesLeague.getPlayerId(DOTTED.toUpperCase()));
+        assertEquals(0, gamesLeague.getLeagueEmailInvites(leagueId).length);
+        assertEquals(playerId, gamesLeague.getLeaguePlayerInvites(leagueId)[0]);
+    }
+}
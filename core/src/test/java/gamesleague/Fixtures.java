@@ -0,0 +1,101 @@
+package gamesleague;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * Set-up shared by the tests: seeded runs, a clock fixed on an epoch day,
+ * players with predictable emails and names, and ranks computed the naive
+ * way to check the GamesLeague's against.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * A test run for one seed, with a random seeded from it.
+     */
+    interface SeededRun {
+        void run(long seed, SplittableRandom random) throws Exception;
+    }
+
+    /**
+     * Runs the test for seeds 1 to the given count, so each failure names a
+     * seed that reproduces it.
+     */
+    static void forEachSeed(int seeds, SeededRun run) throws Exception {
+        for (long seed = 1; seed <= seeds; seed++) {
+            run.run(seed, new SplittableRandom(seed));
+        }
+    }
+
+    static int epochDay(int year, int month, int dayOfMonth) {
+        return (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+    }
+
+    static Instant startOf(int day) {
+        return LocalDate.ofEpochDay(day).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * @return A UTC clock stopped at the start of the epoch day.
+     */
+    static Clock clockOn(int day) {
+        return Clock.fixed(startOf(day), ZoneOffset.UTC);
+    }
+
+    static void setToday(GamesLeague gamesLeague, int day) {
+        gamesLeague.setClock(clockOn(day));
+    }
+
+    static String email(int p) {
+        return "player" + p + "@example.com";
+    }
+
+    /**
+     * Signs up player p, as "player" + p with the email from {@link #email}.
+     */
+    static int createPlayer(GamesLeagueInterface gamesLeague, int p) {
+        return gamesLeague.createPlayer(email(p), "player" + p, "Player " + p, "");
+    }
+
+    /**
+     * @return The IDs of players 0 to count - 1, signed up in that order.
+     */
+    static int[] createPlayers(GamesLeagueInterface gamesLeague, int count) {
+        int[] players = new int[count];
+        for (int p = 0; p < count; p++) {
+            players[p] = createPlayer(gamesLeague, p);
+        }
+        return players;
+    }
+
+    /**
+     * Invites player p to the league by email and has them accept.
+     */
+    static void join(GamesLeagueInterface gamesLeague, int leagueId, int p, int playerId) {
+        gamesLeague.invitePlayerToLeague(leagueId, email(p));
+        gamesLeague.acceptInviteToLeague(leagueId, playerId);
+    }
+
+    /**
+     * @return The rank of each player: one more than the number of players
+     *         with more points.
+     */
+    static int[] naiveRank(int[] points) {
+        int[] ranks = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            ranks[i] = 1;
+            for (int p : points) {
+                if (p > points[i]) {
+                    ranks[i]++;
+                }
+            }
+        }
+        return ranks;
+    }
+}
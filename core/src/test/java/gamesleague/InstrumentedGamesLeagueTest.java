@@ -0,0 +1,157 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the figures InstrumentedGamesLeague keeps: calls and exceptions per
+ * method, exceptions tallied by type, totals over all methods, nothing counted
+ * while recording is off and nothing left after a reset; exact counts from
+ * several threads calling through a ConcurrentGamesLeague; and the MBeans
+ * published over JMX until the wrapper is closed.
+ */
+class InstrumentedGamesLeagueTest {
+
+    private static final int THREADS = 4;
+    private static final int CALLS = 5000;
+
+    @Test
+    void methodsFollowTheInterface() {
+        TreeSet<String> expected = new TreeSet<>();
+        for (Method method : GamesLeagueInterface.class.getMethods()) {
+            expected.add(method.getName());
+        }
+        String[] methods = new InstrumentedGamesLeague(new GamesLeague(), "methods").getMethods();
+        assertEquals(expected, new TreeSet<>(Arrays.asList(methods)));
+        assertEquals(expected.size(), methods.length);
+        assertEquals("getPlayerIds", methods[0]);
+    }
+
+    @Test
+    void countsCallsAndExceptionsByType() {
+        InstrumentedGamesLeague league = new InstrumentedGamesLeague(new GamesLeague(), "counts");
+        int playerId = Fixtures.createPlayer(league, 0);
+        Fixtures.createPlayer(league, 1);
+        // a duplicate email, two invalid ones and a name too short
+        assertThrows(IllegalEmailException.class, () -> Fixtures.createPlayer(league, 0));
+        assertThrows(InvalidEmailException.class, () -> league.createPlayer("", "a", "Alice A", ""));
+        assertThrows(InvalidEmailException.class, () -> league.createPlayer("no-at", "a", "Alice A", ""));
+        assertThrows(InvalidNameException.class,
+            () -> league.createPlayer("alice@example.com", "a", "Al", ""));
+        assertEquals(Fixtures.email(0), league.getPlayerEmail(playerId));
+        assertThrows(IDInvalidException.class, () -> league.getPlayerEmail(-1));
+
+        MethodMetricsMXBean createPlayer = league.getMethodMetrics("createPlayer");
+        assertEquals(6, createPlayer.getCalls());
+        assertEquals(4, createPlayer.getExceptions());
+        assertEquals(Map.of("IllegalEmailException", 1L, "InvalidEmailException", 2L,
+            "InvalidNameException", 1L), createPlayer.getExceptionsByType());
+        assertTrue(createPlayer.getMaxMicros() >= createPlayer.getP50Micros());
+        MethodMetricsMXBean getPlayerEmail = league.getMethodMetrics("getPlayerEmail");
+        assertEquals(2, getPlayerEmail.getCalls());
+        assertEquals(Map.of("IDInvalidException", 1L), getPlayerEmail.getExceptionsByType());
+        assertEquals(0, league.getMethodMetrics("getPlayerIds").getCalls());
+        assertEquals(8, league.getCalls());
+        assertEquals(5, league.getExceptions());
+        assertThrows(IllegalArgumentException.class, () -> league.getMethodMetrics("noSuchMethod"));
+    }
+
+    @Test
+    void disabledAndResetCountNothing() {
+        InstrumentedGamesLeague league = new InstrumentedGamesLeague(new GamesLeague(), "disabled");
+        int playerId = Fixtures.createPlayer(league, 0);
+        league.setEnabled(false);
+        assertFalse(league.isEnabled());
+        // calls still go through, and still throw
+        assertEquals(playerId, league.getPlayerId(Fixtures.email(0)));
+        assertThrows(IDInvalidException.class, () -> league.getPlayerEmail(-1));
+        assertEquals(1, league.getCalls());
+        assertEquals(0, league.getExceptions());
+
+        league.setEnabled(true);
+        league.getPlayerIds();
+        assertEquals(2, league.getCalls());
+        league.reset();
+        assertEquals(0, league.getCalls());
+        assertEquals(0, league.getMethodMetrics("createPlayer").getCalls());
+        assertEquals(Map.of(), league.getMethodMetrics("createPlayer").getExceptionsByType());
+    }
+
+    @Test
+    void countsEveryCallFromManyThreads() throws Exception {
+        InstrumentedGamesLeague league = new InstrumentedGamesLeague(new ConcurrentGamesLeague(), "threads");
+        int[] players = Fixtures.createPlayers(league, THREADS);
+        league.reset();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            Future<?>[] futures = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                int playerId = players[t];
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < CALLS; i++) {
+                        league.getPlayerEmail(playerId);
+                        try {
+                            league.getPlayerEmail(-1 - i);
+                        } catch (IDInvalidException e) {
+                            // counted
+                        }
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        MethodMetricsMXBean getPlayerEmail = league.getMethodMetrics("getPlayerEmail");
+        assertEquals(2L * THREADS * CALLS, getPlayerEmail.getCalls());
+        assertEquals((long) THREADS * CALLS, getPlayerEmail.getExceptions());
+        assertEquals(Map.of("IDInvalidException", (long) THREADS * CALLS),
+            getPlayerEmail.getExceptionsByType());
+        assertEquals(2L * THREADS * CALLS, league.getCalls());
+    }
+
+    @Test
+    void publishesMBeansUntilClosed() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName control = new ObjectName("gamesleague:type=GamesLeagueMetrics,name=\"jmx test\"");
+        ObjectName createPlayer = new ObjectName(
+            "gamesleague:type=GamesLeagueMetrics,name=\"jmx test\",method=createPlayer");
+        try (InstrumentedGamesLeague league = new InstrumentedGamesLeague(new GamesLeague(), "jmx test")) {
+            league.registerMBeans();
+            Fixtures.createPlayer(league, 0);
+            assertThrows(IllegalEmailException.class, () -> Fixtures.createPlayer(league, 0));
+            assertEquals(2L, server.getAttribute(control, "Calls"));
+            assertEquals(1L, server.getAttribute(control, "Exceptions"));
+            assertEquals(2L, server.getAttribute(createPlayer, "Calls"));
+            assertArrayEquals(league.getMethods(), (String[]) server.getAttribute(control, "Methods"));
+            // a second instance may not take the same name
+            InstrumentedGamesLeague other = new InstrumentedGamesLeague(new GamesLeague(), "jmx test");
+            assertThrows(IllegalStateException.class, other::registerMBeans);
+            assertTrue(server.isRegistered(createPlayer));
+
+            server.invoke(control, "reset", null, null);
+            assertEquals(0L, server.getAttribute(createPlayer, "Calls"));
+        }
+        assertFalse(server.isRegistered(control));
+        assertFalse(server.isRegistered(createPlayer));
+    }
+}
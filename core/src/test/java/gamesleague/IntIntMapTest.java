@@ -0,0 +1,44 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks IntIntMap against a HashMap on seeded random puts and removes over a
+ * small key range, so probe runs collide and removals shift entries back.
+ */
+class IntIntMapTest {
+
+    private static final int SEEDS = 20;
+    private static final int STEPS = 5000;
+    private static final int KEYS = 200;
+
+    @Test
+    void matchesHashMap() {
+        for (long seed = 1; seed <= SEEDS; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            IntIntMap map = new IntIntMap();
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int step = 0; step < STEPS; step++) {
+                int key = 1 + random.nextInt(KEYS);
+                String when = "seed " + seed + " step " + step;
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key) != null, map.remove(key), when);
+                } else {
+                    int value = random.nextInt(1000);
+                    map.put(key, value);
+                    expected.put(key, value);
+                }
+                assertEquals(expected.size(), map.size(), when);
+                for (int k = 1; k <= KEYS; k++) {
+                    assertEquals(expected.getOrDefault(k, -1).intValue(), map.get(k), when + " key " + k);
+                }
+            }
+        }
+    }
+}
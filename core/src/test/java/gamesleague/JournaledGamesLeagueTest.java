@@ -0,0 +1,245 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a JournaledGamesLeague reopened on its directory recovers the
+ * state the calls left behind, including calls made across midnight, calls
+ * the GamesLeague rejects and journals whose last record is torn, corrupt or
+ * a rejected call whose retraction was lost.
+ */
+class JournaledGamesLeagueTest {
+
+    private static final int DAY = Fixtures.epochDay(2024, 6, 10);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * A report for tomorrow made just before midnight is journaled as today
+     * and must be applied as today too, so it is rejected both when made
+     * and on replay, rather than accepted live and refused on recovery.
+     */
+    @Test
+    void callAcrossMidnightRecoversTheSameState() throws IOException {
+        TickingClock clock = new TickingClock(Fixtures.startOf(DAY));
+        int leagueId;
+        int owner;
+        try (JournaledGamesLeague journaled = open()) {
+            journaled.setClock(clock);
+            owner = Fixtures.createPlayer(journaled, 0);
+            leagueId = journaled.createLeague(owner, "League", GameType.DICEROLL);
+            journaled.setLeagueStartDate(leagueId, DAY);
+
+            clock.then(Fixtures.startOf(DAY + 1).minusMillis(1), Fixtures.startOf(DAY + 1));
+            assertThrows(IllegalOperationException.class,
+                () -> journaled.registerGameReport(DAY + 1, leagueId, owner, "too early"));
+            // the day has turned for the calls after it
+            journaled.registerGameReport(DAY + 1, leagueId, owner, "on time");
+            journaled.registerGameReport(DAY, leagueId, owner, "late");
+        }
+        try (JournaledGamesLeague recovered = open()) {
+            assertEquals("on time", recovered.getGameReport(DAY + 1, leagueId, owner));
+            assertEquals("late", recovered.getGameReport(DAY, leagueId, owner));
+        }
+    }
+
+    /**
+     * Day scores for yesterday registered just before midnight are within
+     * the deadline on the day they are journaled on, so they are accepted
+     * live and on replay even though the clock has moved on by the time the
+     * GamesLeague checks the deadline.
+     */
+    @Test
+    void deadlineIsCheckedOnTheJournaledDay() throws IOException {
+        TickingClock clock = new TickingClock(Fixtures.startOf(DAY));
+        int leagueId;
+        try (JournaledGamesLeague journaled = open()) {
+            journaled.setClock(clock);
+            int owner = Fixtures.createPlayer(journaled, 0);
+            leagueId = journaled.createLeague(owner, "League", GameType.DICEROLL);
+            journaled.setLeagueStartDate(leagueId, DAY);
+            journaled.registerGameReport(DAY, leagueId, owner, "report");
+
+            clock.then(Fixtures.startOf(DAY + 2).minusMillis(1), Fixtures.startOf(DAY + 2));
+            journaled.registerDayScores(DAY, leagueId, new int[] {3});
+            journaled.registerGameReport(DAY + 1, leagueId, owner, "next");
+        }
+        try (JournaledGamesLeague recovered = open()) {
+            assertEquals(Status.CLOSED, recovered.getDayStatus(leagueId, DAY));
+            assertArrayEquals(new int[] {3}, recovered.getDayScores(leagueId, DAY));
+        }
+    }
+
+    @Test
+    void nullGameTypeIsRejectedLikeTheGamesLeague() throws IOException {
+        try (JournaledGamesLeague journaled = open()) {
+            int owner = Fixtures.createPlayer(journaled, 0);
+            assertThrows(IllegalArgumentException.class,
+                () -> journaled.createLeague(owner, "League", null));
+            journaled.createLeague(owner, "League", GameType.WORDMASTER);
+        }
+        try (JournaledGamesLeague recovered = open()) {
+            assertEquals(1, recovered.getLeagueIds().length);
+        }
+    }
+
+    /**
+     * A record cut short by a crash is dropped on recovery and cut off the
+     * file, so the records appended afterwards replay too.
+     */
+    @Test
+    void tornTailIsCutOff() throws IOException {
+        createPlayers(3);
+        Path journal = directory.resolve("journal-0.log");
+        long whole = Files.size(journal);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(whole - 3);
+        }
+        try (JournaledGamesLeague recovered = open()) {
+            assertEquals(2, recovered.getPlayerIds().length);
+            Fixtures.createPlayer(recovered, 9);
+        }
+        try (JournaledGamesLeague recovered = open()) {
+            assertEquals(3, recovered.getPlayerIds().length);
+            assertEquals(-1, recovered.getPlayerId("player2@example.com"));
+            assertEquals(3, recovered.getPlayerId("player9@example.com"));
+        }
+    }
+
+    /**
+     * A last record whose checksum does not match is dropped like a torn one.
+     */
+    @Test
+    void corruptTailIsCutOff() throws IOException {
+        createPlayers(3);
+        Path journal = directory.resolve("journal-0.log");
+        byte[] bytes = Files.readAllBytes(journal);
+        bytes[bytes.length - 2] ^= 0x40;
+        Files.write(journal, bytes);
+        try (JournaledGamesLeague recovered = open()) {
+            assertEquals(2, recovered.getPlayerIds().length);
+        }
+        assertTrue(Files.size(journal) < bytes.length);
+    }
+
+    /**
+     * A rejected call has its record retracted, leaving the journal as it
+     * was, and is not replayed.
+     */
+    @Test
+    void rejectedCallIsRetracted() throws IOException {
+        Path journal = directory.resolve("journal-0.log");
+        try (JournaledGamesLeague journaled = open()) {
+            Fixtures.createPlayer(journaled, 0);
+            long before = Files.size(journal);
+            assertThrows(IllegalEmailException.class,
+                () -> journaled.createPlayer("PLAYER0@example.com", "again", "Player Again", ""));
+            assertEquals(before, Files.size(journal));
+            Fixtures.createPlayer(journaled, 1);
+        }
+        try (JournaledGamesLeague recovered = open()) {
+            assertArrayEquals(new int[] {1, 2}, recovered.getPlayerIds());
+        }
+    }
+
+    /**
+     * A rejected call whose retraction was lost in a crash is the last record
+     * of the journal; recovery refuses it and cuts it off. The same record
+     * anywhere else means the journal does not match, and recovery fails.
+     */
+    @Test
+    void lostRetractionIsRefusedOnlyAtTheEnd() throws IOException {
+        createPlayers(2);
+        Path journal = directory.resolve("journal-0.log");
+        byte[] valid = Files.readAllBytes(journal);
+        // the record of creating player0 again, which the GamesLeague rejects
+        byte[] duplicate = firstRecord(directory.resolve("duplicate"), "player0@example.com");
+        Files.write(journal, duplicate, StandardOpenOption.APPEND);
+        try (JournaledGamesLeague recovered = open()) {
+            assertEquals(2, recovered.getPlayerIds().length);
+        }
+        assertArrayEquals(valid, Files.readAllBytes(journal));
+
+        Files.write(journal, duplicate, StandardOpenOption.APPEND);
+        Files.write(journal, firstRecord(directory.resolve("other"), "player5@example.com"),
+            StandardOpenOption.APPEND);
+        IOException e = assertThrows(IOException.class, this::open);
+        assertTrue(e.getMessage().contains("failed to replay"), e.getMessage());
+    }
+
+    private void createPlayers(int count) throws IOException {
+        try (JournaledGamesLeague journaled = open()) {
+            Fixtures.createPlayers(journaled, count);
+        }
+    }
+
+    /**
+     * @return The journal record of creating a player with the email, as
+     *         written by a JournaledGamesLeague in another directory.
+     */
+    private static byte[] firstRecord(Path other, String email) throws IOException {
+        try (JournaledGamesLeague journaled = new JournaledGamesLeague(other.toString(),
+                FsyncPolicy.ALWAYS, 1, 0)) {
+            journaled.createPlayer(email, "someone", "Some One", "");
+        }
+        return Files.readAllBytes(other.resolve("journal-0.log"));
+    }
+
+    private JournaledGamesLeague open() throws IOException {
+        return new JournaledGamesLeague(directory.toString(), FsyncPolicy.ALWAYS, 1, 0);
+    }
+
+    /**
+     * A clock that reads each instant queued by {@link #then} once, in order,
+     * and then stays at the last one.
+     */
+    private static final class TickingClock extends Clock {
+
+        private final Deque<Instant> instants = new ArrayDeque<>();
+
+        TickingClock(Instant start) {
+            instants.add(start);
+        }
+
+        void then(Instant... next) {
+            instants.clear();
+            for (Instant instant : next) {
+                instants.add(instant);
+            }
+        }
+
+        @Override
+        public Instant instant() {
+            return instants.size() > 1 ? instants.poll() : instants.peek();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
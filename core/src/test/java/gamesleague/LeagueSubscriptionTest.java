@@ -0,0 +1,272 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks what subscribers to a GamesLeague are sent: changes to one league
+ * day made while a delivery is waiting are merged into one update, updates
+ * arrive in the order their league and day first changed, a listener that
+ * throws is counted and still sent the rest, and nothing is sent once the
+ * subscription is closed. Deliveries run on an executor the test steps by
+ * hand, except for one run on a pool with a slow listener, where each
+ * report must reach the listener in some update and the listener must never
+ * be called from two threads at once.
+ */
+class LeagueSubscriptionTest {
+
+    private static final int DAY = Fixtures.epochDay(2024, 5, 15);
+    private static final int PLAYERS = 5;
+
+    @Test
+    void changesToOneDayAreMerged() {
+        GamesLeague gamesLeague = new GamesLeague();
+        Fixtures.setToday(gamesLeague, DAY);
+        int[] players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+        int leagueId = league(gamesLeague, players);
+        SteppedExecutor executor = new SteppedExecutor();
+        List<LeagueUpdate> updates = new ArrayList<>();
+        LeagueSubscription subscription = gamesLeague.subscribe(leagueId, updates::add, executor);
+
+        for (int p = PLAYERS - 1; p >= 2; p--) {
+            gamesLeague.registerGameReport(DAY, leagueId, players[p], "report " + p);
+        }
+        gamesLeague.registerGameReport(DAY - 1, leagueId, players[0], "late");
+        gamesLeague.registerDayScores(DAY - 1, leagueId, new int[] {1, 2, 3, 4, 5});
+        // one delivery waits for all of them
+        assertEquals(1, executor.size());
+        assertEquals(2, subscription.getPending());
+        assertEquals(3, subscription.getMerged());
+        executor.runAll();
+
+        assertEquals(2, updates.size());
+        LeagueUpdate today = updates.get(0);
+        assertEquals(DAY, today.getDay());
+        assertEquals(EnumSet.of(LeagueUpdate.Change.DAY_STATUS, LeagueUpdate.Change.REPORTS,
+            LeagueUpdate.Change.SCORES), today.getChanges());
+        assertArrayEquals(new int[] {players[2], players[3], players[4]}, today.getReporters());
+        assertEquals(Status.IN_PROGRESS, today.getDayStatus());
+        assertEquals(3, today.getMerged());
+        LeagueUpdate yesterday = updates.get(1);
+        assertEquals(DAY - 1, yesterday.getDay());
+        // closing the day changed all of its tables
+        assertEquals(EnumSet.of(LeagueUpdate.Change.DAY_STATUS, LeagueUpdate.Change.REPORTS,
+            LeagueUpdate.Change.SCORES, LeagueUpdate.Change.POINTS, LeagueUpdate.Change.RANKINGS),
+            yesterday.getChanges());
+        assertEquals(Status.CLOSED, yesterday.getDayStatus());
+        assertArrayEquals(new int[] {players[0]}, yesterday.getReporters());
+        assertEquals(2, subscription.getDelivered());
+        assertEquals(0, subscription.getPending());
+
+        // a subscriber that keeps up gets each change on its own
+        gamesLeague.registerGameReport(DAY, leagueId, players[0], "report 0");
+        executor.runAll();
+        gamesLeague.registerGameReport(DAY, leagueId, players[1], "report 1");
+        executor.runAll();
+        assertEquals(4, updates.size());
+        assertEquals(EnumSet.of(LeagueUpdate.Change.REPORTS), updates.get(3).getChanges());
+        assertEquals(1, updates.get(3).getMerged());
+        assertArrayEquals(new int[] {players[1]}, updates.get(3).getReporters());
+    }
+
+    @Test
+    void updatesFollowTheOrderOfFirstChange() {
+        GamesLeague gamesLeague = new GamesLeague();
+        Fixtures.setToday(gamesLeague, DAY);
+        int[] players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+        int first = league(gamesLeague, players);
+        int second = league(gamesLeague, players);
+        SteppedExecutor executor = new SteppedExecutor();
+        List<String> seen = new ArrayList<>();
+        LeagueSubscription every = gamesLeague.subscribe(
+            update -> seen.add(update.getLeagueId() + "/" + update.getDay()), executor);
+        List<String> secondOnly = new ArrayList<>();
+        gamesLeague.subscribe(second,
+            update -> secondOnly.add(update.getLeagueId() + "/" + update.getDay()), executor);
+
+        gamesLeague.registerGameReport(DAY, second, players[0], "a");
+        gamesLeague.registerGameReport(DAY - 1, first, players[0], "b");
+        gamesLeague.setLeaguePlayerInactive(first, players[3]);
+        gamesLeague.registerGameReport(DAY, first, players[1], "c");
+        gamesLeague.registerGameReport(DAY, second, players[2], "d");
+        gamesLeague.registerGameReport(DAY - 1, first, players[1], "e");
+        executor.runAll();
+
+        assertEquals(List.of(second + "/" + DAY, first + "/" + (DAY - 1), first + "/-1",
+            first + "/" + DAY), seen);
+        assertEquals(List.of(second + "/" + DAY), secondOnly);
+        assertEquals(2, every.getMerged());
+    }
+
+    @Test
+    void listenerFailuresAreCounted() {
+        GamesLeague gamesLeague = new GamesLeague();
+        Fixtures.setToday(gamesLeague, DAY);
+        int[] players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+        int leagueId = league(gamesLeague, players);
+        SteppedExecutor executor = new SteppedExecutor();
+        List<Integer> days = new ArrayList<>();
+        LeagueSubscription subscription = gamesLeague.subscribe(leagueId, update -> {
+            days.add(update.getDay());
+            if (update.getDay() == DAY - 1) {
+                throw new IllegalStateException("listener failed");
+            }
+        }, executor);
+
+        gamesLeague.registerGameReport(DAY - 2, leagueId, players[0], "a");
+        gamesLeague.registerGameReport(DAY - 1, leagueId, players[0], "b");
+        gamesLeague.registerGameReport(DAY, leagueId, players[0], "c");
+        executor.runAll();
+        // the update after the failed one is still sent
+        assertEquals(List.of(DAY - 2, DAY - 1, DAY), days);
+        assertEquals(1, subscription.getFailed());
+        assertEquals(2, subscription.getDelivered());
+
+        gamesLeague.registerGameReport(DAY - 1, leagueId, players[1], "d");
+        executor.runAll();
+        assertEquals(2, subscription.getFailed());
+        assertEquals(2, subscription.getDelivered());
+    }
+
+    @Test
+    void nothingIsSentAfterClose() {
+        GamesLeague gamesLeague = new GamesLeague();
+        Fixtures.setToday(gamesLeague, DAY);
+        int[] players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+        int leagueId = league(gamesLeague, players);
+        SteppedExecutor executor = new SteppedExecutor();
+        List<LeagueUpdate> updates = new ArrayList<>();
+        LeagueSubscription subscription = gamesLeague.subscribe(leagueId, updates::add, executor);
+        List<LeagueUpdate> kept = new ArrayList<>();
+        LeagueSubscription other = gamesLeague.subscribe(leagueId, kept::add, executor);
+
+        gamesLeague.registerGameReport(DAY, leagueId, players[0], "a");
+        // closed with a delivery waiting
+        subscription.close();
+        assertTrue(subscription.isClosed());
+        assertEquals(0, subscription.getPending());
+        executor.runAll();
+        gamesLeague.registerGameReport(DAY, leagueId, players[1], "b");
+        gamesLeague.voidDayPoints(DAY, leagueId);
+        executor.runAll();
+
+        assertEquals(List.of(), updates);
+        assertEquals(0, subscription.getDelivered());
+        assertEquals(0, subscription.getPending());
+        assertEquals(2, kept.size());
+        assertEquals(Status.CLOSED, kept.get(1).getDayStatus());
+        other.close();
+        gamesLeague.registerGameReport(DAY - 1, leagueId, players[2], "c");
+        // nothing left subscribed, so no delivery is scheduled
+        assertEquals(0, executor.size());
+    }
+
+    @Test
+    void slowListenerMissesNoReports() throws Exception {
+        GamesLeague gamesLeague = new GamesLeague();
+        Fixtures.setToday(gamesLeague, DAY);
+        int[] players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+        int[] leagueIds = {league(gamesLeague, players), league(gamesLeague, players),
+            league(gamesLeague, players)};
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicInteger inListener = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicLong changes = new AtomicLong();
+        Set<String> reported = ConcurrentHashMap.newKeySet();
+        LeagueSubscription subscription = gamesLeague.subscribe(update -> {
+            if (inListener.incrementAndGet() != 1) {
+                overlaps.incrementAndGet();
+            }
+            for (int reporter : update.getReporters()) {
+                reported.add(update.getLeagueId() + "/" + reporter);
+            }
+            changes.addAndGet(update.getMerged());
+            sleep();
+            inListener.decrementAndGet();
+        }, pool);
+        try {
+            Set<String> expected = new TreeSet<>();
+            for (int leagueId : leagueIds) {
+                for (int player : players) {
+                    gamesLeague.registerGameReport(DAY, leagueId, player, "report");
+                    expected.add(leagueId + "/" + player);
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (changes.get() < expected.size() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(expected, new TreeSet<>(reported));
+            assertEquals(expected.size(), changes.get());
+            assertEquals(0, overlaps.get());
+            assertTrue(subscription.getDelivered() < expected.size(), "merged while the listener slept");
+        } finally {
+            subscription.close();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return A new league owned by the first player with every player a
+     *         member, started three days ago so reports for yesterday and
+     *         the day before are accepted.
+     */
+    private static int league(GamesLeague gamesLeague, int[] players) {
+        int leagueId = gamesLeague.createLeague(players[0], "League " + gamesLeague.getLeagueIds().length,
+            GameType.DICEROLL);
+        for (int p = 1; p < players.length; p++) {
+            Fixtures.join(gamesLeague, leagueId, p, players[p]);
+        }
+        gamesLeague.setLeagueStartDate(leagueId, DAY - 3);
+        return leagueId;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * An executor that queues tasks until the test runs them.
+     */
+    private static final class SteppedExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        int size() {
+            return tasks.size();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove().run();
+            }
+        }
+    }
+}
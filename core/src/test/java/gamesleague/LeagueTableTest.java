@@ -0,0 +1,239 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the league tables ConcurrentGamesLeague answers from its versions:
+ * with a writer changing members and scores, every table read at once must
+ * be one the league actually passed through, players, points and ranking
+ * together, and answers read before scores are registered or voided must not
+ * be answered again afterwards.
+ */
+class LeagueTableTest {
+
+    private static final int TODAY = Fixtures.epochDay(2024, 5, 15);
+    private static final int START = TODAY - 10;
+    private static final int WRITES = 300;
+    private static final int READERS = 2;
+
+    /**
+     * A writer makes the same calls on a plain GamesLeague first and records
+     * the day and week tables of each state it reaches, before making them on
+     * the ConcurrentGamesLeague. A table read meanwhile that mixed players,
+     * points or ranking of different versions would match none of them.
+     */
+    @Test
+    void tableComesFromOneVersion() throws Exception {
+        Fixtures.forEachSeed(3, (seed, random) -> {
+            GamesLeague expected = new GamesLeague();
+            Fixtures.setToday(expected, TODAY);
+            GamesLeague inner = new GamesLeague();
+            Fixtures.setToday(inner, TODAY);
+            ConcurrentGamesLeague concurrent = new ConcurrentGamesLeague(inner, 2);
+            int leagueId = setUp(expected);
+            setUp(concurrent);
+
+            Set<String> states = ConcurrentHashMap.newKeySet();
+            record(expected, leagueId, states);
+            ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch writerDone = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < WRITES; i++) {
+                        Write write = write(expected, leagueId, i, random);
+                        write.apply(expected);
+                        record(expected, leagueId, states);
+                        write.apply(concurrent);
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    writerDone.countDown();
+                }
+            }));
+            for (int r = 0; r < READERS; r++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        start.await();
+                        long lastVersion = 0;
+                        while (writerDone.getCount() > 0) {
+                            LeagueTable day = concurrent.getDayTable(leagueId, TODAY);
+                            LeagueTable week = concurrent.getWeekTable(leagueId, TODAY);
+                            for (LeagueTable table : new LeagueTable[] {day, week}) {
+                                String text = (table == day ? "day " : "week ") + text(table);
+                                assertTrue(states.contains(text), text);
+                            }
+                            assertTrue(day.getVersion() >= lastVersion);
+                            assertTrue(week.getVersion() >= day.getVersion());
+                            lastVersion = week.getVersion();
+                        }
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join(60_000);
+                assertFalse(thread.isAlive(), "seed " + seed + " thread stuck");
+            }
+            if (!failures.isEmpty()) {
+                throw new AssertionError("seed " + seed + " failed in a thread", failures.peek());
+            }
+            assertEquals(text(expected, leagueId, null), text(concurrent.getDayTable(leagueId, TODAY)),
+                "seed " + seed);
+            assertEquals(text(expected, leagueId, Period.WEEK),
+                text(concurrent.getWeekTable(leagueId, TODAY)), "seed " + seed);
+        });
+    }
+
+    /**
+     * Reads every table of yesterday, today and their week, starts, closes or
+     * voids one of the days, and reads them again: each must now answer what
+     * a plain GamesLeague does, from a later version.
+     */
+    @Test
+    void answersAreDroppedAfterScoresAndVoids() {
+        GamesLeague expected = new GamesLeague();
+        Fixtures.setToday(expected, TODAY);
+        GamesLeague inner = new GamesLeague();
+        Fixtures.setToday(inner, TODAY);
+        ConcurrentGamesLeague concurrent = new ConcurrentGamesLeague(inner, 2);
+        int leagueId = setUp(expected);
+        setUp(concurrent);
+
+        List<Write> writes = List.of(
+            g -> g.registerGameReport(TODAY - 1, leagueId, 1, "first report"),
+            g -> g.registerDayScores(TODAY - 1, leagueId, new int[] {6, 2, 4, 2}),
+            g -> g.registerGameReport(TODAY, leagueId, 2, "first report"),
+            g -> g.voidDayPoints(TODAY, leagueId));
+        List<String> before = answers(concurrent, leagueId);
+        long version = concurrent.getWeekTable(leagueId, TODAY).getVersion();
+        for (Write write : writes) {
+            // read twice, so the second is answered from the version
+            assertEquals(before, answers(concurrent, leagueId));
+            write.apply(expected);
+            write.apply(concurrent);
+            List<String> after = answers(concurrent, leagueId);
+            assertNotEquals(before, after, "answers unchanged");
+            assertEquals(answers(expected, leagueId), after);
+            long nextVersion = concurrent.getWeekTable(leagueId, TODAY).getVersion();
+            assertTrue(nextVersion > version, nextVersion + " after " + version);
+            before = after;
+            version = nextVersion;
+        }
+    }
+
+    /**
+     * A call made on both the plain and the concurrent GamesLeague.
+     */
+    private interface Write {
+        void apply(GamesLeagueInterface gamesLeague);
+    }
+
+    /**
+     * @return A four-player WORDMASTER league started ten days before today.
+     */
+    private static int setUp(GamesLeagueInterface gamesLeague) {
+        int[] players = Fixtures.createPlayers(gamesLeague, 4);
+        int leagueId = gamesLeague.createLeague(players[0], "League", GameType.WORDMASTER);
+        for (int p = 1; p < players.length; p++) {
+            Fixtures.join(gamesLeague, leagueId, p, players[p]);
+        }
+        gamesLeague.setLeagueStartDate(leagueId, START);
+        return leagueId;
+    }
+
+    /**
+     * @return The writer's i'th call: a new player joining or a game report,
+     *         except that a third of the way through yesterday's scores are
+     *         registered, sized to the league as it is then, and two thirds of
+     *         the way through today's are voided.
+     */
+    private static Write write(GamesLeague gamesLeague, int leagueId, int i, SplittableRandom random) {
+        int[] members = gamesLeague.getLeaguePlayers(leagueId);
+        if (i == WRITES / 3) {
+            int[] scores = new int[members.length];
+            for (int m = 0; m < scores.length; m++) {
+                scores[m] = random.nextInt(7);
+            }
+            return g -> g.registerDayScores(TODAY - 1, leagueId, scores);
+        }
+        if (i == WRITES * 2 / 3) {
+            return g -> g.voidDayPoints(TODAY, leagueId);
+        }
+        if (i % 3 == 0) {
+            int p = members.length;
+            return g -> Fixtures.join(g, leagueId, p, Fixtures.createPlayer(g, p));
+        }
+        int playerId = members[random.nextInt(members.length)];
+        int day = TODAY - random.nextInt(2);
+        String report = "report " + i;
+        return g -> g.registerGameReport(day, leagueId, playerId, report);
+    }
+
+    private static void record(GamesLeague gamesLeague, int leagueId, Set<String> states) {
+        states.add("day " + text(gamesLeague, leagueId, null));
+        states.add("week " + text(gamesLeague, leagueId, Period.WEEK));
+    }
+
+    private static String text(LeagueTable table) {
+        return text(table.getPlayers(), table.getStatus(), table.getPoints(), table.getRanking());
+    }
+
+    private static String text(GamesLeague gamesLeague, int leagueId, Period period) {
+        if (period == null) {
+            return text(gamesLeague.getLeaguePlayers(leagueId), gamesLeague.getDayStatus(leagueId, TODAY),
+                gamesLeague.getDayPoints(leagueId, TODAY), gamesLeague.getDayRanking(leagueId, TODAY));
+        }
+        return text(gamesLeague.getLeaguePlayers(leagueId), gamesLeague.getWeekStatus(leagueId, TODAY),
+            gamesLeague.getWeekPoints(leagueId, TODAY), gamesLeague.getWeekRanking(leagueId, TODAY));
+    }
+
+    private static String text(int[] players, Status status, int[] points, int[] ranking) {
+        return Arrays.toString(players) + " " + status + " " + Arrays.toString(points) + " "
+            + Arrays.toString(ranking);
+    }
+
+    /**
+     * @return Every answer for yesterday, today and their week, as text.
+     */
+    private static List<String> answers(GamesLeagueInterface gamesLeague, int leagueId) {
+        List<String> answers = new ArrayList<>();
+        for (int day = TODAY - 1; day <= TODAY; day++) {
+            answers.add(String.valueOf(gamesLeague.getDayStatus(leagueId, day)));
+            answers.add(Arrays.toString(gamesLeague.getDayScores(leagueId, day)));
+            answers.add(Arrays.toString(gamesLeague.getDayPoints(leagueId, day)));
+            answers.add(Arrays.toString(gamesLeague.getDayRanking(leagueId, day)));
+        }
+        answers.add(String.valueOf(gamesLeague.getWeekStatus(leagueId, TODAY)));
+        answers.add(Arrays.toString(gamesLeague.getWeekPoints(leagueId, TODAY)));
+        answers.add(Arrays.toString(gamesLeague.getWeekRanking(leagueId, TODAY)));
+        if (gamesLeague instanceof ConcurrentGamesLeague) {
+            LeagueTable week = ((ConcurrentGamesLeague) gamesLeague).getWeekTable(leagueId, TODAY);
+            assertArrayEquals(gamesLeague.getWeekPoints(leagueId, TODAY), week.getPoints());
+        }
+        return answers;
+    }
+}
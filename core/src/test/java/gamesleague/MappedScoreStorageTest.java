@@ -0,0 +1,147 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks MappedScoreStorage against HeapScoreStorage on seeded random rows
+ * whose widths cross several bands and whose row numbers make the bands
+ * grow, then checks that a Java-serialized copy reads the same. Also checks
+ * that clearing or closing the storage leaves no score file behind, mapped
+ * or on disk, and that the same league and generation can be opened again.
+ */
+class MappedScoreStorageTest {
+
+    private static final int SEEDS = 5;
+    private static final int STEPS = 500;
+    private static final int MAX_MEMBERS = 100;
+    private static final int MAX_ROWS = 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchesHeapStorage() throws IOException, ClassNotFoundException {
+        for (long seed = 1; seed <= SEEDS; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            MappedScoreStorage mapped = new MappedScoreStorage(directory.toString(), (int) seed, 0);
+            HeapScoreStorage heap = new HeapScoreStorage();
+            int members = 1;
+            for (int step = 0; step < STEPS; step++) {
+                // members only join, as in a league
+                members = Math.min(MAX_MEMBERS, members + (random.nextInt(10) == 0 ? 7 : 0));
+                int row = random.nextInt(MAX_ROWS);
+                int[] scores = random.nextInt(4) == 0 ? null : values(random, members);
+                int[] points = random.nextInt(4) == 0 ? null : values(random, members);
+                mapped.put(row, scores, points);
+                heap.put(row, scores, points);
+            }
+            check(heap, mapped, members, "seed " + seed);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(mapped);
+            }
+            Object read;
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new ByteArrayInputStream(bytes.toByteArray()))) {
+                read = in.readObject();
+            }
+            check(heap, assertInstanceOf(ScoreStorage.class, read), members,
+                "seed " + seed + " deserialized");
+            mapped.close();
+        }
+    }
+
+    @Test
+    void closeUnmapsAndDeletesTheFiles() throws IOException {
+        MappedScoreStorage storage = new MappedScoreStorage(directory.toString(), 1, 0);
+        // three bands of each matrix, grown several times
+        fill(storage);
+        assertEquals(6, files().size());
+        storage.clear();
+        assertEquals(List.of(), files());
+        assertEquals(List.of(), mappings());
+
+        fill(storage);
+        assertArrayEquals(new int[] {0, 1, 2}, storage.getScores(0, 3));
+        storage.close();
+        assertEquals(List.of(), files());
+        assertEquals(List.of(), mappings());
+
+        MappedScoreStorage reopened = new MappedScoreStorage(directory.toString(), 1, 0);
+        fill(reopened);
+        assertArrayEquals(new int[] {199, 200, 201}, reopened.getPoints(199, 3));
+        reopened.close();
+        assertEquals(List.of(), files());
+        assertEquals(List.of(), mappings());
+    }
+
+    /**
+     * Writes 200 rows of 60 members, for three bands of 16, 32 and 64 columns.
+     */
+    private static void fill(ScoreStorage storage) {
+        for (int row = 0; row < 200; row++) {
+            int[] values = new int[60];
+            for (int m = 0; m < values.length; m++) {
+                values[m] = row + m;
+            }
+            storage.put(row, values, values);
+        }
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return The lines of /proc/self/maps naming a file in the directory, as
+     *         a deleted file stays mapped until it is unmapped; none where
+     *         there is no /proc.
+     */
+    private List<String> mappings() throws IOException {
+        Path maps = Paths.get("/proc/self/maps");
+        if (!Files.isReadable(maps)) {
+            return List.of();
+        }
+        return Files.readAllLines(maps).stream()
+            .filter(line -> line.contains(directory.toString()))
+            .collect(Collectors.toList());
+    }
+
+    private static void check(ScoreStorage expected, ScoreStorage actual, int members, String when) {
+        for (int row = 0; row < MAX_ROWS + 5; row++) {
+            assertArrayEquals(expected.getScores(row, members), actual.getScores(row, members),
+                when + " scores row " + row);
+            assertArrayEquals(expected.getPoints(row, members), actual.getPoints(row, members),
+                when + " points row " + row);
+        }
+    }
+
+    private static int[] values(SplittableRandom random, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(-50, 1000);
+        }
+        return values;
+    }
+}
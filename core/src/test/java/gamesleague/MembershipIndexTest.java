@@ -0,0 +1,200 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the player-centric views answered from the MembershipIndex against a
+ * scan of every league: after each of a seeded random sequence of sign-ups,
+ * invites by email in any case, accepts, owner changes, deactivations, clones
+ * and league removals, getPlayerLeagues, getPlayerOwnedLeagues and
+ * getPlayerInvites must list what the leagues themselves say. Also checks
+ * SortedIntSet against a TreeSet.
+ */
+class MembershipIndexTest {
+
+    private static final int SEEDS = 10;
+    private static final int STEPS = 300;
+    private static final int PLAYERS = 12;
+
+    @Test
+    void playerViewsMatchLeagueScan() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            GamesLeague gamesLeague = new GamesLeague();
+            List<Integer> playerIds = new ArrayList<>();
+            playerIds.add(Fixtures.createPlayer(gamesLeague, 0));
+            gamesLeague.createLeague(playerIds.get(0), "League 0", GameType.WORDMASTER);
+            for (int step = 0; step < STEPS; step++) {
+                String when = "seed " + seed + " step " + step;
+                change(gamesLeague, playerIds, step, random, when);
+                assertMatchesScan(gamesLeague, playerIds, when);
+            }
+        });
+    }
+
+    @Test
+    void sortedIntSetMatchesTreeSet() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            SortedIntSet set = new SortedIntSet();
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int step = 0; step < 500; step++) {
+                int value = random.nextInt(-20, 40);
+                String when = "seed " + seed + " step " + step + " value " + value;
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(value), set.remove(value), when);
+                } else {
+                    assertEquals(expected.add(value), set.add(value), when);
+                }
+                assertEquals(expected.contains(value), set.contains(value), when);
+                assertEquals(expected.size(), set.size(), when);
+                int[] values = set.toArray();
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), values, when);
+                for (int i = 0; i < values.length; i++) {
+                    assertEquals(values[i], set.get(i), when);
+                }
+            }
+        });
+    }
+
+    /**
+     * One random call. Calls the GamesLeague rejects (already a member, no
+     * invitation, the sole owner) change nothing and are fine.
+     */
+    private static void change(GamesLeague gamesLeague, List<Integer> playerIds, int step,
+            SplittableRandom random, String when) {
+        int[] leagueIds = gamesLeague.getLeagueIds();
+        int leagueId = leagueIds.length == 0 ? 1 : leagueIds[random.nextInt(leagueIds.length)];
+        // players not yet signed up can be invited by email too
+        int p = random.nextInt(Math.min(playerIds.size() + 3, PLAYERS));
+        int playerId = p < playerIds.size() ? playerIds.get(p) : -1;
+        try {
+            switch (random.nextInt(12)) {
+                case 0:
+                    if (playerIds.size() < PLAYERS) {
+                        signUp(gamesLeague, playerIds, when);
+                    }
+                    break;
+                case 1:
+                    if (playerId != -1) {
+                        gamesLeague.createLeague(playerId, "League " + step, GameType.DICEROLL);
+                    }
+                    break;
+                case 2:
+                case 3:
+                    gamesLeague.invitePlayerToLeague(leagueId, anyCase(Fixtures.email(p), random));
+                    break;
+                case 4:
+                case 5:
+                    gamesLeague.acceptInviteToLeague(leagueId, playerId);
+                    break;
+                case 6:
+                    gamesLeague.removeInviteFromLeague(leagueId, anyCase(Fixtures.email(p), random));
+                    break;
+                case 7:
+                    gamesLeague.addOwner(leagueId, playerId);
+                    break;
+                case 8:
+                    gamesLeague.removeOwner(leagueId, playerId);
+                    break;
+                case 9:
+                    if (random.nextInt(4) == 0) {
+                        gamesLeague.deactivatePlayer(playerId);
+                    }
+                    break;
+                case 10:
+                    gamesLeague.cloneLeague(leagueId, "Clone " + step);
+                    break;
+                default:
+                    if (random.nextInt(3) == 0) {
+                        gamesLeague.removeLeague(leagueId);
+                    }
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // rejected, so nothing changed
+        }
+    }
+
+    /**
+     * Signs up the next player, whose email invites must become player invites.
+     */
+    private static void signUp(GamesLeague gamesLeague, List<Integer> playerIds, String when) {
+        int p = playerIds.size();
+        List<Integer> invitedBy = new ArrayList<>();
+        for (int leagueId : gamesLeague.getLeagueIds()) {
+            for (String email : gamesLeague.getLeagueEmailInvites(leagueId)) {
+                if (email.equalsIgnoreCase(Fixtures.email(p))) {
+                    invitedBy.add(leagueId);
+                }
+            }
+        }
+        int playerId = Fixtures.createPlayer(gamesLeague, p);
+        playerIds.add(playerId);
+        assertEquals(invitedBy.toString(), Arrays.toString(gamesLeague.getPlayerInvites(playerId)),
+            when + " invites on sign-up");
+        for (int leagueId : gamesLeague.getLeagueIds()) {
+            for (String email : gamesLeague.getLeagueEmailInvites(leagueId)) {
+                assertEquals(false, email.equalsIgnoreCase(Fixtures.email(p)), when + " " + email);
+            }
+        }
+    }
+
+    private static String anyCase(String email, SplittableRandom random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return email.toUpperCase(Locale.ROOT);
+            case 1:
+                return Character.toUpperCase(email.charAt(0)) + email.substring(1);
+            default:
+                return email;
+        }
+    }
+
+    private static void assertMatchesScan(GamesLeague gamesLeague, List<Integer> playerIds, String when) {
+        int[] leagueIds = gamesLeague.getLeagueIds();
+        for (int playerId : playerIds) {
+            IntList leagues = new IntList();
+            IntList owned = new IntList();
+            IntList invites = new IntList();
+            for (int leagueId : leagueIds) {
+                if (contains(gamesLeague.getLeaguePlayers(leagueId), playerId)) {
+                    leagues.add(leagueId);
+                }
+                if (contains(gamesLeague.getLeagueOwners(leagueId), playerId)) {
+                    owned.add(leagueId);
+                }
+                if (contains(gamesLeague.getLeaguePlayerInvites(leagueId), playerId)) {
+                    invites.add(leagueId);
+                }
+            }
+            String player = when + " player " + playerId;
+            assertArrayEquals(sorted(leagues), gamesLeague.getPlayerLeagues(playerId), player + " leagues");
+            assertArrayEquals(sorted(owned), gamesLeague.getPlayerOwnedLeagues(playerId), player + " owned");
+            assertArrayEquals(sorted(invites), gamesLeague.getPlayerInvites(playerId), player + " invites");
+        }
+    }
+
+    private static int[] sorted(IntList ids) {
+        int[] array = ids.toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        for (int i : ids) {
+            if (i == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
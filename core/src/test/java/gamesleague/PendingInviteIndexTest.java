@@ -0,0 +1,124 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks PendingInviteIndex on its own, for emails in any case and slots
+ * reused once an email has no invites left, against a map of sets; and
+ * through GamesLeague, that createPlayer turns exactly the email invites
+ * still outstanding into player invites.
+ */
+class PendingInviteIndexTest {
+
+    private static final int SEEDS = 10;
+    private static final int EMAILS = 20;
+
+    @Test
+    void emailsMatchInAnyCase() {
+        PendingInviteIndex index = new PendingInviteIndex();
+        index.add("Someone@Example.com", 3);
+        index.add("SOMEONE@EXAMPLE.COM", 1);
+        index.add("someone@example.com", 3);
+        assertTrue(index.contains("someone@EXAMPLE.com"));
+        assertEquals(2, index.size());
+        index.remove("someone@example.COM", 3);
+        assertEquals(1, index.size());
+        assertArrayEquals(new int[] {1}, index.removeAll("someone@example.com"));
+        assertFalse(index.contains("Someone@Example.com"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void releasedSlotsKeepNoInvites() {
+        PendingInviteIndex index = new PendingInviteIndex();
+        index.add("first@example.com", 1);
+        index.add("first@example.com", 2);
+        index.remove("first@example.com", 1);
+        index.remove("first@example.com", 2);
+        assertFalse(index.contains("first@example.com"));
+        // the freed slot goes to the next email, without the first one's leagues
+        index.add("second@example.com", 7);
+        assertArrayEquals(new int[] {7}, index.removeAll("second@example.com"));
+        assertArrayEquals(new int[0], index.removeAll("first@example.com"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void matchesMapOfSets() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            PendingInviteIndex index = new PendingInviteIndex();
+            Map<String, TreeSet<Integer>> expected = new HashMap<>();
+            long size = 0;
+            for (int step = 0; step < 2000; step++) {
+                String email = Fixtures.email(random.nextInt(EMAILS));
+                String asGiven = random.nextBoolean() ? email.toUpperCase(Locale.ROOT) : email;
+                int leagueId = 1 + random.nextInt(6);
+                TreeSet<Integer> leagues = expected.computeIfAbsent(email, e -> new TreeSet<>());
+                String when = "seed " + seed + " step " + step + " " + asGiven;
+                switch (random.nextInt(5)) {
+                    case 0:
+                        int[] removed = index.removeAll(asGiven);
+                        assertArrayEquals(leagues.stream().mapToInt(Integer::intValue).toArray(), removed,
+                            when);
+                        size -= leagues.size();
+                        leagues.clear();
+                        break;
+                    case 1:
+                    case 2:
+                        if (leagues.remove(leagueId)) {
+                            size--;
+                        }
+                        index.remove(asGiven, leagueId);
+                        break;
+                    default:
+                        if (leagues.add(leagueId)) {
+                            size++;
+                        }
+                        index.add(asGiven, leagueId);
+                        break;
+                }
+                assertEquals(!leagues.isEmpty(), index.contains(email), when);
+                assertEquals(size, index.size(), when);
+            }
+        });
+    }
+
+    @Test
+    void signUpTurnsOutstandingInvitesIntoPlayerInvites() {
+        GamesLeague gamesLeague = new GamesLeague();
+        int owner = Fixtures.createPlayer(gamesLeague, 0);
+        int[] leagueIds = new int[4];
+        for (int l = 0; l < leagueIds.length; l++) {
+            leagueIds[l] = gamesLeague.createLeague(owner, "League " + l, GameType.DICEROLL);
+        }
+        gamesLeague.invitePlayerToLeague(leagueIds[0], "Player1@Example.com");
+        gamesLeague.invitePlayerToLeague(leagueIds[1], "player1@example.com");
+        gamesLeague.invitePlayerToLeague(leagueIds[3], "PLAYER1@EXAMPLE.COM");
+        gamesLeague.invitePlayerToLeague(leagueIds[2], "player2@example.com");
+        // taken back before sign-up, so not turned into a player invite
+        gamesLeague.removeInviteFromLeague(leagueIds[1], "PLAYER1@example.com");
+
+        int playerId = Fixtures.createPlayer(gamesLeague, 1);
+        assertArrayEquals(new int[] {leagueIds[0], leagueIds[3]}, gamesLeague.getPlayerInvites(playerId));
+        for (int leagueId : new int[] {leagueIds[0], leagueIds[1], leagueIds[3]}) {
+            assertArrayEquals(new String[0], gamesLeague.getLeagueEmailInvites(leagueId));
+        }
+        assertArrayEquals(new String[] {"player2@example.com"},
+            gamesLeague.getLeagueEmailInvites(leagueIds[2]));
+        assertArrayEquals(new int[] {playerId}, gamesLeague.getLeaguePlayerInvites(leagueIds[0]));
+        assertArrayEquals(new int[0], gamesLeague.getLeaguePlayerInvites(leagueIds[1]));
+        gamesLeague.acceptInviteToLeague(leagueIds[3], playerId);
+        assertArrayEquals(new int[] {leagueIds[0]}, gamesLeague.getPlayerInvites(playerId));
+        assertArrayEquals(new int[] {leagueIds[3]}, gamesLeague.getPlayerLeagues(playerId));
+    }
+}
@@ -0,0 +1,107 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that rankings served from a GamesLeague's ranking cache match the
+ * ranks of the points they are for, after a member joins mid-season (the
+ * cached rankings are extended, not recomputed) and after day scores are
+ * registered (the rankings of the day and its periods are invalidated).
+ */
+class RankingCacheTest {
+
+    // a Monday, so the days after it fall in the same week
+    private static final int MONDAY = Fixtures.epochDay(2024, 4, 1);
+
+    private final GamesLeague gamesLeague = new GamesLeague();
+    private int leagueId;
+
+    @Test
+    void rankingsAreExtendedWhenAMemberJoins() {
+        setUp(3);
+        registerDayScores(MONDAY, new int[] {4, 2, 4});
+        assertRankings(MONDAY, 3);
+        assertRankings(MONDAY, 3);
+        assertEquals(2, stat("hits"));
+
+        join(3);
+        assertRankings(MONDAY, 4);
+        assertEquals(2, stat("extensions"), "day and week are extended");
+        assertEquals(0, stat("invalidations"));
+        assertEquals(0, gamesLeague.getDayPoints(leagueId, MONDAY)[3]);
+    }
+
+    @Test
+    void rankingsAreInvalidatedWhenScoresAreRegistered() {
+        setUp(4);
+        registerDayScores(MONDAY, new int[] {1, 5, 3, 5});
+        assertRankings(MONDAY, 4);
+        long misses = stat("misses");
+
+        registerDayScores(MONDAY + 1, new int[] {6, 1, 1, 2});
+        assertTrue(stat("invalidations") >= 1, "the week ranking is invalidated");
+        assertRankings(MONDAY + 1, 4);
+        assertRankings(MONDAY, 4);
+        assertTrue(stat("misses") > misses);
+
+        join(4);
+        registerDayScores(MONDAY + 2, new int[] {0, 4, 2, 2, 6});
+        assertRankings(MONDAY + 2, 5);
+        assertRankings(MONDAY, 5);
+    }
+
+    /**
+     * A league of the given number of members, started on MONDAY.
+     */
+    private void setUp(int members) {
+        Fixtures.setToday(gamesLeague, MONDAY);
+        int owner = Fixtures.createPlayer(gamesLeague, 0);
+        leagueId = gamesLeague.createLeague(owner, "League", GameType.DICEROLL);
+        for (int m = 1; m < members; m++) {
+            join(m);
+        }
+        gamesLeague.setLeagueStartDate(leagueId, MONDAY);
+    }
+
+    /**
+     * Registers the scores on the day after, while the day can still be changed.
+     */
+    private void registerDayScores(int day, int[] scores) {
+        Fixtures.setToday(gamesLeague, day + 1);
+        gamesLeague.registerDayScores(day, leagueId, scores);
+    }
+
+    private void join(int m) {
+        Fixtures.join(gamesLeague, leagueId, m, Fixtures.createPlayer(gamesLeague, m));
+    }
+
+    /**
+     * Checks the day and week rankings against ranks from the points.
+     */
+    private void assertRankings(int day, int members) {
+        int[] dayRanking = gamesLeague.getDayRanking(leagueId, day);
+        assertEquals(members, dayRanking.length, "day " + day);
+        assertArrayEquals(Fixtures.naiveRank(gamesLeague.getDayPoints(leagueId, day)), dayRanking,
+            "day " + day);
+        int[] weekRanking = gamesLeague.getWeekRanking(leagueId, day);
+        assertEquals(members, weekRanking.length, "week of " + day);
+        assertArrayEquals(Fixtures.naiveRank(gamesLeague.getWeekPoints(leagueId, day)), weekRanking,
+            "week of " + day);
+    }
+
+    /**
+     * @return The named counter from getRankingCacheStats.
+     */
+    private long stat(String name) {
+        for (String field : gamesLeague.getRankingCacheStats().split(" ")) {
+            if (field.startsWith(name + "=")) {
+                return Long.parseLong(field.substring(name.length() + 1));
+            }
+        }
+        throw new IllegalArgumentException("No statistic " + name);
+    }
+}
@@ -0,0 +1,80 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks RankingEngine against ranks from a naive sort, on seeded random
+ * points with many ties and negative values. Narrow ranges take the counting
+ * pass, wide ones and the int extremes take the radix sort.
+ */
+class RankingEngineTest {
+
+    private static final int SEEDS = 50;
+
+    @Test
+    void countingRanksMatchNaiveSort() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            int n = random.nextInt(1, 200);
+            int[] points = new int[n];
+            for (int i = 0; i < n; i++) {
+                points[i] = random.nextInt(-10, 10);
+            }
+            assertRanks(points, "seed " + seed);
+        });
+    }
+
+    @Test
+    void radixRanksMatchNaiveSort() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            int n = random.nextInt(1, 200);
+            int[] pool = new int[1 + random.nextInt(n)];
+            for (int v = 0; v < pool.length; v++) {
+                pool[v] = random.nextInt();
+            }
+            pool[0] = Integer.MIN_VALUE;
+            int[] points = new int[n];
+            for (int i = 0; i < n; i++) {
+                // drawn from a pool, so many players tie
+                points[i] = pool[random.nextInt(pool.length)];
+            }
+            points[random.nextInt(n)] = Integer.MAX_VALUE;
+            assertRanks(points, "seed " + seed);
+        });
+    }
+
+    @Test
+    void edgeCases() {
+        assertRanks(new int[0], "no players");
+        assertRanks(new int[] {5}, "one player");
+        assertRanks(new int[] {-3, -3, -3}, "all tied");
+        assertRanks(new int[] {9, 7, 7, 3}, "class comment example");
+        assertRanks(new int[] {-1, 0, Integer.MIN_VALUE, -1, Integer.MAX_VALUE}, "extremes");
+    }
+
+    private static void assertRanks(int[] points, String when) {
+        assertArrayEquals(rankBySort(points), RankingEngine.rank(points),
+            when + " " + Arrays.toString(points));
+    }
+
+    /**
+     * @return The rank of each player: one more than the number of players
+     *         with more points, taken from the points sorted highest first.
+     */
+    private static int[] rankBySort(int[] points) {
+        int[] sorted = points.clone();
+        Arrays.sort(sorted);
+        int[] ranks = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            int rank = 1;
+            for (int j = sorted.length - 1; j >= 0 && sorted[j] > points[i]; j--) {
+                rank++;
+            }
+            ranks[i] = rank;
+        }
+        return ranks;
+    }
+}
@@ -0,0 +1,138 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that reports added to a ReportStore read back as they were, on
+ * seeded random reports of both game types sharing one codec, across many
+ * compressed blocks and the open block. The first block of each game type
+ * is the one its dictionary is trained from. The blocks are then restored,
+ * as from a snapshot, into a store on a new codec with only the
+ * dictionaries, so every block is decoded afresh.
+ */
+class ReportStoreTest {
+
+    private static final int SEEDS = 5;
+    private static final int REPORTS = 1000;
+
+    @Test
+    void reportsReadBackAcrossBlocks() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            ReportCodec codec = new ReportCodec();
+            ReportStore words = new ReportStore(GameType.WORDMASTER, codec);
+            ReportStore dice = new ReportStore(GameType.DICEROLL, codec);
+            Map<String, Integer> wordHandles = new HashMap<>();
+            Map<String, Integer> diceHandles = new HashMap<>();
+            for (int i = 0; i < REPORTS; i++) {
+                add(words, wordHandles, wordReport(random), "seed " + seed);
+                add(dice, diceHandles, diceReport(random), "seed " + seed);
+            }
+            String when = "seed " + seed;
+            assertEquals(wordHandles.size(), words.getDistinct(), when);
+            assertEquals(words.getDistinct() / ReportStore.REPORTS_PER_BLOCK, words.getBlockCount(),
+                when);
+            check(words, wordHandles, when + " words");
+            check(dice, diceHandles, when + " dice");
+            assertNotEquals(0, words.getDistinct() % ReportStore.REPORTS_PER_BLOCK,
+                when + " leaves reports in the open block");
+
+            ReportCodec restoredCodec = new ReportCodec();
+            for (Map.Entry<GameType, byte[]> entry : codec.getDictionaries().entrySet()) {
+                restoredCodec.restoreDictionary(entry.getKey(), entry.getValue());
+            }
+            check(restore(words, GameType.WORDMASTER, restoredCodec), wordHandles,
+                when + " words restored");
+            check(restore(dice, GameType.DICEROLL, restoredCodec), diceHandles,
+                when + " dice restored");
+            assertEquals(words.getBlockCount() + dice.getBlockCount(), restoredCodec.getMisses(),
+                when + " decodes each block once");
+        });
+    }
+
+    @Test
+    void emptyAndUnicodeReports() {
+        ReportStore store = new ReportStore(GameType.WORDMASTER, new ReportCodec());
+        List<String> reports = new ArrayList<>();
+        for (int i = 0; i < ReportStore.REPORTS_PER_BLOCK * 2 + 3; i++) {
+            reports.add(i % 5 == 0 ? "" : "\u2B1B\uD83D\uDFE9 " + i + " \u00E9\u00E8");
+        }
+        int[] handles = new int[reports.size()];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = store.add(reports.get(i));
+        }
+        for (int i = 0; i < handles.length; i++) {
+            assertEquals(reports.get(i), store.get(handles[i]), "report " + i);
+        }
+        assertEquals("", store.get(ReportStore.NO_REPORT));
+    }
+
+    /**
+     * Adds the report, checking a duplicate gets the handle of the first copy.
+     */
+    private static void add(ReportStore store, Map<String, Integer> handles, String report,
+            String when) {
+        int handle = store.add(report);
+        Integer first = handles.putIfAbsent(report, handle);
+        if (first != null) {
+            assertEquals(first.intValue(), handle, when + " duplicate " + report);
+        }
+    }
+
+    private static void check(ReportStore store, Map<String, Integer> handles, String when) {
+        for (Map.Entry<String, Integer> entry : handles.entrySet()) {
+            assertEquals(entry.getKey(), store.get(entry.getValue()),
+                when + " handle " + entry.getValue());
+        }
+    }
+
+    private static ReportStore restore(ReportStore store, GameType gameType, ReportCodec codec) {
+        List<byte[]> blocks = new ArrayList<>();
+        for (int b = 0; b < store.getBlockCount(); b++) {
+            blocks.add(store.getBlock(b));
+        }
+        int first = store.getBlockCount() * ReportStore.REPORTS_PER_BLOCK;
+        String[] open = new String[store.getDistinct() - first];
+        for (int r = 0; r < open.length; r++) {
+            open[r] = store.get(first + r + 1);
+        }
+        ReportStore restored = new ReportStore(gameType, codec);
+        restored.restore(blocks, open, store.getHashes(), store.getAdded(), store.getRawBytes());
+        return restored;
+    }
+
+    /**
+     * A word game grid of a few rows, now and then one of a handful of
+     * common ones so there are duplicates.
+     */
+    private static String wordReport(SplittableRandom random) {
+        if (random.nextInt(4) == 0) {
+            return "Wordmaster " + random.nextInt(5) + " 6/6";
+        }
+        StringBuilder report = new StringBuilder("Wordmaster ").append(random.nextInt(1000))
+            .append(' ').append(1 + random.nextInt(6)).append("/6\n");
+        for (int row = random.nextInt(6); row >= 0; row--) {
+            for (int c = 0; c < 5; c++) {
+                report.append(random.nextBoolean() ? "\u2B1B" : "\uD83D\uDFE9");
+            }
+            report.append('\n');
+        }
+        return report.toString();
+    }
+
+    private static String diceReport(SplittableRandom random) {
+        StringBuilder report = new StringBuilder("Rolls:");
+        for (int roll = 1 + random.nextInt(12); roll > 0; roll--) {
+            report.append(' ').append(1 + random.nextInt(6));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the round counters kept incrementally for each player and league
+ * member against those recomputed from the history by verifyRoundStats, after
+ * every call of seeded random sequences of game reports, day scores, voided
+ * days, members made inactive and active again, and leagues reset, removed,
+ * cloned and created. Every so often the league is saved and loaded, and the
+ * loaded copy is checked too.
+ */
+class RoundStatsTest {
+
+    private static final int SEEDS = 20;
+    private static final int STEPS = 400;
+    private static final int PLAYERS = 8;
+    private static final int FIRST_DAY = Fixtures.epochDay(2024, 3, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void countersMatchHistory() throws IOException, ClassNotFoundException {
+        for (long seed = 1; seed <= SEEDS; seed++) {
+            new Sequence(seed, directory.resolve("seed-" + seed + ".bin")).run();
+        }
+    }
+
+    /**
+     * One random sequence of calls. Calls the GamesLeague rejects (a closed
+     * day, a player already active, a removed league) are part of the
+     * sequence too; they must leave the counters alone.
+     */
+    private static final class Sequence {
+
+        private final long seed;
+        private final Path file;
+        private final SplittableRandom random;
+        private final GamesLeague gamesLeague = new GamesLeague();
+        private final int[] players;
+        private final List<Integer> leagueIds = new ArrayList<>();
+        private int today = FIRST_DAY;
+        private int created = 0;
+
+        Sequence(long seed, Path file) {
+            this.seed = seed;
+            this.file = file;
+            random = new SplittableRandom(seed);
+            Fixtures.setToday(gamesLeague, today);
+            players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+            for (int l = 0; l < 3; l++) {
+                createLeague();
+            }
+        }
+
+        void run() throws IOException, ClassNotFoundException {
+            for (int step = 0; step < STEPS; step++) {
+                int op = random.nextInt(100);
+                if (op < 35) {
+                    attempt(() -> gamesLeague.registerGameReport(recentDay(), league(), player(),
+                        "report"));
+                } else if (op < 50) {
+                    int leagueId = leagueIds.get(random.nextInt(leagueIds.size()));
+                    attempt(() -> gamesLeague.registerDayScores(recentDay(), leagueId,
+                        scores(leagueId)));
+                } else if (op < 57) {
+                    attempt(() -> gamesLeague.voidDayPoints(recentDay(), league()));
+                } else if (op < 65) {
+                    attempt(() -> gamesLeague.setLeaguePlayerInactive(league(), player()));
+                } else if (op < 73) {
+                    attempt(() -> gamesLeague.setLeaguePlayerActive(league(), player()));
+                } else if (op < 76) {
+                    attempt(() -> resetLeague(league()));
+                } else if (op < 79) {
+                    removeLeague();
+                } else if (op < 81) {
+                    attempt(() -> leagueIds.add(gamesLeague.cloneLeague(league(),
+                        "Clone " + created++)));
+                } else if (op < 83) {
+                    createLeague();
+                } else {
+                    Fixtures.setToday(gamesLeague, ++today);
+                }
+                String when = "seed " + seed + " step " + step + " op " + op;
+                assertDoesNotThrow(gamesLeague::verifyRoundStats, when);
+                if (step % 100 == 99) {
+                    gamesLeague.saveGamesLeagueData(file.toString());
+                    GamesLeague loaded = new GamesLeague();
+                    loaded.loadGamesLeagueData(file.toString());
+                    assertDoesNotThrow(loaded::verifyRoundStats, when + " after load");
+                }
+            }
+        }
+
+        private void createLeague() {
+            int owner = player();
+            int leagueId = gamesLeague.createLeague(owner, "League " + created++,
+                random.nextBoolean() ? GameType.WORDMASTER : GameType.DICEROLL);
+            for (int p : players) {
+                if (p != owner && random.nextInt(3) != 0) {
+                    Fixtures.join(gamesLeague, leagueId, indexOf(p), p);
+                }
+            }
+            gamesLeague.setLeagueStartDate(leagueId, today);
+            leagueIds.add(leagueId);
+        }
+
+        /**
+         * Resets the league and starts it again today, so play can go on.
+         */
+        private void resetLeague(int leagueId) {
+            gamesLeague.resetLeague(leagueId);
+            gamesLeague.setLeagueStartDate(leagueId, today);
+        }
+
+        private void removeLeague() {
+            if (leagueIds.size() > 1) {
+                gamesLeague.removeLeague(leagueIds.remove(random.nextInt(leagueIds.size())));
+            }
+        }
+
+        /**
+         * @return A league, or now and then the ID of one that does not exist.
+         */
+        private int league() {
+            return random.nextInt(20) == 0 ? -1 : leagueIds.get(random.nextInt(leagueIds.size()));
+        }
+
+        private int player() {
+            return players[random.nextInt(PLAYERS)];
+        }
+
+        private int indexOf(int playerId) {
+            for (int p = 0; p < PLAYERS; p++) {
+                if (players[p] == playerId) {
+                    return p;
+                }
+            }
+            throw new IllegalArgumentException("Unknown player " + playerId);
+        }
+
+        /**
+         * @return Today or one of the few days before it, which are the days
+         *         that can still be reported and closed.
+         */
+        private int recentDay() {
+            return today - random.nextInt(3);
+        }
+
+        /**
+         * @return Scores for the members of the league, now and then one too
+         *         many, which the GamesLeague rejects.
+         */
+        private int[] scores(int leagueId) {
+            int members = gamesLeague.getLeaguePlayers(leagueId).length;
+            int[] scores = new int[members + (random.nextInt(20) == 0 ? 1 : 0)];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = random.nextInt(7);
+            }
+            return scores;
+        }
+
+        private static void attempt(Runnable call) {
+            try {
+                call.run();
+            } catch (IDInvalidException | IllegalOperationException | IllegalArgumentException
+                    | InvalidDateException e) {
+                // rejected; the counters must not have moved
+            }
+        }
+    }
+}
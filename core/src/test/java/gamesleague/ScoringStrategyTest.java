@@ -0,0 +1,132 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the points each ScoringStrategy gives against a naive count of the
+ * players each member beats, on fixed cases at the WORDMASTER bounds, with
+ * ties and inactive members, and on seeded random days that take the counting
+ * pass (few distinct scores) and the sort (DICEROLL scores spread over the
+ * int range, including Integer.MIN_VALUE).
+ */
+class ScoringStrategyTest {
+
+    private static final int SEEDS = 50;
+
+    @Test
+    void wordMasterBounds() {
+        // 0 and 7 guesses failed; 1 guess beats them and 6, 6 guesses beat only them
+        assertPoints(GameType.WORDMASTER, new int[] {0, 1, 6, 7}, new BitSet(), new int[] {0, 4, 3, 0});
+        assertPoints(GameType.WORDMASTER, new int[] {-1, 0, 7, 8}, new BitSet(), new int[] {0, 0, 0, 0});
+    }
+
+    @Test
+    void tiesShareTheirPoints() {
+        assertPoints(GameType.WORDMASTER, new int[] {3, 3, 5, 3}, new BitSet(), new int[] {2, 2, 1, 2});
+        assertPoints(GameType.DICEROLL, new int[] {9, 9, 9}, new BitSet(), new int[] {1, 1, 1});
+    }
+
+    @Test
+    void inactiveMembersGetNothingAndAreNotBeaten() {
+        BitSet inactive = new BitSet();
+        inactive.set(0);
+        inactive.set(3);
+        assertPoints(GameType.WORDMASTER, new int[] {1, 2, 9, 4}, inactive, new int[] {0, 2, 0, 0});
+        assertPoints(GameType.DICEROLL, new int[] {12, 2, 7, 20}, inactive, new int[] {0, 1, 2, 0});
+    }
+
+    @Test
+    void diceRollExtremesAreNotFailures() {
+        int min = Integer.MIN_VALUE;
+        int max = Integer.MAX_VALUE;
+        assertPoints(GameType.DICEROLL, new int[] {min, 0, max, min}, new BitSet(), new int[] {1, 3, 4, 1});
+    }
+
+    @Test
+    void countingPassMatchesNaiveCount() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            for (GameType gameType : GameType.values()) {
+                int n = random.nextInt(1, 60);
+                int[] scores = new int[n];
+                BitSet inactive = new BitSet();
+                for (int i = 0; i < n; i++) {
+                    scores[i] = random.nextInt(-1, 9);
+                    if (random.nextInt(5) == 0) {
+                        inactive.set(i);
+                    }
+                }
+                assertPoints(gameType, scores, inactive, naivePoints(gameType, scores, inactive));
+            }
+        });
+    }
+
+    @Test
+    void sortMatchesNaiveCount() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            int n = random.nextInt(2, 60);
+            int[] pool = new int[1 + random.nextInt(n)];
+            for (int v = 0; v < pool.length; v++) {
+                pool[v] = random.nextInt();
+            }
+            pool[0] = Integer.MIN_VALUE;
+            int[] scores = new int[n];
+            BitSet inactive = new BitSet();
+            for (int i = 0; i < n; i++) {
+                // drawn from a pool, so many players tie
+                scores[i] = pool[random.nextInt(pool.length)];
+                if (random.nextInt(5) == 0) {
+                    inactive.set(i);
+                }
+            }
+            scores[random.nextInt(n)] = Integer.MAX_VALUE;
+            assertPoints(GameType.DICEROLL, scores, inactive,
+                naivePoints(GameType.DICEROLL, scores, inactive));
+        });
+    }
+
+    private static void assertPoints(GameType gameType, int[] scores, BitSet inactive, int[] expected) {
+        int[] points = new int[scores.length];
+        ScoringStrategy.of(gameType).computePoints(scores, inactive, points);
+        assertArrayEquals(expected, points,
+            gameType + " " + Arrays.toString(scores) + " inactive " + inactive);
+    }
+
+    /**
+     * @return The points of each member from the game rules: an active
+     *         member who did not fail gets one, plus one for each active
+     *         member who failed or who they beat.
+     */
+    private static int[] naivePoints(GameType gameType, int[] scores, BitSet inactive) {
+        int[] points = new int[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            if (inactive.get(i) || failed(gameType, scores[i])) {
+                continue;
+            }
+            points[i] = 1;
+            for (int j = 0; j < scores.length; j++) {
+                boolean beaten = failed(gameType, scores[j]) || beats(gameType, scores[i], scores[j]);
+                if (!inactive.get(j) && beaten) {
+                    points[i]++;
+                }
+            }
+        }
+        return points;
+    }
+
+    private static boolean failed(GameType gameType, int score) {
+        return gameType == GameType.WORDMASTER && (score < 1 || score > 6);
+    }
+
+    /**
+     * @return true if score a is the better of two games that did not fail:
+     *         fewer guesses at WORDMASTER, a higher roll at DICEROLL.
+     */
+    private static boolean beats(GameType gameType, int a, int b) {
+        return gameType == GameType.WORDMASTER ? a < b : a > b;
+    }
+}
@@ -0,0 +1,245 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Saves seeded random GamesLeagues with saveGamesLeagueData, loads them into
+ * a new GamesLeague and checks that every query answers the same. Each league
+ * gets more distinct game reports than fit in one compressed block, plus
+ * duplicates, so the reports chunk holds dictionaries, full blocks and an
+ * open block. Saving the loaded copy must give the same file byte for byte.
+ */
+class SnapshotTest {
+
+    private static final int SEEDS = 10;
+    private static final int PLAYERS = 12;
+    private static final int LEAGUES = 4;
+    private static final int DAYS = 40;
+    private static final int FIRST_DAY = Fixtures.epochDay(2024, 1, 25);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadedCopyAnswersTheSame() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            GamesLeague saved = history(random);
+            Path file = directory.resolve("seed-" + seed + ".bin");
+            saved.saveGamesLeagueData(file.toString());
+
+            GamesLeague loaded = new GamesLeague();
+            Fixtures.setToday(loaded, FIRST_DAY + DAYS - 1);
+            loaded.loadGamesLeagueData(file.toString());
+            assertSame(saved, loaded, "seed " + seed);
+
+            Path again = directory.resolve("seed-" + seed + "-again.bin");
+            loaded.saveGamesLeagueData(again.toString());
+            assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(again), "seed " + seed);
+        });
+    }
+
+    @Test
+    void otherVersionsAreRefused() throws IOException {
+        Path file = directory.resolve("future.bin");
+        Files.write(file, ByteBuffer.allocate(8).putInt(Snapshot.MAGIC).putInt(Snapshot.VERSION + 1)
+            .array());
+        GamesLeague gamesLeague = new GamesLeague();
+        IOException e = assertThrows(IOException.class,
+            () -> gamesLeague.loadGamesLeagueData(file.toString()));
+        assertTrue(e.getMessage().contains("version"), e.getMessage());
+    }
+
+    /**
+     * Players, leagues of both game types with members, owners and invites,
+     * and days of reports, scores and voided days; a deactivated player and a
+     * removed league too.
+     */
+    private static GamesLeague history(SplittableRandom random) {
+        GamesLeague gamesLeague = new GamesLeague();
+        Fixtures.setToday(gamesLeague, FIRST_DAY);
+        int[] players = Fixtures.createPlayers(gamesLeague, PLAYERS);
+        List<Integer> leagueIds = new ArrayList<>();
+        for (int l = 0; l < LEAGUES; l++) {
+            int owner = players[random.nextInt(PLAYERS)];
+            int leagueId = gamesLeague.createLeague(owner, "League " + l,
+                l % 2 == 0 ? GameType.WORDMASTER : GameType.DICEROLL);
+            for (int player : players) {
+                if (player == owner) {
+                    continue;
+                }
+                int choice = random.nextInt(4);
+                if (choice < 3) {
+                    gamesLeague.invitePlayerToLeague(leagueId,
+                        Fixtures.email(indexOf(players, player)));
+                }
+                if (choice < 2) {
+                    gamesLeague.acceptInviteToLeague(leagueId, player);
+                }
+            }
+            gamesLeague.invitePlayerToLeague(leagueId, "newcomer" + l + "@example.com");
+            gamesLeague.setLeagueStartDate(leagueId, FIRST_DAY);
+            leagueIds.add(leagueId);
+        }
+        for (int day = FIRST_DAY; day < FIRST_DAY + DAYS; day++) {
+            Fixtures.setToday(gamesLeague, day);
+            for (int leagueId : leagueIds) {
+                int[] members = gamesLeague.getLeaguePlayers(leagueId);
+                for (int member : members) {
+                    if (random.nextInt(4) != 0 && gamesLeague.isLeaguePlayerActive(leagueId, member)) {
+                        // a small pool of reports, so many are duplicates
+                        String report = random.nextInt(3) == 0
+                            ? "report " + random.nextInt(10)
+                            : "report of player " + member + " on day " + day + ": "
+                                + random.nextInt(1_000_000);
+                        gamesLeague.registerGameReport(day, leagueId, member, report);
+                    }
+                }
+                int choice = random.nextInt(10);
+                if (choice < 7) {
+                    int[] scores = new int[members.length];
+                    for (int m = 0; m < scores.length; m++) {
+                        scores[m] = random.nextInt(7);
+                    }
+                    gamesLeague.registerDayScores(day, leagueId, scores);
+                } else if (choice == 7) {
+                    gamesLeague.voidDayPoints(day, leagueId);
+                }
+            }
+            if (day == FIRST_DAY + DAYS / 2) {
+                gamesLeague.setLeaguePlayerInactive(leagueIds.get(0),
+                    gamesLeague.getLeaguePlayers(leagueIds.get(0))[0]);
+            }
+        }
+        for (int player : players) {
+            if (gamesLeague.getPlayerOwnedLeagues(player).length == 0) {
+                gamesLeague.deactivatePlayer(player);
+                break;
+            }
+        }
+        gamesLeague.removeLeague(leagueIds.get(LEAGUES - 1));
+        gamesLeague.setLeagueEndDate(leagueIds.get(1), FIRST_DAY + DAYS - 3);
+        return gamesLeague;
+    }
+
+    private static void assertSame(GamesLeague expected, GamesLeague actual, String when) {
+        assertArrayEquals(expected.getPlayerIds(), actual.getPlayerIds(), when);
+        for (int playerId : expected.getPlayerIds()) {
+            String player = when + " player " + playerId;
+            assertEquals(expected.getPlayerEmail(playerId), actual.getPlayerEmail(playerId), player);
+            assertEquals(expected.getPlayerDisplayName(playerId),
+                actual.getPlayerDisplayName(playerId), player);
+            assertEquals(expected.isDeactivatedPlayer(playerId), actual.isDeactivatedPlayer(playerId),
+                player);
+            assertEquals(expected.getPlayerJoinDate(playerId), actual.getPlayerJoinDate(playerId),
+                player);
+            assertArrayEquals(expected.getPlayerLeagues(playerId), actual.getPlayerLeagues(playerId),
+                player);
+            assertArrayEquals(expected.getPlayerOwnedLeagues(playerId),
+                actual.getPlayerOwnedLeagues(playerId), player);
+            assertArrayEquals(expected.getPlayerInvites(playerId), actual.getPlayerInvites(playerId),
+                player);
+            assertEquals(expected.getPlayerRoundsPlayed(playerId),
+                actual.getPlayerRoundsPlayed(playerId), player);
+            assertEquals(expected.getPlayerRoundsPercentage(playerId),
+                actual.getPlayerRoundsPercentage(playerId), player);
+        }
+        assertArrayEquals(expected.getLeagueIds(), actual.getLeagueIds(), when);
+        for (int leagueId : expected.getLeagueIds()) {
+            String league = when + " league " + leagueId;
+            assertEquals(expected.getLeagueName(leagueId), actual.getLeagueName(leagueId), league);
+            assertArrayEquals(expected.getLeaguePlayers(leagueId), actual.getLeaguePlayers(leagueId),
+                league);
+            assertArrayEquals(expected.getLeagueOwners(leagueId), actual.getLeagueOwners(leagueId),
+                league);
+            assertArrayEquals(expected.getLeaguePlayerInvites(leagueId),
+                actual.getLeaguePlayerInvites(leagueId), league);
+            assertArrayEquals(expected.getLeagueEmailInvites(leagueId),
+                actual.getLeagueEmailInvites(leagueId), league);
+            assertEquals(expected.getLeagueStartDate(leagueId), actual.getLeagueStartDate(leagueId),
+                league);
+            assertEquals(expected.getLeagueCloseDate(leagueId), actual.getLeagueCloseDate(leagueId),
+                league);
+            assertEquals(expected.getLeagueStatus(leagueId), actual.getLeagueStatus(leagueId), league);
+            for (int playerId : expected.getLeaguePlayers(leagueId)) {
+                assertEquals(expected.isLeaguePlayerActive(leagueId, playerId),
+                    actual.isLeaguePlayerActive(leagueId, playerId), league + " player " + playerId);
+            }
+            int end = expected.getLeagueCloseDate(leagueId) == -1
+                ? FIRST_DAY + DAYS : expected.getLeagueCloseDate(leagueId);
+            for (int day = FIRST_DAY; day < end; day++) {
+                assertDay(expected, actual, leagueId, day, league + " day " + day);
+            }
+        }
+    }
+
+    private static void assertDay(GamesLeague expected, GamesLeague actual, int leagueId, int day,
+            String when) {
+        for (int playerId : expected.getLeaguePlayers(leagueId)) {
+            assertEquals(expected.getGameReport(day, leagueId, playerId),
+                actual.getGameReport(day, leagueId, playerId), when + " report of " + playerId);
+        }
+        assertEquals(expected.getDayStatus(leagueId, day), actual.getDayStatus(leagueId, day), when);
+        assertArrayEquals(expected.getDayScores(leagueId, day), actual.getDayScores(leagueId, day),
+            when);
+        assertArrayEquals(expected.getDayPoints(leagueId, day), actual.getDayPoints(leagueId, day),
+            when);
+        assertArrayEquals(expected.getDayRanking(leagueId, day), actual.getDayRanking(leagueId, day),
+            when);
+        assertResult(() -> expected.getWeekStatus(leagueId, day),
+            () -> actual.getWeekStatus(leagueId, day), when + " week");
+        assertResult(() -> expected.getWeekPoints(leagueId, day),
+            () -> actual.getWeekPoints(leagueId, day), when + " week");
+        assertResult(() -> expected.getWeekRanking(leagueId, day),
+            () -> actual.getWeekRanking(leagueId, day), when + " week");
+        assertResult(() -> expected.getMonthPoints(leagueId, day),
+            () -> actual.getMonthPoints(leagueId, day), when + " month");
+        assertResult(() -> expected.getMonthRanking(leagueId, day),
+            () -> actual.getMonthRanking(leagueId, day), when + " month");
+        assertResult(() -> expected.getYearPoints(leagueId, day),
+            () -> actual.getYearPoints(leagueId, day), when + " year");
+    }
+
+    /**
+     * Checks two calls give equal results, or both throw the same exception
+     * (a period can start before the league does).
+     */
+    private static void assertResult(Supplier<Object> expected, Supplier<Object> actual, String when) {
+        Object expectedResult;
+        try {
+            expectedResult = expected.get();
+        } catch (RuntimeException e) {
+            assertThrows(e.getClass(), actual::get, when);
+            return;
+        }
+        Object actualResult = actual.get();
+        if (expectedResult instanceof int[]) {
+            assertArrayEquals((int[]) expectedResult, (int[]) actualResult, when);
+        } else {
+            assertEquals(expectedResult, actualResult, when);
+        }
+    }
+
+    private static int indexOf(int[] players, int playerId) {
+        for (int p = 0; p < players.length; p++) {
+            if (players[p] == playerId) {
+                return p;
+            }
+        }
+        throw new IllegalArgumentException("Unknown player " + playerId);
+    }
+}
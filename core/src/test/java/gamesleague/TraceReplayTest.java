@@ -0,0 +1,175 @@
+package gamesleague;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Records seeded random calls through a TraceRecorder, starting from a
+ * snapshot of a league already in use, reads the trace back record by record
+ * and replays it on one thread and on several into a league loaded from the
+ * snapshot: every call must end as it did when recorded and the replayed
+ * league must save to the same file as the recorded one.
+ */
+class TraceReplayTest {
+
+    private static final int SEEDS = 5;
+    private static final int PLAYERS = 8;
+    private static final int LEAGUES = 3;
+    private static final int DAYS = 10;
+    private static final int FIRST_DAY = Fixtures.epochDay(2024, 2, 26);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasRecorded() throws Exception {
+        GamesLeague gamesLeague = new GamesLeague();
+        Fixtures.setToday(gamesLeague, FIRST_DAY);
+        String trace = directory.resolve("calls.trace").toString();
+        int playerId;
+        try (TraceRecorder recorder = new TraceRecorder(gamesLeague, trace)) {
+            recorder.setClock(Fixtures.clockOn(FIRST_DAY));
+            playerId = Fixtures.createPlayer(recorder, 0);
+            assertThrows(IllegalEmailException.class, () -> Fixtures.createPlayer(recorder, 0));
+            int leagueId = recorder.createLeague(playerId, "League", GameType.WORDMASTER);
+            recorder.setLeagueStartDate(leagueId, FIRST_DAY);
+            Fixtures.setToday(gamesLeague, FIRST_DAY + 1);
+            recorder.setClock(Fixtures.clockOn(FIRST_DAY + 1));
+            recorder.registerDayScores(FIRST_DAY, leagueId, new int[] {4});
+            assertEquals(5, recorder.getRecords());
+        }
+
+        try (TraceReader reader = new TraceReader(trace)) {
+            assertTrue(reader.getStartMillis() > 0);
+            TraceRecord created = reader.next();
+            assertEquals(TraceOp.CREATE_PLAYER, created.op);
+            assertEquals(Fixtures.email(0), created.stringArg(0));
+            assertEquals("Player 0", created.stringArg(2));
+            assertEquals("", created.outcome);
+            assertEquals(FIRST_DAY, created.day);
+            TraceRecord duplicate = reader.next();
+            assertEquals("IllegalEmailException", duplicate.outcome);
+            assertTrue(duplicate.startNanos >= created.startNanos);
+            TraceRecord league = reader.next();
+            assertEquals(TraceOp.CREATE_LEAGUE, league.op);
+            assertEquals(playerId, league.intArg(0));
+            assertEquals(GameType.WORDMASTER, league.gameTypeArg(2));
+            assertEquals(TraceOp.SET_LEAGUE_START_DATE, reader.next().op);
+            TraceRecord scores = reader.next();
+            assertEquals(TraceOp.REGISTER_DAY_SCORES, scores.op);
+            assertEquals(FIRST_DAY + 1, scores.day);
+            assertEquals(FIRST_DAY, scores.intArg(0));
+            assertArrayEquals(new int[] {4}, scores.intArrayArg(2));
+            assertEquals(null, reader.next());
+        }
+    }
+
+    @Test
+    void replayReachesTheRecordedState() throws Exception {
+        Fixtures.forEachSeed(SEEDS, (seed, random) -> {
+            GamesLeague recorded = new GamesLeague();
+            Fixtures.setToday(recorded, FIRST_DAY);
+            int[] players = Fixtures.createPlayers(recorded, PLAYERS / 2);
+            String snapshot = directory.resolve("start-" + seed + ".bin").toString();
+            String trace = directory.resolve("calls-" + seed + ".trace").toString();
+            long records;
+            try (TraceRecorder recorder = new TraceRecorder(recorded, trace, snapshot)) {
+                history(recorded, recorder, players, random);
+                records = recorder.getRecords();
+            }
+            Path expected = directory.resolve("recorded-" + seed + ".bin");
+            recorded.saveGamesLeagueData(expected.toString());
+
+            for (int threads : new int[] {1, 3}) {
+                String when = "seed " + seed + " threads " + threads;
+                GamesLeague replayed = new GamesLeague();
+                replayed.loadGamesLeagueData(snapshot);
+                String report = new TraceReplay(replayed, threads, false).replay(trace);
+                String summary = report.split("\n")[0];
+                assertTrue(summary.startsWith("records=" + records + " threads=" + threads),
+                    when + " " + summary);
+                assertTrue(summary.endsWith(" mismatches=0 skipped=0"), when + " " + summary);
+
+                Fixtures.setToday(replayed, FIRST_DAY + DAYS - 1);
+                Path actual = directory.resolve("replayed-" + seed + "-" + threads + ".bin");
+                replayed.saveGamesLeagueData(actual.toString());
+                assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual), when);
+            }
+        });
+    }
+
+    /**
+     * More sign-ups, leagues with invites and members, then days of reports,
+     * scores, voids and queries, including calls the GamesLeague rejects,
+     * all made through the recorder on the day its clock says.
+     */
+    private static void history(GamesLeague gamesLeague, TraceRecorder recorder, int[] signedUp,
+            SplittableRandom random) {
+        recorder.setClock(Fixtures.clockOn(FIRST_DAY));
+        List<Integer> players = new ArrayList<>();
+        for (int playerId : signedUp) {
+            players.add(playerId);
+        }
+        for (int p = signedUp.length; p < PLAYERS; p++) {
+            players.add(Fixtures.createPlayer(recorder, p));
+        }
+        assertThrows(IllegalEmailException.class, () -> Fixtures.createPlayer(recorder, 0));
+        int[] leagueIds = new int[LEAGUES];
+        for (int l = 0; l < LEAGUES; l++) {
+            leagueIds[l] = recorder.createLeague(players.get(l),
+                "League " + l, l % 2 == 0 ? GameType.WORDMASTER : GameType.DICEROLL);
+            for (int p = 0; p < PLAYERS; p++) {
+                if (p != l && random.nextInt(3) != 0) {
+                    recorder.invitePlayerToLeague(leagueIds[l], Fixtures.email(p));
+                    if (random.nextBoolean()) {
+                        recorder.acceptInviteToLeague(leagueIds[l], players.get(p));
+                    }
+                }
+            }
+            recorder.setLeagueStartDate(leagueIds[l], FIRST_DAY);
+        }
+        for (int day = FIRST_DAY; day < FIRST_DAY + DAYS; day++) {
+            Fixtures.setToday(gamesLeague, day);
+            recorder.setClock(Fixtures.clockOn(day));
+            for (int leagueId : leagueIds) {
+                int[] members = recorder.getLeaguePlayers(leagueId);
+                for (int member : members) {
+                    if (random.nextInt(3) != 0) {
+                        recorder.registerGameReport(day, leagueId, member, "report " + random.nextInt(100));
+                    }
+                }
+                int choice = random.nextInt(6);
+                try {
+                    if (choice < 4) {
+                        int[] scores = new int[choice == 0 ? members.length + 1 : members.length];
+                        for (int m = 0; m < scores.length; m++) {
+                            scores[m] = random.nextInt(8);
+                        }
+                        recorder.registerDayScores(day - random.nextInt(3), leagueId, scores);
+                    } else if (choice == 4) {
+                        recorder.voidDayPoints(day, leagueId);
+                    }
+                } catch (RuntimeException e) {
+                    // rejected, so nothing changed
+                }
+                recorder.getWeekRanking(leagueId, day);
+                recorder.getMonthPoints(leagueId, day);
+            }
+            for (int playerId : players) {
+                recorder.getPlayerRoundsPercentage(playerId);
+            }
+            assertThrows(IDInvalidException.class, () -> recorder.getPlayerEmail(-1));
+        }
+    }
+}
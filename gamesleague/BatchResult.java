@@ -0,0 +1,92 @@
+package gamesleague;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a batch call such as
+ * {@link GamesLeague#registerDayScores(int[], int[], int[][])}: which entries
+ * of the batch were applied and, for each one that was not, the exception it
+ * would have thrown as a single call.
+ */
+public class BatchResult {
+
+    private final int[] leagueIds;
+    private final RuntimeException[] failures;
+    private final int failureCount;
+
+    BatchResult(int[] leagueIds, RuntimeException[] failures) {
+        this.leagueIds = leagueIds;
+        this.failures = failures;
+        int count = 0;
+        for (RuntimeException failure : failures) {
+            if (failure != null) {
+                count++;
+            }
+        }
+        this.failureCount = count;
+    }
+
+    /**
+     * @return Number of entries in the batch.
+     */
+    public int size() {
+        return failures.length;
+    }
+
+    public int getAppliedCount() {
+        return failures.length - failureCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @param index Position of the entry in the batch.
+     * @return True if the entry was applied.
+     */
+    public boolean isApplied(int index) {
+        return failures[index] == null;
+    }
+
+    /**
+     * @param index Position of the entry in the batch.
+     * @return Why the entry was not applied, or null if it was.
+     */
+    public RuntimeException getFailure(int index) {
+        return failures[index];
+    }
+
+    /**
+     * @return Positions of the entries that were not applied, in batch order.
+     */
+    public int[] getFailedIndexes() {
+        int[] indexes = new int[failureCount];
+        int n = 0;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                indexes[n++] = i;
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * @return IDs of the leagues with at least one entry not applied, ascending.
+     */
+    public int[] getFailedLeagueIds() {
+        int[] ids = new int[failureCount];
+        int n = 0;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                ids[n++] = leagueIds[i];
+            }
+        }
+        return Arrays.stream(ids).sorted().distinct().toArray();
+    }
+
+    @Override
+    public String toString() {
+        return "applied=" + getAppliedCount() + " failed=" + failureCount;
+    }
+}
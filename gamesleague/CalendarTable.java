@@ -0,0 +1,113 @@
+package gamesleague;
+
+import java.time.LocalDate;
+
+/**
+ * Precomputed calendar for resolving the month and year containing an epoch
+ * day without creating LocalDate objects.
+ * <p>
+ * For every day in the covered range the table holds the index of its month
+ * counted from the first covered month, and for every month the epoch day it
+ * starts on, so month and year keys and bounds are one or two array reads.
+ * The range covers the years from the system property
+ * {@code gamesleague.calendar.firstYear} to
+ * {@code gamesleague.calendar.lastYear} (1970 to 2199 by default, about 160KB);
+ * days outside it fall back to LocalDate. Weeks need no table, see
+ * {@link Period#key(int)}.
+ */
+final class CalendarTable {
+
+    static final int FIRST_YEAR = Integer.getInteger("gamesleague.calendar.firstYear", 1970);
+    static final int LAST_YEAR = Integer.getInteger("gamesleague.calendar.lastYear", 2199);
+
+    private static final int FIRST_DAY;
+    private static final int LAST_DAY;
+    private static final int FIRST_MONTH_KEY = FIRST_YEAR * 12;
+
+    // month index (from the first covered month) of each covered day
+    private static final short[] MONTH_OF_DAY;
+    // first epoch day of each covered month, plus the day after the last one
+    private static final int[] MONTH_START;
+
+    static {
+        if (LAST_YEAR < FIRST_YEAR || (LAST_YEAR - FIRST_YEAR + 1) * 12 > Short.MAX_VALUE) {
+            throw new IllegalStateException("Unsupported calendar range "
+                + FIRST_YEAR + "-" + LAST_YEAR + ".");
+        }
+        int months = (LAST_YEAR - FIRST_YEAR + 1) * 12;
+        MONTH_START = new int[months + 1];
+        LocalDate date = LocalDate.of(FIRST_YEAR, 1, 1);
+        for (int m = 0; m <= months; m++) {
+            MONTH_START[m] = (int) date.toEpochDay();
+            date = date.plusMonths(1);
+        }
+        FIRST_DAY = MONTH_START[0];
+        LAST_DAY = MONTH_START[months] - 1;
+        MONTH_OF_DAY = new short[LAST_DAY - FIRST_DAY + 1];
+        for (int m = 0; m < months; m++) {
+            for (int day = MONTH_START[m]; day < MONTH_START[m + 1]; day++) {
+                MONTH_OF_DAY[day - FIRST_DAY] = (short) m;
+            }
+        }
+    }
+
+    private CalendarTable() {
+    }
+
+    /**
+     * @return year * 12 + month - 1 for the month containing the epoch day.
+     */
+    static int monthKey(int day) {
+        if (!covered(day)) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            return date.getYear() * 12 + date.getMonthValue() - 1;
+        }
+        return FIRST_MONTH_KEY + MONTH_OF_DAY[day - FIRST_DAY];
+    }
+
+    /**
+     * @return The year containing the epoch day.
+     */
+    static int year(int day) {
+        if (!covered(day)) {
+            return LocalDate.ofEpochDay(day).getYear();
+        }
+        return FIRST_YEAR + MONTH_OF_DAY[day - FIRST_DAY] / 12;
+    }
+
+    static int monthFirstDay(int day) {
+        if (!covered(day)) {
+            return (int) LocalDate.ofEpochDay(day).withDayOfMonth(1).toEpochDay();
+        }
+        return MONTH_START[MONTH_OF_DAY[day - FIRST_DAY]];
+    }
+
+    static int monthLastDay(int day) {
+        if (!covered(day)) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            return (int) date.withDayOfMonth(date.lengthOfMonth()).toEpochDay();
+        }
+        return MONTH_START[MONTH_OF_DAY[day - FIRST_DAY] + 1] - 1;
+    }
+
+    static int yearFirstDay(int day) {
+        if (!covered(day)) {
+            return (int) LocalDate.ofEpochDay(day).withDayOfYear(1).toEpochDay();
+        }
+        int month = MONTH_OF_DAY[day - FIRST_DAY];
+        return MONTH_START[month - month % 12];
+    }
+
+    static int yearLastDay(int day) {
+        if (!covered(day)) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            return (int) date.withDayOfYear(date.lengthOfYear()).toEpochDay();
+        }
+        int month = MONTH_OF_DAY[day - FIRST_DAY];
+        return MONTH_START[month - month % 12 + 12] - 1;
+    }
+
+    private static boolean covered(int day) {
+        return day >= FIRST_DAY && day <= LAST_DAY;
+    }
+}
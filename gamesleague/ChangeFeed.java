@@ -0,0 +1,116 @@
+package gamesleague;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * The subscriptions of a GamesLeague and the changes published to them.
+ * <p>
+ * Subscriptions to a league are kept by league ID and those to every league
+ * in one array, both replaced on subscribe and close, so publishing reads
+ * them without locking and costs a map lookup when no one is subscribed.
+ * Changes are published from any thread, including the workers of a score
+ * batch, while the GamesLeague is being changed.
+ */
+class ChangeFeed {
+
+    static final int DAY_STATUS = bit(LeagueUpdate.Change.DAY_STATUS);
+    static final int REPORTS = bit(LeagueUpdate.Change.REPORTS);
+    static final int SCORES = bit(LeagueUpdate.Change.SCORES);
+    static final int POINTS = bit(LeagueUpdate.Change.POINTS);
+    static final int RANKINGS = bit(LeagueUpdate.Change.RANKINGS);
+    static final int MEMBERS = bit(LeagueUpdate.Change.MEMBERS);
+    static final int LEAGUE = bit(LeagueUpdate.Change.LEAGUE);
+    static final int REMOVED = bit(LeagueUpdate.Change.REMOVED);
+    // a day closed or voided changes all of its tables
+    static final int DAY_TABLES = DAY_STATUS | SCORES | POINTS | RANKINGS;
+
+    private static final LeagueSubscription[] NONE = new LeagueSubscription[0];
+
+    private final ConcurrentHashMap<Integer, LeagueSubscription[]> byLeague = new ConcurrentHashMap<>();
+    private volatile LeagueSubscription[] everyLeague = NONE;
+
+    /**
+     * @param leagueId The league to follow, or -1 for every league.
+     */
+    synchronized LeagueSubscription subscribe(int leagueId, Consumer<LeagueUpdate> listener,
+            Executor executor) {
+        if (listener == null || executor == null) {
+            throw new IllegalArgumentException("Listener and executor must not be null.");
+        }
+        LeagueSubscription subscription = new LeagueSubscription(this, leagueId, listener, executor);
+        if (leagueId == -1) {
+            everyLeague = append(everyLeague, subscription);
+        } else {
+            byLeague.put(leagueId, append(byLeague.getOrDefault(leagueId, NONE), subscription));
+        }
+        return subscription;
+    }
+
+    synchronized void remove(LeagueSubscription subscription) {
+        int leagueId = subscription.getLeagueId();
+        if (leagueId == -1) {
+            everyLeague = without(everyLeague, subscription);
+            return;
+        }
+        LeagueSubscription[] remaining = without(byLeague.getOrDefault(leagueId, NONE), subscription);
+        if (remaining.length == 0) {
+            byLeague.remove(leagueId);
+        } else {
+            byLeague.put(leagueId, remaining);
+        }
+    }
+
+    /**
+     * @return true if a change to the league would be sent anywhere, so
+     *         callers can skip working out what to publish.
+     */
+    boolean isWatched(int leagueId) {
+        return everyLeague.length > 0 || byLeague.containsKey(leagueId);
+    }
+
+    /**
+     * Passes a change to every subscription following the league.
+     *
+     * @param day The day that changed, or -1.
+     * @param changes Bits of the changed tables.
+     * @param dayStatus The day's status after the change, or null.
+     * @param reporter The player who registered a report, or -1.
+     */
+    void publish(int leagueId, int day, int changes, Status dayStatus, int reporter) {
+        for (LeagueSubscription subscription : everyLeague) {
+            subscription.offer(leagueId, day, changes, dayStatus, reporter);
+        }
+        LeagueSubscription[] subscriptions = byLeague.get(leagueId);
+        if (subscriptions != null) {
+            for (LeagueSubscription subscription : subscriptions) {
+                subscription.offer(leagueId, day, changes, dayStatus, reporter);
+            }
+        }
+    }
+
+    private static int bit(LeagueUpdate.Change change) {
+        return 1 << change.ordinal();
+    }
+
+    private static LeagueSubscription[] append(LeagueSubscription[] subscriptions,
+            LeagueSubscription subscription) {
+        LeagueSubscription[] result = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        result[subscriptions.length] = subscription;
+        return result;
+    }
+
+    private static LeagueSubscription[] without(LeagueSubscription[] subscriptions,
+            LeagueSubscription subscription) {
+        int n = 0;
+        LeagueSubscription[] result = new LeagueSubscription[subscriptions.length];
+        for (LeagueSubscription s : subscriptions) {
+            if (s != subscription) {
+                result[n++] = s;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
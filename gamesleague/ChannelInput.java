@@ -0,0 +1,122 @@
+package gamesleague;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered reader of the values written by {@link ChannelOutput}, refilling a
+ * fixed size buffer from the file channel as it is consumed.
+ */
+class ChannelInput {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    ChannelInput(FileChannel channel) {
+        this.channel = channel;
+        buffer.limit(0);
+    }
+
+    int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    long readLong() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    int readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt file: variable length value too long.");
+    }
+
+    /**
+     * @return true if everything in the file has been read.
+     */
+    boolean isAtEnd() throws IOException {
+        return !buffer.hasRemaining() && channel.position() >= channel.size();
+    }
+
+    int[] readIntArray() throws IOException {
+        int length = readInt();
+        if (length == -1) {
+            return null;
+        }
+        checkLength(length);
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = readInt();
+        }
+        return values;
+    }
+
+    String readString() throws IOException {
+        int length = readInt();
+        if (length == -1) {
+            return null;
+        }
+        return new String(readBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the given number of raw bytes.
+     */
+    byte[] readBytes(int length) throws IOException {
+        checkLength(length);
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                fill();
+            }
+            int count = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, count);
+            offset += count;
+        }
+        return bytes;
+    }
+
+    private void checkLength(int length) throws IOException {
+        if (length < 0 || length > channel.size()) {
+            throw new IOException("Corrupt file: bad length " + length + ".");
+        }
+    }
+
+    private void require(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        buffer.compact();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read == -1) {
+            throw new EOFException("Unexpected end of file.");
+        }
+    }
+}
@@ -0,0 +1,760 @@
+package gamesleague;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * A GamesLeague that may be called from many threads at once.
+ * <p>
+ * Rather than one monitor around everything, there are three lock domains,
+ * always taken in this order:
+ * <ul>
+ * <li>the structure lock, held shared by every league-scoped call and
+ * exclusively by calls that add, remove or span leagues (createLeague,
+ * removeLeague, cloneLeague, updateLeagueName, deactivatePlayer, load and
+ * erase), so those stay atomic;</li>
+ * <li>one of a fixed number of league stripes, chosen from the league ID, held
+ * exclusively by league mutations (invites, owners, dates, reports, scores)
+ * and shared by league queries;</li>
+ * <li>the player lock, guarding the player registry and email index. Player
+ * queries read optimistically and only take the lock if a writer got in.</li>
+ * </ul>
+ * save reads every league and holds every stripe shared. The player-centric
+ * queries (getPlayerLeagues, getPlayerOwnedLeagues, getPlayerInvites and the
+ * round stats) go through synchronized indexes instead and need no stripe.
+ * createPlayer only needs the player lock, unless leagues have invited the
+ * email before sign-up, in which case it runs exclusively to move those
+ * invites.
+ * <p>
+ * League tables are also published as immutable versions (see
+ * {@link LeagueView}), so reading them need not wait for writers.
+ * getLeaguePlayers and the day, week, month and year statuses, scores, points
+ * and rankings are answered from the league's current version with a single
+ * map read and no lock, and only computed under the stripe the first time
+ * they are asked; the reader then swaps in a copy of the version holding the
+ * answer. Closing or voiding a day, or the first game report of a day, build
+ * the next version while holding the stripe, with the answers the current
+ * one had for that day and its periods computed afresh, so readers of them
+ * never wait. Membership, date and reset changes, and every exclusive call,
+ * drop the version and start afresh. Game reports after the first change no
+ * table, so a burst of them leaves league tables to be read without locking.
+ * getDayTable, getWeekTable, getMonthTable and getYearTable read a status,
+ * points and ranking together with the players, all from one version.
+ */
+public class ConcurrentGamesLeague implements GamesLeagueInterface {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final GamesLeague league;
+    private final StampedLock structure = new StampedLock();
+    private final StampedLock players = new StampedLock();
+    private final StampedLock[] stripes;
+    private final boolean snapshots;
+    // current version of each league whose tables have been read since it last changed
+    private final ConcurrentHashMap<Integer, LeagueView> views = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    public ConcurrentGamesLeague() {
+        this(new GamesLeague(), DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param league The GamesLeague to guard. It must not be used directly afterwards.
+     * @param stripeCount Number of league lock stripes, rounded up to a power of two.
+     */
+    public ConcurrentGamesLeague(GamesLeague league, int stripeCount) {
+        this(league, stripeCount, true);
+    }
+
+    /**
+     * @param snapshots false to read league tables under the stripe every
+     *        time, e.g. to compare against the versioned reads.
+     */
+    ConcurrentGamesLeague(GamesLeague league, int stripeCount, boolean snapshots) {
+        this.league = league;
+        this.snapshots = snapshots;
+        int n = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new StampedLock[n];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    // Players
+
+    public int[] getPlayerIds() {
+        return readPlayers(league::getPlayerIds);
+    }
+
+    public int createPlayer(String email, String displayName, String name, String phone)
+            throws InvalidEmailException, IllegalEmailException, InvalidNameException {
+        // invites pending for the email are moved into leagues, which needs them all
+        Integer playerId = writePlayers(() -> league.hasPendingInvites(email)
+            ? null : league.createPlayer(email, displayName, name, phone));
+        if (playerId != null) {
+            return playerId;
+        }
+        return exclusive(() -> league.createPlayer(email, displayName, name, phone));
+    }
+
+    public void deactivatePlayer(int playerId) throws IDInvalidException, IllegalOperationException {
+        exclusive(() -> league.deactivatePlayer(playerId));
+    }
+
+    public boolean isDeactivatedPlayer(int playerId) throws IDInvalidException {
+        return readPlayers(() -> league.isDeactivatedPlayer(playerId));
+    }
+
+    public void updatePlayerDisplayName(int playerId, String displayName)
+            throws IDInvalidException, InvalidNameException {
+        writePlayers(() -> {
+            league.updatePlayerDisplayName(playerId, displayName);
+            return null;
+        });
+    }
+
+    public int getPlayerId(String email) {
+        return readPlayers(() -> league.getPlayerId(email));
+    }
+
+    public String getPlayerDisplayName(int playerId) throws IDInvalidException {
+        return readPlayers(() -> league.getPlayerDisplayName(playerId));
+    }
+
+    public String getPlayerEmail(int playerId) throws IDInvalidException {
+        return readPlayers(() -> league.getPlayerEmail(playerId));
+    }
+
+    public int[] getPlayerLeagues(int playerId) throws IDInvalidException {
+        return indexed(() -> league.getPlayerLeagues(playerId));
+    }
+
+    public int[] getPlayerOwnedLeagues(int playerId) throws IDInvalidException {
+        return indexed(() -> league.getPlayerOwnedLeagues(playerId));
+    }
+
+    public int[] getPlayerInvites(int playerId) throws IDInvalidException {
+        return indexed(() -> league.getPlayerInvites(playerId));
+    }
+
+    public int getPlayerRoundsPlayed(int playerId) throws IDInvalidException {
+        return indexed(() -> league.getPlayerRoundsPlayed(playerId));
+    }
+
+    public double getPlayerRoundsPercentage(int playerId) throws IDInvalidException {
+        return indexed(() -> league.getPlayerRoundsPercentage(playerId));
+    }
+
+    public LocalDate getPlayerJoinDate(int playerId) throws IDInvalidException {
+        return readPlayers(() -> league.getPlayerJoinDate(playerId));
+    }
+
+    // Leagues
+
+    public int[] getLeagueIds() {
+        long stamp = structure.readLock();
+        try {
+            return league.getLeagueIds();
+        } finally {
+            structure.unlockRead(stamp);
+        }
+    }
+
+    public int createLeague(int owner, String name, GameType gameType) throws IDInvalidException {
+        return exclusive(() -> league.createLeague(owner, name, gameType));
+    }
+
+    public void removeLeague(int leagueId) throws IDInvalidException {
+        exclusive(() -> league.removeLeague(leagueId));
+    }
+
+    public String getLeagueName(int leagueId) throws IDInvalidException {
+        return read(leagueId, () -> league.getLeagueName(leagueId));
+    }
+
+    public void updateLeagueName(int leagueId, String newName)
+            throws IDInvalidException, InvalidNameException, IllegalNameException {
+        // names must be unique across leagues
+        exclusive(() -> league.updateLeagueName(leagueId, newName));
+    }
+
+    public void invitePlayerToLeague(int leagueId, String email)
+            throws IDInvalidException, InvalidEmailException {
+        write(leagueId, () -> league.invitePlayerToLeague(leagueId, email));
+    }
+
+    public void acceptInviteToLeague(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        rewrite(leagueId, () -> league.acceptInviteToLeague(leagueId, playerId));
+    }
+
+    public void removeInviteFromLeague(int leagueId, String email)
+            throws IDInvalidException, IllegalEmailException {
+        write(leagueId, () -> league.removeInviteFromLeague(leagueId, email));
+    }
+
+    public String[] getLeagueEmailInvites(int leagueId) throws IDInvalidException {
+        return read(leagueId, () -> league.getLeagueEmailInvites(leagueId));
+    }
+
+    public int[] getLeaguePlayerInvites(int leagueId) throws IDInvalidException {
+        return read(leagueId, () -> league.getLeaguePlayerInvites(leagueId));
+    }
+
+    public int[] getLeaguePlayers(int leagueId) throws IDInvalidException {
+        LeagueView view = snapshots ? views.get(leagueId) : null;
+        if (view != null) {
+            return view.getPlayers().clone();
+        }
+        return read(leagueId, () -> snapshots
+            ? current(leagueId).getPlayers().clone() : league.getLeaguePlayers(leagueId));
+    }
+
+    public int[] getLeagueOwners(int leagueId) throws IDInvalidException {
+        return read(leagueId, () -> league.getLeagueOwners(leagueId));
+    }
+
+    public Status getLeagueStatus(int leagueId) throws IDInvalidException {
+        return read(leagueId, () -> league.getLeagueStatus(leagueId));
+    }
+
+    public void setLeagueStartDate(int leagueId, int day)
+            throws IDInvalidException, IllegalOperationException {
+        rewrite(leagueId, () -> league.setLeagueStartDate(leagueId, day));
+    }
+
+    public void setLeagueEndDate(int leagueId, int day) throws IDInvalidException {
+        rewrite(leagueId, () -> league.setLeagueEndDate(leagueId, day));
+    }
+
+    public int getLeagueStartDate(int leagueId) throws IDInvalidException {
+        return read(leagueId, () -> league.getLeagueStartDate(leagueId));
+    }
+
+    public int getLeagueCloseDate(int leagueId) throws IDInvalidException {
+        return read(leagueId, () -> league.getLeagueCloseDate(leagueId));
+    }
+
+    public void resetLeague(int leagueId) throws IDInvalidException {
+        rewrite(leagueId, () -> league.resetLeague(leagueId));
+    }
+
+    public int cloneLeague(int leagueId, String newName) throws IDInvalidException {
+        return exclusive(() -> league.cloneLeague(leagueId, newName));
+    }
+
+    public boolean isLeaguePlayerActive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        return read(leagueId, () -> league.isLeaguePlayerActive(leagueId, playerId));
+    }
+
+    public void setLeaguePlayerInactive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        rewrite(leagueId, () -> league.setLeaguePlayerInactive(leagueId, playerId));
+    }
+
+    public void setLeaguePlayerActive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        rewrite(leagueId, () -> league.setLeaguePlayerActive(leagueId, playerId));
+    }
+
+    public void addOwner(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        write(leagueId, () -> league.addOwner(leagueId, playerId));
+    }
+
+    public void removeOwner(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        write(leagueId, () -> league.removeOwner(leagueId, playerId));
+    }
+
+    // Results
+
+    public void registerGameReport(int day, int leagueId, int playerId, String gameReport)
+            throws IDInvalidException, IllegalOperationException {
+        write(leagueId, () -> {
+            Runnable report = () -> league.registerGameReport(day, leagueId, playerId, gameReport);
+            if (league.findDayStatus(leagueId, day) == Status.PENDING) {
+                // the first report of a day starts it, which changes its statuses and scores
+                changeDay(leagueId, day, report);
+            } else {
+                report.run();
+            }
+        });
+    }
+
+    public String getGameReport(int day, int leagueId, int playerId)
+            throws IDInvalidException, InvalidDateException {
+        return read(leagueId, () -> league.getGameReport(day, leagueId, playerId));
+    }
+
+    public void registerDayScores(int day, int leagueId, int[] scores)
+            throws IDInvalidException, IllegalArgumentException {
+        writeDay(leagueId, day, () -> league.registerDayScores(day, leagueId, scores));
+    }
+
+    /**
+     * Registers a batch of day scores. The batch spreads its leagues over the
+     * ForkJoinPool itself, so it runs with every league locked.
+     */
+    public BatchResult registerDayScores(int[] days, int[] leagueIds, int[][] scores) {
+        return exclusive(() -> league.registerDayScores(days, leagueIds, scores));
+    }
+
+    public void voidDayPoints(int day, int leagueId)
+            throws IDInvalidException, IllegalArgumentException {
+        writeDay(leagueId, day, () -> league.voidDayPoints(day, leagueId));
+    }
+
+    public Status getDayStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return status(leagueId, null, day);
+    }
+
+    public int[] getDayScores(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, null, LeagueView.SCORES, day);
+    }
+
+    public int[] getDayPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, null, LeagueView.POINTS, day);
+    }
+
+    public int[] getDayRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, null, LeagueView.RANKING, day);
+    }
+
+    public Status getWeekStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return status(leagueId, Period.WEEK, day);
+    }
+
+    public int[] getWeekPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, Period.WEEK, LeagueView.POINTS, day);
+    }
+
+    public int[] getWeekRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, Period.WEEK, LeagueView.RANKING, day);
+    }
+
+    public Status getMonthStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return status(leagueId, Period.MONTH, day);
+    }
+
+    public int[] getMonthPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, Period.MONTH, LeagueView.POINTS, day);
+    }
+
+    public int[] getMonthRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, Period.MONTH, LeagueView.RANKING, day);
+    }
+
+    public Status getYearStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return status(leagueId, Period.YEAR, day);
+    }
+
+    public int[] getYearPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, Period.YEAR, LeagueView.POINTS, day);
+    }
+
+    public int[] getYearRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return table(leagueId, Period.YEAR, LeagueView.RANKING, day);
+    }
+
+    /**
+     * @return The status, points and ranking of the day, with the players
+     *         they are ordered by, all from the same version of the league.
+     * @throws IDInvalidException If the ID does not match to any league in the system.
+     * @throws InvalidDateException If the day is not a valid day for the league.
+     */
+    public LeagueTable getDayTable(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return leagueTable(leagueId, null, day);
+    }
+
+    /**
+     * As getDayTable, for the week containing the day.
+     */
+    public LeagueTable getWeekTable(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return leagueTable(leagueId, Period.WEEK, day);
+    }
+
+    /**
+     * As getDayTable, for the month containing the day.
+     */
+    public LeagueTable getMonthTable(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return leagueTable(leagueId, Period.MONTH, day);
+    }
+
+    /**
+     * As getDayTable, for the year containing the day.
+     */
+    public LeagueTable getYearTable(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return leagueTable(leagueId, Period.YEAR, day);
+    }
+
+    /**
+     * Subscribes to a league's updates; see GamesLeague.subscribe. Updates
+     * are delivered on shared daemon threads, and the listener may read the
+     * league back.
+     */
+    public LeagueSubscription subscribe(int leagueId, Consumer<LeagueUpdate> listener)
+            throws IDInvalidException {
+        return read(leagueId, () -> league.subscribe(leagueId, listener, LeagueSubscription.BACKGROUND));
+    }
+
+    /**
+     * Subscribes to the updates of every league, as subscribe(int, Consumer).
+     */
+    public LeagueSubscription subscribe(Consumer<LeagueUpdate> listener) {
+        return league.subscribe(listener, LeagueSubscription.BACKGROUND);
+    }
+
+    public void eraseGamesLeagueData() {
+        exclusive(league::eraseGamesLeagueData);
+    }
+
+    public void saveGamesLeagueData(String filename) throws IOException {
+        long outer = structure.readLock();
+        long[] held = lockAllStripes();
+        long inner = players.readLock();
+        try {
+            league.saveGamesLeagueData(filename);
+        } finally {
+            players.unlockRead(inner);
+            unlockAllStripes(held);
+            structure.unlockRead(outer);
+        }
+    }
+
+    public void loadGamesLeagueData(String filename) throws IOException, ClassNotFoundException {
+        long outer = structure.writeLock();
+        long inner = players.writeLock();
+        try {
+            views.clear();
+            league.loadGamesLeagueData(filename);
+        } finally {
+            players.unlockWrite(inner);
+            structure.unlockWrite(outer);
+        }
+    }
+
+    // Locking
+
+    /**
+     * Runs a query that only touches the player registry, first without
+     * locking and, if a player was written meanwhile, again under the read lock.
+     */
+    private <T> T readPlayers(Supplier<T> query) {
+        return readOptimistically(players, query);
+    }
+
+    /**
+     * Runs the query under an optimistic read of the lock and returns its
+     * result if no write lock was taken meanwhile; otherwise runs it again
+     * under the read lock.
+     * <p>
+     * A query racing a writer may see its arrays half updated and throw, e.g.
+     * an index out of bounds while a table is being replaced. Such an
+     * exception is only thrown on if the stamp is still valid, as then the
+     * query saw a consistent state and would throw under the lock too;
+     * otherwise it is dropped with the result and the query is run again.
+     */
+    static <T> T readOptimistically(StampedLock lock, Supplier<T> query) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            T result;
+            try {
+                result = query.get();
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                result = null;
+            }
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return query.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T writePlayers(Supplier<T> update) {
+        long stamp = players.writeLock();
+        try {
+            return update.get();
+        } finally {
+            players.unlockWrite(stamp);
+        }
+    }
+
+    private <T> T read(int leagueId, Supplier<T> query) {
+        StampedLock stripe = stripe(leagueId);
+        long outer = structure.readLock();
+        long middle = stripe.readLock();
+        long inner = players.readLock();
+        try {
+            return query.get();
+        } finally {
+            players.unlockRead(inner);
+            stripe.unlockRead(middle);
+            structure.unlockRead(outer);
+        }
+    }
+
+    private void write(int leagueId, Runnable update) {
+        StampedLock stripe = stripe(leagueId);
+        long outer = structure.readLock();
+        long middle = stripe.writeLock();
+        long inner = players.readLock();
+        try {
+            update.run();
+        } finally {
+            players.unlockRead(inner);
+            stripe.unlockWrite(middle);
+            structure.unlockRead(outer);
+        }
+    }
+
+    /**
+     * Runs a league mutation that may change its tables in any way, dropping
+     * its current version so the next read starts a new one.
+     * <p>
+     * Versions are dropped or replaced before the mutation rather than after:
+     * a reader that finds no answer in the new version waits on the stripe,
+     * so a subscriber told of the change by the mutation already reads it.
+     */
+    private void rewrite(int leagueId, Runnable update) {
+        write(leagueId, () -> {
+            views.remove(leagueId);
+            update.run();
+        });
+    }
+
+    /**
+     * Runs a league mutation that changes the gameplay of one day, publishing
+     * the next version of the league with the day's answers recomputed.
+     */
+    private void writeDay(int leagueId, int day, Runnable update) {
+        write(leagueId, () -> changeDay(leagueId, day, update));
+    }
+
+    /**
+     * Runs a mutation of the day and publishes the league's next version,
+     * with the answers the current version had for the day and its periods
+     * computed again, so readers of them need not wait on the stripe. The
+     * caller holds the league's stripe exclusively.
+     * <p>
+     * While the mutation runs, readers see the current version without those
+     * answers and wait for them; if it throws, that version stays, as the
+     * league did not change.
+     */
+    private void changeDay(int leagueId, int day, Runnable update) {
+        LeagueView view = views.get(leagueId);
+        if (view == null) {
+            update.run();
+            return;
+        }
+        views.put(leagueId, view.without(day));
+        update.run();
+        views.put(leagueId, view.next(versions.incrementAndGet(), day, league.today(),
+            new LeagueView.Source() {
+                public int[] table(Period period, int kind, int answerDay) {
+                    return queryTable(leagueId, period, kind, answerDay);
+                }
+
+                public Status status(Period period, int answerDay) {
+                    return queryStatus(leagueId, period, answerDay);
+                }
+            }));
+    }
+
+    /**
+     * @return The current version of the league, starting one if there is
+     *         none. The caller holds the league's stripe.
+     */
+    private LeagueView current(int leagueId) {
+        return views.computeIfAbsent(leagueId,
+            id -> new LeagueView(versions.incrementAndGet(), league.getLeaguePlayers(id)));
+    }
+
+    /**
+     * Swaps in the current version of the league with answers added, retrying
+     * if another reader added some first. The caller holds the league's
+     * stripe, shared, so no writer can publish meanwhile.
+     *
+     * @return The version swapped in.
+     */
+    private LeagueView keep(int leagueId, UnaryOperator<LeagueView> answers) {
+        while (true) {
+            LeagueView view = current(leagueId);
+            LeagueView kept = answers.apply(view);
+            if (kept == view || views.replace(leagueId, view, kept)) {
+                return kept;
+            }
+        }
+    }
+
+    /**
+     * Reads scores, points or a ranking from the league's current version,
+     * computing it under the stripe and keeping it if the version lacks it.
+     *
+     * @param period The period containing the day, or null for the day itself.
+     */
+    private int[] table(int leagueId, Period period, int kind, int day) {
+        LeagueView view = snapshots ? views.get(leagueId) : null;
+        int[] table = view == null ? null : view.getTable(period, kind, day);
+        if (table != null) {
+            return table.clone();
+        }
+        return read(leagueId, () -> {
+            int[] computed = queryTable(leagueId, period, kind, day);
+            if (snapshots) {
+                int[] answer = computed.clone();
+                keep(leagueId, current -> current.withTable(period, kind, day, answer));
+            }
+            return computed;
+        });
+    }
+
+    private Status status(int leagueId, Period period, int day) {
+        // only a period's status depends on the current day
+        int today = period == null || !snapshots ? 0 : league.today();
+        LeagueView view = snapshots ? views.get(leagueId) : null;
+        Status status = view == null ? null : view.getStatus(period, day, today);
+        if (status != null) {
+            return status;
+        }
+        return read(leagueId, () -> {
+            // a status computed as the day turned is not kept, as it may be of either day
+            int computedOn = period == null ? 0 : league.today();
+            Status computed = queryStatus(leagueId, period, day);
+            if (snapshots && (period == null || league.today() == computedOn)) {
+                keep(leagueId, current -> current.withStatus(period, day, computedOn, computed));
+            }
+            return computed;
+        });
+    }
+
+    private LeagueTable leagueTable(int leagueId, Period period, int day) {
+        LeagueView view = snapshots ? views.get(leagueId) : null;
+        if (view != null) {
+            Status status = view.getStatus(period, day, period == null ? 0 : league.today());
+            int[] points = view.getTable(period, LeagueView.POINTS, day);
+            int[] ranking = view.getTable(period, LeagueView.RANKING, day);
+            if (status != null && points != null && ranking != null) {
+                return new LeagueTable(view.getVersion(), view.getPlayers(), status, points, ranking);
+            }
+        }
+        return read(leagueId, () -> {
+            int computedOn = period == null ? 0 : league.today();
+            Status status = queryStatus(leagueId, period, day);
+            int[] points = queryTable(leagueId, period, LeagueView.POINTS, day);
+            int[] ranking = queryTable(leagueId, period, LeagueView.RANKING, day);
+            if (!snapshots) {
+                return new LeagueTable(0, league.getLeaguePlayers(leagueId), status, points, ranking);
+            }
+            boolean dated = period == null || league.today() == computedOn;
+            LeagueView kept = keep(leagueId, current -> {
+                LeagueView added = current.withTable(period, LeagueView.POINTS, day, points)
+                    .withTable(period, LeagueView.RANKING, day, ranking);
+                return dated ? added.withStatus(period, day, computedOn, status) : added;
+            });
+            return new LeagueTable(kept.getVersion(), kept.getPlayers(), status, points, ranking);
+        });
+    }
+
+    private Status queryStatus(int leagueId, Period period, int day) {
+        if (period == null) {
+            return league.getDayStatus(leagueId, day);
+        }
+        switch (period) {
+            case WEEK:
+                return league.getWeekStatus(leagueId, day);
+            case MONTH:
+                return league.getMonthStatus(leagueId, day);
+            default:
+                return league.getYearStatus(leagueId, day);
+        }
+    }
+
+    private int[] queryTable(int leagueId, Period period, int kind, int day) {
+        if (kind == LeagueView.SCORES) {
+            return league.getDayScores(leagueId, day);
+        }
+        boolean points = kind == LeagueView.POINTS;
+        if (period == null) {
+            return points ? league.getDayPoints(leagueId, day) : league.getDayRanking(leagueId, day);
+        }
+        switch (period) {
+            case WEEK:
+                return points ? league.getWeekPoints(leagueId, day) : league.getWeekRanking(leagueId, day);
+            case MONTH:
+                return points ? league.getMonthPoints(leagueId, day) : league.getMonthRanking(leagueId, day);
+            default:
+                return points ? league.getYearPoints(leagueId, day) : league.getYearRanking(leagueId, day);
+        }
+    }
+
+    /**
+     * Runs a query answered from the player registry and membership index,
+     * holding no league stripe.
+     */
+    private <T> T indexed(Supplier<T> query) {
+        long outer = structure.readLock();
+        long inner = players.readLock();
+        try {
+            return query.get();
+        } finally {
+            players.unlockRead(inner);
+            structure.unlockRead(outer);
+        }
+    }
+
+    private <T> T exclusive(Supplier<T> update) {
+        long outer = structure.writeLock();
+        long inner = players.writeLock();
+        try {
+            views.clear();
+            return update.get();
+        } finally {
+            players.unlockWrite(inner);
+            structure.unlockWrite(outer);
+        }
+    }
+
+    private void exclusive(Runnable update) {
+        exclusive(() -> {
+            update.run();
+            return null;
+        });
+    }
+
+    private long[] lockAllStripes() {
+        long[] held = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            held[i] = stripes[i].readLock();
+        }
+        return held;
+    }
+
+    private void unlockAllStripes(long[] held) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlockRead(held[i]);
+        }
+    }
+
+    private StampedLock stripe(int leagueId) {
+        int h = leagueId * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+}
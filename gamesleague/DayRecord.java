@@ -0,0 +1,106 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Gameplay for one league on one day: each member's report, whether the
+ * day has points and which members it counts as a round for. Reports are indexed by the member's position in the league
+ * and grow if players join later; they are held as handles into the league's
+ * {@link ReportStore}. The day's scores and points are kept in the league's
+ * {@link ScoreStorage} and its status in the league's {@link DayStatusBitmap}.
+ */
+class DayRecord implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int[] reports;
+    private boolean hasPoints = false;
+    private boolean voided = false;
+    // members who were active when the day was closed, null until closed or once voided
+    private BitSet counted;
+
+    DayRecord(int memberCount) {
+        reports = new int[memberCount];
+    }
+
+    /**
+     * Rebuilds a record read back from a snapshot.
+     */
+    DayRecord(boolean voided, boolean hasPoints, int[] reports, BitSet counted) {
+        this.voided = voided;
+        this.hasPoints = hasPoints;
+        this.reports = reports;
+        this.counted = counted;
+    }
+
+    boolean isVoided() {
+        return voided;
+    }
+
+    /**
+     * @return true once the day has been closed with points (or voided).
+     */
+    boolean hasPoints() {
+        return hasPoints;
+    }
+
+    /**
+     * @return The handle of the member's report or {@link ReportStore#NO_REPORT}.
+     */
+    int getReport(int memberIndex) {
+        return memberIndex < reports.length ? reports[memberIndex] : ReportStore.NO_REPORT;
+    }
+
+    void setReport(int memberIndex, int report) {
+        if (memberIndex >= reports.length) {
+            reports = Arrays.copyOf(reports, memberIndex + 1);
+        }
+        reports[memberIndex] = report;
+    }
+
+    boolean hasReport(int memberIndex) {
+        return memberIndex < reports.length && reports[memberIndex] != ReportStore.NO_REPORT;
+    }
+
+    /**
+     * @return The internal array of report handles (not a copy), for writing snapshots.
+     */
+    int[] reportsArray() {
+        return reports;
+    }
+
+    /**
+     * @return true if the day was closed while the member was active, so it
+     *         counts as one of their rounds.
+     */
+    boolean isCounted(int memberIndex) {
+        return counted != null && counted.get(memberIndex);
+    }
+
+    /**
+     * @return The members the day counts as a round for, or null if none.
+     */
+    BitSet getCounted() {
+        return counted;
+    }
+
+    /**
+     * Marks the day as having points, counting it as a round for the given members.
+     */
+    void close(BitSet counted) {
+        this.hasPoints = true;
+        this.counted = counted;
+    }
+
+    /**
+     * Marks the day as having all points set to zero. A voided day is no
+     * one's round.
+     */
+    void voidPoints() {
+        this.hasPoints = true;
+        this.voided = true;
+        this.counted = null;
+    }
+}
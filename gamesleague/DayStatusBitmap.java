@@ -0,0 +1,52 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Gameplay status of each day of a league, two bits per day (the
+ * {@link Status} ordinal), indexed by day counted from the league start day.
+ * Days never set are {@link Status#PENDING}.
+ */
+class DayStatusBitmap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Status[] STATUSES = Status.values();
+
+    private long[] words = new long[0];
+
+    Status get(int row) {
+        if (row < 0 || (row >>> 5) >= words.length) {
+            return Status.PENDING;
+        }
+        return STATUSES[(int) (words[row >>> 5] >>> ((row & 31) << 1)) & 3];
+    }
+
+    void set(int row, Status status) {
+        int word = row >>> 5;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        int shift = (row & 31) << 1;
+        words[word] = (words[word] & ~(3L << shift)) | ((long) status.ordinal() << shift);
+    }
+
+    /**
+     * @return Number of days from row {@code from} to row {@code to} (inclusive)
+     *         with the status.
+     */
+    int count(int from, int to, Status status) {
+        int count = 0;
+        for (int row = Math.max(from, 0); row <= to; row++) {
+            if (get(row) == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    void clear() {
+        words = new long[0];
+    }
+}
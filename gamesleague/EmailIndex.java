@@ -0,0 +1,183 @@
+package gamesleague;
+
+import java.io.Serializable;
+
+/**
+ * Case-insensitive hash index from email address to player ID.
+ * <p>
+ * Keys are stored as given together with their hash. Hashing, matching and
+ * {@link #normalise(String)} all fold case one char at a time with
+ * {@link #fold(char)}, so they agree even for characters whose lower-case
+ * form is longer, such as U+0130 (capital I with dot above), and a lookup
+ * does not allocate.
+ * Open addressing with linear probing; removal uses backward shifting so no
+ * tombstones build up.
+ */
+class EmailIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * @return The player ID registered for the email or -1 if there is none.
+     */
+    int get(String email) {
+        if (email == null) {
+            return -1;
+        }
+        int hash = hash(email);
+        int mask = keys.length - 1;
+        for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && matches(keys[i], email)) {
+                return values[i];
+            }
+        }
+        return -1;
+    }
+
+    boolean contains(String email) {
+        return get(email) != -1;
+    }
+
+    /**
+     * Registers (or replaces) the player ID for the email.
+     */
+    void put(String email, int playerId) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int hash = hash(email);
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == hash && matches(keys[i], email)) {
+                values[i] = playerId;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = email;
+        hashes[i] = hash;
+        values[i] = playerId;
+        size++;
+    }
+
+    /**
+     * Removes the email from the index.
+     *
+     * @return The player ID that was registered for the email or -1 if there was none.
+     */
+    int remove(String email) {
+        if (email == null) {
+            return -1;
+        }
+        int hash = hash(email);
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == hash && matches(keys[i], email)) {
+                int removed = values[i];
+                shiftBack(i);
+                size--;
+                return removed;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The form in which emails are compared, e.g. as keys of other maps:
+     * every char folded, so the length never changes.
+     */
+    static String normalise(String email) {
+        char[] chars = email.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Case-insensitive string hash, equal for any two emails that match.
+     */
+    static int hash(String email) {
+        int h = 0;
+        for (int i = 0; i < email.length(); i++) {
+            h = 31 * h + fold(email.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return true if the emails are equal once every char is folded.
+     */
+    static boolean matches(String a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < a.length(); i++) {
+            if (fold(a.charAt(i)) != fold(b.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Case fold of one char, the same as {@link String#equalsIgnoreCase}
+     * uses, which unlike {@link String#toLowerCase} never turns one char
+     * into two.
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private void shiftBack(int hole) {
+        int mask = keys.length - 1;
+        int i = (hole + 1) & mask;
+        while (keys[i] != null) {
+            int home = hashes[i] & mask;
+            // move the entry into the hole if the hole lies between its home and its position
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                hashes[hole] = hashes[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
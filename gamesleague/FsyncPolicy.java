@@ -0,0 +1,13 @@
+package gamesleague;
+
+/**
+ * When journal records are forced to disk.
+ */
+public enum FsyncPolicy {
+    /** Every record is forced before the call returns. */
+    ALWAYS,
+    /** Records are forced in groups, by count or after a short delay (group commit). */
+    BATCH,
+    /** Records are handed to the operating system but only forced on checkpoint or close. */
+    NEVER;
+}
@@ -1,13 +1,37 @@
 package gamesleague;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
- * GamesLeague Class Template
- * You can use this template and add the corect method code.
- * At present it is a skeleton template with placeholder methods 
- * so that it can compile and implements all methods required by GamesLeagueInterface
+ * The games league platform: players, leagues, invitations and the daily
+ * gameplay results of each league, implementing GamesLeagueInterface.
+ * <p>
+ * Player accounts are kept column-wise in a {@link PlayerRegistry} and found
+ * by email through a case-insensitive {@link EmailIndex}. Each {@link League}
+ * holds its members, owners and invites, and its gameplay history: day
+ * records, reports in a compressed {@link ReportStore}, scores and points in
+ * a {@link ScoreStorage} on the heap or in memory-mapped files, and week,
+ * month and year totals kept up to date as days close. Player-centric views
+ * read a reverse {@link MembershipIndex}, email invites to people who have
+ * not signed up yet wait in a {@link PendingInviteIndex}, round statistics
+ * are counted in {@link RoundStats} and rankings are cached in a
+ * {@link RankingCache}, so queries do not scan every league or day.
+ * <p>
+ * saveGamesLeagueData and loadGamesLeagueData stream a binary
+ * {@link Snapshot}; the indexes are rebuilt on load. This class is not thread
+ * safe: see ConcurrentGamesLeague for concurrent use and JournaledGamesLeague
+ * for durability between saves.
  *
  * @author Philip Lewis
  * @version 0.3.1
@@ -15,6 +39,43 @@ import java.time.LocalDate;
 
 public class GamesLeague implements GamesLeagueInterface {
 
+    private static final long serialVersionUID = 1L;
+
+    private PlayerRegistry players = new PlayerRegistry();
+    private EmailIndex emailIndex = new EmailIndex();
+    private MembershipIndex membership = new MembershipIndex();
+    private PendingInviteIndex pendingInvites = new PendingInviteIndex();
+    private RoundStats roundStats = new RoundStats();
+    private final HistorySweeper sweeper = new HistorySweeper();
+    private final ChangeFeed feed = new ChangeFeed();
+    private Map<Integer, League> leagues = new LinkedHashMap<>();
+    private int nextLeagueId = 1;
+    private RankingCache rankingCache = new RankingCache();
+    private ReportCodec reportCodec = new ReportCodec();
+    private final String scoreStorageDirectory;
+    // volatile as ConcurrentGamesLeague reads the day without a lock to date cached period statuses
+    private volatile Clock clock = Clock.systemDefaultZone();
+    // the day last read from the clock, reused until the clock passes its midnight
+    private volatile CurrentDay currentDay;
+
+    /**
+     * Creates an empty GamesLeague keeping all scores on the heap.
+     */
+    public GamesLeague() {
+        this(null);
+    }
+
+    /**
+     * Creates an empty GamesLeague keeping each league's day scores and points
+     * in memory-mapped files, so score history can grow beyond the heap.
+     *
+     * @param scoreStorageDirectory Directory for the score files, or null to
+     *                              keep scores on the heap.
+     */
+    public GamesLeague(String scoreStorageDirectory) {
+        this.scoreStorageDirectory = scoreStorageDirectory;
+    }
+
 
     // Players
 
@@ -25,8 +86,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public int[] getPlayerIds(){
 
-        
-        return new int[0]; // placeholder so class compiles
+        return players.getIds();
     };
 
 
@@ -48,9 +108,24 @@ public class GamesLeague implements GamesLeagueInterface {
         throws  InvalidEmailException,   
                 IllegalEmailException,
                 InvalidNameException {
-        
 
-        return 0; // placeholder so class compiles
+        validateEmail(email);
+        validateName(displayName, 1, 20);
+        validateName(name, 5, 50);
+        if (emailIndex.contains(email)) {
+            throw new IllegalEmailException("A player with email " + email + " already exists.");
+        }
+        int playerId = players.add(email, displayName, name, phone == null ? "" : phone, today());
+        emailIndex.put(email, playerId);
+        // invites sent to the email before sign-up become player invites
+        int slot = players.slotOf(playerId);
+        for (int leagueId : pendingInvites.removeAll(email)) {
+            League league = leagues.get(leagueId);
+            league.removeEmailInvite(email);
+            league.addPlayerInvite(playerId);
+            membership.addInvite(slot, leagueId);
+        }
+        return playerId;
         }
 
 
@@ -69,7 +144,40 @@ public class GamesLeague implements GamesLeagueInterface {
     public void deactivatePlayer(int playerId) 
         throws IDInvalidException, IllegalOperationException {
 
-        return; // placeholder so class compiles
+        int slot = playerSlot(playerId);
+        if (players.isDeactivated(slot)) {
+            return;
+        }
+        int[] owned = membership.getOwnerOf(slot);
+        for (int leagueId : owned) {
+            if (leagues.get(leagueId).ownerCount() == 1) {
+                throw new IllegalOperationException("Player " + playerId
+                    + " is the sole owner of league " + leagueId + ".");
+            }
+        }
+        String email = players.getEmail(slot);
+        for (int leagueId : membership.getMemberOf(slot)) {
+            League league = leagues.get(leagueId);
+            int memberIndex = league.memberIndex(playerId);
+            league.setActive(memberIndex, false);
+            league.clearReports(memberIndex);
+            rankingCache.invalidateLeague(leagueId);
+            publishMembers(leagueId);
+        }
+        for (int leagueId : owned) {
+            leagues.get(leagueId).removeOwner(playerId);
+        }
+        for (int leagueId : membership.getInvitedTo(slot)) {
+            leagues.get(leagueId).removePlayerInvite(playerId);
+        }
+        membership.clearOwnedAndInvites(slot);
+        emailIndex.remove(email);
+        String placeholder = String.valueOf(playerId);
+        players.setEmail(slot, placeholder);
+        players.setDisplayName(slot, placeholder);
+        players.setName(slot, placeholder);
+        players.setPhone(slot, "");
+        players.setDeactivated(slot);
     };
 
 
@@ -84,7 +192,7 @@ public class GamesLeague implements GamesLeagueInterface {
     public boolean isDeactivatedPlayer(int playerId) 
         throws IDInvalidException{
 
-            return false; // placeholder so class compiles
+            return players.isDeactivated(playerSlot(playerId));
         };
 
 
@@ -99,8 +207,10 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public void updatePlayerDisplayName(int playerId, String displayName) 
         throws  IDInvalidException, InvalidNameException {
-        
-        return; // placeholder so class compiles
+
+        int slot = playerSlot(playerId);
+        validateName(displayName, 1, 20);
+        players.setDisplayName(slot, displayName);
     };
 
     /**
@@ -111,8 +221,8 @@ public class GamesLeague implements GamesLeagueInterface {
      * @return The ID of the player in the system or null if the player does not exist.
      */
     public int getPlayerId(String email){
-        
-        return 0; // placeholder so class compiles
+
+        return emailIndex.get(email);
     }
 
 
@@ -126,7 +236,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public String getPlayerDisplayName(int playerId) throws IDInvalidException{
 
-        return "";  // placeholder so class compiles
+        return players.getDisplayName(playerSlot(playerId));
     };
 
 
@@ -135,12 +245,12 @@ public class GamesLeague implements GamesLeagueInterface {
      * 
      * @param playerId The ID of the player being queried.
      * @return The email of the player.
-     * @throws IllegalEmailException If the email does not match to any player in the system.
+     * @throws IDInvalidException If the ID does not match to any player in the system.
      * 
      */
-    public String getPlayerEmail(int playerId) throws IllegalEmailException{
-        
-        return "";  // placeholder so class compiles
+    public String getPlayerEmail(int playerId) throws IDInvalidException{
+
+        return players.getEmail(playerSlot(playerId));
     };
 
 
@@ -153,7 +263,14 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public int[] getPlayerLeagues(int playerId) throws IDInvalidException{
 
-        return new int[0]; // placeholder so class compiles
+        int today = today();
+        IntList result = new IntList();
+        for (int leagueId : membership.getMemberOf(playerSlot(playerId))) {
+            if (!leagues.get(leagueId).isClosed(today)) {
+                result.add(leagueId);
+            }
+        }
+        return result.toArray();
     };
 
 
@@ -166,7 +283,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public int[] getPlayerOwnedLeagues(int playerId) throws IDInvalidException{
 
-        return new int[0]; // placeholder so class compiles
+        return membership.getOwnerOf(playerSlot(playerId));
     };
 
     /**
@@ -177,8 +294,8 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws IDInvalidException If the ID does not match to any player in the system.
      */
     public int[] getPlayerInvites(int playerId) throws IDInvalidException{
-        
-        return new int[0]; // placeholder so class compiles
+
+        return membership.getInvitedTo(playerSlot(playerId));
     };
 
 
@@ -192,7 +309,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public int getPlayerRoundsPlayed(int playerId) throws IDInvalidException{
 
-        return 0; // placeholder so class compiles
+        return roundStats.getPlayed(playerSlot(playerId));
     };
 
 
@@ -207,7 +324,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public double getPlayerRoundsPercentage(int playerId) throws IDInvalidException{
 
-        return 0; // placeholder so class compiles
+        return roundStats.getPercentage(playerSlot(playerId));
     };
 
     /**
@@ -219,7 +336,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public LocalDate getPlayerJoinDate(int playerId) throws IDInvalidException{
 
-        return LocalDate.now(); // placeholder so class compiles
+        return LocalDate.ofEpochDay(players.getJoinDay(playerSlot(playerId)));
     };
 
     // Leagues
@@ -230,8 +347,13 @@ public class GamesLeague implements GamesLeagueInterface {
      * @return An array of leagues IDs in the system or an empty array if none exists.
      */
     public int[] getLeagueIds(){
-        
-        return new int[0]; // placeholder so class compiles
+
+        int[] ids = new int[leagues.size()];
+        int i = 0;
+        for (int leagueId : leagues.keySet()) {
+            ids[i++] = leagueId;
+        }
+        return ids;
     };
 
     /**
@@ -250,8 +372,24 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws IllegalNameException if it duplicates an existing league name
      */
     public int createLeague(int owner, String name, GameType gameType ) throws IDInvalidException{
-        
-        return 0;  // placeholder so class compiles
+
+        if (players.isDeactivated(playerSlot(owner))) {
+            throw new IllegalOperationException("Player " + owner + " has been deactivated.");
+        }
+        validateLeagueName(name);
+        if (gameType == null) {
+            throw new IllegalArgumentException("Game type must not be null.");
+        }
+        int leagueId = nextLeagueId++;
+        League league = new League(leagueId, name, gameType,
+            ScoreStorage.create(scoreStorageDirectory, leagueId, 0), reportCodec);
+        league.addMember(owner);
+        league.addOwner(owner);
+        leagues.put(league.getId(), league);
+        int slot = players.slotOf(owner);
+        membership.addMember(slot, leagueId);
+        membership.addOwner(slot, leagueId);
+        return league.getId();
     };
 
     /**
@@ -265,7 +403,28 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public void removeLeague(int leagueId) throws IDInvalidException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        for (int playerId : league.getMembers()) {
+            membership.removeMember(players.slotOf(playerId), leagueId);
+        }
+        for (int playerId : league.getOwners()) {
+            membership.removeOwner(players.slotOf(playerId), leagueId);
+        }
+        for (int playerId : league.getPlayerInvites()) {
+            membership.removeInvite(players.slotOf(playerId), leagueId);
+        }
+        for (String email : league.getEmailInvites()) {
+            pendingInvites.remove(email, leagueId);
+        }
+        // rounds played in removed leagues still count towards player stats
+        for (int m = 0; m < league.memberCount(); m++) {
+            roundStats.retire(players.slotOf(league.memberAt(m)),
+                league.getRoundsPlayed(m), league.getRoundsEligible(m));
+        }
+        sweeper.sweep(league.getHistory());
+        leagues.remove(leagueId);
+        rankingCache.invalidateLeague(leagueId);
+        publishLeague(leagueId, ChangeFeed.REMOVED);
     };
 
     /**
@@ -277,8 +436,8 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws IDInvalidException If the ID does not match to any league in the system.
      */
     public String getLeagueName(int leagueId) throws IDInvalidException{
-        
-        return ""; // placeholder so class compiles
+
+        return league(leagueId).getName();
     };
 
     /**
@@ -297,7 +456,12 @@ public class GamesLeague implements GamesLeagueInterface {
                 InvalidNameException, 
                 IllegalNameException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        if (league.getName().equals(newName)) {
+            return;
+        }
+        validateLeagueName(newName);
+        league.setName(newName);
     };
 
 
@@ -313,7 +477,20 @@ public class GamesLeague implements GamesLeagueInterface {
     public void invitePlayerToLeague(int leagueId, String email) 
         throws IDInvalidException, InvalidEmailException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        validateEmail(email);
+        int playerId = emailIndex.get(email);
+        if (playerId == -1) {
+            league.addEmailInvite(email);
+            pendingInvites.add(email, leagueId);
+            return;
+        }
+        if (league.isMember(playerId)) {
+            throw new IllegalOperationException("Player " + playerId
+                + " is already a member of league " + leagueId + ".");
+        }
+        league.addPlayerInvite(playerId);
+        membership.addInvite(players.slotOf(playerId), leagueId);
     };
 
     /**
@@ -328,7 +505,21 @@ public class GamesLeague implements GamesLeagueInterface {
     public void acceptInviteToLeague(int leagueId, int playerId) 
         throws IDInvalidException, IllegalOperationException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        int slot = playerSlot(playerId);
+        if (players.isDeactivated(slot)) {
+            throw new IllegalOperationException("Player " + playerId + " has been deactivated.");
+        }
+        // email invites are turned into player invites when the player signs up
+        if (!league.removePlayerInvite(playerId)) {
+            throw new IllegalOperationException("Player " + playerId
+                + " has no invitation to league " + leagueId + ".");
+        }
+        league.addMember(playerId);
+        membership.removeInvite(slot, leagueId);
+        membership.addMember(slot, leagueId);
+        // cached rankings stay valid, the cache extends them for the new member
+        publishMembers(leagueId);
     };
 
     /**
@@ -342,7 +533,17 @@ public class GamesLeague implements GamesLeagueInterface {
     public void removeInviteFromLeague(int leagueId, String email) 
         throws IDInvalidException, IllegalEmailException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        int playerId = emailIndex.get(email);
+        if (playerId != -1 && league.removePlayerInvite(playerId)) {
+            membership.removeInvite(players.slotOf(playerId), leagueId);
+            return;
+        }
+        if (email == null || !league.removeEmailInvite(email)) {
+            throw new IllegalEmailException("No invitation to league " + leagueId
+                + " for " + email + ".");
+        }
+        pendingInvites.remove(email, leagueId);
     };
 
 
@@ -355,7 +556,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public String[] getLeagueEmailInvites(int leagueId) throws IDInvalidException{
 
-        return new String[0]; // placeholder so class compiles
+        return league(leagueId).getEmailInvites();
     };
 
 
@@ -368,7 +569,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public int[] getLeaguePlayerInvites(int leagueId) throws IDInvalidException{
 
-        return new int[0]; // placeholder so class compiles
+        return league(leagueId).getPlayerInvites();
     };
 
 
@@ -384,7 +585,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public int[] getLeaguePlayers(int leagueId) throws IDInvalidException{
 
-        return new int[0]; // placeholder so class compiles
+        return league(leagueId).getMembers();
     };
 
 
@@ -397,7 +598,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public int[] getLeagueOwners(int leagueId) throws IDInvalidException{
 
-        return new int[0]; // placeholder so class compiles
+        return league(leagueId).getOwners();
     };
 
     /**
@@ -414,8 +615,8 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws IDInvalidException If the ID does not match to any league in the system.
      */
     public Status getLeagueStatus(int leagueId ) throws IDInvalidException{
-        
-        return Status.PENDING; // placeholder so class compiles
+
+        return league(leagueId).getStatus(today());
     };
 
 
@@ -430,7 +631,15 @@ public class GamesLeague implements GamesLeagueInterface {
     public void setLeagueStartDate(int leagueId, int  day) 
         throws IDInvalidException, IllegalOperationException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        if (league.isStarted(today())) {
+            throw new IllegalOperationException("League " + leagueId + " has already started.");
+        }
+        if (league.getCloseDay() != -1 && day >= league.getCloseDay()) {
+            throw new IllegalOperationException("Start day must be before the close day.");
+        }
+        league.setStartDay(day);
+        publishLeague(leagueId, ChangeFeed.LEAGUE);
     };
 
 
@@ -444,7 +653,18 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public void setLeagueEndDate(int leagueId, int day) throws IDInvalidException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        if (league.getStartDay() == -1) {
+            throw new IllegalOperationException("League " + leagueId + " has no start day.");
+        }
+        if (league.isClosed(today())) {
+            throw new IllegalOperationException("League " + leagueId + " is already closed.");
+        }
+        if (day <= league.getStartDay()) {
+            throw new IllegalOperationException("Close day must be after the start day.");
+        }
+        league.setCloseDay(day);
+        publishLeague(leagueId, ChangeFeed.LEAGUE);
     };
 
 
@@ -456,8 +676,8 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws IDInvalidException If the ID does not match to any league in the system.
      */
     public int getLeagueStartDate(int leagueId) throws IDInvalidException{
-        
-        return 0; // placeholder so class compiles
+
+        return league(leagueId).getStartDay();
     };
 
 
@@ -470,7 +690,7 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public int getLeagueCloseDate(int leagueId) throws IDInvalidException{
 
-        return 0; // placeholder so class compiles
+        return league(leagueId).getCloseDay();
     };
 
 
@@ -483,8 +703,19 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws IDInvalidException If the ID does not match to any league in the system.
      */
     public void resetLeague(int leagueId) throws IDInvalidException{
-        
-        return; // placeholder so class compiles
+
+        League league = league(leagueId);
+        for (int m = 0; m < league.memberCount(); m++) {
+            roundStats.add(players.slotOf(league.memberAt(m)),
+                -league.getRoundsPlayed(m), -league.getRoundsEligible(m));
+        }
+        // the old history is released in the background
+        sweeper.sweep(league.resetHistory(
+            ScoreStorage.create(scoreStorageDirectory, leagueId, league.getGeneration() + 1)));
+        league.setStartDay(-1);
+        league.setCloseDay(-1);
+        rankingCache.invalidateLeague(leagueId);
+        publishLeague(leagueId, ChangeFeed.LEAGUE);
     };
 
 
@@ -501,8 +732,32 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws IllegalNameException If the new name already exists in the platform.
      */
     public int cloneLeague(int leagueId, String newName) throws IDInvalidException{
-        
-        return 0; // placeholder so class compiles
+
+        League source = league(leagueId);
+        validateLeagueName(newName);
+        int cloneId = nextLeagueId++;
+        League clone = new League(cloneId, newName, source.getGameType(),
+            ScoreStorage.create(scoreStorageDirectory, cloneId, 0), reportCodec);
+        // owners have to be members, the rest of the players are invited
+        clone.inheritOwners(source);
+        for (int playerId : clone.getMembers()) {
+            membership.addMember(players.slotOf(playerId), cloneId);
+        }
+        for (int playerId : clone.getOwners()) {
+            membership.addOwner(players.slotOf(playerId), cloneId);
+        }
+        // one pass over the source members builds the clone's own invite
+        // list, without the owners and deactivated players, and indexes it
+        for (int i = 0; i < source.memberCount(); i++) {
+            int playerId = source.memberAt(i);
+            int slot = players.slotOf(playerId);
+            if (!clone.isMember(playerId) && !players.isDeactivated(slot)) {
+                clone.addPlayerInvite(playerId);
+                membership.addInvite(slot, cloneId);
+            }
+        }
+        leagues.put(clone.getId(), clone);
+        return clone.getId();
     };
 
 
@@ -518,7 +773,8 @@ public class GamesLeague implements GamesLeagueInterface {
     public boolean isLeaguePlayerActive(int leagueId, int playerId) 
         throws IDInvalidException, IllegalArgumentException{
 
-        return false; // placeholder so class compiles
+        League league = league(leagueId);
+        return league.isActive(memberIndex(league, playerId));
     };
 
     /** 
@@ -533,7 +789,10 @@ public class GamesLeague implements GamesLeagueInterface {
     public void setLeaguePlayerInactive(int leagueId, int playerId) 
         throws IDInvalidException, IllegalArgumentException {
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        league.setActive(memberIndex(league, playerId), false);
+        rankingCache.invalidateLeague(leagueId);
+        publishMembers(leagueId);
     };
 
     /** 
@@ -548,7 +807,14 @@ public class GamesLeague implements GamesLeagueInterface {
     public void setLeaguePlayerActive(int leagueId, int playerId) 
         throws IDInvalidException, IllegalArgumentException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        int memberIndex = memberIndex(league, playerId);
+        if (players.isDeactivated(players.slotOf(playerId))) {
+            throw new IllegalOperationException("Player " + playerId + " has been deactivated.");
+        }
+        league.setActive(memberIndex, true);
+        rankingCache.invalidateLeague(leagueId);
+        publishMembers(leagueId);
     };
 
 
@@ -565,7 +831,13 @@ public class GamesLeague implements GamesLeagueInterface {
     public void addOwner(int leagueId, int playerId) 
         throws IDInvalidException, IllegalOperationException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        memberIndex(league, playerId);
+        if (players.isDeactivated(players.slotOf(playerId))) {
+            throw new IllegalOperationException("Player " + playerId + " has been deactivated.");
+        }
+        league.addOwner(playerId);
+        membership.addOwner(players.slotOf(playerId), leagueId);
     };
 
     /** 
@@ -581,7 +853,17 @@ public class GamesLeague implements GamesLeagueInterface {
     public void removeOwner(int leagueId, int playerId) 
         throws IDInvalidException, IllegalOperationException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        playerSlot(playerId);
+        if (!league.isOwner(playerId)) {
+            throw new IllegalOperationException("Player " + playerId
+                + " is not an owner of league " + leagueId + ".");
+        }
+        if (league.ownerCount() == 1) {
+            throw new IllegalOperationException("League " + leagueId + " must keep an owner.");
+        }
+        league.removeOwner(playerId);
+        membership.removeOwner(players.slotOf(playerId), leagueId);
     };
 
 
@@ -603,7 +885,32 @@ public class GamesLeague implements GamesLeagueInterface {
     public void registerGameReport(int day, int leagueId,  int playerId, String gameReport ) 
         throws IDInvalidException, IllegalOperationException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        int memberIndex = memberIndex(league, playerId);
+        if (!league.isActive(memberIndex)) {
+            throw new IllegalOperationException("Player " + playerId
+                + " is not active in league " + leagueId + ".");
+        }
+        if (!league.isValidDay(day) || day > today()) {
+            throw new IllegalOperationException("Day " + day
+                + " is not a valid day for league " + leagueId + ".");
+        }
+        DayRecord record = league.getOrCreateDay(day);
+        if (record.isCounted(memberIndex) && !record.hasReport(memberIndex)) {
+            // first report for a day that is already closed
+            roundStats.add(players.slotOf(playerId), 1, 0);
+            league.addRounds(memberIndex, 1, 0);
+        }
+        league.setReport(record, memberIndex, gameReport == null ? "" : gameReport);
+        int changes = ChangeFeed.REPORTS;
+        if (league.getDayStatus(day) == Status.PENDING) {
+            league.setDayStatus(day, Status.IN_PROGRESS);
+            // the day's scores read as zeros rather than empty once it has started
+            changes |= ChangeFeed.DAY_STATUS | ChangeFeed.SCORES;
+        }
+        if (feed.isWatched(leagueId)) {
+            feed.publish(leagueId, day, changes, league.getDayStatus(day), playerId);
+        }
     };
 
 
@@ -622,7 +929,11 @@ public class GamesLeague implements GamesLeagueInterface {
     public String getGameReport(int day, int leagueId,  int playerId) 
         throws IDInvalidException, InvalidDateException{
 
-        return ""; // placeholder so class compiles
+        League league = league(leagueId);
+        checkValidDay(league, day);
+        DayRecord record = league.getDay(day);
+        int memberIndex = memberIndex(league, playerId);
+        return record == null ? "" : league.getReport(record, memberIndex);
     };
 
 
@@ -641,10 +952,49 @@ public class GamesLeague implements GamesLeagueInterface {
     public void registerDayScores(int day, int leagueId, int[] scores) 
         throws IDInvalidException, IllegalArgumentException{
 
-        return; // placeholder so class compiles
+        closeDay(league(leagueId), day, scores);
+        rankingCache.invalidateDay(leagueId, day);
     };
 
 
+    /**
+     * Register the scores of many league days at once, e.g. when the rounds of
+     * every league are closed at the end of a day. Each entry is validated and
+     * applied as by {@link #registerDayScores(int, int, int[])}, but an invalid
+     * entry does not stop the others. Leagues are processed in parallel on the
+     * common ForkJoinPool; entries for the same league are applied in batch order.
+     *
+     * @param days The epoch day of each entry.
+     * @param leagueIds The league of each entry.
+     * @param scores The game scores of each entry, ordered as getLeaguePlayers().
+     * @return Which entries were applied and, for the others, why not.
+     * @throws IllegalArgumentException If the three arrays differ in length.
+     */
+    public BatchResult registerDayScores(int[] days, int[] leagueIds, int[][] scores) {
+        if (days.length != leagueIds.length || days.length != scores.length) {
+            throw new IllegalArgumentException("Batch arrays differ in length.");
+        }
+        RuntimeException[] failures = new RuntimeException[days.length];
+        Map<Integer, IntList> byLeague = new LinkedHashMap<>();
+        for (int i = 0; i < days.length; i++) {
+            if (leagues.containsKey(leagueIds[i])) {
+                byLeague.computeIfAbsent(leagueIds[i], id -> new IntList()).add(i);
+            } else {
+                failures[i] = new IDInvalidException("No league with ID " + leagueIds[i] + ".");
+            }
+        }
+        IntList[] groups = byLeague.values().toArray(new IntList[0]);
+        ForkJoinPool.commonPool().invoke(
+            new DayScoresTask(groups, 0, groups.length, days, leagueIds, scores, failures));
+        for (int i = 0; i < days.length; i++) {
+            if (failures[i] == null) {
+                rankingCache.invalidateDay(leagueIds[i], days[i]);
+            }
+        }
+        return new BatchResult(leagueIds.clone(), failures);
+    }
+
+
     /**
      * Register a void day for a league - all points set to zero
      *
@@ -658,7 +1008,17 @@ public class GamesLeague implements GamesLeagueInterface {
     public void voidDayPoints(int day, int leagueId) 
         throws IDInvalidException, IllegalArgumentException{
 
-        return; // placeholder so class compiles
+        League league = league(leagueId);
+        checkCanFinaliseDay(league, day);
+        DayRecord record = league.getDay(day);
+        if (record != null) {
+            countRounds(roundStats, players, league, record, -1);
+        }
+        league.voidDay(day);
+        rankingCache.invalidateDay(leagueId, day);
+        if (feed.isWatched(leagueId)) {
+            feed.publish(leagueId, day, ChangeFeed.DAY_TABLES, league.getDayStatus(day), -1);
+        }
     };  
 
 
@@ -679,7 +1039,9 @@ public class GamesLeague implements GamesLeagueInterface {
     public Status getDayStatus(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return Status.PENDING; // placeholder so class compiles
+        League league = league(leagueId);
+        checkValidDay(league, day);
+        return league.getDayStatus(day);
     };
 
 
@@ -700,7 +1062,12 @@ public class GamesLeague implements GamesLeagueInterface {
     public int[] getDayScores(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        League league = league(leagueId);
+        checkValidDay(league, day);
+        if (league.getDayStatus(day) == Status.PENDING) {
+            return new int[0];
+        }
+        return league.getScores(day);
     };
 
 
@@ -720,7 +1087,10 @@ public class GamesLeague implements GamesLeagueInterface {
     public int[] getDayPoints(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        League league = league(leagueId);
+        checkValidDay(league, day);
+        int[] points = league.getPoints(day);
+        return points == null ? new int[0] : points;
     };
 
 
@@ -740,7 +1110,9 @@ public class GamesLeague implements GamesLeagueInterface {
     public int[] getDayRanking(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        League league = league(leagueId);
+        checkValidDay(league, day);
+        return getRanking(league, null, day);
     };
 
 
@@ -761,7 +1133,7 @@ public class GamesLeague implements GamesLeagueInterface {
     public Status getWeekStatus(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return Status.PENDING; // placeholder so class compiles
+        return getPeriodStatus(league(leagueId), Period.WEEK, day);
     };
 
 
@@ -781,7 +1153,7 @@ public class GamesLeague implements GamesLeagueInterface {
     public int[] getWeekPoints(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        return getPeriodPoints(league(leagueId), Period.WEEK, day);
     };
 
 
@@ -801,7 +1173,9 @@ public class GamesLeague implements GamesLeagueInterface {
     public int[] getWeekRanking(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        League league = league(leagueId);
+        checkValidPeriod(league, Period.WEEK, day);
+        return getRanking(league, Period.WEEK, day);
     };
 
 
@@ -823,7 +1197,7 @@ public class GamesLeague implements GamesLeagueInterface {
     public Status getMonthStatus(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return Status.PENDING; // placeholder so class compiles
+        return getPeriodStatus(league(leagueId), Period.MONTH, day);
     };
 
 
@@ -843,7 +1217,7 @@ public class GamesLeague implements GamesLeagueInterface {
     public int[] getMonthPoints(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        return getPeriodPoints(league(leagueId), Period.MONTH, day);
     };
 
 
@@ -860,9 +1234,11 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws InvalidDateException     If the day is not within a valid month for the league.
      */
     public int[] getMonthRanking(int leagueId, int day ) 
-            throws IDInvalidException, InvalidDateException{
+        throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        League league = league(leagueId);
+        checkValidPeriod(league, Period.MONTH, day);
+        return getRanking(league, Period.MONTH, day);
     };
 
 
@@ -882,9 +1258,9 @@ public class GamesLeague implements GamesLeagueInterface {
      * @throws InvalidDateException If the day is not within a valid year for the league.
      */
     public Status getYearStatus(int leagueId, int day ) 
-            throws IDInvalidException, InvalidDateException{
+        throws IDInvalidException, InvalidDateException{
 
-        return Status.PENDING; // placeholder so class compiles
+        return getPeriodStatus(league(leagueId), Period.YEAR, day);
     };
 
 
@@ -903,7 +1279,7 @@ public class GamesLeague implements GamesLeagueInterface {
     public int[] getYearPoints(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        return getPeriodPoints(league(leagueId), Period.YEAR, day);
     };
 
 
@@ -922,7 +1298,9 @@ public class GamesLeague implements GamesLeagueInterface {
     public int[] getYearRanking(int leagueId, int day ) 
         throws IDInvalidException, InvalidDateException{
 
-        return new int[0]; // placeholder so class compiles
+        League league = league(leagueId);
+        checkValidPeriod(league, Period.YEAR, day);
+        return getRanking(league, Period.YEAR, day);
     };
 
 
@@ -932,7 +1310,15 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public void eraseGamesLeagueData(){
 
-        return; // placeholder so class compiles
+        releaseLeagues();
+        players = new PlayerRegistry();
+        emailIndex = new EmailIndex();
+        membership = new MembershipIndex();
+        pendingInvites = new PendingInviteIndex();
+        roundStats = new RoundStats();
+        leagues = new LinkedHashMap<>();
+        nextLeagueId = 1;
+        rankingCache.clear();
     };
 
 
@@ -949,9 +1335,16 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public void saveGamesLeagueData(String filename) throws IOException{
 
-        return; // placeholder so class compiles
+        snapshot().write(filename);
     };
 
+    /**
+     * @return What saveGamesLeagueData writes, sharing this GamesLeague's objects.
+     */
+    Snapshot snapshot() {
+        return new Snapshot(players, leagues, nextLeagueId, roundStats, reportCodec);
+    }
+
 
     /**
      * Method should load and replace this GamesLeaguePortal contents with the
@@ -964,10 +1357,577 @@ public class GamesLeague implements GamesLeagueInterface {
      */
     public void loadGamesLeagueData(String filename) throws IOException, ClassNotFoundException{
 
-        return; // placeholder so class compiles
+        // read everything before replacing any state, so a failed load changes nothing
+        Snapshot snapshot = Snapshot.read(filename, scoreStorageDirectory);
+        EmailIndex loadedEmailIndex = new EmailIndex();
+        for (int slot = 0; slot < snapshot.players.size(); slot++) {
+            if (!snapshot.players.isDeactivated(slot)) {
+                loadedEmailIndex.put(snapshot.players.getEmail(slot), snapshot.players.idAt(slot));
+            }
+        }
+
+        MembershipIndex loadedMembership = new MembershipIndex();
+        PendingInviteIndex loadedPendingInvites = new PendingInviteIndex();
+        for (League league : snapshot.leagues.values()) {
+            // older files may hold email invites for emails that have since signed up
+            for (String email : league.getEmailInvites()) {
+                int playerId = loadedEmailIndex.get(email);
+                if (playerId == -1) {
+                    loadedPendingInvites.add(email, league.getId());
+                } else {
+                    league.removeEmailInvite(email);
+                    league.addPlayerInvite(playerId);
+                }
+            }
+            indexMembership(loadedMembership, snapshot.players, league);
+            for (int day : league.getDays()) {
+                countRounds(snapshot.roundStats, snapshot.players, league, league.getDay(day), 1);
+            }
+        }
+
+        releaseLeagues();
+        players = snapshot.players;
+        emailIndex = loadedEmailIndex;
+        membership = loadedMembership;
+        pendingInvites = loadedPendingInvites;
+        roundStats = snapshot.roundStats;
+        leagues = snapshot.leagues;
+        nextLeagueId = snapshot.nextLeagueId;
+        reportCodec = snapshot.reportCodec;
+        rankingCache.clear();
     };
 
 
+    /**
+     * Statistics of the background release of reset and removed league histories.
+     *
+     * @return Histories released, still queued and failed to release.
+     */
+    public String getHistorySweeperStats() {
+        return "swept=" + sweeper.getSwept()
+            + " pending=" + sweeper.getPending()
+            + " failed=" + sweeper.getFailed();
+    }
+
+    /**
+     * Waits until the histories of every league reset or removed so far have
+     * been released, e.g. before checking score files are gone.
+     */
+    void awaitHistorySweeper() throws InterruptedException {
+        sweeper.awaitIdle();
+    }
 
+    /**
+     * Statistics of the ranking cache, for sizing it.
+     *
+     * @return Hits, misses, invalidations, rankings extended for new members,
+     *         rankings evicted to make room, and current number and capacity
+     *         of cached rankings.
+     */
+    public String getRankingCacheStats() {
+        return "hits=" + rankingCache.getHits()
+            + " misses=" + rankingCache.getMisses()
+            + " invalidations=" + rankingCache.getInvalidations()
+            + " extensions=" + rankingCache.getExtensions()
+            + " evictions=" + rankingCache.getEvictions()
+            + " entries=" + rankingCache.size()
+            + " capacity=" + rankingCache.getCapacity();
+    }
 
+    /**
+     * Sets the most rankings the ranking cache keeps across all leagues, the
+     * least recently read ones being evicted beyond it.
+     *
+     * @param capacity The number of rankings, at least 1.
+     * @throws IllegalArgumentException If the capacity is below 1.
+     */
+    public void setRankingCacheCapacity(int capacity) {
+        rankingCache.setCapacity(capacity);
+    };
+
+    /**
+     * Memory used by game reports, for comparing the compressed store with
+     * holding one String per report.
+     *
+     * @return Reports registered, distinct reports, compressed blocks, estimated
+     *         bytes used and estimated bytes as one String per report.
+     */
+    public String getReportStoreStats() {
+        long added = 0;
+        long distinct = 0;
+        long blocks = 0;
+        long bytes = 0;
+        long rawBytes = 0;
+        for (League league : leagues.values()) {
+            ReportStore store = league.getReportStore();
+            added += store.getAdded();
+            distinct += store.getDistinct();
+            blocks += store.getBlockCount();
+            bytes += store.footprintBytes();
+            rawBytes += store.getRawBytes();
+        }
+        return "reports=" + added
+            + " distinct=" + distinct
+            + " blocks=" + blocks
+            + " bytes=" + bytes
+            + " rawBytes=" + rawBytes
+            + " decodeHits=" + reportCodec.getHits()
+            + " decodeMisses=" + reportCodec.getMisses();
+    }
+
+    /**
+     * Memory used by the player registry, for comparing the cost per player
+     * between versions of the registry.
+     *
+     * @return Players, slots allocated, estimated bytes used and estimated
+     *         bytes per player.
+     */
+    public String getPlayerRegistryStats() {
+        return players.footprintReport();
+    }
+
+    // Updates
+
+    /**
+     * Subscribes to the changes to a league's tables, as an alternative to
+     * polling its day status, scores, points and rankings.
+     * <p>
+     * The listener is sent a {@link LeagueUpdate} after each game report,
+     * day closed or voided, player joining or becoming active or inactive in
+     * the league, change to its start or end date, reset of the league and
+     * its removal. Updates are handed to the executor and never hold up
+     * the call that made the change: changes the listener has not been sent
+     * yet are merged into one update per day. Erasing or loading data sends
+     * no updates.
+     * <p>
+     * GamesLeague is not thread safe, so the executor decides what the
+     * listener may do. If it runs tasks on the thread that makes every call
+     * to this GamesLeague, after the current call (e.g. the single-threaded
+     * executor the application makes its calls through), the listener may
+     * read the league back. On any other thread the listener must only use
+     * the update itself. The executor must not run the task on the calling
+     * thread before execute returns, as the change is still being made then.
+     * ConcurrentGamesLeague delivers on its own background threads, and its
+     * listeners may read the league back.
+     *
+     * @param leagueId The ID of the league to follow.
+     * @param listener Called with each update, one at a time.
+     * @param executor Runs the deliveries to the listener.
+     * @return The subscription, to close once updates are no longer wanted.
+     * @throws IDInvalidException If the ID does not match to any league in the system.
+     */
+    public LeagueSubscription subscribe(int leagueId, Consumer<LeagueUpdate> listener,
+            Executor executor) throws IDInvalidException{
+
+        league(leagueId);
+        return feed.subscribe(leagueId, listener, executor);
+    };
+
+
+    /**
+     * Subscribes to the changes to the tables of every league, as
+     * {@link #subscribe(int, Consumer, Executor)}.
+     *
+     * @param listener Called with each update, one at a time.
+     * @param executor Runs the deliveries to the listener.
+     * @return The subscription, to close once updates are no longer wanted.
+     */
+    public LeagueSubscription subscribe(Consumer<LeagueUpdate> listener, Executor executor){
+
+        return feed.subscribe(-1, listener, executor);
+    };
+
+    /**
+     * Tells subscribers the league's members changed.
+     */
+    private void publishMembers(int leagueId) {
+        publishLeague(leagueId, ChangeFeed.MEMBERS);
+    }
+
+    /**
+     * Tells subscribers of a change to the league as a whole rather than to a day.
+     */
+    private void publishLeague(int leagueId, int changes) {
+        if (feed.isWatched(leagueId)) {
+            feed.publish(leagueId, -1, changes, null, -1);
+        }
+    }
+
+    // Helpers
+
+    /**
+     * Current day used for join dates and gameplay deadlines. Only the
+     * clock's millis are read while the day lasts; the date is worked out
+     * again once they pass the day's end.
+     */
+    int today() {
+        Clock clock = this.clock;
+        long now = clock.millis();
+        CurrentDay current = currentDay;
+        if (current == null || !current.covers(clock, now)) {
+            current = new CurrentDay(clock, now);
+            currentDay = current;
+        }
+        return current.day;
+    }
+
+    /**
+     * Replaces the clock that decides the current day, e.g. so a journal
+     * replay sees the day each call was originally made on.
+     */
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if any league has an outstanding invite to the email, which
+     *         createPlayer would turn into player invites.
+     */
+    boolean hasPendingInvites(String email) {
+        return email != null && pendingInvites.contains(email);
+    }
+
+    /**
+     * @return The gameplay status of the day, or null if there is no such
+     *         league or the day is not a valid day for it.
+     */
+    Status findDayStatus(int leagueId, int day) {
+        League league = leagues.get(leagueId);
+        return league == null || !league.isValidDay(day) ? null : league.getDayStatus(day);
+    }
+
+    /**
+     * Recomputes every player's round counters, and each league's per-member
+     * counts, from the gameplay history (and the rounds retired with removed
+     * leagues) and checks they match the counters kept incrementally. Meant
+     * for tests; it scans every day of every league.
+     *
+     * @throws IllegalStateException If any counter does not match.
+     */
+    void verifyRoundStats() {
+        RoundStats expected = new RoundStats();
+        for (League league : leagues.values()) {
+            int[] played = new int[league.memberCount()];
+            int[] eligible = new int[league.memberCount()];
+            for (int day : league.getDays()) {
+                DayRecord record = league.getDay(day);
+                for (int m = 0; m < league.memberCount(); m++) {
+                    if (record.isCounted(m)) {
+                        played[m] += record.hasReport(m) ? 1 : 0;
+                        eligible[m]++;
+                    }
+                }
+            }
+            for (int m = 0; m < league.memberCount(); m++) {
+                if (played[m] != league.getRoundsPlayed(m) || eligible[m] != league.getRoundsEligible(m)) {
+                    throw new IllegalStateException("Member " + league.memberAt(m) + " of league "
+                        + league.getId() + " has rounds " + league.getRoundsPlayed(m) + "/"
+                        + league.getRoundsEligible(m) + " but history gives "
+                        + played[m] + "/" + eligible[m] + ".");
+                }
+                expected.add(players.slotOf(league.memberAt(m)), played[m], eligible[m]);
+            }
+        }
+        for (int slot = 0; slot < players.size(); slot++) {
+            int played = expected.getPlayed(slot) + roundStats.getRetiredPlayed(slot);
+            int eligible = expected.getEligible(slot) + roundStats.getRetiredEligible(slot);
+            if (played != roundStats.getPlayed(slot) || eligible != roundStats.getEligible(slot)) {
+                throw new IllegalStateException("Player " + players.idAt(slot)
+                    + " has rounds " + roundStats.getPlayed(slot) + "/" + roundStats.getEligible(slot)
+                    + " but history gives " + played + "/" + eligible + ".");
+            }
+        }
+    }
+
+    /**
+     * @return The registry slot of the player.
+     * @throws IDInvalidException If the ID does not match to any player in the system.
+     */
+    private int playerSlot(int playerId) {
+        int slot = players.slotOf(playerId);
+        if (slot == -1) {
+            throw new IDInvalidException("No player with ID " + playerId + ".");
+        }
+        return slot;
+    }
+
+    /**
+     * @return The league with the ID.
+     * @throws IDInvalidException If the ID does not match to any league in the system.
+     */
+    private League league(int leagueId) {
+        League league = leagues.get(leagueId);
+        if (league == null) {
+            throw new IDInvalidException("No league with ID " + leagueId + ".");
+        }
+        return league;
+    }
+
+    /**
+     * @return The position of the player in the league's member order.
+     * @throws IDInvalidException If the ID does not match to any player in the system.
+     * @throws IllegalOperationException If the player is not a member of the league.
+     */
+    private int memberIndex(League league, int playerId) {
+        playerSlot(playerId);
+        int memberIndex = league.memberIndex(playerId);
+        if (memberIndex == -1) {
+            throw new IllegalOperationException("Player " + playerId
+                + " is not a member of league " + league.getId() + ".");
+        }
+        return memberIndex;
+    }
+
+    /**
+     * Hands the history of every league to the sweeper before they are discarded.
+     */
+    private void releaseLeagues() {
+        for (League league : leagues.values()) {
+            sweeper.sweep(league.getHistory());
+        }
+    }
+
+    /**
+     * Adds the members, owners and player invites of a league to a membership index.
+     */
+    private static void indexMembership(MembershipIndex index, PlayerRegistry registry, League league) {
+        for (int playerId : league.getMembers()) {
+            index.addMember(registry.slotOf(playerId), league.getId());
+        }
+        for (int playerId : league.getOwners()) {
+            index.addOwner(registry.slotOf(playerId), league.getId());
+        }
+        for (int playerId : league.getPlayerInvites()) {
+            index.addInvite(registry.slotOf(playerId), league.getId());
+        }
+    }
+
+    /**
+     * Adds a day's rounds to, or with sign -1 takes them from, the players'
+     * round counters and the league's per-member counts.
+     */
+    private static void countRounds(RoundStats stats, PlayerRegistry registry, League league,
+            DayRecord record, int sign) {
+        BitSet counted = record.getCounted();
+        if (counted == null) {
+            return;
+        }
+        for (int m = counted.nextSetBit(0); m >= 0; m = counted.nextSetBit(m + 1)) {
+            int slot = registry.slotOf(league.memberAt(m));
+            int played = record.hasReport(m) ? sign : 0;
+            stats.add(slot, played, sign);
+            league.addRounds(m, played, sign);
+        }
+    }
+
+    /**
+     * @throws InvalidDateException If the day is not a valid day for the league.
+     */
+    private static void checkValidDay(League league, int day) {
+        if (!league.isValidDay(day)) {
+            throw new InvalidDateException("Day " + day
+                + " is not a valid day for league " + league.getId() + ".");
+        }
+    }
+
+    /**
+     * Checks a day can have its scores registered or be voided: it must be a
+     * valid day of the league that has been played and is less than 2 days ago.
+     */
+    private void checkCanFinaliseDay(League league, int day) {
+        if (!league.isValidDay(day) || day > today()) {
+            throw new IllegalArgumentException("Day " + day
+                + " is not a valid day for league " + league.getId() + ".");
+        }
+        if (today() - day >= 2) {
+            throw new IllegalArgumentException("Day " + day
+                + " can no longer be changed for league " + league.getId() + ".");
+        }
+    }
+
+    /**
+     * Validates and registers the scores of a day, as registerDayScores but
+     * without touching the ranking cache.
+     */
+    private void closeDay(League league, int day, int[] scores) {
+        checkCanFinaliseDay(league, day);
+        if (scores == null || scores.length != league.memberCount()) {
+            throw new IllegalArgumentException("Expected " + league.memberCount()
+                + " scores for league " + league.getId() + ".");
+        }
+        if (league.getDayStatus(day) == Status.CLOSED) {
+            throw new IllegalArgumentException("Day " + day + " of league " + league.getId()
+                + " has already been closed.");
+        }
+        DayRecord record = league.closeDay(day, scores, league.computePoints(scores));
+        countRounds(roundStats, players, league, record, 1);
+        if (feed.isWatched(league.getId())) {
+            feed.publish(league.getId(), day, ChangeFeed.DAY_TABLES, Status.CLOSED, -1);
+        }
+    }
+
+    /**
+     * Applies the entries of a score batch, one group of entries per league,
+     * splitting the groups between workers. Each league is only touched by the
+     * worker holding its group, and each entry's failure slot only by that worker.
+     */
+    private final class DayScoresTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int LEAGUES_PER_TASK = 64;
+
+        private final IntList[] groups;
+        private final int from;
+        private final int to;
+        private final int[] days;
+        private final int[] leagueIds;
+        private final int[][] scores;
+        private final RuntimeException[] failures;
+
+        DayScoresTask(IntList[] groups, int from, int to, int[] days, int[] leagueIds,
+                int[][] scores, RuntimeException[] failures) {
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+            this.days = days;
+            this.leagueIds = leagueIds;
+            this.scores = scores;
+            this.failures = failures;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAGUES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new DayScoresTask(groups, from, mid, days, leagueIds, scores, failures),
+                    new DayScoresTask(groups, mid, to, days, leagueIds, scores, failures));
+                return;
+            }
+            for (int g = from; g < to; g++) {
+                IntList group = groups[g];
+                League league = leagues.get(leagueIds[group.get(0)]);
+                for (int k = 0; k < group.size(); k++) {
+                    int i = group.get(k);
+                    try {
+                        closeDay(league, days[i], scores[i]);
+                    } catch (RuntimeException e) {
+                        failures[i] = e;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the period containing the day overlaps the days of the league.
+     *
+     * @throws InvalidDateException If no day of the period is a valid day for the league.
+     */
+    private static void checkValidPeriod(League league, Period period, int day) {
+        int first = period.firstDay(day);
+        int last = period.lastDay(day);
+        boolean overlaps = league.getStartDay() != -1
+            && last >= league.getStartDay()
+            && (league.getCloseDay() == -1 || first < league.getCloseDay());
+        if (!overlaps) {
+            throw new InvalidDateException("Day " + day + " is not within a valid "
+                + period.name().toLowerCase() + " for league " + league.getId() + ".");
+        }
+    }
+
+    private Status getPeriodStatus(League league, Period period, int day) {
+        checkValidPeriod(league, period, day);
+        return league.getPeriodStatus(period, day, today());
+    }
+
+    /**
+     * Ranking for a day (period null) or for the period containing the day,
+     * served from the ranking cache when possible. The day must already have
+     * been validated.
+     *
+     * @return A copy of the ranking or an empty array if there are no points yet.
+     */
+    private int[] getRanking(League league, Period period, int day) {
+        int key = period == null ? day : period.key(day);
+        int[] ranking = rankingCache.get(league.getId(), period, key, league.memberCount());
+        if (ranking == null) {
+            int[] points;
+            if (period == null) {
+                points = league.getPoints(day);
+            } else {
+                points = getPeriodPoints(league, period, day);
+            }
+            if (points == null || points.length == 0) {
+                return new int[0];
+            }
+            ranking = RankingEngine.rank(points);
+            rankingCache.put(league.getId(), period, key, ranking, points);
+        }
+        return ranking.clone();
+    }
+
+    private int[] getPeriodPoints(League league, Period period, int day) {
+        checkValidPeriod(league, period, day);
+        PeriodTotals totals = league.getTotals(period, day);
+        if (totals == null || totals.getClosedDays() == 0) {
+            return new int[0];
+        }
+        return totals.getPoints(league.memberCount());
+    }
+
+    private void validateLeagueName(String name) {
+        validateName(name, 1, 20);
+        for (League league : leagues.values()) {
+            if (league.getName().equals(name)) {
+                throw new IllegalNameException("A league named " + name + " already exists.");
+            }
+        }
+    }
+
+    private static void validateEmail(String email) {
+        if (email == null || email.isEmpty() || email.indexOf('@') == -1) {
+            throw new InvalidEmailException("Invalid email: " + email);
+        }
+    }
+
+    private static void validateName(String name, int minLength, int maxLength) {
+        if (name == null) {
+            throw new InvalidNameException("Name must not be null.");
+        }
+        if (name.length() < minLength || name.length() > maxLength) {
+            throw new InvalidNameException("Name must be between " + minLength
+                + " and " + maxLength + " characters: " + name);
+        }
+        if (Character.isWhitespace(name.charAt(0))
+                || Character.isWhitespace(name.charAt(name.length() - 1))) {
+            throw new InvalidNameException("Name must not start or end with whitespace: " + name);
+        }
+    }
+
+    /**
+     * An epoch day and the clock millis it spans in the clock's zone, from
+     * its start to the start of the next day, which need not be 24 hours
+     * apart.
+     */
+    private static final class CurrentDay {
+
+        final Clock clock;
+        final int day;
+        final long startMillis;
+        final long endMillis;
+
+        CurrentDay(Clock clock, long millis) {
+            ZoneId zone = clock.getZone();
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+            this.clock = clock;
+            this.day = (int) date.toEpochDay();
+            this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+
+        boolean covers(Clock clock, long millis) {
+            return this.clock == clock && millis >= startMillis && millis < endMillis;
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package gamesleague;
+
+/**
+ * Controls the instrumentation of an {@link InstrumentedGamesLeague} over
+ * JMX. The figures for each method are in its own {@link MethodMetricsMXBean}.
+ */
+public interface GamesLeagueMetricsMXBean {
+
+    boolean isEnabled();
+
+    /**
+     * Turns recording on or off. While off, calls go straight through and
+     * nothing is counted.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return The instrumented methods, in interface order.
+     */
+    String[] getMethods();
+
+    /**
+     * @return Calls recorded over all methods.
+     */
+    long getCalls();
+
+    /**
+     * @return Calls that threw, over all methods.
+     */
+    long getExceptions();
+
+    /**
+     * Clears the figures of every method.
+     */
+    void reset();
+}
@@ -0,0 +1,53 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Score storage on the heap: one int array per written row.
+ */
+class HeapScoreStorage implements ScoreStorage, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int[][] scores = new int[0][];
+    private int[][] points = new int[0][];
+
+    public void put(int row, int[] rowScores, int[] rowPoints) {
+        if (row >= scores.length) {
+            int capacity = Math.max(row + 1, scores.length * 2);
+            scores = Arrays.copyOf(scores, capacity);
+            points = Arrays.copyOf(points, capacity);
+        }
+        if (rowScores != null) {
+            scores[row] = rowScores.clone();
+        }
+        if (rowPoints != null) {
+            points[row] = rowPoints.clone();
+        }
+    }
+
+    public int[] getScores(int row, int memberCount) {
+        return read(scores, row, memberCount);
+    }
+
+    public int[] getPoints(int row, int memberCount) {
+        return read(points, row, memberCount);
+    }
+
+    public void clear() {
+        scores = new int[0][];
+        points = new int[0][];
+    }
+
+    public void close() {
+        clear();
+    }
+
+    private static int[] read(int[][] matrix, int row, int memberCount) {
+        if (row < 0 || row >= matrix.length || matrix[row] == null) {
+            return new int[memberCount];
+        }
+        return Arrays.copyOf(matrix[row], memberCount);
+    }
+}
@@ -0,0 +1,80 @@
+package gamesleague;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Releases detached league history generations in the background, so
+ * resetLeague and removeLeague only swap a reference while the league is
+ * locked and the score files are closed and deleted later.
+ * <p>
+ * All sweepers share one daemon thread. Each sweeper counts its own
+ * generations so a caller can wait for them to be released.
+ */
+class HistorySweeper {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "history-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int pending = 0;
+    private long swept = 0;
+    private long failed = 0;
+
+    /**
+     * Queues a detached generation to be released. It must no longer be
+     * reachable from its league.
+     */
+    synchronized void sweep(LeagueHistory history) {
+        pending++;
+        EXECUTOR.execute(() -> release(history));
+    }
+
+    /**
+     * Waits until every generation queued so far has been released.
+     */
+    synchronized void awaitIdle() throws InterruptedException {
+        while (pending > 0) {
+            wait();
+        }
+    }
+
+    synchronized int getPending() {
+        return pending;
+    }
+
+    synchronized long getSwept() {
+        return swept;
+    }
+
+    /**
+     * @return Generations whose release threw, e.g. as a score file could not be deleted.
+     */
+    synchronized long getFailed() {
+        return failed;
+    }
+
+    private void release(LeagueHistory history) {
+        boolean released;
+        try {
+            history.release();
+            released = true;
+        } catch (RuntimeException e) {
+            // nothing left to hand the error to; it is counted instead
+            released = false;
+        }
+        done(released);
+    }
+
+    private synchronized void done(boolean released) {
+        pending--;
+        if (released) {
+            swept++;
+        } else {
+            failed++;
+        }
+        notifyAll();
+    }
+}
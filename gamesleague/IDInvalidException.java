@@ -1,6 +1,8 @@
 package gamesleague;
 
 class IDInvalidException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public IDInvalidException(String m) {
         super(m);
     }
@@ -1,6 +1,8 @@
 package gamesleague;
 
 class IllegalEmailException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public IllegalEmailException(String m) {
         super(m);
     }
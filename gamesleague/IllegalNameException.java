@@ -1,6 +1,8 @@
 package gamesleague;
 
 public class IllegalNameException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public IllegalNameException(String m) {
         super(m);
     }
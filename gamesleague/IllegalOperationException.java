@@ -1,6 +1,8 @@
 package gamesleague;
 
 public class IllegalOperationException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public IllegalOperationException(String m) {
         super(m);
     }
@@ -0,0 +1,532 @@
+package gamesleague;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A GamesLeagueInterface that records, for each method, the number of calls,
+ * the exceptions thrown by type and a latency histogram, and publishes them
+ * over JMX.
+ * <p>
+ * It wraps any implementation, e.g. a ConcurrentGamesLeague, and is as thread
+ * safe as the implementation it wraps: the figures themselves are kept in
+ * striped counters that concurrent calls do not contend on. After
+ * {@link #registerMBeans()} the figures of each method are under
+ * {@code gamesleague:type=GamesLeagueMetrics,name=<name>,method=<method>} and
+ * this object, which turns recording on and off, under
+ * {@code gamesleague:type=GamesLeagueMetrics,name=<name>}.
+ * <p>
+ * While recording is off a call costs one volatile read on top of the
+ * wrapped call; the batch registerDayScores and the stats methods of
+ * GamesLeague are not part of the interface and are not wrapped.
+ */
+public class InstrumentedGamesLeague implements GamesLeagueInterface, GamesLeagueMetricsMXBean, Closeable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String DOMAIN = "gamesleague";
+    private static final int STRIPES = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+    private final GamesLeagueInterface league;
+    private final String name;
+    private final Map<String, MethodMetrics> methods = new LinkedHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private volatile boolean enabled = true;
+
+    // one per interface method, in interface order
+    private final MethodMetrics getPlayerIds = method("getPlayerIds");
+    private final MethodMetrics createPlayer = method("createPlayer");
+    private final MethodMetrics deactivatePlayer = method("deactivatePlayer");
+    private final MethodMetrics isDeactivatedPlayer = method("isDeactivatedPlayer");
+    private final MethodMetrics updatePlayerDisplayName = method("updatePlayerDisplayName");
+    private final MethodMetrics getPlayerId = method("getPlayerId");
+    private final MethodMetrics getPlayerDisplayName = method("getPlayerDisplayName");
+    private final MethodMetrics getPlayerEmail = method("getPlayerEmail");
+    private final MethodMetrics getPlayerLeagues = method("getPlayerLeagues");
+    private final MethodMetrics getPlayerOwnedLeagues = method("getPlayerOwnedLeagues");
+    private final MethodMetrics getPlayerInvites = method("getPlayerInvites");
+    private final MethodMetrics getPlayerRoundsPlayed = method("getPlayerRoundsPlayed");
+    private final MethodMetrics getPlayerRoundsPercentage = method("getPlayerRoundsPercentage");
+    private final MethodMetrics getPlayerJoinDate = method("getPlayerJoinDate");
+    private final MethodMetrics getLeagueIds = method("getLeagueIds");
+    private final MethodMetrics createLeague = method("createLeague");
+    private final MethodMetrics removeLeague = method("removeLeague");
+    private final MethodMetrics getLeagueName = method("getLeagueName");
+    private final MethodMetrics updateLeagueName = method("updateLeagueName");
+    private final MethodMetrics invitePlayerToLeague = method("invitePlayerToLeague");
+    private final MethodMetrics acceptInviteToLeague = method("acceptInviteToLeague");
+    private final MethodMetrics removeInviteFromLeague = method("removeInviteFromLeague");
+    private final MethodMetrics getLeagueEmailInvites = method("getLeagueEmailInvites");
+    private final MethodMetrics getLeaguePlayerInvites = method("getLeaguePlayerInvites");
+    private final MethodMetrics getLeaguePlayers = method("getLeaguePlayers");
+    private final MethodMetrics getLeagueOwners = method("getLeagueOwners");
+    private final MethodMetrics getLeagueStatus = method("getLeagueStatus");
+    private final MethodMetrics setLeagueStartDate = method("setLeagueStartDate");
+    private final MethodMetrics setLeagueEndDate = method("setLeagueEndDate");
+    private final MethodMetrics getLeagueStartDate = method("getLeagueStartDate");
+    private final MethodMetrics getLeagueCloseDate = method("getLeagueCloseDate");
+    private final MethodMetrics resetLeague = method("resetLeague");
+    private final MethodMetrics cloneLeague = method("cloneLeague");
+    private final MethodMetrics isLeaguePlayerActive = method("isLeaguePlayerActive");
+    private final MethodMetrics setLeaguePlayerInactive = method("setLeaguePlayerInactive");
+    private final MethodMetrics setLeaguePlayerActive = method("setLeaguePlayerActive");
+    private final MethodMetrics addOwner = method("addOwner");
+    private final MethodMetrics removeOwner = method("removeOwner");
+    private final MethodMetrics registerGameReport = method("registerGameReport");
+    private final MethodMetrics getGameReport = method("getGameReport");
+    private final MethodMetrics registerDayScores = method("registerDayScores");
+    private final MethodMetrics voidDayPoints = method("voidDayPoints");
+    private final MethodMetrics getDayStatus = method("getDayStatus");
+    private final MethodMetrics getDayScores = method("getDayScores");
+    private final MethodMetrics getDayPoints = method("getDayPoints");
+    private final MethodMetrics getDayRanking = method("getDayRanking");
+    private final MethodMetrics getWeekStatus = method("getWeekStatus");
+    private final MethodMetrics getWeekPoints = method("getWeekPoints");
+    private final MethodMetrics getWeekRanking = method("getWeekRanking");
+    private final MethodMetrics getMonthStatus = method("getMonthStatus");
+    private final MethodMetrics getMonthPoints = method("getMonthPoints");
+    private final MethodMetrics getMonthRanking = method("getMonthRanking");
+    private final MethodMetrics getYearStatus = method("getYearStatus");
+    private final MethodMetrics getYearPoints = method("getYearPoints");
+    private final MethodMetrics getYearRanking = method("getYearRanking");
+    private final MethodMetrics eraseGamesLeagueData = method("eraseGamesLeagueData");
+    private final MethodMetrics saveGamesLeagueData = method("saveGamesLeagueData");
+    private final MethodMetrics loadGamesLeagueData = method("loadGamesLeagueData");
+
+    /**
+     * @param league The implementation to instrument.
+     * @param name Distinguishes this instance's MBeans from other instances'.
+     */
+    public InstrumentedGamesLeague(GamesLeagueInterface league, String name) {
+        this.league = league;
+        this.name = name;
+    }
+
+    // Players
+
+    public int[] getPlayerIds() {
+        return timed(getPlayerIds, () -> league.getPlayerIds());
+    }
+
+    public int createPlayer(String email, String displayName, String name, String phone)
+            throws InvalidEmailException, IllegalEmailException, InvalidNameException {
+        return timed(createPlayer, () -> league.createPlayer(email, displayName, name, phone));
+    }
+
+    public void deactivatePlayer(int playerId) throws IDInvalidException, IllegalOperationException {
+        timed(deactivatePlayer, () -> league.deactivatePlayer(playerId));
+    }
+
+    public boolean isDeactivatedPlayer(int playerId) throws IDInvalidException {
+        return timed(isDeactivatedPlayer, () -> league.isDeactivatedPlayer(playerId));
+    }
+
+    public void updatePlayerDisplayName(int playerId, String displayName)
+            throws IDInvalidException, InvalidNameException {
+        timed(updatePlayerDisplayName, () -> league.updatePlayerDisplayName(playerId, displayName));
+    }
+
+    public int getPlayerId(String email) {
+        return timed(getPlayerId, () -> league.getPlayerId(email));
+    }
+
+    public String getPlayerDisplayName(int playerId) throws IDInvalidException {
+        return timed(getPlayerDisplayName, () -> league.getPlayerDisplayName(playerId));
+    }
+
+    public String getPlayerEmail(int playerId) throws IDInvalidException {
+        return timed(getPlayerEmail, () -> league.getPlayerEmail(playerId));
+    }
+
+    public int[] getPlayerLeagues(int playerId) throws IDInvalidException {
+        return timed(getPlayerLeagues, () -> league.getPlayerLeagues(playerId));
+    }
+
+    public int[] getPlayerOwnedLeagues(int playerId) throws IDInvalidException {
+        return timed(getPlayerOwnedLeagues, () -> league.getPlayerOwnedLeagues(playerId));
+    }
+
+    public int[] getPlayerInvites(int playerId) throws IDInvalidException {
+        return timed(getPlayerInvites, () -> league.getPlayerInvites(playerId));
+    }
+
+    public int getPlayerRoundsPlayed(int playerId) throws IDInvalidException {
+        return timed(getPlayerRoundsPlayed, () -> league.getPlayerRoundsPlayed(playerId));
+    }
+
+    public double getPlayerRoundsPercentage(int playerId) throws IDInvalidException {
+        return timed(getPlayerRoundsPercentage, () -> league.getPlayerRoundsPercentage(playerId));
+    }
+
+    public LocalDate getPlayerJoinDate(int playerId) throws IDInvalidException {
+        return timed(getPlayerJoinDate, () -> league.getPlayerJoinDate(playerId));
+    }
+
+    // Leagues
+
+    public int[] getLeagueIds() {
+        return timed(getLeagueIds, () -> league.getLeagueIds());
+    }
+
+    public int createLeague(int owner, String name, GameType gameType) throws IDInvalidException {
+        return timed(createLeague, () -> league.createLeague(owner, name, gameType));
+    }
+
+    public void removeLeague(int leagueId) throws IDInvalidException {
+        timed(removeLeague, () -> league.removeLeague(leagueId));
+    }
+
+    public String getLeagueName(int leagueId) throws IDInvalidException {
+        return timed(getLeagueName, () -> league.getLeagueName(leagueId));
+    }
+
+    public void updateLeagueName(int leagueId, String newName)
+            throws IDInvalidException, InvalidNameException, IllegalNameException {
+        timed(updateLeagueName, () -> league.updateLeagueName(leagueId, newName));
+    }
+
+    public void invitePlayerToLeague(int leagueId, String email)
+            throws IDInvalidException, InvalidEmailException {
+        timed(invitePlayerToLeague, () -> league.invitePlayerToLeague(leagueId, email));
+    }
+
+    public void acceptInviteToLeague(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        timed(acceptInviteToLeague, () -> league.acceptInviteToLeague(leagueId, playerId));
+    }
+
+    public void removeInviteFromLeague(int leagueId, String email)
+            throws IDInvalidException, IllegalEmailException {
+        timed(removeInviteFromLeague, () -> league.removeInviteFromLeague(leagueId, email));
+    }
+
+    public String[] getLeagueEmailInvites(int leagueId) throws IDInvalidException {
+        return timed(getLeagueEmailInvites, () -> league.getLeagueEmailInvites(leagueId));
+    }
+
+    public int[] getLeaguePlayerInvites(int leagueId) throws IDInvalidException {
+        return timed(getLeaguePlayerInvites, () -> league.getLeaguePlayerInvites(leagueId));
+    }
+
+    public int[] getLeaguePlayers(int leagueId) throws IDInvalidException {
+        return timed(getLeaguePlayers, () -> league.getLeaguePlayers(leagueId));
+    }
+
+    public int[] getLeagueOwners(int leagueId) throws IDInvalidException {
+        return timed(getLeagueOwners, () -> league.getLeagueOwners(leagueId));
+    }
+
+    public Status getLeagueStatus(int leagueId) throws IDInvalidException {
+        return timed(getLeagueStatus, () -> league.getLeagueStatus(leagueId));
+    }
+
+    public void setLeagueStartDate(int leagueId, int day)
+            throws IDInvalidException, IllegalOperationException {
+        timed(setLeagueStartDate, () -> league.setLeagueStartDate(leagueId, day));
+    }
+
+    public void setLeagueEndDate(int leagueId, int day) throws IDInvalidException {
+        timed(setLeagueEndDate, () -> league.setLeagueEndDate(leagueId, day));
+    }
+
+    public int getLeagueStartDate(int leagueId) throws IDInvalidException {
+        return timed(getLeagueStartDate, () -> league.getLeagueStartDate(leagueId));
+    }
+
+    public int getLeagueCloseDate(int leagueId) throws IDInvalidException {
+        return timed(getLeagueCloseDate, () -> league.getLeagueCloseDate(leagueId));
+    }
+
+    public void resetLeague(int leagueId) throws IDInvalidException {
+        timed(resetLeague, () -> league.resetLeague(leagueId));
+    }
+
+    public int cloneLeague(int leagueId, String newName) throws IDInvalidException {
+        return timed(cloneLeague, () -> league.cloneLeague(leagueId, newName));
+    }
+
+    public boolean isLeaguePlayerActive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        return timed(isLeaguePlayerActive, () -> league.isLeaguePlayerActive(leagueId, playerId));
+    }
+
+    public void setLeaguePlayerInactive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        timed(setLeaguePlayerInactive, () -> league.setLeaguePlayerInactive(leagueId, playerId));
+    }
+
+    public void setLeaguePlayerActive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        timed(setLeaguePlayerActive, () -> league.setLeaguePlayerActive(leagueId, playerId));
+    }
+
+    public void addOwner(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        timed(addOwner, () -> league.addOwner(leagueId, playerId));
+    }
+
+    public void removeOwner(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        timed(removeOwner, () -> league.removeOwner(leagueId, playerId));
+    }
+
+    // Results
+
+    public void registerGameReport(int day, int leagueId, int playerId, String gameReport)
+            throws IDInvalidException, IllegalOperationException {
+        timed(registerGameReport, () -> league.registerGameReport(day, leagueId, playerId, gameReport));
+    }
+
+    public String getGameReport(int day, int leagueId, int playerId)
+            throws IDInvalidException, InvalidDateException {
+        return timed(getGameReport, () -> league.getGameReport(day, leagueId, playerId));
+    }
+
+    public void registerDayScores(int day, int leagueId, int[] scores)
+            throws IDInvalidException, IllegalArgumentException {
+        timed(registerDayScores, () -> league.registerDayScores(day, leagueId, scores));
+    }
+
+    public void voidDayPoints(int day, int leagueId)
+            throws IDInvalidException, IllegalArgumentException {
+        timed(voidDayPoints, () -> league.voidDayPoints(day, leagueId));
+    }
+
+    public Status getDayStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getDayStatus, () -> league.getDayStatus(leagueId, day));
+    }
+
+    public int[] getDayScores(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getDayScores, () -> league.getDayScores(leagueId, day));
+    }
+
+    public int[] getDayPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getDayPoints, () -> league.getDayPoints(leagueId, day));
+    }
+
+    public int[] getDayRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getDayRanking, () -> league.getDayRanking(leagueId, day));
+    }
+
+    public Status getWeekStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getWeekStatus, () -> league.getWeekStatus(leagueId, day));
+    }
+
+    public int[] getWeekPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getWeekPoints, () -> league.getWeekPoints(leagueId, day));
+    }
+
+    public int[] getWeekRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getWeekRanking, () -> league.getWeekRanking(leagueId, day));
+    }
+
+    public Status getMonthStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getMonthStatus, () -> league.getMonthStatus(leagueId, day));
+    }
+
+    public int[] getMonthPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getMonthPoints, () -> league.getMonthPoints(leagueId, day));
+    }
+
+    public int[] getMonthRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getMonthRanking, () -> league.getMonthRanking(leagueId, day));
+    }
+
+    public Status getYearStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getYearStatus, () -> league.getYearStatus(leagueId, day));
+    }
+
+    public int[] getYearPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getYearPoints, () -> league.getYearPoints(leagueId, day));
+    }
+
+    public int[] getYearRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return timed(getYearRanking, () -> league.getYearRanking(leagueId, day));
+    }
+
+    public void eraseGamesLeagueData() {
+        timed(eraseGamesLeagueData, () -> league.eraseGamesLeagueData());
+    }
+
+    public void saveGamesLeagueData(String filename) throws IOException {
+        if (!enabled) {
+            league.saveGamesLeagueData(filename);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            league.saveGamesLeagueData(filename);
+        } catch (IOException | RuntimeException e) {
+            saveGamesLeagueData.failed(e);
+            throw e;
+        } finally {
+            saveGamesLeagueData.record(System.nanoTime() - start);
+        }
+    }
+
+    public void loadGamesLeagueData(String filename) throws IOException, ClassNotFoundException {
+        if (!enabled) {
+            league.loadGamesLeagueData(filename);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            league.loadGamesLeagueData(filename);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            loadGamesLeagueData.failed(e);
+            throw e;
+        } finally {
+            loadGamesLeagueData.record(System.nanoTime() - start);
+        }
+    }
+
+    // Metrics
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String[] getMethods() {
+        return methods.keySet().toArray(new String[0]);
+    }
+
+    public long getCalls() {
+        long calls = 0;
+        for (MethodMetrics metrics : methods.values()) {
+            calls += metrics.getCalls();
+        }
+        return calls;
+    }
+
+    public long getExceptions() {
+        long exceptions = 0;
+        for (MethodMetrics metrics : methods.values()) {
+            exceptions += metrics.getExceptions();
+        }
+        return exceptions;
+    }
+
+    public void reset() {
+        for (MethodMetrics metrics : methods.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * @return The figures of one method, as published over JMX.
+     * @throws IllegalArgumentException If the method is not instrumented.
+     */
+    public MethodMetricsMXBean getMethodMetrics(String method) {
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            throw new IllegalArgumentException("No metrics for method " + method + ".");
+        }
+        return metrics;
+    }
+
+    /**
+     * Publishes this object and the figures of every method on the platform
+     * MBean server.
+     *
+     * @throws IllegalStateException If the MBeans cannot be registered, e.g.
+     *         as another instance already uses the name.
+     */
+    public synchronized void registerMBeans() {
+        if (!registered.isEmpty()) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName control = new ObjectName(DOMAIN + ":type=GamesLeagueMetrics,name="
+                + ObjectName.quote(name));
+            server.registerMBean(this, control);
+            registered.add(control);
+            for (MethodMetrics metrics : methods.values()) {
+                ObjectName objectName = new ObjectName(DOMAIN + ":type=GamesLeagueMetrics,name="
+                    + ObjectName.quote(name) + ",method=" + metrics.getMethod());
+                server.registerMBean(metrics, objectName);
+                registered.add(objectName);
+            }
+        } catch (JMException e) {
+            unregisterMBeans();
+            throw new IllegalStateException("Cannot register metrics MBeans for " + name + ".", e);
+        }
+    }
+
+    /**
+     * Removes the MBeans published by {@link #registerMBeans()}, if any.
+     */
+    public synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registered) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // already gone, e.g. unregistered by hand over JMX
+            }
+        }
+        registered.clear();
+    }
+
+    /**
+     * Unregisters the MBeans. The wrapped implementation is not closed.
+     */
+    public void close() {
+        unregisterMBeans();
+    }
+
+    private MethodMetrics method(String method) {
+        MethodMetrics metrics = new MethodMetrics(method, STRIPES);
+        methods.put(method, metrics);
+        return metrics;
+    }
+
+    /**
+     * Runs a call, timing it and counting what it throws if recording is on.
+     */
+    private <T> T timed(MethodMetrics metrics, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(System.nanoTime() - start);
+        }
+    }
+
+    private void timed(MethodMetrics metrics, Runnable call) {
+        if (!enabled) {
+            call.run();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            metrics.failed(e);
+            throw e;
+        } finally {
+            metrics.record(System.nanoTime() - start);
+        }
+    }
+}
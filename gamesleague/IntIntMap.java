@@ -0,0 +1,128 @@
+package gamesleague;
+
+import java.io.Serializable;
+
+/**
+ * Map from positive int keys (player IDs) to int values, as an open-addressing
+ * table with linear probing like the one in {@link PlayerRegistry}. Removal
+ * shifts the entries after the removed one back, so lookups never meet
+ * tombstones.
+ */
+class IntIntMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int EMPTY = 0; // player IDs start at 1
+    private static final int INITIAL_CAPACITY = 16;
+
+    // load <= 0.5
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The value for the key, or -1 if the key is not in the map.
+     */
+    int get(int key) {
+        int i = find(key);
+        return i == -1 ? -1 : values[i];
+    }
+
+    boolean containsKey(int key) {
+        return find(key) != -1;
+    }
+
+    /**
+     * Sets the value for the key, adding the key if it is not in the map.
+     */
+    void put(int key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key must not be " + EMPTY + ".");
+        }
+        int i = find(key);
+        if (i != -1) {
+            values[i] = value;
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        insert(key, value);
+        size++;
+    }
+
+    /**
+     * @return true if the key was in the map.
+     */
+    boolean remove(int key) {
+        int i = find(key);
+        if (i == -1) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        // shift back each later entry of the run that the gap cuts off from its home
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int home = mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * @return The index of the key in the table or -1 if it is not in the map.
+     */
+    private int find(int key) {
+        if (key == EMPTY) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int key, int value) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,96 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for ID lists so they are not boxed.
+ */
+class IntList implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int[] values;
+    private int size = 0;
+
+    IntList() {
+        this(8);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    IntList(IntList other) {
+        values = Arrays.copyOf(other.values, Math.max(other.size, 1));
+        size = other.size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " size " + size);
+        }
+        return values[index];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    boolean contains(int value) {
+        return indexOf(value) != -1;
+    }
+
+    /**
+     * Removes the first occurrence of the value, keeping the order of the rest.
+     *
+     * @return true if the value was found.
+     */
+    boolean removeValue(int value) {
+        int index = indexOf(value);
+        if (index == -1) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes and returns the last value.
+     */
+    int removeLast() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Empty list");
+        }
+        return values[--size];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -1,6 +1,8 @@
 package gamesleague;
 
 public class InvalidDateException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public InvalidDateException(String m) {
         super(m);
     }
@@ -1,6 +1,8 @@
 package gamesleague;
 
 public class InvalidEmailException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public InvalidEmailException(String m) {
         super(m);
     }
@@ -1,6 +1,8 @@
 package gamesleague;
 
 public class InvalidNameException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     public InvalidNameException(String m) {
         super(m);
     }
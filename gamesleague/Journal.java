@@ -0,0 +1,385 @@
+package gamesleague;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of mutations.
+ * <p>
+ * Each record is framed as its body length, a CRC32 of the body and the body
+ * itself (an opcode, the day the call was made on and the call arguments).
+ * A record is built with {@link #begin(int, int)}, the put methods and
+ * {@link #commit()}; callers must not interleave records from different
+ * threads. The last record committed can be taken back with
+ * {@link #retract()}, for a call rejected after its record was written.
+ * <p>
+ * With {@link FsyncPolicy#BATCH} a committed record is only buffered, and
+ * the caller then waits in {@link #awaitForced(long)} until a force covers
+ * it. The first waiter to find no force under way leads the next group: it
+ * waits up to the maximum delay for the batch size of records, then writes
+ * them and forces the file outside the lock, while the records committed
+ * meanwhile gather into the group after it. Many mutations share one fsync
+ * and none returns before its record is on disk.
+ */
+class Journal implements Closeable {
+
+    private static final int FRAME_HEADER = 8;
+
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final int batchSize;
+    private final long maxDelayNanos;
+
+    private final ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+    private int pendingRecords = 0;
+    private boolean unforced = false;
+    // records committed, records known to be forced, and whether a group is being forced
+    private long committed = 0;
+    private long forced = 0;
+    private boolean forcing = false;
+    // bytes in the file, and where the last committed record starts counting
+    // the pending bytes after them, or -1 once it is retracted
+    private long written;
+    private long lastRecord = -1;
+
+    /**
+     * Opens the journal file for appending, creating it if needed.
+     *
+     * @param batchSize Records per group commit for the BATCH policy.
+     * @param maxDelayMillis Longest the leader of a group waits for the
+     *        batch size of records before forcing, 0 to force at once.
+     */
+    Journal(Path file, FsyncPolicy policy, int batchSize, long maxDelayMillis) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.written = channel.size();
+        this.policy = policy;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+    }
+
+    /**
+     * Starts a new record.
+     */
+    synchronized Journal begin(int opcode, int day) {
+        record.clear();
+        record.put((byte) opcode);
+        record.putInt(day);
+        return this;
+    }
+
+    synchronized Journal putInt(int value) {
+        ensureRecordSpace(4);
+        record.putInt(value);
+        return this;
+    }
+
+    /**
+     * Writes the UTF-8 length and bytes, or -1 for null.
+     */
+    synchronized Journal putString(String value) {
+        if (value == null) {
+            return putInt(-1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRecordSpace(4 + bytes.length);
+        record.putInt(bytes.length);
+        record.put(bytes);
+        return this;
+    }
+
+    /**
+     * Writes the length and values, or -1 for null.
+     */
+    synchronized Journal putIntArray(int[] values) {
+        if (values == null) {
+            return putInt(-1);
+        }
+        ensureRecordSpace(4 + 4 * values.length);
+        record.putInt(values.length);
+        for (int value : values) {
+            record.putInt(value);
+        }
+        return this;
+    }
+
+    /**
+     * Frames the record and hands it on according to the fsync policy.
+     *
+     * @return The record's number, for {@link #awaitForced(long)}.
+     */
+    synchronized long commit() throws IOException {
+        record.flip();
+        crc.reset();
+        crc.update(record.duplicate());
+        int length = record.remaining();
+        if (pending.remaining() < FRAME_HEADER + length) {
+            writePending();
+        }
+        lastRecord = written + pending.position();
+        if (pending.remaining() < FRAME_HEADER + length) {
+            // larger than the buffer, write it straight out
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+            header.putInt(length).putInt((int) crc.getValue()).flip();
+            writeFully(header);
+            writeFully(record);
+        } else {
+            pending.putInt(length);
+            pending.putInt((int) crc.getValue());
+            pending.put(record);
+        }
+        committed++;
+        pendingRecords++;
+        switch (policy) {
+            case ALWAYS:
+                sync();
+                break;
+            case BATCH:
+                if (pendingRecords >= batchSize) {
+                    // a leader gathering the group can force it now
+                    notifyAll();
+                }
+                break;
+            default:
+                writePending();
+                pendingRecords = 0;
+                break;
+        }
+        return committed;
+    }
+
+    /**
+     * Waits until a force covers the record. Only BATCH records wait;
+     * ALWAYS records are forced by commit and NEVER records are not forced.
+     *
+     * @param record The number commit returned.
+     * @throws InterruptedIOException If the thread is interrupted while waiting.
+     */
+    void awaitForced(long record) throws IOException {
+        if (policy != FsyncPolicy.BATCH) {
+            return;
+        }
+        long group;
+        synchronized (this) {
+            try {
+                while (forcing) {
+                    wait();
+                }
+                if (forced >= record) {
+                    return;
+                }
+                forcing = true;
+                long deadline = System.nanoTime() + maxDelayNanos;
+                long left;
+                while (pendingRecords < batchSize && (left = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                }
+                writePending();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                endForce(0);
+                throw new InterruptedIOException("Interrupted waiting for the journal to be forced.");
+            } catch (IOException e) {
+                endForce(0);
+                throw e;
+            }
+            pendingRecords = 0;
+            group = committed;
+        }
+        boolean done = false;
+        try {
+            channel.force(false);
+            done = true;
+        } finally {
+            synchronized (this) {
+                endForce(done ? group : 0);
+            }
+        }
+    }
+
+    /**
+     * Takes back the last record committed. A record still pending is
+     * dropped; one already written is cut off the end of the file. If the
+     * cut is lost in a crash, the record is the last in the file and replay
+     * offers it to a handler that may refuse it.
+     */
+    synchronized void retract() throws IOException {
+        if (lastRecord == -1) {
+            throw new IllegalStateException("No record to retract.");
+        }
+        if (lastRecord >= written) {
+            pending.position((int) (lastRecord - written));
+            pendingRecords = Math.max(0, pendingRecords - 1);
+        } else {
+            writePending();
+            channel.truncate(lastRecord);
+            written = lastRecord;
+            unforced = true;
+        }
+        lastRecord = -1;
+    }
+
+    /**
+     * Writes and forces everything committed so far.
+     */
+    synchronized void sync() throws IOException {
+        writePending();
+        if (unforced) {
+            channel.force(false);
+            unforced = false;
+        }
+        pendingRecords = 0;
+        forced = committed;
+        notifyAll();
+    }
+
+    /**
+     * Forces everything committed and closes the file, after any group
+     * being forced.
+     */
+    public synchronized void close() throws IOException {
+        try {
+            while (forcing) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Handles each intact record of a journal file in order. A torn or
+     * corrupt record at the end (e.g. from a crash part way through a write)
+     * is cut off, along with anything after it. So is a final record the
+     * handler refuses, as one whose retraction was lost in a crash.
+     *
+     * @param handler Called with the body of each record, positioned after the opcode and day.
+     * @throws IOException If the handler refuses a record that is not the last.
+     */
+    static void replay(Path file, RecordHandler handler) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ChannelInput input = new ChannelInput(in);
+            long size = in.size();
+            long position = 0;
+            CRC32 check = new CRC32();
+            while (position + FRAME_HEADER <= size) {
+                int length = input.readInt();
+                int expected = input.readInt();
+                if (length < 5 || position + FRAME_HEADER + length > size) {
+                    break;
+                }
+                byte[] body = input.readBytes(length);
+                check.reset();
+                check.update(body);
+                if ((int) check.getValue() != expected) {
+                    break;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                int opcode = buffer.get();
+                int day = buffer.getInt();
+                boolean last = position + FRAME_HEADER + length == size;
+                if (!handler.handle(opcode, day, buffer, last)) {
+                    if (!last) {
+                        throw new IOException("Journal record " + opcode + " at " + position
+                            + " in " + file + " failed to replay.");
+                    }
+                    break;
+                }
+                position += FRAME_HEADER + length;
+            }
+            if (position < size) {
+                in.truncate(position);
+            }
+        }
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+            length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    static int[] getIntArray(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    /**
+     * Receives journal records during replay.
+     */
+    interface RecordHandler {
+        /**
+         * @param last Whether the record is the last in the file.
+         * @return false to refuse the record.
+         */
+        boolean handle(int opcode, int day, ByteBuffer arguments, boolean last) throws IOException;
+    }
+
+    /**
+     * Ends the leader's force, waking the waiters to check their records or
+     * lead the next group.
+     *
+     * @param group The records the force covered, or 0 if it failed.
+     */
+    private void endForce(long group) {
+        forcing = false;
+        forced = Math.max(forced, group);
+        notifyAll();
+    }
+
+    private void writePending() throws IOException {
+        pending.flip();
+        writeFully(pending);
+        pending.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        if (buffer.hasRemaining()) {
+            unforced = true;
+        }
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+    }
+
+    private void ensureRecordSpace(int bytes) {
+        if (record.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(record.capacity() * 2,
+                record.position() + bytes));
+            record.flip();
+            larger.put(record);
+            record = larger;
+        }
+    }
+}
@@ -0,0 +1,722 @@
+package gamesleague;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * A GamesLeague whose mutations survive a crash without a full
+ * saveGamesLeagueData after each one.
+ * <p>
+ * Every mutating call is appended to a write-ahead journal, along with the
+ * day it was made on so replay sees the same dates and deadlines, and
+ * committed under the fsync policy before it is applied. The GamesLeague
+ * validates a call as it applies it, so a call it rejects has its record
+ * retracted before the exception reaches the caller, and a failed append
+ * leaves the GamesLeague untouched.
+ * {@link #checkpoint()} writes a snapshot and starts a new journal; on
+ * construction the latest snapshot is loaded and the journals written since
+ * it are replayed. Files in the directory are numbered by generation:
+ * {@code snapshot-N.bin} holds the state at the start of {@code journal-N.log}.
+ * <p>
+ * Mutations are serialised so the journal order matches the order they were
+ * applied in. Under {@link FsyncPolicy#BATCH} a call returns once a force
+ * covers its record, waiting for it outside the lock so the calls made in
+ * the meantime share the next force. Queries take the same lock, as the
+ * GamesLeague underneath is not thread safe (its reads fill caches too), so
+ * they never see a mutation half applied; they do not wait for forces.
+ */
+public class JournaledGamesLeague implements GamesLeagueInterface, Closeable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int OP_CREATE_PLAYER = 1;
+    private static final int OP_DEACTIVATE_PLAYER = 2;
+    private static final int OP_UPDATE_DISPLAY_NAME = 3;
+    private static final int OP_CREATE_LEAGUE = 4;
+    private static final int OP_REMOVE_LEAGUE = 5;
+    private static final int OP_UPDATE_LEAGUE_NAME = 6;
+    private static final int OP_INVITE = 7;
+    private static final int OP_ACCEPT_INVITE = 8;
+    private static final int OP_REMOVE_INVITE = 9;
+    private static final int OP_SET_START = 10;
+    private static final int OP_SET_END = 11;
+    private static final int OP_RESET_LEAGUE = 12;
+    private static final int OP_CLONE_LEAGUE = 13;
+    private static final int OP_SET_INACTIVE = 14;
+    private static final int OP_SET_ACTIVE = 15;
+    private static final int OP_ADD_OWNER = 16;
+    private static final int OP_REMOVE_OWNER = 17;
+    private static final int OP_GAME_REPORT = 18;
+    private static final int OP_DAY_SCORES = 19;
+    private static final int OP_VOID_DAY = 20;
+    private static final int OP_ERASE = 21;
+    private static final int OP_DAY_SCORES_BATCH = 22;
+
+    private final GamesLeague league;
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final int batchSize;
+    private final long maxDelayMillis;
+    private volatile Clock clock = Clock.systemDefaultZone();
+
+    private Journal journal;
+    private int generation = 0;
+
+    /**
+     * Opens (or creates) a journaled GamesLeague in the directory with group
+     * commit of the calls made while the previous group is being forced.
+     */
+    public JournaledGamesLeague(String directory) throws IOException {
+        this(directory, FsyncPolicy.BATCH, 64, 0);
+    }
+
+    /**
+     * Opens (or creates) a journaled GamesLeague in the directory, recovering
+     * the state from the latest snapshot and the journals after it.
+     *
+     * @param directory Directory for snapshots and journals.
+     * @param policy When journal records are forced to disk.
+     * @param batchSize Records per group commit for {@link FsyncPolicy#BATCH}.
+     * @param maxDelayMillis Longest a group waits for the batch size of
+     *        records before it is forced, 0 to force it at once.
+     * @throws IOException If the files cannot be read or a journal does not replay.
+     */
+    public JournaledGamesLeague(String directory, FsyncPolicy policy, int batchSize,
+            long maxDelayMillis) throws IOException {
+        this.league = new GamesLeague();
+        this.directory = Paths.get(directory);
+        this.policy = policy;
+        this.batchSize = batchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        Files.createDirectories(this.directory);
+        recover();
+        journal = openJournal(generation);
+    }
+
+    /**
+     * Writes a snapshot of the current state and starts a new journal, so
+     * recovery no longer has to replay the mutations made before it.
+     */
+    public synchronized void checkpoint() throws IOException {
+        journal.close();
+        generation++;
+        journal = openJournal(generation);
+        // saved through a temporary file and moved into place, so never seen half written
+        league.saveGamesLeagueData(snapshotFile(generation).toString());
+        deleteOlderThan(generation);
+    }
+
+    /**
+     * Forces every journal record to disk and closes the journal.
+     */
+    public synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    // Players
+
+    public synchronized int[] getPlayerIds() {
+        return league.getPlayerIds();
+    }
+
+    public int createPlayer(String email, String displayName, String name, String phone)
+            throws InvalidEmailException, IllegalEmailException, InvalidNameException {
+        return journaled(OP_CREATE_PLAYER, record -> record
+            .putString(email).putString(displayName).putString(name).putString(phone),
+            () -> league.createPlayer(email, displayName, name, phone));
+    }
+
+    public void deactivatePlayer(int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        journaled(OP_DEACTIVATE_PLAYER, record -> record.putInt(playerId),
+            () -> league.deactivatePlayer(playerId));
+    }
+
+    public synchronized boolean isDeactivatedPlayer(int playerId) throws IDInvalidException {
+        return league.isDeactivatedPlayer(playerId);
+    }
+
+    public void updatePlayerDisplayName(int playerId, String displayName)
+            throws IDInvalidException, InvalidNameException {
+        journaled(OP_UPDATE_DISPLAY_NAME, record -> record
+            .putInt(playerId).putString(displayName),
+            () -> league.updatePlayerDisplayName(playerId, displayName));
+    }
+
+    public synchronized int getPlayerId(String email) {
+        return league.getPlayerId(email);
+    }
+
+    public synchronized String getPlayerDisplayName(int playerId) throws IDInvalidException {
+        return league.getPlayerDisplayName(playerId);
+    }
+
+    public synchronized String getPlayerEmail(int playerId) throws IDInvalidException {
+        return league.getPlayerEmail(playerId);
+    }
+
+    public synchronized int[] getPlayerLeagues(int playerId) throws IDInvalidException {
+        return league.getPlayerLeagues(playerId);
+    }
+
+    public synchronized int[] getPlayerOwnedLeagues(int playerId) throws IDInvalidException {
+        return league.getPlayerOwnedLeagues(playerId);
+    }
+
+    public synchronized int[] getPlayerInvites(int playerId) throws IDInvalidException {
+        return league.getPlayerInvites(playerId);
+    }
+
+    public synchronized int getPlayerRoundsPlayed(int playerId) throws IDInvalidException {
+        return league.getPlayerRoundsPlayed(playerId);
+    }
+
+    public synchronized double getPlayerRoundsPercentage(int playerId) throws IDInvalidException {
+        return league.getPlayerRoundsPercentage(playerId);
+    }
+
+    public synchronized LocalDate getPlayerJoinDate(int playerId) throws IDInvalidException {
+        return league.getPlayerJoinDate(playerId);
+    }
+
+    // Leagues
+
+    public synchronized int[] getLeagueIds() {
+        return league.getLeagueIds();
+    }
+
+    public int createLeague(int owner, String name, GameType gameType)
+            throws IDInvalidException {
+        return journaled(OP_CREATE_LEAGUE, record -> record
+            .putInt(owner).putString(name).putInt(gameType == null ? -1 : gameType.ordinal()),
+            () -> league.createLeague(owner, name, gameType));
+    }
+
+    public void removeLeague(int leagueId) throws IDInvalidException {
+        journaled(OP_REMOVE_LEAGUE, record -> record.putInt(leagueId),
+            () -> league.removeLeague(leagueId));
+    }
+
+    public synchronized String getLeagueName(int leagueId) throws IDInvalidException {
+        return league.getLeagueName(leagueId);
+    }
+
+    public void updateLeagueName(int leagueId, String newName)
+            throws IDInvalidException, InvalidNameException, IllegalNameException {
+        journaled(OP_UPDATE_LEAGUE_NAME, record -> record
+            .putInt(leagueId).putString(newName),
+            () -> league.updateLeagueName(leagueId, newName));
+    }
+
+    public void invitePlayerToLeague(int leagueId, String email)
+            throws IDInvalidException, InvalidEmailException {
+        journaled(OP_INVITE, record -> record.putInt(leagueId).putString(email),
+            () -> league.invitePlayerToLeague(leagueId, email));
+    }
+
+    public void acceptInviteToLeague(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        journaled(OP_ACCEPT_INVITE, record -> record.putInt(leagueId).putInt(playerId),
+            () -> league.acceptInviteToLeague(leagueId, playerId));
+    }
+
+    public void removeInviteFromLeague(int leagueId, String email)
+            throws IDInvalidException, IllegalEmailException {
+        journaled(OP_REMOVE_INVITE, record -> record.putInt(leagueId).putString(email),
+            () -> league.removeInviteFromLeague(leagueId, email));
+    }
+
+    public synchronized String[] getLeagueEmailInvites(int leagueId) throws IDInvalidException {
+        return league.getLeagueEmailInvites(leagueId);
+    }
+
+    public synchronized int[] getLeaguePlayerInvites(int leagueId) throws IDInvalidException {
+        return league.getLeaguePlayerInvites(leagueId);
+    }
+
+    public synchronized int[] getLeaguePlayers(int leagueId) throws IDInvalidException {
+        return league.getLeaguePlayers(leagueId);
+    }
+
+    public synchronized int[] getLeagueOwners(int leagueId) throws IDInvalidException {
+        return league.getLeagueOwners(leagueId);
+    }
+
+    public synchronized Status getLeagueStatus(int leagueId) throws IDInvalidException {
+        return league.getLeagueStatus(leagueId);
+    }
+
+    public void setLeagueStartDate(int leagueId, int day)
+            throws IDInvalidException, IllegalOperationException {
+        journaled(OP_SET_START, record -> record.putInt(leagueId).putInt(day),
+            () -> league.setLeagueStartDate(leagueId, day));
+    }
+
+    public void setLeagueEndDate(int leagueId, int day) throws IDInvalidException {
+        journaled(OP_SET_END, record -> record.putInt(leagueId).putInt(day),
+            () -> league.setLeagueEndDate(leagueId, day));
+    }
+
+    public synchronized int getLeagueStartDate(int leagueId) throws IDInvalidException {
+        return league.getLeagueStartDate(leagueId);
+    }
+
+    public synchronized int getLeagueCloseDate(int leagueId) throws IDInvalidException {
+        return league.getLeagueCloseDate(leagueId);
+    }
+
+    public void resetLeague(int leagueId) throws IDInvalidException {
+        journaled(OP_RESET_LEAGUE, record -> record.putInt(leagueId),
+            () -> league.resetLeague(leagueId));
+    }
+
+    public int cloneLeague(int leagueId, String newName) throws IDInvalidException {
+        return journaled(OP_CLONE_LEAGUE, record -> record
+            .putInt(leagueId).putString(newName),
+            () -> league.cloneLeague(leagueId, newName));
+    }
+
+    public synchronized boolean isLeaguePlayerActive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        return league.isLeaguePlayerActive(leagueId, playerId);
+    }
+
+    public void setLeaguePlayerInactive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        journaled(OP_SET_INACTIVE, record -> record.putInt(leagueId).putInt(playerId),
+            () -> league.setLeaguePlayerInactive(leagueId, playerId));
+    }
+
+    public void setLeaguePlayerActive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        journaled(OP_SET_ACTIVE, record -> record.putInt(leagueId).putInt(playerId),
+            () -> league.setLeaguePlayerActive(leagueId, playerId));
+    }
+
+    public void addOwner(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        journaled(OP_ADD_OWNER, record -> record.putInt(leagueId).putInt(playerId),
+            () -> league.addOwner(leagueId, playerId));
+    }
+
+    public void removeOwner(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        journaled(OP_REMOVE_OWNER, record -> record.putInt(leagueId).putInt(playerId),
+            () -> league.removeOwner(leagueId, playerId));
+    }
+
+    // Results
+
+    public void registerGameReport(int day, int leagueId, int playerId, String gameReport)
+            throws IDInvalidException, IllegalOperationException {
+        journaled(OP_GAME_REPORT, record -> record
+            .putInt(day).putInt(leagueId).putInt(playerId).putString(gameReport),
+            () -> league.registerGameReport(day, leagueId, playerId, gameReport));
+    }
+
+    public synchronized String getGameReport(int day, int leagueId, int playerId)
+            throws IDInvalidException, InvalidDateException {
+        return league.getGameReport(day, leagueId, playerId);
+    }
+
+    public void registerDayScores(int day, int leagueId, int[] scores)
+            throws IDInvalidException, IllegalArgumentException {
+        journaled(OP_DAY_SCORES, record -> record
+            .putInt(day).putInt(leagueId).putIntArray(scores),
+            () -> league.registerDayScores(day, leagueId, scores));
+    }
+
+    /**
+     * Registers a batch of day scores. The batch is journaled as one record
+     * and replays with the same entries applied, since each league's entries
+     * are applied in order; it is retracted if none are.
+     */
+    public BatchResult registerDayScores(int[] days, int[] leagueIds, int[][] scores) {
+        Journal written;
+        long number;
+        BatchResult result;
+        synchronized (this) {
+            int day = today();
+            written = journal;
+            Journal record = journal.begin(OP_DAY_SCORES_BATCH, day)
+                .putIntArray(days).putIntArray(leagueIds).putInt(scores.length);
+            for (int[] entry : scores) {
+                record.putIntArray(entry);
+            }
+            number = log(record);
+            result = applyLogged(day, () -> league.registerDayScores(days, leagueIds, scores));
+            if (result.getAppliedCount() == 0) {
+                retract();
+                return result;
+            }
+        }
+        awaitForced(written, number);
+        return result;
+    }
+
+    public void voidDayPoints(int day, int leagueId)
+            throws IDInvalidException, IllegalArgumentException {
+        journaled(OP_VOID_DAY, record -> record.putInt(day).putInt(leagueId),
+            () -> league.voidDayPoints(day, leagueId));
+    }
+
+    public synchronized Status getDayStatus(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getDayStatus(leagueId, day);
+    }
+
+    public synchronized int[] getDayScores(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getDayScores(leagueId, day);
+    }
+
+    public synchronized int[] getDayPoints(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getDayPoints(leagueId, day);
+    }
+
+    public synchronized int[] getDayRanking(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getDayRanking(leagueId, day);
+    }
+
+    public synchronized Status getWeekStatus(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getWeekStatus(leagueId, day);
+    }
+
+    public synchronized int[] getWeekPoints(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getWeekPoints(leagueId, day);
+    }
+
+    public synchronized int[] getWeekRanking(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getWeekRanking(leagueId, day);
+    }
+
+    public synchronized Status getMonthStatus(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getMonthStatus(leagueId, day);
+    }
+
+    public synchronized int[] getMonthPoints(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getMonthPoints(leagueId, day);
+    }
+
+    public synchronized int[] getMonthRanking(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getMonthRanking(leagueId, day);
+    }
+
+    public synchronized Status getYearStatus(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getYearStatus(leagueId, day);
+    }
+
+    public synchronized int[] getYearPoints(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getYearPoints(leagueId, day);
+    }
+
+    public synchronized int[] getYearRanking(int leagueId, int day)
+            throws IDInvalidException, InvalidDateException {
+        return league.getYearRanking(leagueId, day);
+    }
+
+    public void eraseGamesLeagueData() {
+        journaled(OP_ERASE, record -> record,
+            () -> league.eraseGamesLeagueData());
+    }
+
+    /**
+     * Exports a snapshot to the file. This does not affect the journal; use
+     * {@link #checkpoint()} to shorten recovery.
+     */
+    public synchronized void saveGamesLeagueData(String filename) throws IOException {
+        league.saveGamesLeagueData(filename);
+    }
+
+    /**
+     * Replaces the contents with those of the file and checkpoints, so the
+     * loaded state is recoverable without the file.
+     */
+    public synchronized void loadGamesLeagueData(String filename)
+            throws IOException, ClassNotFoundException {
+        league.loadGamesLeagueData(filename);
+        checkpoint();
+    }
+
+    // Recovery
+
+    private void recover() throws IOException {
+        int snapshot = -1;
+        int lastJournal = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("snapshot-") && name.endsWith(".bin")) {
+                    snapshot = Math.max(snapshot, generationOf(name, "snapshot-", ".bin"));
+                } else if (name.startsWith("journal-") && name.endsWith(".log")) {
+                    lastJournal = Math.max(lastJournal, generationOf(name, "journal-", ".log"));
+                }
+            }
+        }
+        int first = Math.max(snapshot, 0);
+        if (snapshot >= 0) {
+            try {
+                league.loadGamesLeagueData(snapshotFile(snapshot).toString());
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+        try {
+            for (int g = first; g <= lastJournal; g++) {
+                Journal.replay(journalFile(g), this::apply);
+            }
+        } finally {
+            league.setClock(clock);
+        }
+        generation = Math.max(first, lastJournal);
+        deleteOlderThan(first);
+    }
+
+    /**
+     * Replays a record. A call that the GamesLeague rejects could only have
+     * been journaled as the last record, its retraction lost in a crash, and
+     * is refused; anywhere else it means the journal no longer matches.
+     */
+    private boolean apply(int opcode, int day, ByteBuffer args, boolean last) throws IOException {
+        pinTo(day);
+        try {
+            switch (opcode) {
+                case OP_CREATE_PLAYER:
+                    league.createPlayer(Journal.getString(args), Journal.getString(args),
+                        Journal.getString(args), Journal.getString(args));
+                    break;
+                case OP_DEACTIVATE_PLAYER:
+                    league.deactivatePlayer(args.getInt());
+                    break;
+                case OP_UPDATE_DISPLAY_NAME:
+                    league.updatePlayerDisplayName(args.getInt(), Journal.getString(args));
+                    break;
+                case OP_CREATE_LEAGUE:
+                    int owner = args.getInt();
+                    String name = Journal.getString(args);
+                    int gameType = args.getInt();
+                    league.createLeague(owner, name, gameType == -1 ? null : GameType.values()[gameType]);
+                    break;
+                case OP_REMOVE_LEAGUE:
+                    league.removeLeague(args.getInt());
+                    break;
+                case OP_UPDATE_LEAGUE_NAME:
+                    league.updateLeagueName(args.getInt(), Journal.getString(args));
+                    break;
+                case OP_INVITE:
+                    league.invitePlayerToLeague(args.getInt(), Journal.getString(args));
+                    break;
+                case OP_ACCEPT_INVITE:
+                    league.acceptInviteToLeague(args.getInt(), args.getInt());
+                    break;
+                case OP_REMOVE_INVITE:
+                    league.removeInviteFromLeague(args.getInt(), Journal.getString(args));
+                    break;
+                case OP_SET_START:
+                    league.setLeagueStartDate(args.getInt(), args.getInt());
+                    break;
+                case OP_SET_END:
+                    league.setLeagueEndDate(args.getInt(), args.getInt());
+                    break;
+                case OP_RESET_LEAGUE:
+                    league.resetLeague(args.getInt());
+                    break;
+                case OP_CLONE_LEAGUE:
+                    league.cloneLeague(args.getInt(), Journal.getString(args));
+                    break;
+                case OP_SET_INACTIVE:
+                    league.setLeaguePlayerInactive(args.getInt(), args.getInt());
+                    break;
+                case OP_SET_ACTIVE:
+                    league.setLeaguePlayerActive(args.getInt(), args.getInt());
+                    break;
+                case OP_ADD_OWNER:
+                    league.addOwner(args.getInt(), args.getInt());
+                    break;
+                case OP_REMOVE_OWNER:
+                    league.removeOwner(args.getInt(), args.getInt());
+                    break;
+                case OP_GAME_REPORT:
+                    league.registerGameReport(args.getInt(), args.getInt(), args.getInt(),
+                        Journal.getString(args));
+                    break;
+                case OP_DAY_SCORES:
+                    league.registerDayScores(args.getInt(), args.getInt(), Journal.getIntArray(args));
+                    break;
+                case OP_VOID_DAY:
+                    league.voidDayPoints(args.getInt(), args.getInt());
+                    break;
+                case OP_DAY_SCORES_BATCH:
+                    int[] days = Journal.getIntArray(args);
+                    int[] leagueIds = Journal.getIntArray(args);
+                    int[][] scores = new int[args.getInt()][];
+                    for (int i = 0; i < scores.length; i++) {
+                        scores[i] = Journal.getIntArray(args);
+                    }
+                    if (league.registerDayScores(days, leagueIds, scores).getAppliedCount() == 0) {
+                        return false;
+                    }
+                    break;
+                case OP_ERASE:
+                    league.eraseGamesLeagueData();
+                    break;
+                default:
+                    throw new IOException("Unknown journal opcode " + opcode + ".");
+            }
+        } catch (RuntimeException e) {
+            if (last) {
+                return false;
+            }
+            throw new IOException("Journal record " + opcode + " failed to replay.", e);
+        }
+        return true;
+    }
+
+    // Helpers
+
+    private long log(Journal record) {
+        try {
+            return record.commit();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to the journal in " + directory + ".", e);
+        }
+    }
+
+    /**
+     * Logs a call's record and applies the call under the lock, then waits
+     * outside it until the record is forced, so calls made meanwhile can
+     * share the force. The day is read once, written to the record and
+     * pinned for the call, so a call made across midnight is applied on the
+     * day it replays on.
+     *
+     * @param args Writes the call's arguments after the opcode and day.
+     */
+    private <T> T journaled(int opcode, UnaryOperator<Journal> args, Supplier<T> call) {
+        Journal written;
+        long number;
+        T result;
+        synchronized (this) {
+            int day = today();
+            written = journal;
+            number = log(args.apply(journal.begin(opcode, day)));
+            result = applyLogged(day, call);
+        }
+        awaitForced(written, number);
+        return result;
+    }
+
+    private void journaled(int opcode, UnaryOperator<Journal> args, Runnable call) {
+        journaled(opcode, args, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Waits for a record's force. A journal closed by a checkpoint in the
+     * meantime has forced everything it held.
+     */
+    private void awaitForced(Journal written, long number) {
+        try {
+            written.awaitForced(number);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not force the journal in " + directory + ".", e);
+        }
+    }
+
+    /**
+     * Applies a call whose record was just logged on the record's day,
+     * retracting the record if the GamesLeague rejects the call.
+     */
+    private <T> T applyLogged(int day, Supplier<T> call) {
+        pinTo(day);
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            try {
+                retract();
+            } catch (IllegalStateException retractFailure) {
+                e.addSuppressed(retractFailure);
+            }
+            throw e;
+        } finally {
+            league.setClock(clock);
+        }
+    }
+
+    /**
+     * Fixes the GamesLeague's clock at the start of the day.
+     */
+    private void pinTo(int day) {
+        ZoneId zone = clock.getZone();
+        league.setClock(Clock.fixed(LocalDate.ofEpochDay(day).atStartOfDay(zone).toInstant(), zone));
+    }
+
+    private void retract() {
+        try {
+            journal.retract();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not retract from the journal in " + directory + ".", e);
+        }
+    }
+
+    /**
+     * Replaces the clock that decides the day each call is journaled and
+     * applied on, e.g. to test calls made across midnight.
+     */
+    synchronized void setClock(Clock clock) {
+        this.clock = clock;
+        league.setClock(clock);
+    }
+
+    private int today() {
+        return (int) LocalDate.now(clock).toEpochDay();
+    }
+
+    private Journal openJournal(int g) throws IOException {
+        return new Journal(journalFile(g), policy, batchSize, maxDelayMillis);
+    }
+
+    private Path snapshotFile(int g) {
+        return directory.resolve("snapshot-" + g + ".bin");
+    }
+
+    private Path journalFile(int g) {
+        return directory.resolve("journal-" + g + ".log");
+    }
+
+    private void deleteOlderThan(int g) throws IOException {
+        for (int old = g - 1; old >= 0; old--) {
+            Files.deleteIfExists(snapshotFile(old));
+            Files.deleteIfExists(journalFile(old));
+        }
+    }
+
+    private static int generationOf(String name, String prefix, String suffix) {
+        try {
+            return Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
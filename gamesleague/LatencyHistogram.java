@@ -0,0 +1,163 @@
+package gamesleague;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A histogram of call latencies in nanoseconds that many threads can record
+ * into without contending on the same counters.
+ * <p>
+ * Buckets are log-linear: values below 32 have a bucket each, and every
+ * power of two above that is split into 32 equal buckets, so a reported
+ * percentile is within about 3% of the true value. Values above 2^40 ns
+ * (about 18 minutes) go in the top bucket. Counts are kept in a few stripes,
+ * chosen by thread and created on first use, and only summed when the
+ * histogram is read; a read while calls are being recorded may miss the
+ * latest of them.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+    // bucket counts followed by the total and maximum of the stripe
+    private static final int TOTAL = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final int mask;
+
+    /**
+     * @param stripeCount Number of stripes, rounded up to a power of two.
+     */
+    LatencyHistogram(int stripeCount) {
+        int n = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new AtomicReferenceArray<>(n);
+        mask = n - 1;
+    }
+
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        int index = (int) Thread.currentThread().getId() & mask;
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS + 2));
+            stripe = stripes.get(index);
+        }
+        stripe.getAndIncrement(bucketOf(value));
+        stripe.getAndAdd(TOTAL, value);
+        long max = stripe.get(MAX);
+        while (value > max && !stripe.compareAndSet(MAX, max, value)) {
+            max = stripe.get(MAX);
+        }
+    }
+
+    long getCount() {
+        long count = 0;
+        for (AtomicLongArray stripe : stripes()) {
+            for (int b = 0; b < BUCKETS; b++) {
+                count += stripe.get(b);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The mean latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    double getMean() {
+        long total = 0;
+        for (AtomicLongArray stripe : stripes()) {
+            total += stripe.get(TOTAL);
+        }
+        long count = getCount();
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    long getMax() {
+        long max = 0;
+        for (AtomicLongArray stripe : stripes()) {
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return max;
+    }
+
+    /**
+     * @param quantile Between 0 and 1, e.g. 0.99.
+     * @return The latency in nanoseconds at or below which the quantile of
+     *         calls fell (the top of its bucket), or 0 if nothing was recorded.
+     */
+    long getValueAt(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (AtomicLongArray stripe : stripes()) {
+            for (int b = 0; b < BUCKETS; b++) {
+                long n = stripe.get(b);
+                counts[b] += n;
+                count += n;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(upperBound(b), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    void reset() {
+        for (AtomicLongArray stripe : stripes()) {
+            for (int i = 0; i < stripe.length(); i++) {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * @return The stripes created so far.
+     */
+    private AtomicLongArray[] stripes() {
+        AtomicLongArray[] created = new AtomicLongArray[stripes.length()];
+        int n = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                created[n++] = stripe;
+            }
+        }
+        return Arrays.copyOf(created, n);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return The largest value that falls in the bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
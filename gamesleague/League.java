@@ -0,0 +1,514 @@
+package gamesleague;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A league: its settings, members, owners and outstanding invitations.
+ * <p>
+ * Members are kept in the order required by getLeaguePlayers() (creator first,
+ * then in the order invitations were accepted); a member's position in that
+ * order is used to index their active flag, their entries in each day's
+ * gameplay record and their column in the score storage. Score storage rows
+ * are days counted from the start day.
+ * <p>
+ * Members are never removed or reordered, so that position is a slot fixed
+ * when the player joins and the getLeaguePlayers() order is the slot order.
+ * A player joining mid-season takes the next slot; rows already stored are
+ * not rewritten, as reads pad them with zeros for the new slots. Each member's
+ * slot is found through a hash table keyed by player ID, and owners and
+ * invites have tables of their own, so per-player checks do not scan lists.
+ * <p>
+ * Week, month and year point totals are maintained incrementally as days are
+ * closed or voided, so period queries do not have to add up every day. The
+ * status of each day is kept in a bitmap and the totals also count played and
+ * closed days, so day and period status queries do not scan days either.
+ * <p>
+ * All gameplay history is held in one {@link LeagueHistory} generation, which
+ * a reset replaces as a whole.
+ */
+class League implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+    private String name;
+    private final GameType gameType;
+    // strategies are shared singletons, so it is looked up again when deserialised
+    private transient ScoringStrategy scoring;
+
+    private final IntList members = new IntList();
+    // playerId -> slot
+    private final IntIntMap memberSlots = new IntIntMap();
+    private final BitSet inactive = new BitSet();
+    private final IntList owners = new IntList();
+    private final IntIntMap ownerSet = new IntIntMap();
+    private final IntList playerInvites = new IntList();
+    private final IntIntMap inviteSet = new IntIntMap();
+    // normalised email -> email as invited, in invitation order
+    private final Map<String, String> emailInvites = new LinkedHashMap<>();
+
+    private int startDay = -1;
+    // volatile so the close day can be checked without the league's lock (getPlayerLeagues)
+    private volatile int closeDay = -1;
+
+    private final ReportCodec reportCodec;
+    private LeagueHistory history;
+
+    League(int id, String name, GameType gameType, ScoreStorage scoreStorage, ReportCodec reportCodec) {
+        this.id = id;
+        this.name = name;
+        this.gameType = gameType;
+        this.scoring = ScoringStrategy.of(gameType);
+        this.reportCodec = reportCodec;
+        this.history = new LeagueHistory(0, scoreStorage, new ReportStore(gameType, reportCodec));
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        scoring = ScoringStrategy.of(gameType);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    GameType getGameType() {
+        return gameType;
+    }
+
+    // Members
+
+    void addMember(int playerId) {
+        memberSlots.put(playerId, members.size());
+        members.add(playerId);
+    }
+
+    /**
+     * @return The position of the player in the member order or -1 if not a member.
+     */
+    int memberIndex(int playerId) {
+        return memberSlots.get(playerId);
+    }
+
+    boolean isMember(int playerId) {
+        return memberSlots.containsKey(playerId);
+    }
+
+    int memberCount() {
+        return members.size();
+    }
+
+    int memberAt(int index) {
+        return members.get(index);
+    }
+
+    int[] getMembers() {
+        return members.toArray();
+    }
+
+    boolean isActive(int memberIndex) {
+        return !inactive.get(memberIndex);
+    }
+
+    void setActive(int memberIndex, boolean active) {
+        inactive.set(memberIndex, !active);
+    }
+
+    // Owners
+
+    void addOwner(int playerId) {
+        if (!ownerSet.containsKey(playerId)) {
+            ownerSet.put(playerId, 0);
+            owners.add(playerId);
+        }
+    }
+
+    boolean removeOwner(int playerId) {
+        return ownerSet.remove(playerId) && owners.removeValue(playerId);
+    }
+
+    boolean isOwner(int playerId) {
+        return ownerSet.containsKey(playerId);
+    }
+
+    int ownerCount() {
+        return owners.size();
+    }
+
+    int[] getOwners() {
+        return owners.toArray();
+    }
+
+    /**
+     * Sets up the owners of a new clone of the source league, who become its
+     * members and owners in the source's member order; the caller invites
+     * the other members of the source.
+     */
+    void inheritOwners(League source) {
+        for (int i = 0; i < source.members.size() && members.size() < source.owners.size(); i++) {
+            int playerId = source.members.get(i);
+            if (source.isOwner(playerId)) {
+                addMember(playerId);
+            }
+        }
+        for (int i = 0; i < source.owners.size(); i++) {
+            addOwner(source.owners.get(i));
+        }
+    }
+
+    // Invites
+
+    void addPlayerInvite(int playerId) {
+        if (!inviteSet.containsKey(playerId)) {
+            inviteSet.put(playerId, 0);
+            playerInvites.add(playerId);
+        }
+    }
+
+    boolean removePlayerInvite(int playerId) {
+        return inviteSet.remove(playerId) && playerInvites.removeValue(playerId);
+    }
+
+    boolean hasPlayerInvite(int playerId) {
+        return inviteSet.containsKey(playerId);
+    }
+
+    int[] getPlayerInvites() {
+        return playerInvites.toArray();
+    }
+
+    void addEmailInvite(String email) {
+        emailInvites.putIfAbsent(EmailIndex.normalise(email), email);
+    }
+
+    boolean removeEmailInvite(String email) {
+        return emailInvites.remove(EmailIndex.normalise(email)) != null;
+    }
+
+    boolean hasEmailInvite(String email) {
+        return emailInvites.containsKey(EmailIndex.normalise(email));
+    }
+
+    String[] getEmailInvites() {
+        return emailInvites.values().toArray(new String[0]);
+    }
+
+    // Dates
+
+    int getStartDay() {
+        return startDay;
+    }
+
+    void setStartDay(int startDay) {
+        this.startDay = startDay;
+    }
+
+    int getCloseDay() {
+        return closeDay;
+    }
+
+    void setCloseDay(int closeDay) {
+        this.closeDay = closeDay;
+    }
+
+    boolean isStarted(int today) {
+        return startDay != -1 && today >= startDay;
+    }
+
+    boolean isClosed(int today) {
+        return closeDay != -1 && today >= closeDay;
+    }
+
+    /**
+     * @return true if the day is on or after the start day and before the close day.
+     */
+    boolean isValidDay(int day) {
+        return startDay != -1 && day >= startDay && (closeDay == -1 || day < closeDay);
+    }
+
+    Status getStatus(int today) {
+        if (isClosed(today)) {
+            return Status.CLOSED;
+        }
+        return isStarted(today) ? Status.IN_PROGRESS : Status.PENDING;
+    }
+
+    // Gameplay
+
+    /**
+     * @return The gameplay record for the day or null if there has been no gameplay.
+     */
+    DayRecord getDay(int day) {
+        return history.days.get(day);
+    }
+
+    /**
+     * @return The days with gameplay records, in ascending order.
+     */
+    int[] getDays() {
+        int[] result = new int[history.days.size()];
+        int i = 0;
+        for (int day : history.days.keySet()) {
+            result[i++] = day;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * @return The day's scores for each member (zero where none registered).
+     */
+    int[] getScores(int day) {
+        return history.scoreStorage.getScores(day - startDay, members.size());
+    }
+
+    /**
+     * @return The day's points for each member, or null if the day has no points yet.
+     */
+    int[] getPoints(int day) {
+        DayRecord record = history.days.get(day);
+        if (record == null || !record.hasPoints()) {
+            return null;
+        }
+        return history.scoreStorage.getPoints(day - startDay, members.size());
+    }
+
+    /**
+     * Puts back a record read from a snapshot, adding it to the period totals.
+     */
+    void restoreDay(int day, Status status, DayRecord record, int[] scores, int[] points) {
+        history.days.put(day, record);
+        history.scoreStorage.put(day - startDay, scores, points);
+        if (record.hasPoints() && points != null) {
+            for (Period period : Period.values()) {
+                getOrCreateTotals(period, day).add(points, 1);
+            }
+        }
+        setDayStatus(day, status);
+    }
+
+    /**
+     * @return The gameplay status of the day, PENDING if there has been no gameplay.
+     */
+    Status getDayStatus(int day) {
+        return startDay == -1 ? Status.PENDING : history.statuses.get(day - startDay);
+    }
+
+    /**
+     * Sets the status of the day, updating the played and closed day counts
+     * of the week, month and year containing it.
+     */
+    void setDayStatus(int day, Status status) {
+        Status old = history.statuses.get(day - startDay);
+        if (old == status) {
+            return;
+        }
+        history.statuses.set(day - startDay, status);
+        for (Period period : Period.values()) {
+            getOrCreateTotals(period, day).statusChanged(old, status);
+        }
+        if (status != Status.PENDING) {
+            history.lastPlayedDay = Math.max(history.lastPlayedDay, day);
+        }
+    }
+
+    /**
+     * Status of the period containing the day: PENDING if none of its valid
+     * days has been played, CLOSED if all of them are closed or the last of
+     * them has passed, otherwise IN_PROGRESS.
+     */
+    Status getPeriodStatus(Period period, int day, int today) {
+        int first = Math.max(period.firstDay(day), startDay);
+        int last = period.lastDay(day);
+        if (closeDay != -1) {
+            last = Math.min(last, closeDay - 1);
+        }
+        int played;
+        int closed;
+        if (closeDay == -1 || history.lastPlayedDay < closeDay) {
+            // every played day is a valid day, so the period counts apply as they are
+            PeriodTotals periodTotals = getTotals(period, day);
+            played = periodTotals == null ? 0 : periodTotals.getPlayedDays();
+            closed = periodTotals == null ? 0 : periodTotals.getClosedDays();
+        } else {
+            // the close day was moved before days already played; count the valid days only
+            closed = history.statuses.count(first - startDay, last - startDay, Status.CLOSED);
+            played = last - first + 1 - history.statuses.count(first - startDay, last - startDay, Status.PENDING);
+        }
+        if (played == 0) {
+            return Status.PENDING;
+        }
+        return closed == last - first + 1 || today > last ? Status.CLOSED : Status.IN_PROGRESS;
+    }
+
+    DayRecord getOrCreateDay(int day) {
+        DayRecord record = history.days.get(day);
+        if (record == null) {
+            record = new DayRecord(members.size());
+            history.days.put(day, record);
+        }
+        return record;
+    }
+
+    /**
+     * @return The member's report in the day's record, or the empty string if none.
+     */
+    String getReport(DayRecord record, int memberIndex) {
+        return history.reports.get(record.getReport(memberIndex));
+    }
+
+    void setReport(DayRecord record, int memberIndex, String report) {
+        record.setReport(memberIndex, history.reports.add(report));
+    }
+
+    /**
+     * @return The report with the handle, or null for {@link ReportStore#NO_REPORT}.
+     */
+    String reportText(int handle) {
+        return handle == ReportStore.NO_REPORT ? null : history.reports.get(handle);
+    }
+
+    ReportStore getReportStore() {
+        return history.reports;
+    }
+
+    /**
+     * Empties the reports of a member on every day (used when a player is deactivated).
+     */
+    void clearReports(int memberIndex) {
+        for (DayRecord record : history.days.values()) {
+            if (record.hasReport(memberIndex)) {
+                setReport(record, memberIndex, "");
+            }
+        }
+    }
+
+    /**
+     * Points for the day's scores under the rules of the league's game type.
+     * Inactive members get no points.
+     */
+    int[] computePoints(int[] scores) {
+        int[] points = new int[scores.length];
+        scoring.computePoints(scores, inactive, points);
+        return points;
+    }
+
+    /**
+     * Closes the day with the given scores and points and adds the points to
+     * the week, month and year totals. The day counts as a round for the
+     * members active at this point.
+     *
+     * @return The day's record.
+     */
+    DayRecord closeDay(int day, int[] scores, int[] points) {
+        DayRecord record = getOrCreateDay(day);
+        history.scoreStorage.put(day - startDay, scores, points);
+        BitSet counted = new BitSet(members.size());
+        counted.set(0, members.size());
+        counted.andNot(inactive);
+        record.close(counted);
+        for (Period period : Period.values()) {
+            getOrCreateTotals(period, day).add(points, 1);
+        }
+        setDayStatus(day, Status.CLOSED);
+        return record;
+    }
+
+    /**
+     * Sets the points of the day to zero, taking any points it had out of the
+     * week, month and year totals.
+     */
+    void voidDay(int day) {
+        DayRecord record = getOrCreateDay(day);
+        int[] oldPoints = getPoints(day);
+        history.scoreStorage.put(day - startDay, null, new int[members.size()]);
+        record.voidPoints();
+        if (oldPoints != null) {
+            for (Period period : Period.values()) {
+                getOrCreateTotals(period, day).add(oldPoints, -1);
+            }
+        }
+        setDayStatus(day, Status.CLOSED);
+    }
+
+    /**
+     * @return The point totals of the period containing the day or null if no
+     *         day in it has been played.
+     */
+    PeriodTotals getTotals(Period period, int day) {
+        Map<Integer, PeriodTotals> byKey = history.totals.get(period);
+        return byKey == null ? null : byKey.get(period.key(day));
+    }
+
+    /**
+     * @return The generation of the gameplay history, counting resets.
+     */
+    int getGeneration() {
+        return history.generation;
+    }
+
+    /**
+     * Adds to the member's rounds played and eligible in the current history.
+     */
+    void addRounds(int memberIndex, int played, int eligible) {
+        history.addRounds(memberIndex, played, eligible);
+    }
+
+    int getRoundsPlayed(int memberIndex) {
+        return history.getRoundsPlayed(memberIndex);
+    }
+
+    int getRoundsEligible(int memberIndex) {
+        return history.getRoundsEligible(memberIndex);
+    }
+
+    /**
+     * Removes all gameplay history by starting the next generation, empty.
+     * The old generation is detached rather than cleared.
+     *
+     * @param scoreStorage Empty score storage for the new generation.
+     * @return The detached generation, for the caller to release.
+     */
+    LeagueHistory resetHistory(ScoreStorage scoreStorage) {
+        LeagueHistory old = history;
+        history = new LeagueHistory(old.generation + 1, scoreStorage,
+            new ReportStore(gameType, reportCodec));
+        return old;
+    }
+
+    /**
+     * @return The current generation of the gameplay history, to be released
+     *         once the league is removed.
+     */
+    LeagueHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Releases the gameplay history straight away (used when a load fails
+     * part way through).
+     */
+    void release() {
+        history.release();
+    }
+
+    private PeriodTotals getOrCreateTotals(Period period, int day) {
+        return history.totals.computeIfAbsent(period, p -> new HashMap<>())
+            .computeIfAbsent(period.key(day), k -> new PeriodTotals());
+    }
+}
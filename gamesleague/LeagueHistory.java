@@ -0,0 +1,73 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One generation of a league's gameplay history: the day records and
+ * statuses, the period totals, the score storage, the reports and the rounds
+ * counted for each member.
+ * <p>
+ * A league holds exactly one generation. Resetting the league starts the
+ * next generation, empty, and removing it drops the current one; either way
+ * the old generation is detached as a whole and handed to the
+ * {@link HistorySweeper}, so nothing is cleared while the league is locked.
+ */
+class LeagueHistory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    final int generation;
+    final Map<Integer, DayRecord> days = new HashMap<>();
+    final DayStatusBitmap statuses = new DayStatusBitmap();
+    int lastPlayedDay = Integer.MIN_VALUE;
+    final EnumMap<Period, Map<Integer, PeriodTotals>> totals = new EnumMap<>(Period.class);
+    final ScoreStorage scoreStorage;
+    final ReportStore reports;
+
+    // rounds played and eligible in this generation, by member index
+    private int[] roundsPlayed = new int[0];
+    private int[] roundsEligible = new int[0];
+
+    LeagueHistory(int generation, ScoreStorage scoreStorage, ReportStore reports) {
+        this.generation = generation;
+        this.scoreStorage = scoreStorage;
+        this.reports = reports;
+    }
+
+    /**
+     * Adds to the member's rounds played and eligible (negative to take away).
+     */
+    void addRounds(int memberIndex, int played, int eligible) {
+        if (memberIndex >= roundsPlayed.length) {
+            int capacity = Math.max(memberIndex + 1, roundsPlayed.length * 2);
+            roundsPlayed = Arrays.copyOf(roundsPlayed, capacity);
+            roundsEligible = Arrays.copyOf(roundsEligible, capacity);
+        }
+        roundsPlayed[memberIndex] += played;
+        roundsEligible[memberIndex] += eligible;
+    }
+
+    int getRoundsPlayed(int memberIndex) {
+        return memberIndex < roundsPlayed.length ? roundsPlayed[memberIndex] : 0;
+    }
+
+    int getRoundsEligible(int memberIndex) {
+        return memberIndex < roundsEligible.length ? roundsEligible[memberIndex] : 0;
+    }
+
+    /**
+     * Frees the generation once it has been detached: closes the score
+     * storage (deleting any score files) and empties the collections.
+     */
+    void release() {
+        scoreStorage.close();
+        reports.clear();
+        days.clear();
+        totals.clear();
+        statuses.clear();
+    }
+}
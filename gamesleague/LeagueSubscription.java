@@ -0,0 +1,221 @@
+package gamesleague;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * A subscriber to league updates, returned by GamesLeague.subscribe.
+ * <p>
+ * Writers only merge their change into the subscription's pending updates,
+ * one per league and day, and never wait for the listener. Pending updates
+ * are handed to the listener in the order their league and day first changed,
+ * by one task at a time on the subscription's executor; a slow listener holds
+ * up only that task while the changes it has not yet been sent keep merging,
+ * so it sees fewer, larger updates rather than a growing queue. Updates are
+ * sent one at a time, so the listener needs no locking of its own.
+ */
+public class LeagueSubscription implements Closeable {
+
+    /**
+     * Daemon threads shared by the subscriptions of a ConcurrentGamesLeague,
+     * whose listeners may call back into the league from any thread.
+     */
+    static final ExecutorService BACKGROUND = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "league-updates");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ChangeFeed feed;
+    // the league subscribed to, or -1 for every league
+    private final int leagueId;
+    private final Consumer<LeagueUpdate> listener;
+    private final Executor executor;
+    private final Map<Long, PendingUpdate> pending = new LinkedHashMap<>();
+    private boolean scheduled = false;
+    private volatile boolean closed = false;
+    private long delivered = 0;
+    private long merged = 0;
+    private long failed = 0;
+
+    LeagueSubscription(ChangeFeed feed, int leagueId, Consumer<LeagueUpdate> listener,
+            Executor executor) {
+        this.feed = feed;
+        this.leagueId = leagueId;
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    int getLeagueId() {
+        return leagueId;
+    }
+
+    /**
+     * Stops the updates. An update already being handed to the listener
+     * completes; no others are sent.
+     */
+    public void close() {
+        closed = true;
+        feed.remove(this);
+        synchronized (this) {
+            pending.clear();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return Updates waiting to be sent to the listener.
+     */
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    public synchronized long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * @return Changes merged into an update that was already pending, rather
+     *         than sent on their own.
+     */
+    public synchronized long getMerged() {
+        return merged;
+    }
+
+    /**
+     * @return Updates whose listener call threw; the updates after them are still sent.
+     */
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Merges a change into the pending update for its league and day,
+     * scheduling delivery if none is under way. The executor is called
+     * outside the subscription's lock, and if it rejects the delivery the
+     * updates stay pending until the next change schedules it again.
+     *
+     * @param changes Bits of the LeagueUpdate.Change ordinals.
+     * @param reporter The player who registered a report, or -1.
+     */
+    void offer(int leagueId, int day, int changes, Status dayStatus, int reporter) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            long key = (long) leagueId << 32 | (day & 0xFFFFFFFFL);
+            PendingUpdate update = pending.get(key);
+            if (update == null) {
+                update = new PendingUpdate(leagueId, day);
+                pending.put(key, update);
+            } else {
+                merged++;
+            }
+            update.merge(changes, dayStatus, reporter);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        try {
+            executor.execute(this::deliver);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                scheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Sends the pending updates until there are none left.
+     */
+    private void deliver() {
+        while (true) {
+            List<LeagueUpdate> updates;
+            synchronized (this) {
+                if (pending.isEmpty() || closed) {
+                    scheduled = false;
+                    return;
+                }
+                updates = new ArrayList<>(pending.size());
+                for (PendingUpdate update : pending.values()) {
+                    updates.add(update.toUpdate());
+                }
+                pending.clear();
+            }
+            for (LeagueUpdate update : updates) {
+                if (closed) {
+                    break;
+                }
+                boolean sent;
+                try {
+                    listener.accept(update);
+                    sent = true;
+                } catch (RuntimeException e) {
+                    // nothing left to hand the error to; it is counted instead
+                    sent = false;
+                }
+                sent(sent);
+            }
+        }
+    }
+
+    private synchronized void sent(boolean sent) {
+        if (sent) {
+            delivered++;
+        } else {
+            failed++;
+        }
+    }
+
+    /**
+     * The changes to one league day not yet sent.
+     */
+    private static final class PendingUpdate {
+
+        private final int leagueId;
+        private final int day;
+        private int changes = 0;
+        private Status dayStatus;
+        private final SortedIntSet reporters = new SortedIntSet();
+        private int count = 0;
+
+        PendingUpdate(int leagueId, int day) {
+            this.leagueId = leagueId;
+            this.day = day;
+        }
+
+        void merge(int changes, Status dayStatus, int reporter) {
+            this.changes |= changes;
+            if (dayStatus != null) {
+                this.dayStatus = dayStatus;
+            }
+            if (reporter != -1) {
+                reporters.add(reporter);
+            }
+            count++;
+        }
+
+        LeagueUpdate toUpdate() {
+            EnumSet<LeagueUpdate.Change> set = EnumSet.noneOf(LeagueUpdate.Change.class);
+            for (LeagueUpdate.Change change : LeagueUpdate.Change.values()) {
+                if ((changes & 1 << change.ordinal()) != 0) {
+                    set.add(change);
+                }
+            }
+            return new LeagueUpdate(leagueId, day, set, dayStatus, reporters.toArray(), count);
+        }
+    }
+}
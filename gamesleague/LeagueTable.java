@@ -0,0 +1,58 @@
+package gamesleague;
+
+/**
+ * A league table for a day, week, month or year read in one go from
+ * {@link ConcurrentGamesLeague}: the status, points and ranking all come from
+ * the same version of the league, and are ordered to match the players
+ * returned with them, even if players join or scores are registered meanwhile.
+ */
+public final class LeagueTable {
+
+    private final long version;
+    private final int[] players;
+    private final Status status;
+    private final int[] points;
+    private final int[] ranking;
+
+    LeagueTable(long version, int[] players, Status status, int[] points, int[] ranking) {
+        this.version = version;
+        this.players = players;
+        this.status = status;
+        this.points = points;
+        this.ranking = ranking;
+    }
+
+    /**
+     * @return The version of the league the table was read from. Versions
+     *         increase as the league's tables change, so a table with a higher
+     *         version of the same league is the more recent.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The players of the league, in getLeaguePlayers order.
+     */
+    public int[] getPlayers() {
+        return players.clone();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The points of each player, or an empty array if there are no points yet.
+     */
+    public int[] getPoints() {
+        return points.clone();
+    }
+
+    /**
+     * @return The ranking of each player, or an empty array if there are no rankings yet.
+     */
+    public int[] getRanking() {
+        return ranking.clone();
+    }
+}
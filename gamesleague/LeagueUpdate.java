@@ -0,0 +1,105 @@
+package gamesleague;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * What changed in a league since the subscriber's last update about the same
+ * day: which of its tables changed, the day's status afterwards and the
+ * players whose game reports arrived. Changes a subscriber has not yet been
+ * sent are merged into one update per league and day, so the new values are
+ * read with the usual queries (getDayScores, getWeekRanking, ...) only for
+ * what the update says changed.
+ */
+public final class LeagueUpdate {
+
+    /**
+     * The tables of a league an update may cover.
+     */
+    public enum Change {
+        /** The day's status changed, e.g. with its first report or when closed. */
+        DAY_STATUS,
+        /** Players registered game reports for the day. */
+        REPORTS,
+        /** The day's scores changed. */
+        SCORES,
+        /** The day's points changed, and so the points of its week, month and year. */
+        POINTS,
+        /** The rankings of the day and of its week, month and year changed. */
+        RANKINGS,
+        /** Players joined the league or became active or inactive in it. */
+        MEMBERS,
+        /**
+         * The league was reset or its start or end date changed, so the
+         * tables of any of its days may have changed or no longer be valid.
+         */
+        LEAGUE,
+        /** The league was removed; it has no tables left to read. */
+        REMOVED
+    }
+
+    private final int leagueId;
+    private final int day;
+    private final Set<Change> changes;
+    private final Status dayStatus;
+    private final int[] reporters;
+    private final int merged;
+
+    LeagueUpdate(int leagueId, int day, Set<Change> changes, Status dayStatus, int[] reporters,
+            int merged) {
+        this.leagueId = leagueId;
+        this.day = day;
+        this.changes = changes;
+        this.dayStatus = dayStatus;
+        this.reporters = reporters;
+        this.merged = merged;
+    }
+
+    public int getLeagueId() {
+        return leagueId;
+    }
+
+    /**
+     * @return The epoch day that changed, or -1 for a change to the league's
+     *         members, dates or the whole league that is not about a day.
+     */
+    public int getDay() {
+        return day;
+    }
+
+    public Set<Change> getChanges() {
+        return EnumSet.copyOf(changes);
+    }
+
+    public boolean hasChange(Change change) {
+        return changes.contains(change);
+    }
+
+    /**
+     * @return The status of the day after the changes, or null if the update is not about a day.
+     */
+    public Status getDayStatus() {
+        return dayStatus;
+    }
+
+    /**
+     * @return The IDs of the players who registered a game report for the day, in ascending order.
+     */
+    public int[] getReporters() {
+        return reporters.clone();
+    }
+
+    /**
+     * @return How many changes were merged into this update, 1 if the
+     *         subscriber kept up.
+     */
+    public int getMerged() {
+        return merged;
+    }
+
+    @Override
+    public String toString() {
+        return "LeagueUpdate[league=" + leagueId + ", day=" + day + ", changes=" + changes
+            + ", dayStatus=" + dayStatus + ", reporters=" + reporters.length + ", merged=" + merged + "]";
+    }
+}
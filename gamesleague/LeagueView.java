@@ -0,0 +1,218 @@
+package gamesleague;
+
+import java.util.HashMap;
+
+/**
+ * One version of the tables of a league: its players in getLeaguePlayers
+ * order and the statuses, scores, points and rankings of its days, weeks,
+ * months and years, as far as they have been asked for.
+ * <p>
+ * A view is immutable once published. A reader that computes a missing
+ * answer under the league's stripe swaps in a copy of the view with the
+ * answer added, keeping the version number, since the league has not
+ * changed; a writer that changes the league builds the next version with the
+ * answers it changed computed afresh. Readers that fetched a view earlier
+ * keep a consistent, if older, view, and two views with the same version
+ * number never give different answers.
+ * <p>
+ * Answers are held in segments, chosen by the day or period they are for,
+ * so adding one copies a single segment and a change to a day copies only
+ * the few holding the day and the periods containing it.
+ */
+class LeagueView {
+
+    static final int STATUS = 0;
+    static final int SCORES = 1;
+    static final int POINTS = 2;
+    static final int RANKING = 3;
+    // answers kept per version; past this, further answers are computed each time
+    static final int MAX_ANSWERS = 512;
+    private static final int SEGMENTS = 16;
+    // the scopes of the answers for a day: the day itself, then its periods
+    private static final Period[] SCOPES = {null, Period.WEEK, Period.MONTH, Period.YEAR};
+
+    /**
+     * Computes the answers of a new version, with the league's stripe held.
+     */
+    interface Source {
+
+        /**
+         * @param period The period containing the day, or null for the day itself.
+         */
+        int[] table(Period period, int kind, int day);
+
+        Status status(Period period, int day);
+    }
+
+    private final long version;
+    private final int[] players;
+    private final HashMap<Long, Object>[] segments;
+    private final int size;
+
+    LeagueView(long version, int[] players) {
+        this(version, players, newSegments(), 0);
+    }
+
+    private LeagueView(long version, int[] players, HashMap<Long, Object>[] segments, int size) {
+        this.version = version;
+        this.players = players;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The players of the league; callers must not modify it.
+     */
+    int[] getPlayers() {
+        return players;
+    }
+
+    /**
+     * @param period The period containing the day, or null for the day itself.
+     * @return The scores, points or ranking answered, or null if not yet known;
+     *         callers must not modify it.
+     */
+    int[] getTable(Period period, int kind, int day) {
+        return (int[]) get(key(period, kind, day));
+    }
+
+    /**
+     * @param today The current day, as a period's status changes once it has passed.
+     * @return The status answered on the same day, or null if not yet known.
+     */
+    Status getStatus(Period period, int day, int today) {
+        Object answer = get(key(period, STATUS, day));
+        if (answer instanceof DatedStatus) {
+            DatedStatus dated = (DatedStatus) answer;
+            return dated.today == today ? dated.status : null;
+        }
+        return (Status) answer;
+    }
+
+    /**
+     * @return This version with the table added, or this view if it is full.
+     */
+    LeagueView withTable(Period period, int kind, int day, int[] table) {
+        return with(key(period, kind, day), table);
+    }
+
+    /**
+     * @return This version with the status added, or this view if it is full.
+     */
+    LeagueView withStatus(Period period, int day, int today, Status status) {
+        return with(key(period, STATUS, day), dated(period, today, status));
+    }
+
+    /**
+     * @return This version without the answers for the day and the periods
+     *         containing it, for readers to see while the day changes.
+     */
+    LeagueView without(int day) {
+        HashMap<Long, Object>[] copy = segments.clone();
+        int kept = size;
+        for (Period period : SCOPES) {
+            int segment = segment(period, day);
+            if (copy[segment] == segments[segment]) {
+                copy[segment] = new HashMap<>(segments[segment]);
+            }
+            for (int kind = STATUS; kind <= RANKING; kind++) {
+                if (copy[segment].remove(key(period, kind, day)) != null) {
+                    kept--;
+                }
+            }
+        }
+        return new LeagueView(version, players, copy, kept);
+    }
+
+    /**
+     * @return The next version after gameplay changed on the day: the same
+     *         players and answers, but with those this version had for the day
+     *         and the periods containing it computed again from the source.
+     */
+    LeagueView next(long nextVersion, int day, int today, Source source) {
+        HashMap<Long, Object>[] copy = segments.clone();
+        for (Period period : SCOPES) {
+            int segment = segment(period, day);
+            if (copy[segment] == segments[segment]) {
+                copy[segment] = new HashMap<>(segments[segment]);
+            }
+            for (int kind = STATUS; kind <= RANKING; kind++) {
+                long key = key(period, kind, day);
+                if (copy[segment].containsKey(key)) {
+                    copy[segment].put(key, kind == STATUS
+                        ? dated(period, today, source.status(period, day))
+                        : source.table(period, kind, day));
+                }
+            }
+        }
+        return new LeagueView(nextVersion, players, copy, size);
+    }
+
+    private Object get(long key) {
+        return segments[segment(key)].get(key);
+    }
+
+    private LeagueView with(long key, Object answer) {
+        int segment = segment(key);
+        boolean added = !segments[segment].containsKey(key);
+        if (added && size >= MAX_ANSWERS) {
+            return this;
+        }
+        HashMap<Long, Object>[] copy = segments.clone();
+        copy[segment] = new HashMap<>(segments[segment]);
+        copy[segment].put(key, answer);
+        return new LeagueView(version, players, copy, added ? size + 1 : size);
+    }
+
+    private static Object dated(Period period, int today, Status status) {
+        // a day's status does not depend on the current day
+        return period == null ? status : new DatedStatus(status, today);
+    }
+
+    /**
+     * Answers for a period are shared by all its days, so they are keyed by
+     * the period rather than the day.
+     */
+    private static long key(Period period, int kind, int day) {
+        int scope = period == null ? 0 : period.ordinal() + 1;
+        int periodKey = period == null ? day : period.key(day);
+        return (long) (scope * 4 + kind) << 32 | (periodKey & 0xFFFFFFFFL);
+    }
+
+    /**
+     * All kinds of answer for a day or period share a segment.
+     */
+    private static int segment(long key) {
+        long scoped = key >>> 34 << 32 | (key & 0xFFFFFFFFL);
+        int h = Long.hashCode(scoped) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (SEGMENTS - 1);
+    }
+
+    private static int segment(Period period, int day) {
+        return segment(key(period, STATUS, day));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HashMap<Long, Object>[] newSegments() {
+        HashMap<Long, Object>[] segments = (HashMap<Long, Object>[]) new HashMap<?, ?>[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new HashMap<>();
+        }
+        return segments;
+    }
+
+    private static final class DatedStatus {
+
+        final Status status;
+        final int today;
+
+        DatedStatus(Status status, int today) {
+            this.status = status;
+            this.today = today;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package gamesleague;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Score storage in memory-mapped files, so a league's score history can be
+ * larger than the heap and is paged in by the operating system as it is read.
+ * <p>
+ * Scores and points are each kept as a matrix of ints, one row per day
+ * (relative to the league start day) and one column per member slot. The
+ * columns are split into bands of doubling width (16, 32, 64, ... members),
+ * each a row-major matrix in its own file, so a member joining past the
+ * current width only adds a band and the rows already written are never
+ * moved. Bands grow by doubling their rows. Each file is only open while it
+ * is mapped, as a mapping stays valid once its channel is closed, so
+ * thousands of leagues do not hold thousands of file descriptors. The files
+ * are scratch files: they are unmapped and deleted when the storage is
+ * cleared or closed, and persistence is still through saveGamesLeagueData.
+ * A deleted file's disk space is only given back once it is unmapped, so
+ * mappings are released at once through the JDK's buffer cleaner where it
+ * can be reached; otherwise the file is deleted once the garbage collector
+ * has dropped its last mapping. Java serialization
+ * writes a {@link HeapScoreStorage} copy instead, as mappings cannot be
+ * serialized.
+ */
+class MappedScoreStorage implements ScoreStorage, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Matrix scores;
+    private final transient Matrix points;
+
+    /**
+     * @return A heap copy of every row, serialized in place of this storage.
+     */
+    private Object writeReplace() {
+        HeapScoreStorage copy = new HeapScoreStorage();
+        int rows = Math.max(scores.rows(), points.rows());
+        for (int row = 0; row < rows; row++) {
+            copy.put(row, scores.read(row, scores.width()), points.read(row, points.width()));
+        }
+        return copy;
+    }
+
+    MappedScoreStorage(String directory, int leagueId, int generation) {
+        String prefix = "league-" + leagueId + "-g" + generation;
+        scores = new Matrix(directory, prefix + "-scores-");
+        points = new Matrix(directory, prefix + "-points-");
+    }
+
+    public void put(int row, int[] rowScores, int[] rowPoints) {
+        if (rowScores != null) {
+            scores.write(row, rowScores);
+        }
+        if (rowPoints != null) {
+            points.write(row, rowPoints);
+        }
+    }
+
+    public int[] getScores(int row, int memberCount) {
+        return scores.read(row, memberCount);
+    }
+
+    public int[] getPoints(int row, int memberCount) {
+        return points.read(row, memberCount);
+    }
+
+    public void clear() {
+        scores.clear();
+        points.clear();
+    }
+
+    public void close() {
+        scores.close();
+        points.close();
+    }
+
+    /**
+     * One int matrix, as column bands in memory-mapped files.
+     */
+    private static final class Matrix {
+
+        private static final int FIRST_BAND_WIDTH = 16;
+
+        private final Path directory;
+        private final String prefix;
+        private Band[] bands = new Band[0];
+
+        Matrix(String directory, String prefix) {
+            this.directory = Paths.get(directory);
+            this.prefix = prefix;
+            try {
+                Files.createDirectories(this.directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create score directory " + directory, e);
+            }
+        }
+
+        void write(int row, int[] values) {
+            int needed = values.length == 0 ? 0 : bandOf(values.length - 1) + 1;
+            while (bands.length < needed) {
+                addBand();
+            }
+            // bands past the values are zeroed, as a shorter row has zeros there
+            for (int b = 0; b < bands.length; b++) {
+                bands[b].write(row, values, bandStart(b));
+            }
+        }
+
+        int[] read(int row, int count) {
+            int[] values = new int[count];
+            for (int b = 0; b < bands.length && bandStart(b) < count; b++) {
+                bands[b].read(row, values, bandStart(b));
+            }
+            return values;
+        }
+
+        /**
+         * @return The rows mapped so far, written or not.
+         */
+        int rows() {
+            int rows = 0;
+            for (Band band : bands) {
+                rows = Math.max(rows, band.rows);
+            }
+            return rows;
+        }
+
+        /**
+         * @return The columns of every band together.
+         */
+        int width() {
+            return bandStart(bands.length);
+        }
+
+        void clear() {
+            for (Band band : bands) {
+                band.close();
+            }
+            bands = new Band[0];
+        }
+
+        void close() {
+            clear();
+        }
+
+        private void addBand() {
+            int b = bands.length;
+            Band band = new Band(directory, prefix + "b" + b + "-", FIRST_BAND_WIDTH << b);
+            Band[] grown = new Band[b + 1];
+            System.arraycopy(bands, 0, grown, 0, b);
+            grown[b] = band;
+            bands = grown;
+        }
+
+        /**
+         * @return The band holding the column: band b starts at column 16 * (2^b - 1).
+         */
+        private static int bandOf(int column) {
+            return 31 - Integer.numberOfLeadingZeros(column / FIRST_BAND_WIDTH + 1);
+        }
+
+        private static int bandStart(int band) {
+            return FIRST_BAND_WIDTH * ((1 << band) - 1);
+        }
+    }
+
+    /**
+     * A fixed number of columns of a matrix in one memory-mapped file.
+     */
+    private static final class Band {
+
+        private static final int MIN_ROWS = 32;
+
+        private final Path file;
+        private final int width;
+        private MappedByteBuffer map;
+        private int rows = 0;
+
+        Band(Path directory, String prefix, int width) {
+            this.width = width;
+            try {
+                file = Files.createTempFile(directory, prefix, ".dat");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create score file in " + directory, e);
+            }
+        }
+
+        /**
+         * Writes this band's columns of the row from values, starting at the
+         * band's first column; columns past the values are written as zero.
+         */
+        void write(int row, int[] values, int first) {
+            ensureRows(row + 1);
+            int base = row * width;
+            for (int i = 0; i < width; i++) {
+                int column = first + i;
+                map.putInt((base + i) * 4, column < values.length ? values[column] : 0);
+            }
+        }
+
+        void read(int row, int[] values, int first) {
+            if (row < 0 || row >= rows) {
+                return;
+            }
+            int base = row * width;
+            int n = Math.min(width, values.length - first);
+            for (int i = 0; i < n; i++) {
+                values[first + i] = map.getInt((base + i) * 4);
+            }
+        }
+
+        /**
+         * Unmaps the file and deletes it, or leaves the deletion to the
+         * cleaner if the mapping cannot be released now.
+         */
+        void close() {
+            MappedByteBuffer mapped = map;
+            map = null;
+            rows = 0;
+            if (mapped != null && !Unmapper.unmap(mapped)) {
+                Unmapper.deleteWhenUnreachable(mapped, file);
+                return;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void ensureRows(int neededRows) {
+            if (neededRows <= rows) {
+                return;
+            }
+            int newRows = Math.max(Math.max(neededRows, rows * 2), MIN_ROWS);
+            long bytes = (long) newRows * width * 4;
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Score file " + file + " would exceed 2GB.");
+            }
+            // the mapping outlives the channel, so the file is only open while it is mapped
+            MappedByteBuffer grown;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                grown = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // the larger mapping covers the same file, so the smaller one can go
+            if (map != null) {
+                Unmapper.unmap(map);
+            }
+            map = grown;
+            rows = newRows;
+        }
+    }
+
+    /**
+     * Releases mappings before the garbage collector would. A buffer must
+     * not be touched once it is unmapped, so only buffers no other code can
+     * still read are passed in: the band's own, with the league locked.
+     */
+    private static final class Unmapper {
+
+        private static final Cleaner CLEANER = Cleaner.create();
+
+        // sun.misc.Unsafe.invokeCleaner(ByteBuffer), or null where it is not available
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = type.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                unsafe = theUnsafe.get(null);
+                invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // left to the garbage collector
+                unsafe = null;
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        private Unmapper() {
+        }
+
+        /**
+         * @return true if the buffer was unmapped, false if it is left to
+         *         the garbage collector.
+         */
+        static boolean unmap(MappedByteBuffer buffer) {
+            if (INVOKE_CLEANER == null) {
+                return false;
+            }
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return true;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Deletes the file once the buffer can no longer be reached, and so
+         * has been unmapped.
+         */
+        static void deleteWhenUnreachable(MappedByteBuffer buffer, Path file) {
+            CLEANER.register(buffer, new DeleteFile(file));
+        }
+    }
+
+    /**
+     * Deletes a file, for the cleaner; it must not refer to the buffer.
+     */
+    private static final class DeleteFile implements Runnable {
+
+        private final Path file;
+
+        DeleteFile(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // nothing left to report to; the scratch directory keeps the file
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Reverse index from a player to the leagues they are a member of, own and
+ * are invited to (by player ID), so the player-centric views do not scan
+ * every league. Players are indexed by their {@link PlayerRegistry} slot and
+ * each relation is a {@link SortedIntSet} of league IDs, created when first
+ * needed.
+ * <p>
+ * Methods are synchronized as leagues on different lock stripes may update
+ * it concurrently (see ConcurrentGamesLeague).
+ */
+class MembershipIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private SortedIntSet[] memberOf = new SortedIntSet[16];
+    private SortedIntSet[] ownerOf = new SortedIntSet[16];
+    private SortedIntSet[] invitedTo = new SortedIntSet[16];
+
+    synchronized void addMember(int slot, int leagueId) {
+        memberOf = add(memberOf, slot, leagueId);
+    }
+
+    synchronized void removeMember(int slot, int leagueId) {
+        remove(memberOf, slot, leagueId);
+    }
+
+    synchronized void addOwner(int slot, int leagueId) {
+        ownerOf = add(ownerOf, slot, leagueId);
+    }
+
+    synchronized void removeOwner(int slot, int leagueId) {
+        remove(ownerOf, slot, leagueId);
+    }
+
+    synchronized void addInvite(int slot, int leagueId) {
+        invitedTo = add(invitedTo, slot, leagueId);
+    }
+
+    synchronized void removeInvite(int slot, int leagueId) {
+        remove(invitedTo, slot, leagueId);
+    }
+
+    /**
+     * @return IDs of the leagues the player is a member of, ascending.
+     */
+    synchronized int[] getMemberOf(int slot) {
+        return values(memberOf, slot);
+    }
+
+    /**
+     * @return IDs of the leagues the player owns, ascending.
+     */
+    synchronized int[] getOwnerOf(int slot) {
+        return values(ownerOf, slot);
+    }
+
+    /**
+     * @return IDs of the leagues the player has a player invite to, ascending.
+     */
+    synchronized int[] getInvitedTo(int slot) {
+        return values(invitedTo, slot);
+    }
+
+    /**
+     * Removes the player from every owner and invite set (used when the
+     * player is deactivated). They stay listed as a member.
+     */
+    synchronized void clearOwnedAndInvites(int slot) {
+        if (slot < ownerOf.length) {
+            ownerOf[slot] = null;
+        }
+        if (slot < invitedTo.length) {
+            invitedTo[slot] = null;
+        }
+    }
+
+    synchronized void clear() {
+        Arrays.fill(memberOf, null);
+        Arrays.fill(ownerOf, null);
+        Arrays.fill(invitedTo, null);
+    }
+
+    private static SortedIntSet[] add(SortedIntSet[] sets, int slot, int leagueId) {
+        if (slot >= sets.length) {
+            sets = Arrays.copyOf(sets, Math.max(slot + 1, sets.length * 2));
+        }
+        if (sets[slot] == null) {
+            sets[slot] = new SortedIntSet();
+        }
+        sets[slot].add(leagueId);
+        return sets;
+    }
+
+    private static void remove(SortedIntSet[] sets, int slot, int leagueId) {
+        if (slot < sets.length && sets[slot] != null) {
+            sets[slot].remove(leagueId);
+        }
+    }
+
+    private static int[] values(SortedIntSet[] sets, int slot) {
+        return slot < sets.length && sets[slot] != null ? sets[slot].toArray() : new int[0];
+    }
+}
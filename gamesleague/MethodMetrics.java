@@ -0,0 +1,84 @@
+package gamesleague;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The figures recorded for one method of an {@link InstrumentedGamesLeague}:
+ * a latency histogram, which also counts the calls, and the exceptions
+ * thrown, by type.
+ */
+class MethodMetrics implements MethodMetricsMXBean {
+
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final String method;
+    private final LatencyHistogram latency;
+    private final ConcurrentHashMap<String, LongAdder> exceptions = new ConcurrentHashMap<>();
+
+    MethodMetrics(String method, int stripeCount) {
+        this.method = method;
+        this.latency = new LatencyHistogram(stripeCount);
+    }
+
+    void record(long nanos) {
+        latency.record(nanos);
+    }
+
+    void failed(Throwable e) {
+        exceptions.computeIfAbsent(e.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    public long getExceptions() {
+        long count = 0;
+        for (LongAdder adder : exceptions.values()) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    public Map<String, Long> getExceptionsByType() {
+        Map<String, Long> byType = new TreeMap<>();
+        exceptions.forEach((type, adder) -> byType.put(type, adder.sum()));
+        return byType;
+    }
+
+    public double getMeanMicros() {
+        return latency.getMean() / NANOS_PER_MICRO;
+    }
+
+    public double getP50Micros() {
+        return latency.getValueAt(0.5) / NANOS_PER_MICRO;
+    }
+
+    public double getP90Micros() {
+        return latency.getValueAt(0.9) / NANOS_PER_MICRO;
+    }
+
+    public double getP99Micros() {
+        return latency.getValueAt(0.99) / NANOS_PER_MICRO;
+    }
+
+    public double getP999Micros() {
+        return latency.getValueAt(0.999) / NANOS_PER_MICRO;
+    }
+
+    public double getMaxMicros() {
+        return latency.getMax() / NANOS_PER_MICRO;
+    }
+
+    public void reset() {
+        latency.reset();
+        exceptions.clear();
+    }
+}
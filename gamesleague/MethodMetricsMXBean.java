@@ -0,0 +1,39 @@
+package gamesleague;
+
+import java.util.Map;
+
+/**
+ * Call count, failures and latency of one GamesLeagueInterface method, as
+ * published over JMX by {@link InstrumentedGamesLeague}. Latencies are in
+ * microseconds and include calls that threw.
+ */
+public interface MethodMetricsMXBean {
+
+    String getMethod();
+
+    long getCalls();
+
+    /**
+     * @return Calls that threw, of any exception type.
+     */
+    long getExceptions();
+
+    /**
+     * @return Calls that threw, by the simple name of the exception class.
+     */
+    Map<String, Long> getExceptionsByType();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
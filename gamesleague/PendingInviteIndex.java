@@ -0,0 +1,85 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Index from the email of someone who is not yet a player to the leagues
+ * that have invited that email, so createPlayer can turn those invites into
+ * player invites without scanning every league.
+ * <p>
+ * Emails are matched case-insensitively through an {@link EmailIndex} that
+ * maps each email to a slot; the slot holds a {@link SortedIntSet} of league
+ * IDs. Slots of emails with no invites left are reused.
+ * <p>
+ * Methods are synchronized as leagues on different lock stripes may update
+ * it concurrently (see ConcurrentGamesLeague).
+ */
+class PendingInviteIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final EmailIndex slots = new EmailIndex();
+    private SortedIntSet[] leagues = new SortedIntSet[16];
+    private final IntList freeSlots = new IntList();
+    private int nextSlot = 0;
+    private long invites = 0;
+
+    synchronized void add(String email, int leagueId) {
+        int slot = slots.get(email);
+        if (slot == -1) {
+            slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.removeLast();
+            if (slot >= leagues.length) {
+                leagues = Arrays.copyOf(leagues, leagues.length * 2);
+            }
+            leagues[slot] = new SortedIntSet();
+            slots.put(email, slot);
+        }
+        if (leagues[slot].add(leagueId)) {
+            invites++;
+        }
+    }
+
+    synchronized void remove(String email, int leagueId) {
+        int slot = slots.get(email);
+        if (slot != -1 && leagues[slot].remove(leagueId)) {
+            invites--;
+            if (leagues[slot].size() == 0) {
+                release(email, slot);
+            }
+        }
+    }
+
+    synchronized boolean contains(String email) {
+        return slots.contains(email);
+    }
+
+    /**
+     * Removes every pending invite for the email.
+     *
+     * @return IDs of the leagues that had invited the email, ascending.
+     */
+    synchronized int[] removeAll(String email) {
+        int slot = slots.get(email);
+        if (slot == -1) {
+            return new int[0];
+        }
+        int[] leagueIds = leagues[slot].toArray();
+        invites -= leagueIds.length;
+        release(email, slot);
+        return leagueIds;
+    }
+
+    /**
+     * @return Number of outstanding email invites.
+     */
+    synchronized long size() {
+        return invites;
+    }
+
+    private void release(String email, int slot) {
+        slots.remove(email);
+        leagues[slot] = null;
+        freeSlots.add(slot);
+    }
+}
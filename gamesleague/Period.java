@@ -0,0 +1,56 @@
+package gamesleague;
+
+/**
+ * The periods league points are totalled over. Weeks are ISO weeks (Monday to
+ * Sunday), months and years are calendar months and years.
+ * <p>
+ * Each period containing a given epoch day is identified by a key that is
+ * unique within that kind of period. Weeks are resolved arithmetically and
+ * months and years through {@link CalendarTable}, so no LocalDate is created.
+ */
+enum Period {
+    WEEK, MONTH, YEAR;
+
+    /**
+     * @return Key identifying the period containing the epoch day.
+     */
+    int key(int day) {
+        switch (this) {
+            case WEEK:
+                // epoch day 0 was a Thursday, so shift by 3 to start weeks on Monday
+                return Math.floorDiv(day + 3, 7);
+            case MONTH:
+                return CalendarTable.monthKey(day);
+            default:
+                return CalendarTable.year(day);
+        }
+    }
+
+    /**
+     * @return First epoch day of the period containing the epoch day.
+     */
+    int firstDay(int day) {
+        switch (this) {
+            case WEEK:
+                return day - Math.floorMod(day + 3, 7);
+            case MONTH:
+                return CalendarTable.monthFirstDay(day);
+            default:
+                return CalendarTable.yearFirstDay(day);
+        }
+    }
+
+    /**
+     * @return Last epoch day of the period containing the epoch day.
+     */
+    int lastDay(int day) {
+        switch (this) {
+            case WEEK:
+                return firstDay(day) + 6;
+            case MONTH:
+                return CalendarTable.monthLastDay(day);
+            default:
+                return CalendarTable.yearLastDay(day);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Running total of league points for one week, month or year of a league,
+ * kept up to date as days are closed or voided, together with how many of
+ * its days have been played and closed so the period status needs no scan.
+ */
+class PeriodTotals implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int[] points = new int[0];
+    private int playedDays = 0;
+    private int closedDays = 0;
+
+    /**
+     * Adds (sign 1) or subtracts (sign -1) a day's points.
+     */
+    void add(int[] dayPoints, int sign) {
+        if (dayPoints.length > points.length) {
+            points = Arrays.copyOf(points, dayPoints.length);
+        }
+        for (int i = 0; i < dayPoints.length; i++) {
+            points[i] += sign * dayPoints[i];
+        }
+    }
+
+    /**
+     * Counts a day of the period moving from one status to another.
+     */
+    void statusChanged(Status from, Status to) {
+        if (from == Status.PENDING) {
+            playedDays++;
+        } else if (to == Status.PENDING) {
+            playedDays--;
+        }
+        if (from == Status.CLOSED) {
+            closedDays--;
+        }
+        if (to == Status.CLOSED) {
+            closedDays++;
+        }
+    }
+
+    /**
+     * @return Number of days of the period that are no longer pending.
+     */
+    int getPlayedDays() {
+        return playedDays;
+    }
+
+    int getClosedDays() {
+        return closedDays;
+    }
+
+    /**
+     * @return The totals padded with zeros to the member count.
+     */
+    int[] getPoints(int memberCount) {
+        return Arrays.copyOf(points, memberCount);
+    }
+}
@@ -1,28 +0,0 @@
-private class Player {
-    private String email;
-    public StringdisplayName
-
-
-    private static int idCounter = 0;
-}
-
-//   * Creates a player entry.
-//      *
-//      * @param email The email of the player (unique).
-//      * @param displayName The name of the player.
-//      * @param name The name of the player.
-//      * @param phone The contact phone number of the player or empty string.
-//      * @return The ID of the rider in the system.
-//      * @throws InvalidNameException If the displayName/name is null or starts/ends with whitespace, 
-//      *                              or if the name is less than 5 char / more than 50 char.
-//      *                              or if displayName is less than 1 char/more than 20 char.
-//      * @throws InvalidEmailException If the email is null, empty, or does not contain an '@' character,
-//      * @throws IllegalEmailException if it duplicates an existing email of a player
-//      */
-//     public int createPlayer(String email, String displayName, String name, String phone) 
-//         throws  InvalidEmailException,   
-//                 IllegalEmailException,
-//                 InvalidNameException {
-        
-
-//         return 0; // placeholder so class compiles
\ No newline at end of file
@@ -0,0 +1,241 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Dense store of all player accounts.
+ * <p>
+ * Player details are held column-wise (one array per field) rather than as one
+ * object per player, and player IDs are mapped to their row (slot) through an
+ * open-addressing int hash table. Rows are never removed, deactivated players
+ * simply have their details anonymised, so the array of IDs returned by
+ * {@link #getIds()} is maintained as players are added rather than rebuilt.
+ */
+class PlayerRegistry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int EMPTY = 0; // player IDs start at 1
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int nextId = 1;
+    private int size = 0;
+
+    // open addressing table: playerId -> slot, linear probing, load <= 0.5
+    private int[] tableKeys = new int[INITIAL_CAPACITY * 2];
+    private int[] tableSlots = new int[INITIAL_CAPACITY * 2];
+
+    // columns, indexed by slot
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private String[] emails = new String[INITIAL_CAPACITY];
+    private String[] displayNames = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] phones = new String[INITIAL_CAPACITY];
+    private int[] joinDays = new int[INITIAL_CAPACITY];
+    private long[] deactivated = new long[(INITIAL_CAPACITY + 63) >>> 6];
+
+    /**
+     * Adds a new player. Arguments are assumed to be already validated.
+     *
+     * @return The ID given to the new player.
+     */
+    int add(String email, String displayName, String name, String phone, int joinDay) {
+        if (size == ids.length) {
+            growColumns(ids.length * 2);
+        }
+        if ((size + 1) * 2 > tableKeys.length) {
+            rehash(tableKeys.length * 2);
+        }
+        int id = nextId++;
+        int slot = size++;
+        ids[slot] = id;
+        emails[slot] = email;
+        displayNames[slot] = displayName;
+        names[slot] = name;
+        phones[slot] = phone;
+        joinDays[slot] = joinDay;
+        insert(id, slot);
+        return id;
+    }
+
+    /**
+     * Adds a player read back from a snapshot, keeping their ID.
+     */
+    void restore(int id, String email, String displayName, String name, String phone,
+            int joinDay, boolean isDeactivated) {
+        int before = nextId;
+        nextId = id;
+        int slot = slotOf(add(email, displayName, name, phone, joinDay));
+        nextId = Math.max(before, id + 1);
+        if (isDeactivated) {
+            setDeactivated(slot);
+        }
+    }
+
+    int getNextId() {
+        return nextId;
+    }
+
+    void setNextId(int nextId) {
+        this.nextId = nextId;
+    }
+
+    /**
+     * @return The slot of the player, or -1 if there is no player with that ID.
+     */
+    int slotOf(int id) {
+        if (id == EMPTY) {
+            return -1;
+        }
+        int mask = tableKeys.length - 1;
+        int i = mix(id) & mask;
+        while (tableKeys[i] != EMPTY) {
+            if (tableKeys[i] == id) {
+                return tableSlots[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    boolean contains(int id) {
+        return slotOf(id) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return A copy of the player IDs in creation order.
+     */
+    int[] getIds() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    int idAt(int slot) {
+        return ids[slot];
+    }
+
+    String getEmail(int slot) {
+        return emails[slot];
+    }
+
+    void setEmail(int slot, String email) {
+        emails[slot] = email;
+    }
+
+    String getDisplayName(int slot) {
+        return displayNames[slot];
+    }
+
+    void setDisplayName(int slot, String displayName) {
+        displayNames[slot] = displayName;
+    }
+
+    String getName(int slot) {
+        return names[slot];
+    }
+
+    void setName(int slot, String name) {
+        names[slot] = name;
+    }
+
+    String getPhone(int slot) {
+        return phones[slot];
+    }
+
+    void setPhone(int slot, String phone) {
+        phones[slot] = phone;
+    }
+
+    int getJoinDay(int slot) {
+        return joinDays[slot];
+    }
+
+    boolean isDeactivated(int slot) {
+        return (deactivated[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    void setDeactivated(int slot) {
+        deactivated[slot >>> 6] |= 1L << slot;
+    }
+
+    /**
+     * Rough estimate of the heap used by the registry, counting the arrays and
+     * the strings they reference (assuming compact Latin-1 strings and
+     * compressed oops).
+     *
+     * @return Estimated bytes used.
+     */
+    long footprintBytes() {
+        long bytes = 16 + intArrayBytes(tableKeys.length) * 2;
+        bytes += intArrayBytes(ids.length) + intArrayBytes(joinDays.length);
+        bytes += refArrayBytes(emails.length) * 4;
+        bytes += 16 + 8L * deactivated.length;
+        for (int slot = 0; slot < size; slot++) {
+            bytes += stringBytes(emails[slot]) + stringBytes(displayNames[slot])
+                + stringBytes(names[slot]) + stringBytes(phones[slot]);
+        }
+        return bytes;
+    }
+
+    /**
+     * Memory footprint report so the cost per player can be compared between
+     * versions of the store.
+     *
+     * @return One line summary of players, total bytes and bytes per player.
+     */
+    String footprintReport() {
+        long bytes = footprintBytes();
+        double perPlayer = size == 0 ? 0 : (double) bytes / size;
+        return String.format("players=%d capacity=%d bytes=%d bytesPerPlayer=%.1f",
+            size, ids.length, bytes, perPlayer);
+    }
+
+    private void insert(int id, int slot) {
+        int mask = tableKeys.length - 1;
+        int i = mix(id) & mask;
+        while (tableKeys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        tableKeys[i] = id;
+        tableSlots[i] = slot;
+    }
+
+    private void rehash(int capacity) {
+        tableKeys = new int[capacity];
+        tableSlots = new int[capacity];
+        for (int slot = 0; slot < size; slot++) {
+            insert(ids[slot], slot);
+        }
+    }
+
+    private void growColumns(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+        displayNames = Arrays.copyOf(displayNames, capacity);
+        names = Arrays.copyOf(names, capacity);
+        phones = Arrays.copyOf(phones, capacity);
+        joinDays = Arrays.copyOf(joinDays, capacity);
+        deactivated = Arrays.copyOf(deactivated, (capacity + 63) >>> 6);
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static long intArrayBytes(int length) {
+        return 16 + 4L * length;
+    }
+
+    private static long refArrayBytes(int length) {
+        return 16 + 4L * length;
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 24 + 16 + s.length();
+    }
+}
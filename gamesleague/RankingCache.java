@@ -0,0 +1,286 @@
+package gamesleague;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of computed rankings per league, for days and for weeks, months and
+ * years. Entries are filled when a ranking is first requested and invalidated
+ * when the points or the players they were computed from change.
+ * <p>
+ * A member joining does not invalidate anything: members keep their slot, so
+ * the new member is a new last entry with zero points on every day already
+ * played. A cached ranking shorter than the league is extended on read, the
+ * new entries taking the rank zero points had when it was computed.
+ * <p>
+ * The cache holds at most its capacity of rankings across all leagues. The
+ * entries are also linked in order of use, most recent first, and putting a
+ * ranking into a full cache evicts the least recently used one, so leagues
+ * and periods no longer read give way to those that are.
+ * <p>
+ * Hit, miss, invalidation and eviction counts are kept, with the number of
+ * entries, so the cache can be sized. Methods are synchronized as leagues
+ * may be read and updated concurrently (see ConcurrentGamesLeague).
+ */
+class RankingCache implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Rankings kept unless set otherwise, a few megabytes for leagues of tens of players. */
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final Map<Integer, Map<Long, Entry>> byLeague = new HashMap<>();
+    // most and least recently used entries of the list through every league's
+    // entries; not serialized, as a long chain would overflow the stack, but
+    // relinked on reading
+    private transient Entry newest;
+    private transient Entry oldest;
+    private int size = 0;
+    private int capacity;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long invalidations = 0;
+    private long extensions = 0;
+    private long evictions = 0;
+
+    RankingCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    RankingCache(int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Sets the most rankings kept, evicting the least recently used ones
+     * beyond it.
+     *
+     * @throws IllegalArgumentException If the capacity is below 1.
+     */
+    synchronized void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ranking cache capacity must be at least 1.");
+        }
+        this.capacity = capacity;
+        while (size > capacity) {
+            evictOldest();
+        }
+    }
+
+    synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param period The period, or null for a single day.
+     * @param periodKey The period key, or the epoch day for a single day.
+     * @param memberCount Current number of members of the league.
+     * @return The cached ranking (not a copy), extended to the member count,
+     *         or null if not cached.
+     */
+    synchronized int[] get(int leagueId, Period period, int periodKey, int memberCount) {
+        Map<Long, Entry> entries = byLeague.get(leagueId);
+        long key = key(period, periodKey);
+        Entry entry = entries == null ? null : entries.get(key);
+        if (entry != null && entry.ranking.length < memberCount) {
+            if (entry.zeroRank > 0) {
+                int from = entry.ranking.length;
+                entry.ranking = Arrays.copyOf(entry.ranking, memberCount);
+                Arrays.fill(entry.ranking, from, memberCount, entry.zeroRank);
+                extensions++;
+            } else {
+                remove(entries, key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        unlink(entry);
+        linkNewest(entry);
+        return entry.ranking;
+    }
+
+    /**
+     * @param points The points the ranking was computed from.
+     */
+    synchronized void put(int leagueId, Period period, int periodKey, int[] ranking, int[] points) {
+        long key = key(period, periodKey);
+        Entry entry = new Entry(leagueId, key, ranking, points);
+        Entry replaced = byLeague.computeIfAbsent(leagueId, id -> new HashMap<>()).put(key, entry);
+        if (replaced != null) {
+            unlink(replaced);
+            size--;
+        }
+        linkNewest(entry);
+        size++;
+        if (size > capacity) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Invalidates the rankings for the day and for the week, month and year containing it.
+     */
+    synchronized void invalidateDay(int leagueId, int day) {
+        Map<Long, Entry> entries = byLeague.get(leagueId);
+        if (entries == null) {
+            return;
+        }
+        remove(entries, key(null, day));
+        for (Period period : Period.values()) {
+            remove(entries, key(period, period.key(day)));
+        }
+    }
+
+    /**
+     * Invalidates every ranking of the league.
+     */
+    synchronized void invalidateLeague(int leagueId) {
+        Map<Long, Entry> entries = byLeague.remove(leagueId);
+        if (entries != null) {
+            for (Entry entry : entries.values()) {
+                unlink(entry);
+            }
+            size -= entries.size();
+            invalidations += entries.size();
+        }
+    }
+
+    synchronized void clear() {
+        invalidations += size;
+        byLeague.clear();
+        newest = null;
+        oldest = null;
+        size = 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return Number of cached rankings extended for members who joined later.
+     */
+    synchronized long getExtensions() {
+        return extensions;
+    }
+
+    /**
+     * @return Number of rankings dropped to make room for others.
+     */
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private void remove(Map<Long, Entry> entries, long key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unlink(entry);
+            size--;
+            invalidations++;
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (Map<Long, Entry> entries : byLeague.values()) {
+            for (Entry entry : entries.values()) {
+                linkNewest(entry);
+            }
+        }
+    }
+
+    private void evictOldest() {
+        Entry entry = oldest;
+        Map<Long, Entry> entries = byLeague.get(entry.leagueId);
+        entries.remove(entry.key);
+        if (entries.isEmpty()) {
+            byLeague.remove(entry.leagueId);
+        }
+        unlink(entry);
+        size--;
+        evictions++;
+    }
+
+    private void linkNewest(Entry entry) {
+        entry.newer = null;
+        entry.older = newest;
+        if (newest != null) {
+            newest.newer = entry;
+        } else {
+            oldest = entry;
+        }
+        newest = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.newer != null) {
+            entry.newer.older = entry.older;
+        } else {
+            newest = entry.older;
+        }
+        if (entry.older != null) {
+            entry.older.newer = entry.newer;
+        } else {
+            oldest = entry.newer;
+        }
+        entry.newer = null;
+        entry.older = null;
+    }
+
+    private static long key(Period period, int periodKey) {
+        long kind = period == null ? 0 : period.ordinal() + 1;
+        return (kind << 32) | (periodKey & 0xFFFFFFFFL);
+    }
+
+    private static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final int leagueId;
+        final long key;
+        int[] ranking;
+        // rank of a member with zero points, or 0 if some member had fewer
+        // (then a new member would change the others' ranks)
+        final int zeroRank;
+        // neighbours in order of use
+        transient Entry newer;
+        transient Entry older;
+
+        Entry(int leagueId, long key, int[] ranking, int[] points) {
+            this.leagueId = leagueId;
+            this.key = key;
+            this.ranking = ranking;
+            int ahead = 0;
+            boolean negative = false;
+            for (int p : points) {
+                if (p > 0) {
+                    ahead++;
+                } else if (p < 0) {
+                    negative = true;
+                }
+            }
+            this.zeroRank = negative ? 0 : ahead + 1;
+        }
+    }
+}
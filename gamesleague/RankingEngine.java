@@ -0,0 +1,160 @@
+package gamesleague;
+
+import java.util.Arrays;
+
+/**
+ * Ranks players by points (highest first) using standard competition
+ * ranking: tied players share the best rank and the following ranks are
+ * skipped, e.g. points 9, 7, 7, 3 rank 1, 2, 2, 4.
+ * <p>
+ * Works on primitive arrays only. When the points fall in a range small for
+ * the number of players the ranks come straight from a counting pass;
+ * otherwise player indices are radix sorted by points. Working arrays are kept
+ * per thread and reused, so once they have grown to the league size a call
+ * allocates only the returned array.
+ */
+final class RankingEngine {
+
+    /**
+     * The counting pass handles points ranges up to this many values per
+     * player, at least the floor. Past that, clearing and scanning the counts
+     * costs more than the four radix passes (see RankingBenchmarks).
+     */
+    private static final int COUNTING_RANGE_PER_PLAYER = 32;
+    private static final int COUNTING_RANGE_FLOOR = 1024;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private RankingEngine() {
+    }
+
+    /**
+     * @param points The points of each player.
+     * @return The rank of each player, in the same order as the points.
+     */
+    static int[] rank(int[] points) {
+        int n = points.length;
+        int[] ranks = new int[n];
+        if (n == 0) {
+            return ranks;
+        }
+        int min = points[0];
+        int max = points[0];
+        for (int i = 1; i < n; i++) {
+            min = Math.min(min, points[i]);
+            max = Math.max(max, points[i]);
+        }
+        long range = (long) max - min + 1;
+        if (range <= Math.max(COUNTING_RANGE_FLOOR, (long) COUNTING_RANGE_PER_PLAYER * n)) {
+            countingRank(points, min, (int) range, ranks);
+        } else {
+            radixRank(points, ranks);
+        }
+        return ranks;
+    }
+
+    /**
+     * Counts players per points value, then the rank of a value is one more
+     * than the number of players with more points.
+     */
+    private static void countingRank(int[] points, int min, int range, int[] ranks) {
+        int[] counts = SCRATCH.get().counts(range);
+        for (int p : points) {
+            counts[p - min]++;
+        }
+        // turn counts into "players with more points than this value" + 1
+        int ahead = 0;
+        for (int v = range - 1; v >= 0; v--) {
+            int count = counts[v];
+            counts[v] = ahead + 1;
+            ahead += count;
+        }
+        for (int i = 0; i < points.length; i++) {
+            ranks[i] = counts[points[i] - min];
+        }
+    }
+
+    /**
+     * Sorts player indices by points, highest first, with an LSD radix sort
+     * (four 8-bit passes), then assigns ranks walking the sorted order.
+     */
+    private static void radixRank(int[] points, int[] ranks) {
+        int n = points.length;
+        Scratch scratch = SCRATCH.get();
+        int[] order = scratch.order(n);
+        int[] buffer = scratch.buffer(n);
+        int[] counts = scratch.counts(256);
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(counts, 0, 256, 0);
+            for (int i = 0; i < n; i++) {
+                counts[digit(points[order[i]], shift)]++;
+            }
+            // descending order: largest digit first
+            int position = 0;
+            for (int d = 255; d >= 0; d--) {
+                int count = counts[d];
+                counts[d] = position;
+                position += count;
+            }
+            for (int i = 0; i < n; i++) {
+                int index = order[i];
+                buffer[counts[digit(points[index], shift)]++] = index;
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        int rank = 1;
+        for (int i = 0; i < n; i++) {
+            int index = order[i];
+            if (i > 0 && points[index] != points[order[i - 1]]) {
+                rank = i + 1;
+            }
+            ranks[index] = rank;
+        }
+    }
+
+    /**
+     * Digit of the points value with the sign bit flipped, so unsigned digit
+     * order matches signed value order.
+     */
+    private static int digit(int value, int shift) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+    }
+
+    /**
+     * Per thread working arrays, grown on demand and never shrunk.
+     */
+    private static final class Scratch {
+        private int[] counts = new int[256];
+        private int[] order = new int[64];
+        private int[] buffer = new int[64];
+
+        /** @return A zeroed array of at least the given length. */
+        int[] counts(int length) {
+            if (counts.length < length) {
+                counts = new int[Math.max(length, counts.length * 2)];
+            } else {
+                Arrays.fill(counts, 0, length, 0);
+            }
+            return counts;
+        }
+
+        int[] order(int length) {
+            if (order.length < length) {
+                order = new int[Math.max(length, order.length * 2)];
+            }
+            return order;
+        }
+
+        int[] buffer(int length) {
+            if (buffer.length < length) {
+                buffer = new int[Math.max(length, buffer.length * 2)];
+            }
+            return buffer;
+        }
+    }
+}
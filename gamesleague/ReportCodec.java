@@ -0,0 +1,189 @@
+package gamesleague;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses blocks of game reports, shared by the {@link ReportStore} of
+ * every league.
+ * <p>
+ * Reports of one game type look much alike (emoji grids, dice logs), so
+ * blocks are deflated with a preset dictionary per game type. The dictionary
+ * is trained from the first block of that type to be compressed and then
+ * fixed, since every later block depends on it. Decoded blocks are kept in a
+ * small LRU so reading the reports of a day or of a recent week decodes each
+ * block once.
+ */
+class ReportCodec implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DICTIONARY_BYTES = 16 * 1024;
+    private static final int CACHED_BLOCKS = 1024;
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+        ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final EnumMap<GameType, byte[]> dictionaries = new EnumMap<>(GameType.class);
+    private final Map<byte[], String[]> decoded = new LinkedHashMap<byte[], String[]>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<byte[], String[]> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param reports The reports of the block, none of them null.
+     * @param count Number of reports used from the array.
+     * @return The compressed block.
+     */
+    byte[] encode(GameType gameType, String[] reports, int count) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(count * 64);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = reports[i].getBytes(StandardCharsets.UTF_8);
+            writeVarInt(raw, bytes.length);
+            raw.write(bytes, 0, bytes.length);
+        }
+        byte[] input = raw.toByteArray();
+        byte[] dictionary = dictionary(gameType, input);
+
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setDictionary(dictionary);
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4 + 16);
+        writeVarInt(out, input.length);
+        writeVarInt(out, count);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return The reports of a block made by {@link #encode}. The array is
+     *         shared with the cache and must not be modified.
+     */
+    String[] decode(GameType gameType, byte[] block) {
+        synchronized (this) {
+            String[] reports = decoded.get(block);
+            if (reports != null) {
+                hits++;
+                return reports;
+            }
+            misses++;
+        }
+        int[] position = {0};
+        int rawLength = readVarInt(block, position);
+        int count = readVarInt(block, position);
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(block, position[0], block.length - position[0]);
+        try {
+            int n = 0;
+            while (n < rawLength) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(dictionaryFor(gameType));
+                } else if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Truncated report block.");
+                }
+                n += read;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt report block.", e);
+        }
+        String[] reports = new String[count];
+        position[0] = 0;
+        for (int i = 0; i < count; i++) {
+            int length = readVarInt(raw, position);
+            reports[i] = new String(raw, position[0], length, StandardCharsets.UTF_8);
+            position[0] += length;
+        }
+        synchronized (this) {
+            decoded.put(block, reports);
+        }
+        return reports;
+    }
+
+    /**
+     * @return The dictionaries trained so far, by game type, for a snapshot.
+     */
+    synchronized Map<GameType, byte[]> getDictionaries() {
+        return new EnumMap<>(dictionaries);
+    }
+
+    /**
+     * Sets the dictionary of a game type read from a snapshot, before any
+     * block of that type is encoded or decoded.
+     */
+    synchronized void restoreDictionary(GameType gameType, byte[] dictionary) {
+        dictionaries.put(gameType, dictionary);
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The dictionary of the game type, training it from the sample if
+     *         this is the first block of the type.
+     */
+    private synchronized byte[] dictionary(GameType gameType, byte[] sample) {
+        byte[] dictionary = dictionaries.get(gameType);
+        if (dictionary == null) {
+            // deflate prefers the most common strings at the end of the dictionary
+            dictionary = Arrays.copyOfRange(sample,
+                Math.max(0, sample.length - DICTIONARY_BYTES), sample.length);
+            dictionaries.put(gameType, dictionary);
+        }
+        return dictionary;
+    }
+
+    private synchronized byte[] dictionaryFor(GameType gameType) {
+        byte[] dictionary = dictionaries.get(gameType);
+        if (dictionary == null) {
+            throw new IllegalStateException("No report dictionary for " + gameType + ".");
+        }
+        return dictionary;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The game reports of one league, referred to from its day records by
+ * handle (handle 0 meaning no report).
+ * <p>
+ * Identical reports share a handle. New distinct reports are collected in an
+ * open block and, once it is full, the block is compressed by the shared
+ * {@link ReportCodec} and only decompressed again when one of its reports is
+ * read. Duplicates are found through a table of 64-bit report hashes, so the
+ * report strings themselves need not be kept.
+ */
+class ReportStore implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int NO_REPORT = 0;
+
+    static final int REPORTS_PER_BLOCK = 64;
+
+    private final GameType gameType;
+    private final ReportCodec codec;
+
+    private final List<byte[]> blocks = new ArrayList<>();
+    private String[] open;
+    private int distinct = 0;
+
+    // open addressing table: report hash -> handle, linear probing, load <= 0.5
+    private long[] hashes;
+    private int[] handles;
+
+    private long added = 0;
+    private long rawBytes = 0;
+
+    ReportStore(GameType gameType, ReportCodec codec) {
+        this.gameType = gameType;
+        this.codec = codec;
+    }
+
+    /**
+     * Stores a report, or finds the identical report already stored.
+     *
+     * @return The handle of the report.
+     */
+    int add(String report) {
+        added++;
+        rawBytes += 40 + report.length();
+        if (hashes == null) {
+            hashes = new long[32];
+            handles = new int[32];
+        }
+        long hash = hash(report);
+        int mask = hashes.length - 1;
+        int i = (int) (hash ^ (hash >>> 32)) & mask;
+        while (handles[i] != NO_REPORT) {
+            if (hashes[i] == hash && get(handles[i]).equals(report)) {
+                return handles[i];
+            }
+            i = (i + 1) & mask;
+        }
+        int handle = append(report);
+        hashes[i] = hash;
+        handles[i] = handle;
+        if (distinct * 2 > hashes.length) {
+            rehash(hashes.length * 2);
+        }
+        return handle;
+    }
+
+    /**
+     * @return The report with the handle, or the empty string for {@link #NO_REPORT}.
+     */
+    String get(int handle) {
+        if (handle == NO_REPORT) {
+            return "";
+        }
+        int index = handle - 1;
+        int block = index / REPORTS_PER_BLOCK;
+        if (block == blocks.size()) {
+            return open[index % REPORTS_PER_BLOCK];
+        }
+        return codec.decode(gameType, blocks.get(block))[index % REPORTS_PER_BLOCK];
+    }
+
+    /**
+     * Removes every report.
+     */
+    void clear() {
+        blocks.clear();
+        open = null;
+        distinct = 0;
+        hashes = null;
+        handles = null;
+        added = 0;
+        rawBytes = 0;
+    }
+
+    /**
+     * @return Number of reports added, counting duplicates.
+     */
+    long getAdded() {
+        return added;
+    }
+
+    int getDistinct() {
+        return distinct;
+    }
+
+    int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * @return The compressed block, not a copy.
+     */
+    byte[] getBlock(int index) {
+        return blocks.get(index);
+    }
+
+    /**
+     * @return The hash of each report by handle - 1, as kept for finding
+     *         duplicates.
+     */
+    long[] getHashes() {
+        long[] byHandle = new long[distinct];
+        if (handles != null) {
+            for (int i = 0; i < handles.length; i++) {
+                if (handles[i] != NO_REPORT) {
+                    byHandle[handles[i] - 1] = hashes[i];
+                }
+            }
+        }
+        return byHandle;
+    }
+
+    /**
+     * Replaces the contents with those read from a snapshot: the compressed
+     * blocks as they were written, the reports of the open block and the
+     * hash of every report, so nothing is decoded or hashed again.
+     *
+     * @param hashes The hash of each report by handle - 1.
+     */
+    void restore(List<byte[]> restoredBlocks, String[] openReports, long[] hashes,
+            long added, long rawBytes) {
+        clear();
+        blocks.addAll(restoredBlocks);
+        open = new String[REPORTS_PER_BLOCK];
+        System.arraycopy(openReports, 0, open, 0, openReports.length);
+        distinct = restoredBlocks.size() * REPORTS_PER_BLOCK + openReports.length;
+        int capacity = 32;
+        while (distinct * 2 > capacity) {
+            capacity *= 2;
+        }
+        this.hashes = new long[capacity];
+        this.handles = new int[capacity];
+        int mask = capacity - 1;
+        for (int h = 0; h < distinct; h++) {
+            long hash = hashes[h];
+            int i = (int) (hash ^ (hash >>> 32)) & mask;
+            while (handles[i] != NO_REPORT) {
+                i = (i + 1) & mask;
+            }
+            this.hashes[i] = hash;
+            handles[i] = h + 1;
+        }
+        this.added = added;
+        this.rawBytes = rawBytes;
+    }
+
+    /**
+     * Rough estimate of the heap the reports would take held as one String
+     * each (compact Latin-1 strings, as in {@link PlayerRegistry#footprintBytes()}).
+     */
+    long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * Rough estimate of the heap used by the store.
+     */
+    long footprintBytes() {
+        long bytes = 64 + 16 + 4L * blocks.size();
+        for (byte[] block : blocks) {
+            bytes += 16 + block.length;
+        }
+        if (open != null) {
+            bytes += 16 + 4L * open.length;
+            for (int i = 0; i < distinct % REPORTS_PER_BLOCK; i++) {
+                bytes += 40 + open[i].length();
+            }
+        }
+        if (hashes != null) {
+            bytes += 16 + 8L * hashes.length + 16 + 4L * handles.length;
+        }
+        return bytes;
+    }
+
+    private int append(String report) {
+        if (open == null) {
+            open = new String[REPORTS_PER_BLOCK];
+        }
+        open[distinct % REPORTS_PER_BLOCK] = report;
+        distinct++;
+        if (distinct % REPORTS_PER_BLOCK == 0) {
+            blocks.add(codec.encode(gameType, open, REPORTS_PER_BLOCK));
+            open = new String[REPORTS_PER_BLOCK];
+        }
+        return distinct;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldHashes = hashes;
+        int[] oldHandles = handles;
+        hashes = new long[capacity];
+        handles = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldHandles.length; j++) {
+            if (oldHandles[j] != NO_REPORT) {
+                long hash = oldHashes[j];
+                int i = (int) (hash ^ (hash >>> 32)) & mask;
+                while (handles[i] != NO_REPORT) {
+                    i = (i + 1) & mask;
+                }
+                hashes[i] = hash;
+                handles[i] = oldHandles[j];
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of the report.
+     */
+    private static long hash(String report) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < report.length(); i++) {
+            h = (h ^ report.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+}
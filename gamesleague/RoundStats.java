@@ -0,0 +1,87 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Per-player round counters behind getPlayerRoundsPlayed and
+ * getPlayerRoundsPercentage, indexed by {@link PlayerRegistry} slot.
+ * <p>
+ * A round is a closed (not voided) league day the player was active for; it
+ * was played if the player registered a game report for it. The counters are
+ * kept up to date as days are closed, voided or reset, so both stats are
+ * array reads. Rounds of removed leagues still count, and are also recorded
+ * as retired so the counters can be checked against the remaining history.
+ * <p>
+ * Methods are synchronized as leagues on different lock stripes may update
+ * it concurrently (see ConcurrentGamesLeague).
+ */
+class RoundStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int[] played = new int[16];
+    private int[] eligible = new int[16];
+    private int[] retiredPlayed = new int[16];
+    private int[] retiredEligible = new int[16];
+
+    /**
+     * Adds to the player's rounds played and eligible (negative to take away).
+     */
+    synchronized void add(int slot, int playedDelta, int eligibleDelta) {
+        ensureCapacity(slot);
+        played[slot] += playedDelta;
+        eligible[slot] += eligibleDelta;
+    }
+
+    /**
+     * Records rounds of a removed league. They stay in the player's counters.
+     */
+    synchronized void retire(int slot, int playedRounds, int eligibleRounds) {
+        ensureCapacity(slot);
+        retiredPlayed[slot] += playedRounds;
+        retiredEligible[slot] += eligibleRounds;
+    }
+
+    synchronized int getPlayed(int slot) {
+        return slot < played.length ? played[slot] : 0;
+    }
+
+    synchronized int getEligible(int slot) {
+        return slot < eligible.length ? eligible[slot] : 0;
+    }
+
+    /**
+     * @return Rounds played as a percentage (0-100) of rounds eligible, or 0
+     *         if the player has had no rounds.
+     */
+    synchronized double getPercentage(int slot) {
+        int rounds = getEligible(slot);
+        return rounds == 0 ? 0 : 100.0 * getPlayed(slot) / rounds;
+    }
+
+    synchronized int getRetiredPlayed(int slot) {
+        return slot < retiredPlayed.length ? retiredPlayed[slot] : 0;
+    }
+
+    synchronized int getRetiredEligible(int slot) {
+        return slot < retiredEligible.length ? retiredEligible[slot] : 0;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(played, 0);
+        Arrays.fill(eligible, 0);
+        Arrays.fill(retiredPlayed, 0);
+        Arrays.fill(retiredEligible, 0);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot >= played.length) {
+            int capacity = Math.max(slot + 1, played.length * 2);
+            played = Arrays.copyOf(played, capacity);
+            eligible = Arrays.copyOf(eligible, capacity);
+            retiredPlayed = Arrays.copyOf(retiredPlayed, capacity);
+            retiredEligible = Arrays.copyOf(retiredEligible, capacity);
+        }
+    }
+}
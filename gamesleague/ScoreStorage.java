@@ -0,0 +1,46 @@
+package gamesleague;
+
+/**
+ * Storage of a league's day by player score and points matrices. Rows are
+ * addressed by the day relative to the league start day and columns by the
+ * member's position in the league. Cells that were never written read as 0.
+ */
+interface ScoreStorage {
+
+    /**
+     * Writes a row of scores and/or points. A null array leaves that matrix's
+     * row unchanged.
+     */
+    void put(int row, int[] scores, int[] points);
+
+    /**
+     * @return The scores of the row, padded with zeros to the member count.
+     */
+    int[] getScores(int row, int memberCount);
+
+    /**
+     * @return The points of the row, padded with zeros to the member count.
+     */
+    int[] getPoints(int row, int memberCount);
+
+    /**
+     * Removes every row.
+     */
+    void clear();
+
+    /**
+     * Releases the storage. It must not be used afterwards.
+     */
+    void close();
+
+    /**
+     * @param directory Directory for memory-mapped files, or null to keep scores on the heap.
+     * @param generation The league's history generation (see {@link LeagueHistory}).
+     * @return Storage for one generation of one league.
+     */
+    static ScoreStorage create(String directory, int leagueId, int generation) {
+        return directory == null
+            ? new HeapScoreStorage()
+            : new MappedScoreStorage(directory, leagueId, generation);
+    }
+}
@@ -0,0 +1,225 @@
+package gamesleague;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Turns a day's raw game scores into league points, one strategy per
+ * {@link GameType}.
+ * <p>
+ * A strategy only says how a score compares to others: {@link #failed(int)}
+ * says whether the game counts as failed and {@link #key(int)} maps any other
+ * score to a value where higher is better. Every int is a valid key, so a
+ * failure is tracked apart from the keys. Points are then the same for every
+ * game type: an active player who did not fail gets one point plus one for
+ * every active player they beat (a failed player is beaten by everyone who
+ * did not fail), and everyone else gets none.
+ * <p>
+ * Strategies are looked up by game type ordinal, so a league resolves its
+ * strategy once and the scoring loop has no branches on the game type. As
+ * GameType is an enum and strategies implement package-private methods, new
+ * strategies can only be added within this package.
+ * Points are computed with a counting pass when the keys fall in a small
+ * range and by sorting otherwise, with per thread working arrays as in
+ * {@link RankingEngine}.
+ */
+abstract class ScoringStrategy {
+
+    /** Largest key range handled by the counting pass, beyond a multiple of n. */
+    private static final int COUNTING_RANGE_LIMIT = 1 << 16;
+
+    private static final ScoringStrategy[] BY_GAME_TYPE = new ScoringStrategy[GameType.values().length];
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    static {
+        register(GameType.DICEROLL, new DiceRoll());
+        register(GameType.WORDMASTER, new WordMaster());
+    }
+
+    /**
+     * @return The strategy for the game type.
+     * @throws IllegalArgumentException If no strategy is registered for it.
+     */
+    static ScoringStrategy of(GameType gameType) {
+        ScoringStrategy strategy = BY_GAME_TYPE[gameType.ordinal()];
+        if (strategy == null) {
+            throw new IllegalArgumentException("No scoring strategy for " + gameType + ".");
+        }
+        return strategy;
+    }
+
+    /**
+     * Sets the strategy used for a game type. Leagues resolve their strategy
+     * when created, so this is meant for start-up.
+     */
+    static void register(GameType gameType, ScoringStrategy strategy) {
+        BY_GAME_TYPE[gameType.ordinal()] = strategy;
+    }
+
+    /**
+     * @return true if the game counts as failed, beaten by any game that did not fail.
+     */
+    abstract boolean failed(int score);
+
+    /**
+     * @return A key for a score that did not fail, where a higher key is a better game.
+     */
+    abstract int key(int score);
+
+    /**
+     * Computes the points of a day.
+     *
+     * @param scores The score of each member.
+     * @param inactive Members (by position) who are inactive and get no points.
+     * @param points Receives the points of each member; same length as scores.
+     */
+    final void computePoints(int[] scores, BitSet inactive, int[] points) {
+        int n = scores.length;
+        Scratch scratch = SCRATCH.get();
+        int[] keys = scratch.keys(n);
+        // unranked: inactive or failed, so no points and no key
+        boolean[] unranked = scratch.unranked(n);
+        int failed = 0;
+        int ranked = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            if (inactive.get(i)) {
+                unranked[i] = true;
+            } else if (failed(scores[i])) {
+                unranked[i] = true;
+                failed++;
+            } else {
+                int key = key(scores[i]);
+                keys[i] = key;
+                unranked[i] = false;
+                ranked++;
+                min = Math.min(min, key);
+                max = Math.max(max, key);
+            }
+        }
+        if (ranked == 0) {
+            Arrays.fill(points, 0, n, 0);
+            return;
+        }
+        long range = (long) max - min + 1;
+        if (range <= COUNTING_RANGE_LIMIT || range <= 4L * ranked) {
+            // below[v] becomes the number of ranked players with a lower key than min + v
+            int[] below = scratch.counts((int) range);
+            for (int i = 0; i < n; i++) {
+                if (!unranked[i]) {
+                    below[keys[i] - min]++;
+                }
+            }
+            int lower = 0;
+            for (int v = 0; v < range; v++) {
+                int count = below[v];
+                below[v] = lower;
+                lower += count;
+            }
+            for (int i = 0; i < n; i++) {
+                points[i] = unranked[i] ? 0 : 1 + failed + below[keys[i] - min];
+            }
+        } else {
+            int[] sorted = scratch.sorted(ranked);
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                if (!unranked[i]) {
+                    sorted[m++] = keys[i];
+                }
+            }
+            Arrays.sort(sorted, 0, m);
+            for (int i = 0; i < n; i++) {
+                points[i] = unranked[i] ? 0 : 1 + failed + lowerBound(sorted, m, keys[i]);
+            }
+        }
+    }
+
+    /**
+     * @return Number of values in the sorted prefix lower than the key.
+     */
+    private static int lowerBound(int[] sorted, int length, int key) {
+        int lo = 0;
+        int hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Higher total is better; no roll fails.
+     */
+    private static final class DiceRoll extends ScoringStrategy {
+        @Override
+        boolean failed(int score) {
+            return false;
+        }
+
+        @Override
+        int key(int score) {
+            return score;
+        }
+    }
+
+    /**
+     * Fewer guesses is better; anything outside 1 to 6 guesses failed.
+     */
+    private static final class WordMaster extends ScoringStrategy {
+        @Override
+        boolean failed(int score) {
+            return score < 1 || score > 6;
+        }
+
+        @Override
+        int key(int score) {
+            return -score;
+        }
+    }
+
+    /**
+     * Per thread working arrays, grown on demand and never shrunk.
+     */
+    private static final class Scratch {
+        private int[] keys = new int[64];
+        private boolean[] unranked = new boolean[64];
+        private int[] counts = new int[256];
+        private int[] sorted = new int[64];
+
+        int[] keys(int length) {
+            if (keys.length < length) {
+                keys = new int[Math.max(length, keys.length * 2)];
+            }
+            return keys;
+        }
+
+        boolean[] unranked(int length) {
+            if (unranked.length < length) {
+                unranked = new boolean[Math.max(length, unranked.length * 2)];
+            }
+            return unranked;
+        }
+
+        /** @return A zeroed array of at least the given length. */
+        int[] counts(int length) {
+            if (counts.length < length) {
+                counts = new int[Math.max(length, counts.length * 2)];
+            } else {
+                Arrays.fill(counts, 0, length, 0);
+            }
+            return counts;
+        }
+
+        int[] sorted(int length) {
+            if (sorted.length < length) {
+                sorted = new int[Math.max(length, sorted.length * 2)];
+            }
+            return sorted;
+        }
+    }
+}
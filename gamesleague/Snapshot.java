@@ -0,0 +1,467 @@
+package gamesleague;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary snapshot of a GamesLeague, used by saveGamesLeagueData and
+ * loadGamesLeagueData.
+ * <p>
+ * The file starts with a magic number and format version, followed by one
+ * chunk per kind of entity (players, leagues, invites, report dictionaries,
+ * reports, day records, rounds of removed leagues) and an end marker. Each
+ * chunk is a tag, a record count and the records. Everything is streamed
+ * through a fixed size buffer in both directions, so neither a save nor a
+ * load needs a second copy of the data in memory. Indexes and period totals
+ * are derived data and are rebuilt on load rather than stored.
+ * <p>
+ * Each league's reports are stored once, as its report store holds them: the
+ * compressed blocks byte for byte, with the dictionaries they were compressed
+ * with, and the hash of every report for finding duplicates. Day records
+ * refer to them by handle and list the members each closed day counts as a
+ * round for.
+ */
+class Snapshot {
+
+    static final int MAGIC = 0x474C534E; // "GLSN"
+    static final int VERSION = 1;
+
+    private static final int CHUNK_END = 0;
+    private static final int CHUNK_PLAYERS = 1;
+    private static final int CHUNK_LEAGUES = 2;
+    private static final int CHUNK_INVITES = 3;
+    private static final int CHUNK_DAYS = 4;
+    private static final int CHUNK_RETIRED_ROUNDS = 5;
+    private static final int CHUNK_REPORT_DICTIONARIES = 6;
+    private static final int CHUNK_REPORTS = 7;
+
+    final PlayerRegistry players;
+    final Map<Integer, League> leagues;
+    final int nextLeagueId;
+    // only the retired rounds are stored, the rest are rebuilt from the days
+    final RoundStats roundStats;
+    // the codec the leagues' report blocks are compressed with
+    final ReportCodec reportCodec;
+
+    Snapshot(PlayerRegistry players, Map<Integer, League> leagues, int nextLeagueId,
+            RoundStats roundStats, ReportCodec reportCodec) {
+        this.players = players;
+        this.leagues = leagues;
+        this.nextLeagueId = nextLeagueId;
+        this.roundStats = roundStats;
+        this.reportCodec = reportCodec;
+    }
+
+    /**
+     * Writes the snapshot to the file, replacing any existing one. It is
+     * written to a temporary file next to it, forced to disk and then moved
+     * over it atomically, so a crash part way through leaves the old file
+     * whole rather than a truncated one.
+     */
+    void write(String filename) throws IOException {
+        Path file = Paths.get(filename).toAbsolutePath();
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ChannelOutput out = new ChannelOutput(channel);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writePlayers(out);
+                writeLeagues(out);
+                writeInvites(out);
+                writeReportDictionaries(out);
+                writeReports(out);
+                writeDays(out);
+                writeRetiredRounds(out);
+                out.writeInt(CHUNK_END);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        forceDirectory(file.getParent());
+    }
+
+    /**
+     * Forces the directory so the move survives a crash, where the platform
+     * lets a directory be opened (not on Windows).
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the snapshot is complete either way; only the move may not be durable yet
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(String)}. The leagues' report
+     * stores share a new codec holding the dictionaries read, which replaces
+     * the loading GamesLeague's. If reading fails the score storage of any
+     * leagues already read is released.
+     *
+     * @param scoreDirectory Directory for memory-mapped score storage or null for heap storage.
+     * @throws IOException If the file cannot be read or is not a valid snapshot.
+     */
+    static Snapshot read(String filename, String scoreDirectory) throws IOException {
+        ReportCodec reportCodec = new ReportCodec();
+        Map<Integer, League> leagues = new LinkedHashMap<>();
+        try {
+            return read(filename, scoreDirectory, reportCodec, leagues);
+        } catch (IOException | RuntimeException e) {
+            for (League league : leagues.values()) {
+                league.release();
+            }
+            throw e;
+        }
+    }
+
+    private static Snapshot read(String filename, String scoreDirectory,
+            ReportCodec reportCodec, Map<Integer, League> leagues) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ChannelInput in = new ChannelInput(channel);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("File " + filename + " is not a GamesLeague snapshot.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ".");
+            }
+            PlayerRegistry players = new PlayerRegistry();
+            RoundStats roundStats = new RoundStats();
+            int nextLeagueId = 1;
+            for (int tag = in.readInt(); tag != CHUNK_END; tag = in.readInt()) {
+                switch (tag) {
+                    case CHUNK_PLAYERS:
+                        readPlayers(in, players);
+                        break;
+                    case CHUNK_LEAGUES:
+                        nextLeagueId = readLeagues(in, leagues, scoreDirectory, reportCodec);
+                        break;
+                    case CHUNK_INVITES:
+                        readInvites(in, leagues);
+                        break;
+                    case CHUNK_DAYS:
+                        readDays(in, leagues);
+                        break;
+                    case CHUNK_RETIRED_ROUNDS:
+                        readRetiredRounds(in, players, roundStats);
+                        break;
+                    case CHUNK_REPORT_DICTIONARIES:
+                        readReportDictionaries(in, reportCodec);
+                        break;
+                    case CHUNK_REPORTS:
+                        readReports(in, leagues);
+                        break;
+                    default:
+                        throw new IOException("Corrupt snapshot: unknown chunk " + tag + ".");
+                }
+            }
+            return new Snapshot(players, leagues, nextLeagueId, roundStats, reportCodec);
+        }
+    }
+
+    private void writePlayers(ChannelOutput out) throws IOException {
+        out.writeInt(CHUNK_PLAYERS);
+        out.writeInt(players.size());
+        out.writeInt(players.getNextId());
+        for (int slot = 0; slot < players.size(); slot++) {
+            out.writeInt(players.idAt(slot));
+            out.writeString(players.getEmail(slot));
+            out.writeString(players.getDisplayName(slot));
+            out.writeString(players.getName(slot));
+            out.writeString(players.getPhone(slot));
+            out.writeInt(players.getJoinDay(slot));
+            out.writeBoolean(players.isDeactivated(slot));
+        }
+    }
+
+    private static void readPlayers(ChannelInput in, PlayerRegistry players) throws IOException {
+        int count = in.readInt();
+        int nextId = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int id = in.readInt();
+            String email = in.readString();
+            String displayName = in.readString();
+            String name = in.readString();
+            String phone = in.readString();
+            int joinDay = in.readInt();
+            boolean deactivated = in.readBoolean();
+            players.restore(id, email, displayName, name, phone, joinDay, deactivated);
+        }
+        players.setNextId(nextId);
+    }
+
+    private void writeLeagues(ChannelOutput out) throws IOException {
+        out.writeInt(CHUNK_LEAGUES);
+        out.writeInt(leagues.size());
+        out.writeInt(nextLeagueId);
+        for (League league : leagues.values()) {
+            out.writeInt(league.getId());
+            out.writeString(league.getName());
+            out.writeByte(league.getGameType().ordinal());
+            out.writeInt(league.getStartDay());
+            out.writeInt(league.getCloseDay());
+            out.writeIntArray(league.getMembers());
+            for (int i = 0; i < league.memberCount(); i++) {
+                out.writeBoolean(league.isActive(i));
+            }
+            out.writeIntArray(league.getOwners());
+        }
+    }
+
+    private static int readLeagues(ChannelInput in, Map<Integer, League> leagues,
+            String scoreDirectory, ReportCodec reportCodec) throws IOException {
+        int count = in.readInt();
+        int nextLeagueId = in.readInt();
+        GameType[] gameTypes = GameType.values();
+        for (int i = 0; i < count; i++) {
+            int id = in.readInt();
+            String name = in.readString();
+            int gameType = in.readByte();
+            if (gameType < 0 || gameType >= gameTypes.length) {
+                throw new IOException("Corrupt snapshot: unknown game type " + gameType + ".");
+            }
+            League league = new League(id, name, gameTypes[gameType],
+                ScoreStorage.create(scoreDirectory, id, 0), reportCodec);
+            league.setStartDay(in.readInt());
+            league.setCloseDay(in.readInt());
+            int[] members = in.readIntArray();
+            for (int m = 0; m < members.length; m++) {
+                league.addMember(members[m]);
+                league.setActive(m, in.readBoolean());
+            }
+            for (int owner : in.readIntArray()) {
+                league.addOwner(owner);
+            }
+            leagues.put(id, league);
+        }
+        return nextLeagueId;
+    }
+
+    private void writeInvites(ChannelOutput out) throws IOException {
+        out.writeInt(CHUNK_INVITES);
+        out.writeInt(leagues.size());
+        for (League league : leagues.values()) {
+            out.writeInt(league.getId());
+            out.writeIntArray(league.getPlayerInvites());
+            String[] emails = league.getEmailInvites();
+            out.writeInt(emails.length);
+            for (String email : emails) {
+                out.writeString(email);
+            }
+        }
+    }
+
+    private static void readInvites(ChannelInput in, Map<Integer, League> leagues) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            League league = leagueFor(leagues, in.readInt());
+            for (int playerId : in.readIntArray()) {
+                league.addPlayerInvite(playerId);
+            }
+            int emails = in.readInt();
+            for (int e = 0; e < emails; e++) {
+                league.addEmailInvite(in.readString());
+            }
+        }
+    }
+
+    private void writeReportDictionaries(ChannelOutput out) throws IOException {
+        Map<GameType, byte[]> dictionaries = reportCodec.getDictionaries();
+        out.writeInt(CHUNK_REPORT_DICTIONARIES);
+        out.writeInt(dictionaries.size());
+        for (Map.Entry<GameType, byte[]> entry : dictionaries.entrySet()) {
+            out.writeByte(entry.getKey().ordinal());
+            out.writeInt(entry.getValue().length);
+            out.writeBytes(entry.getValue());
+        }
+    }
+
+    private static void readReportDictionaries(ChannelInput in, ReportCodec reportCodec)
+            throws IOException {
+        int count = in.readInt();
+        GameType[] gameTypes = GameType.values();
+        for (int i = 0; i < count; i++) {
+            int gameType = in.readByte();
+            if (gameType < 0 || gameType >= gameTypes.length) {
+                throw new IOException("Corrupt snapshot: unknown game type " + gameType + ".");
+            }
+            reportCodec.restoreDictionary(gameTypes[gameType], in.readBytes(in.readInt()));
+        }
+    }
+
+    private void writeReports(ChannelOutput out) throws IOException {
+        out.writeInt(CHUNK_REPORTS);
+        out.writeInt(leagues.size());
+        for (League league : leagues.values()) {
+            ReportStore store = league.getReportStore();
+            out.writeInt(league.getId());
+            out.writeVarLong(store.getAdded());
+            out.writeVarLong(store.getRawBytes());
+            out.writeInt(store.getBlockCount());
+            for (int b = 0; b < store.getBlockCount(); b++) {
+                byte[] block = store.getBlock(b);
+                out.writeInt(block.length);
+                out.writeBytes(block);
+            }
+            int distinct = store.getDistinct();
+            out.writeInt(distinct - store.getBlockCount() * ReportStore.REPORTS_PER_BLOCK);
+            for (int handle = store.getBlockCount() * ReportStore.REPORTS_PER_BLOCK + 1;
+                    handle <= distinct; handle++) {
+                out.writeString(store.get(handle));
+            }
+            for (long hash : store.getHashes()) {
+                out.writeLong(hash);
+            }
+        }
+    }
+
+    private static void readReports(ChannelInput in, Map<Integer, League> leagues) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            League league = leagueFor(leagues, in.readInt());
+            long added = in.readVarLong();
+            long rawBytes = in.readVarLong();
+            List<byte[]> blocks = new ArrayList<>();
+            for (int b = in.readInt(); b > 0; b--) {
+                blocks.add(in.readBytes(in.readInt()));
+            }
+            int openCount = in.readInt();
+            if (openCount < 0 || openCount >= ReportStore.REPORTS_PER_BLOCK) {
+                throw new IOException("Corrupt snapshot: bad open report count " + openCount + ".");
+            }
+            String[] open = new String[openCount];
+            for (int r = 0; r < openCount; r++) {
+                open[r] = in.readString();
+            }
+            long[] hashes = new long[blocks.size() * ReportStore.REPORTS_PER_BLOCK + openCount];
+            for (int h = 0; h < hashes.length; h++) {
+                hashes[h] = in.readLong();
+            }
+            league.getReportStore().restore(blocks, open, hashes, added, rawBytes);
+        }
+    }
+
+    private void writeDays(ChannelOutput out) throws IOException {
+        out.writeInt(CHUNK_DAYS);
+        out.writeInt(leagues.size());
+        for (League league : leagues.values()) {
+            int[] days = league.getDays();
+            out.writeInt(league.getId());
+            out.writeInt(days.length);
+            for (int day : days) {
+                DayRecord record = league.getDay(day);
+                out.writeInt(day);
+                out.writeByte(league.getDayStatus(day).ordinal());
+                out.writeBoolean(record.isVoided());
+                out.writeIntArray(record.reportsArray());
+                out.writeIntArray(league.getScores(day));
+                out.writeIntArray(league.getPoints(day));
+                BitSet counted = record.getCounted();
+                out.writeIntArray(counted == null ? null : counted.stream().toArray());
+            }
+        }
+    }
+
+    private static void readDays(ChannelInput in, Map<Integer, League> leagues) throws IOException {
+        int count = in.readInt();
+        Status[] statuses = Status.values();
+        for (int i = 0; i < count; i++) {
+            League league = leagueFor(leagues, in.readInt());
+            int days = in.readInt();
+            for (int d = 0; d < days; d++) {
+                int day = in.readInt();
+                int status = in.readByte();
+                if (status < 0 || status >= statuses.length) {
+                    throw new IOException("Corrupt snapshot: unknown status " + status + ".");
+                }
+                boolean voided = in.readBoolean();
+                int[] reports = readReportHandles(in, league);
+                int[] scores = in.readIntArray();
+                int[] points = in.readIntArray();
+                BitSet counted = null;
+                int[] members = in.readIntArray();
+                if (members != null) {
+                    counted = new BitSet();
+                    for (int m : members) {
+                        counted.set(m);
+                    }
+                }
+                DayRecord record = new DayRecord(voided, points != null, reports, counted);
+                league.restoreDay(day, statuses[status], record, scores, points);
+            }
+        }
+    }
+
+    private static int[] readReportHandles(ChannelInput in, League league) throws IOException {
+        int[] reports = in.readIntArray();
+        if (reports == null) {
+            throw new IOException("Corrupt snapshot: missing reports.");
+        }
+        int distinct = league.getReportStore().getDistinct();
+        for (int handle : reports) {
+            if (handle < ReportStore.NO_REPORT || handle > distinct) {
+                throw new IOException("Corrupt snapshot: unknown report " + handle + ".");
+            }
+        }
+        return reports;
+    }
+
+    private void writeRetiredRounds(ChannelOutput out) throws IOException {
+        out.writeInt(CHUNK_RETIRED_ROUNDS);
+        int count = 0;
+        for (int slot = 0; slot < players.size(); slot++) {
+            if (roundStats.getRetiredEligible(slot) != 0) {
+                count++;
+            }
+        }
+        out.writeInt(count);
+        for (int slot = 0; slot < players.size(); slot++) {
+            if (roundStats.getRetiredEligible(slot) != 0) {
+                out.writeInt(players.idAt(slot));
+                out.writeInt(roundStats.getRetiredPlayed(slot));
+                out.writeInt(roundStats.getRetiredEligible(slot));
+            }
+        }
+    }
+
+    private static void readRetiredRounds(ChannelInput in, PlayerRegistry players,
+            RoundStats roundStats) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int playerId = in.readInt();
+            int played = in.readInt();
+            int eligible = in.readInt();
+            int slot = players.slotOf(playerId);
+            if (slot == -1) {
+                throw new IOException("Corrupt snapshot: unknown player " + playerId + ".");
+            }
+            // retired rounds count towards the player's totals as well
+            roundStats.retire(slot, played, eligible);
+            roundStats.add(slot, played, eligible);
+        }
+    }
+
+    private static League leagueFor(Map<Integer, League> leagues, int leagueId) throws IOException {
+        League league = leagues.get(leagueId);
+        if (league == null) {
+            throw new IOException("Corrupt snapshot: unknown league " + leagueId + ".");
+        }
+        return league;
+    }
+}
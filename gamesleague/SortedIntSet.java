@@ -0,0 +1,67 @@
+package gamesleague;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Small set of ints kept as a sorted array, for the few league IDs a player
+ * is linked to. Lookups are binary searches; adding and removing shift the
+ * tail of the array.
+ */
+class SortedIntSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int[] values = new int[4];
+    private int size = 0;
+
+    /**
+     * @return true if the value was not already in the set.
+     */
+    boolean add(int value) {
+        int i = Arrays.binarySearch(values, 0, size, value);
+        if (i >= 0) {
+            return false;
+        }
+        i = -i - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(values, i, values, i + 1, size - i);
+        values[i] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return true if the value was in the set.
+     */
+    boolean remove(int value) {
+        int i = Arrays.binarySearch(values, 0, size, value);
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(values, i + 1, values, i, size - i - 1);
+        size--;
+        return true;
+    }
+
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return A copy of the values in ascending order.
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,97 @@
+package gamesleague;
+
+/**
+ * The GamesLeagueInterface calls a trace can hold, in interface order. The
+ * ordinal is the opcode written to the trace, so new calls may only be
+ * added at the end.
+ * <p>
+ * Each call has its argument kinds, one letter per argument: I for an int,
+ * S for a String, A for an int array and G for a GameType. For replay on
+ * several threads it also says which argument picks the worker (the league
+ * for league calls, the player for player calls), so the calls on one league
+ * or player are replayed in order; -1 means any worker will do. Calls that
+ * create IDs or span leagues are barriers, replayed alone once every worker
+ * is idle, so later calls see the same IDs they saw when recorded.
+ */
+enum TraceOp {
+
+    GET_PLAYER_IDS("getPlayerIds", "", -1, false),
+    CREATE_PLAYER("createPlayer", "SSSS", -1, true),
+    DEACTIVATE_PLAYER("deactivatePlayer", "I", -1, true),
+    IS_DEACTIVATED_PLAYER("isDeactivatedPlayer", "I", 0, false),
+    UPDATE_PLAYER_DISPLAY_NAME("updatePlayerDisplayName", "IS", 0, false),
+    GET_PLAYER_ID("getPlayerId", "S", -1, false),
+    GET_PLAYER_DISPLAY_NAME("getPlayerDisplayName", "I", 0, false),
+    GET_PLAYER_EMAIL("getPlayerEmail", "I", 0, false),
+    GET_PLAYER_LEAGUES("getPlayerLeagues", "I", 0, false),
+    GET_PLAYER_OWNED_LEAGUES("getPlayerOwnedLeagues", "I", 0, false),
+    GET_PLAYER_INVITES("getPlayerInvites", "I", 0, false),
+    GET_PLAYER_ROUNDS_PLAYED("getPlayerRoundsPlayed", "I", 0, false),
+    GET_PLAYER_ROUNDS_PERCENTAGE("getPlayerRoundsPercentage", "I", 0, false),
+    GET_PLAYER_JOIN_DATE("getPlayerJoinDate", "I", 0, false),
+    GET_LEAGUE_IDS("getLeagueIds", "", -1, false),
+    CREATE_LEAGUE("createLeague", "ISG", -1, true),
+    REMOVE_LEAGUE("removeLeague", "I", -1, true),
+    GET_LEAGUE_NAME("getLeagueName", "I", 0, false),
+    UPDATE_LEAGUE_NAME("updateLeagueName", "IS", 0, false),
+    INVITE_PLAYER_TO_LEAGUE("invitePlayerToLeague", "IS", 0, false),
+    ACCEPT_INVITE_TO_LEAGUE("acceptInviteToLeague", "II", 0, false),
+    REMOVE_INVITE_FROM_LEAGUE("removeInviteFromLeague", "IS", 0, false),
+    GET_LEAGUE_EMAIL_INVITES("getLeagueEmailInvites", "I", 0, false),
+    GET_LEAGUE_PLAYER_INVITES("getLeaguePlayerInvites", "I", 0, false),
+    GET_LEAGUE_PLAYERS("getLeaguePlayers", "I", 0, false),
+    GET_LEAGUE_OWNERS("getLeagueOwners", "I", 0, false),
+    GET_LEAGUE_STATUS("getLeagueStatus", "I", 0, false),
+    SET_LEAGUE_START_DATE("setLeagueStartDate", "II", 0, false),
+    SET_LEAGUE_END_DATE("setLeagueEndDate", "II", 0, false),
+    GET_LEAGUE_START_DATE("getLeagueStartDate", "I", 0, false),
+    GET_LEAGUE_CLOSE_DATE("getLeagueCloseDate", "I", 0, false),
+    RESET_LEAGUE("resetLeague", "I", 0, false),
+    CLONE_LEAGUE("cloneLeague", "IS", -1, true),
+    IS_LEAGUE_PLAYER_ACTIVE("isLeaguePlayerActive", "II", 0, false),
+    SET_LEAGUE_PLAYER_INACTIVE("setLeaguePlayerInactive", "II", 0, false),
+    SET_LEAGUE_PLAYER_ACTIVE("setLeaguePlayerActive", "II", 0, false),
+    ADD_OWNER("addOwner", "II", 0, false),
+    REMOVE_OWNER("removeOwner", "II", 0, false),
+    REGISTER_GAME_REPORT("registerGameReport", "IIIS", 1, false),
+    GET_GAME_REPORT("getGameReport", "III", 1, false),
+    REGISTER_DAY_SCORES("registerDayScores", "IIA", 1, false),
+    VOID_DAY_POINTS("voidDayPoints", "II", 1, false),
+    GET_DAY_STATUS("getDayStatus", "II", 0, false),
+    GET_DAY_SCORES("getDayScores", "II", 0, false),
+    GET_DAY_POINTS("getDayPoints", "II", 0, false),
+    GET_DAY_RANKING("getDayRanking", "II", 0, false),
+    GET_WEEK_STATUS("getWeekStatus", "II", 0, false),
+    GET_WEEK_POINTS("getWeekPoints", "II", 0, false),
+    GET_WEEK_RANKING("getWeekRanking", "II", 0, false),
+    GET_MONTH_STATUS("getMonthStatus", "II", 0, false),
+    GET_MONTH_POINTS("getMonthPoints", "II", 0, false),
+    GET_MONTH_RANKING("getMonthRanking", "II", 0, false),
+    GET_YEAR_STATUS("getYearStatus", "II", 0, false),
+    GET_YEAR_POINTS("getYearPoints", "II", 0, false),
+    GET_YEAR_RANKING("getYearRanking", "II", 0, false),
+    ERASE_GAMES_LEAGUE_DATA("eraseGamesLeagueData", "", -1, true),
+    SAVE_GAMES_LEAGUE_DATA("saveGamesLeagueData", "S", -1, true),
+    LOAD_GAMES_LEAGUE_DATA("loadGamesLeagueData", "S", -1, true);
+
+    private static final TraceOp[] VALUES = values();
+
+    final String method;
+    final String args;
+    final int keyArg;
+    final boolean barrier;
+
+    TraceOp(String method, String args, int keyArg, boolean barrier) {
+        this.method = method;
+        this.args = args;
+        this.keyArg = keyArg;
+        this.barrier = barrier;
+    }
+
+    /**
+     * @return The call with the opcode, or null if there is none.
+     */
+    static TraceOp of(int opcode) {
+        return opcode >= 0 && opcode < VALUES.length ? VALUES[opcode] : null;
+    }
+}
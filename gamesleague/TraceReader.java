@@ -0,0 +1,128 @@
+package gamesleague;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the records of a trace written by {@link TraceWriter}, in order.
+ */
+class TraceReader implements Closeable {
+
+    private final FileChannel channel;
+    private final ChannelInput in;
+    private final long startMillis;
+    private final List<String> strings = new ArrayList<>();
+    private long previousStart = 0;
+    private int previousDay = 0;
+
+    /**
+     * @throws IOException If the file cannot be read or is not a trace.
+     */
+    TraceReader(String filename) throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            in = new ChannelInput(channel);
+            if (in.readInt() != TraceWriter.MAGIC) {
+                throw new IOException("File " + filename + " is not a GamesLeague trace.");
+            }
+            int version = in.readInt();
+            if (version != TraceWriter.VERSION) {
+                throw new IOException("Unsupported trace version " + version + ".");
+            }
+            startMillis = in.readVarLong();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The wall-clock time the trace was started, in epoch milliseconds.
+     */
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return The next record, or null at the end of the trace.
+     * @throws IOException If the trace is corrupt or ends part way through a record.
+     */
+    TraceRecord next() throws IOException {
+        if (in.isAtEnd()) {
+            return null;
+        }
+        int opcode = in.readByte();
+        TraceOp op = TraceOp.of(opcode);
+        if (op == null) {
+            throw new IOException("Corrupt trace: unknown opcode " + opcode + ".");
+        }
+        long startNanos = previousStart + TraceWriter.unzigzag(in.readVarLong());
+        long durationNanos = in.readVarLong();
+        int day = previousDay + (int) TraceWriter.unzigzag(in.readVarLong());
+        previousStart = startNanos;
+        previousDay = day;
+        Object[] args = new Object[op.args.length()];
+        for (int i = 0; i < args.length; i++) {
+            switch (op.args.charAt(i)) {
+                case 'I':
+                    args[i] = (int) TraceWriter.unzigzag(in.readVarLong());
+                    break;
+                case 'S':
+                    args[i] = readString();
+                    break;
+                case 'A':
+                    args[i] = readIntArray();
+                    break;
+                default:
+                    int ordinal = in.readByte();
+                    args[i] = ordinal < 0 ? null : GameType.values()[ordinal];
+                    break;
+            }
+        }
+        return new TraceRecord(op, startNanos, durationNanos, day, args, readString());
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String readString() throws IOException {
+        long ref = in.readVarLong();
+        if (ref == 0) {
+            return null;
+        }
+        if (ref == 1) {
+            byte[] bytes = in.readBytes((int) in.readVarLong());
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (TraceWriter.isTableString(bytes.length, strings.size())) {
+                strings.add(value);
+            }
+            return value;
+        }
+        if (ref - 2 >= strings.size()) {
+            throw new IOException("Corrupt trace: unknown string " + ref + ".");
+        }
+        return strings.get((int) (ref - 2));
+    }
+
+    private int[] readIntArray() throws IOException {
+        long length = in.readVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > channel.size()) {
+            throw new IOException("Corrupt trace: bad length " + length + ".");
+        }
+        int[] values = new int[(int) length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) TraceWriter.unzigzag(in.readVarLong());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,43 @@
+package gamesleague;
+
+/**
+ * One GamesLeagueInterface call read from a trace: what was called, with
+ * which arguments, when and on which day, how long it took and how it ended.
+ */
+class TraceRecord {
+
+    final TraceOp op;
+    // nanoseconds from the start of the trace to the start of the call
+    final long startNanos;
+    final long durationNanos;
+    final int day;
+    final Object[] args;
+    // simple name of the exception the call threw, or "" if it returned
+    final String outcome;
+
+    TraceRecord(TraceOp op, long startNanos, long durationNanos, int day, Object[] args,
+            String outcome) {
+        this.op = op;
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+        this.day = day;
+        this.args = args;
+        this.outcome = outcome;
+    }
+
+    int intArg(int index) {
+        return (Integer) args[index];
+    }
+
+    String stringArg(int index) {
+        return (String) args[index];
+    }
+
+    int[] intArrayArg(int index) {
+        return (int[]) args[index];
+    }
+
+    GameType gameTypeArg(int index) {
+        return (GameType) args[index];
+    }
+}
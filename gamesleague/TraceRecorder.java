@@ -0,0 +1,433 @@
+package gamesleague;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * A GamesLeagueInterface that captures every call made through it into a
+ * trace file, for {@link TraceReplay} to run again later against another
+ * build or configuration.
+ * <p>
+ * Each call is recorded when it completes, with its arguments, when it
+ * started relative to the start of the trace, how long it took, the day it
+ * was made on and whether it threw; with concurrent callers the records are
+ * in completion order. Replay starts from the state the wrapped league was
+ * in when recording began, so give a snapshot file to save it to first
+ * unless the league starts empty. The batch registerDayScores and the stats
+ * methods of GamesLeague are not part of the interface and are not captured.
+ * <p>
+ * It is as thread safe as the implementation it wraps; records from
+ * concurrent calls are written one at a time.
+ */
+public class TraceRecorder implements GamesLeagueInterface, Closeable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final GamesLeagueInterface league;
+    private final TraceWriter trace;
+    private volatile Clock clock = Clock.systemDefaultZone();
+    private final long origin;
+
+    /**
+     * Starts capturing calls into a new trace file.
+     *
+     * @param league The implementation the calls go to.
+     * @param traceFile The file to write, replacing any existing one.
+     * @throws IOException If the trace file cannot be created.
+     */
+    public TraceRecorder(GamesLeagueInterface league, String traceFile) throws IOException {
+        this.league = league;
+        this.trace = new TraceWriter(traceFile, System.currentTimeMillis());
+        this.origin = System.nanoTime();
+    }
+
+    /**
+     * Saves the league's current state to the snapshot file, for replay to
+     * start from, and starts capturing calls into a new trace file.
+     *
+     * @throws IOException If the snapshot cannot be saved or the trace file created.
+     */
+    public TraceRecorder(GamesLeagueInterface league, String traceFile, String snapshotFile)
+            throws IOException {
+        this(saved(league, snapshotFile), traceFile);
+    }
+
+    /**
+     * @return Calls recorded so far.
+     */
+    public long getRecords() {
+        return trace.getRecords();
+    }
+
+    /**
+     * Stops recording and writes out the rest of the trace. The wrapped
+     * league is not closed.
+     */
+    public void close() throws IOException {
+        trace.close();
+    }
+
+    // Players
+
+    public int[] getPlayerIds() {
+        return record(TraceOp.GET_PLAYER_IDS, () -> league.getPlayerIds());
+    }
+
+    public int createPlayer(String email, String displayName, String name, String phone)
+            throws InvalidEmailException, IllegalEmailException, InvalidNameException {
+        return record(TraceOp.CREATE_PLAYER, () -> league.createPlayer(email, displayName, name, phone),
+            email, displayName, name, phone);
+    }
+
+    public void deactivatePlayer(int playerId) throws IDInvalidException, IllegalOperationException {
+        record(TraceOp.DEACTIVATE_PLAYER, () -> league.deactivatePlayer(playerId), playerId);
+    }
+
+    public boolean isDeactivatedPlayer(int playerId) throws IDInvalidException {
+        return record(TraceOp.IS_DEACTIVATED_PLAYER, () -> league.isDeactivatedPlayer(playerId),
+            playerId);
+    }
+
+    public void updatePlayerDisplayName(int playerId, String displayName)
+            throws IDInvalidException, InvalidNameException {
+        record(TraceOp.UPDATE_PLAYER_DISPLAY_NAME, () -> league.updatePlayerDisplayName(playerId, displayName),
+            playerId, displayName);
+    }
+
+    public int getPlayerId(String email) {
+        return record(TraceOp.GET_PLAYER_ID, () -> league.getPlayerId(email), email);
+    }
+
+    public String getPlayerDisplayName(int playerId) throws IDInvalidException {
+        return record(TraceOp.GET_PLAYER_DISPLAY_NAME, () -> league.getPlayerDisplayName(playerId),
+            playerId);
+    }
+
+    public String getPlayerEmail(int playerId) throws IDInvalidException {
+        return record(TraceOp.GET_PLAYER_EMAIL, () -> league.getPlayerEmail(playerId), playerId);
+    }
+
+    public int[] getPlayerLeagues(int playerId) throws IDInvalidException {
+        return record(TraceOp.GET_PLAYER_LEAGUES, () -> league.getPlayerLeagues(playerId),
+            playerId);
+    }
+
+    public int[] getPlayerOwnedLeagues(int playerId) throws IDInvalidException {
+        return record(TraceOp.GET_PLAYER_OWNED_LEAGUES, () -> league.getPlayerOwnedLeagues(playerId),
+            playerId);
+    }
+
+    public int[] getPlayerInvites(int playerId) throws IDInvalidException {
+        return record(TraceOp.GET_PLAYER_INVITES, () -> league.getPlayerInvites(playerId),
+            playerId);
+    }
+
+    public int getPlayerRoundsPlayed(int playerId) throws IDInvalidException {
+        return record(TraceOp.GET_PLAYER_ROUNDS_PLAYED, () -> league.getPlayerRoundsPlayed(playerId),
+            playerId);
+    }
+
+    public double getPlayerRoundsPercentage(int playerId) throws IDInvalidException {
+        return record(TraceOp.GET_PLAYER_ROUNDS_PERCENTAGE, () -> league.getPlayerRoundsPercentage(playerId),
+            playerId);
+    }
+
+    public LocalDate getPlayerJoinDate(int playerId) throws IDInvalidException {
+        return record(TraceOp.GET_PLAYER_JOIN_DATE, () -> league.getPlayerJoinDate(playerId),
+            playerId);
+    }
+
+    // Leagues
+
+    public int[] getLeagueIds() {
+        return record(TraceOp.GET_LEAGUE_IDS, () -> league.getLeagueIds());
+    }
+
+    public int createLeague(int owner, String name, GameType gameType) throws IDInvalidException {
+        return record(TraceOp.CREATE_LEAGUE, () -> league.createLeague(owner, name, gameType),
+            owner, name, gameType);
+    }
+
+    public void removeLeague(int leagueId) throws IDInvalidException {
+        record(TraceOp.REMOVE_LEAGUE, () -> league.removeLeague(leagueId), leagueId);
+    }
+
+    public String getLeagueName(int leagueId) throws IDInvalidException {
+        return record(TraceOp.GET_LEAGUE_NAME, () -> league.getLeagueName(leagueId), leagueId);
+    }
+
+    public void updateLeagueName(int leagueId, String newName)
+            throws IDInvalidException, InvalidNameException, IllegalNameException {
+        record(TraceOp.UPDATE_LEAGUE_NAME, () -> league.updateLeagueName(leagueId, newName),
+            leagueId, newName);
+    }
+
+    public void invitePlayerToLeague(int leagueId, String email)
+            throws IDInvalidException, InvalidEmailException {
+        record(TraceOp.INVITE_PLAYER_TO_LEAGUE, () -> league.invitePlayerToLeague(leagueId, email),
+            leagueId, email);
+    }
+
+    public void acceptInviteToLeague(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        record(TraceOp.ACCEPT_INVITE_TO_LEAGUE, () -> league.acceptInviteToLeague(leagueId, playerId),
+            leagueId, playerId);
+    }
+
+    public void removeInviteFromLeague(int leagueId, String email)
+            throws IDInvalidException, IllegalEmailException {
+        record(TraceOp.REMOVE_INVITE_FROM_LEAGUE, () -> league.removeInviteFromLeague(leagueId, email),
+            leagueId, email);
+    }
+
+    public String[] getLeagueEmailInvites(int leagueId) throws IDInvalidException {
+        return record(TraceOp.GET_LEAGUE_EMAIL_INVITES, () -> league.getLeagueEmailInvites(leagueId),
+            leagueId);
+    }
+
+    public int[] getLeaguePlayerInvites(int leagueId) throws IDInvalidException {
+        return record(TraceOp.GET_LEAGUE_PLAYER_INVITES, () -> league.getLeaguePlayerInvites(leagueId),
+            leagueId);
+    }
+
+    public int[] getLeaguePlayers(int leagueId) throws IDInvalidException {
+        return record(TraceOp.GET_LEAGUE_PLAYERS, () -> league.getLeaguePlayers(leagueId),
+            leagueId);
+    }
+
+    public int[] getLeagueOwners(int leagueId) throws IDInvalidException {
+        return record(TraceOp.GET_LEAGUE_OWNERS, () -> league.getLeagueOwners(leagueId), leagueId);
+    }
+
+    public Status getLeagueStatus(int leagueId) throws IDInvalidException {
+        return record(TraceOp.GET_LEAGUE_STATUS, () -> league.getLeagueStatus(leagueId), leagueId);
+    }
+
+    public void setLeagueStartDate(int leagueId, int day)
+            throws IDInvalidException, IllegalOperationException {
+        record(TraceOp.SET_LEAGUE_START_DATE, () -> league.setLeagueStartDate(leagueId, day),
+            leagueId, day);
+    }
+
+    public void setLeagueEndDate(int leagueId, int day) throws IDInvalidException {
+        record(TraceOp.SET_LEAGUE_END_DATE, () -> league.setLeagueEndDate(leagueId, day),
+            leagueId, day);
+    }
+
+    public int getLeagueStartDate(int leagueId) throws IDInvalidException {
+        return record(TraceOp.GET_LEAGUE_START_DATE, () -> league.getLeagueStartDate(leagueId),
+            leagueId);
+    }
+
+    public int getLeagueCloseDate(int leagueId) throws IDInvalidException {
+        return record(TraceOp.GET_LEAGUE_CLOSE_DATE, () -> league.getLeagueCloseDate(leagueId),
+            leagueId);
+    }
+
+    public void resetLeague(int leagueId) throws IDInvalidException {
+        record(TraceOp.RESET_LEAGUE, () -> league.resetLeague(leagueId), leagueId);
+    }
+
+    public int cloneLeague(int leagueId, String newName) throws IDInvalidException {
+        return record(TraceOp.CLONE_LEAGUE, () -> league.cloneLeague(leagueId, newName),
+            leagueId, newName);
+    }
+
+    public boolean isLeaguePlayerActive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        return record(TraceOp.IS_LEAGUE_PLAYER_ACTIVE, () -> league.isLeaguePlayerActive(leagueId, playerId),
+            leagueId, playerId);
+    }
+
+    public void setLeaguePlayerInactive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        record(TraceOp.SET_LEAGUE_PLAYER_INACTIVE, () -> league.setLeaguePlayerInactive(leagueId, playerId),
+            leagueId, playerId);
+    }
+
+    public void setLeaguePlayerActive(int leagueId, int playerId)
+            throws IDInvalidException, IllegalArgumentException {
+        record(TraceOp.SET_LEAGUE_PLAYER_ACTIVE, () -> league.setLeaguePlayerActive(leagueId, playerId),
+            leagueId, playerId);
+    }
+
+    public void addOwner(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        record(TraceOp.ADD_OWNER, () -> league.addOwner(leagueId, playerId), leagueId, playerId);
+    }
+
+    public void removeOwner(int leagueId, int playerId)
+            throws IDInvalidException, IllegalOperationException {
+        record(TraceOp.REMOVE_OWNER, () -> league.removeOwner(leagueId, playerId),
+            leagueId, playerId);
+    }
+
+    // Results
+
+    public void registerGameReport(int day, int leagueId, int playerId, String gameReport)
+            throws IDInvalidException, IllegalOperationException {
+        record(TraceOp.REGISTER_GAME_REPORT, () -> league.registerGameReport(day, leagueId, playerId, gameReport),
+            day, leagueId, playerId, gameReport);
+    }
+
+    public String getGameReport(int day, int leagueId, int playerId)
+            throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_GAME_REPORT, () -> league.getGameReport(day, leagueId, playerId),
+            day, leagueId, playerId);
+    }
+
+    public void registerDayScores(int day, int leagueId, int[] scores)
+            throws IDInvalidException, IllegalArgumentException {
+        record(TraceOp.REGISTER_DAY_SCORES, () -> league.registerDayScores(day, leagueId, scores),
+            day, leagueId, scores);
+    }
+
+    public void voidDayPoints(int day, int leagueId)
+            throws IDInvalidException, IllegalArgumentException {
+        record(TraceOp.VOID_DAY_POINTS, () -> league.voidDayPoints(day, leagueId), day, leagueId);
+    }
+
+    public Status getDayStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_DAY_STATUS, () -> league.getDayStatus(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getDayScores(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_DAY_SCORES, () -> league.getDayScores(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getDayPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_DAY_POINTS, () -> league.getDayPoints(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getDayRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_DAY_RANKING, () -> league.getDayRanking(leagueId, day),
+            leagueId, day);
+    }
+
+    public Status getWeekStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_WEEK_STATUS, () -> league.getWeekStatus(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getWeekPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_WEEK_POINTS, () -> league.getWeekPoints(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getWeekRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_WEEK_RANKING, () -> league.getWeekRanking(leagueId, day),
+            leagueId, day);
+    }
+
+    public Status getMonthStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_MONTH_STATUS, () -> league.getMonthStatus(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getMonthPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_MONTH_POINTS, () -> league.getMonthPoints(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getMonthRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_MONTH_RANKING, () -> league.getMonthRanking(leagueId, day),
+            leagueId, day);
+    }
+
+    public Status getYearStatus(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_YEAR_STATUS, () -> league.getYearStatus(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getYearPoints(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_YEAR_POINTS, () -> league.getYearPoints(leagueId, day),
+            leagueId, day);
+    }
+
+    public int[] getYearRanking(int leagueId, int day) throws IDInvalidException, InvalidDateException {
+        return record(TraceOp.GET_YEAR_RANKING, () -> league.getYearRanking(leagueId, day),
+            leagueId, day);
+    }
+
+    public void eraseGamesLeagueData() {
+        record(TraceOp.ERASE_GAMES_LEAGUE_DATA, () -> league.eraseGamesLeagueData());
+    }
+
+    public void saveGamesLeagueData(String filename) throws IOException {
+        long start = System.nanoTime();
+        try {
+            league.saveGamesLeagueData(filename);
+        } catch (IOException | RuntimeException e) {
+            write(TraceOp.SAVE_GAMES_LEAGUE_DATA, start, e, filename);
+            throw e;
+        }
+        write(TraceOp.SAVE_GAMES_LEAGUE_DATA, start, null, filename);
+    }
+
+    public void loadGamesLeagueData(String filename) throws IOException, ClassNotFoundException {
+        long start = System.nanoTime();
+        try {
+            league.loadGamesLeagueData(filename);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            write(TraceOp.LOAD_GAMES_LEAGUE_DATA, start, e, filename);
+            throw e;
+        }
+        write(TraceOp.LOAD_GAMES_LEAGUE_DATA, start, null, filename);
+    }
+
+    // Recording
+
+    /**
+     * Replaces the clock that decides the day each call is recorded on, e.g.
+     * to match a GamesLeague whose clock has been replaced.
+     */
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private <T> T record(TraceOp op, Supplier<T> call, Object... args) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            write(op, start, e, args);
+            throw e;
+        }
+        write(op, start, null, args);
+        return result;
+    }
+
+    private void record(TraceOp op, Runnable call, Object... args) {
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            write(op, start, e, args);
+            throw e;
+        }
+        write(op, start, null, args);
+    }
+
+    private void write(TraceOp op, long start, Throwable outcome, Object... args) {
+        long end = System.nanoTime();
+        try {
+            trace.write(op, start - origin, end - start, (int) LocalDate.now(clock).toEpochDay(),
+                args, outcome);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to the trace.", e);
+        }
+    }
+
+    private static GamesLeagueInterface saved(GamesLeagueInterface league, String snapshotFile)
+            throws IOException {
+        league.saveGamesLeagueData(snapshotFile);
+        return league;
+    }
+}
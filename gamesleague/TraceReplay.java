@@ -0,0 +1,489 @@
+package gamesleague;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a trace captured by {@link TraceRecorder} against a GamesLeague and
+ * reports the throughput and, for each method, the latency percentiles of
+ * the replayed calls next to the recorded ones.
+ * <p>
+ * Calls are replayed flat out or, with recorded speed, each at the offset
+ * from the start it was recorded at; then the latency of a call is measured
+ * from when it was due, so a replay that falls behind shows in the tail.
+ * Each call runs on the day it was recorded on. On one thread the replay is
+ * deterministic. On several, the league is wrapped in a ConcurrentGamesLeague
+ * and calls are shared between workers by league or player (see
+ * {@link TraceOp}), so the calls on one league keep their order; calls that
+ * create IDs or span leagues, and changes of day, wait for every worker to
+ * finish and run alone.
+ * <p>
+ * A call whose outcome differs from the recorded one (it threw when it
+ * returned, or threw something else) is counted as a mismatch, which usually
+ * means the replay did not start from the state the capture did.
+ * saveGamesLeagueData is replayed into a scratch file and
+ * loadGamesLeagueData only if the recorded file is still there, otherwise it
+ * is counted as skipped.
+ * <p>
+ * Usage: {@code java gamesleague.TraceReplay <trace> [--snapshot <file>]
+ * [--threads <n>] [--recorded-speed]}
+ */
+public class TraceReplay {
+
+    private static final int QUEUE_SIZE = 4096;
+    private static final int STRIPES = 8;
+    private static final int STRIPE_COUNT = 64;
+    private static final int SPINS = 100;
+
+    private final GamesLeague league;
+    private final GamesLeagueInterface target;
+    private final int threads;
+    private final boolean recordedSpeed;
+
+    private final LatencyHistogram[] replayed = new LatencyHistogram[TraceOp.values().length];
+    private final LatencyHistogram[] recorded = new LatencyHistogram[TraceOp.values().length];
+    private final AtomicLongArray mismatches = new AtomicLongArray(TraceOp.values().length);
+    private final AtomicLongArray skipped = new AtomicLongArray(TraceOp.values().length);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile Throwable workerFailure;
+    private long replayStart;
+    private Path scratch;
+
+    /**
+     * @param league The league to replay against, already in the state the
+     *        capture started from. Its clock is set to each call's day during
+     *        the replay and back to the system clock after it.
+     * @param threads Worker threads; 1 replays every call in order on the caller's thread.
+     * @param recordedSpeed true to keep to the recorded timing, false to replay flat out.
+     */
+    public TraceReplay(GamesLeague league, int threads, boolean recordedSpeed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one replay thread is needed.");
+        }
+        this.league = league;
+        this.target = threads == 1 ? league : new ConcurrentGamesLeague(league, STRIPE_COUNT);
+        this.threads = threads;
+        this.recordedSpeed = recordedSpeed;
+        for (int i = 0; i < replayed.length; i++) {
+            replayed[i] = new LatencyHistogram(STRIPES);
+            recorded[i] = new LatencyHistogram(1);
+        }
+    }
+
+    /**
+     * Replays the trace.
+     *
+     * @return The report, one line of "key=value" pairs for the whole replay
+     *         and then one for each method that was called.
+     * @throws IOException If the trace cannot be read.
+     */
+    public String replay(String traceFile) throws IOException {
+        scratch = Files.createTempFile("gamesleague-replay-", ".bin");
+        Worker[] workers = new Worker[threads == 1 ? 0 : threads];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+            workers[i].start();
+        }
+        long records = 0;
+        long elapsed;
+        try (TraceReader reader = new TraceReader(traceFile)) {
+            int day = Integer.MIN_VALUE;
+            int next = 0;
+            replayStart = System.nanoTime();
+            for (TraceRecord record = reader.next(); record != null; record = reader.next()) {
+                records++;
+                if (recordedSpeed) {
+                    waitUntil(replayStart + record.startNanos);
+                }
+                if (record.day != day || record.op.barrier) {
+                    awaitIdle();
+                    if (record.day != day) {
+                        day = record.day;
+                        league.setClock(Clock.fixed(LocalDate.ofEpochDay(day).atStartOfDay()
+                            .toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+                    }
+                }
+                if (workers.length == 0 || record.op.barrier) {
+                    run(record);
+                    continue;
+                }
+                int worker = record.op.keyArg < 0 ? next++ % workers.length
+                    : Math.floorMod(record.intArg(record.op.keyArg), workers.length);
+                inFlight.incrementAndGet();
+                workers[worker].queue.put(record);
+            }
+            awaitIdle();
+            elapsed = System.nanoTime() - replayStart;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Replay interrupted.", e);
+        } finally {
+            for (Worker worker : workers) {
+                worker.interrupt();
+            }
+            league.setClock(Clock.systemDefaultZone());
+            Files.deleteIfExists(scratch);
+        }
+        return report(records, elapsed);
+    }
+
+    /**
+     * Replays a trace from the command line and prints the report.
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        String trace = null;
+        String snapshot = null;
+        int threads = 1;
+        boolean recordedSpeed = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--snapshot") && i + 1 < args.length) {
+                snapshot = args[++i];
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--recorded-speed")) {
+                recordedSpeed = true;
+            } else if (trace == null && !args[i].startsWith("--")) {
+                trace = args[i];
+            } else {
+                trace = null;
+                break;
+            }
+        }
+        if (trace == null) {
+            System.err.println("Usage: java gamesleague.TraceReplay <trace> [--snapshot <file>]"
+                + " [--threads <n>] [--recorded-speed]");
+            System.exit(2);
+        }
+        GamesLeague league = new GamesLeague();
+        if (snapshot != null) {
+            league.loadGamesLeagueData(snapshot);
+        }
+        System.out.println(new TraceReplay(league, threads, recordedSpeed).replay(trace));
+    }
+
+    /**
+     * Runs one call and records its latency and whether its outcome matched.
+     */
+    private void run(TraceRecord record) {
+        int op = record.op.ordinal();
+        long start = System.nanoTime();
+        String outcome;
+        try {
+            outcome = apply(record) ? "" : null;
+        } catch (RuntimeException | IOException | ClassNotFoundException e) {
+            outcome = e.getClass().getSimpleName();
+        }
+        long end = System.nanoTime();
+        if (outcome == null) {
+            skipped.incrementAndGet(op);
+            return;
+        }
+        long from = recordedSpeed ? Math.min(start, replayStart + record.startNanos) : start;
+        replayed[op].record(end - from);
+        recorded[op].record(record.durationNanos);
+        if (!outcome.equals(record.outcome)) {
+            mismatches.incrementAndGet(op);
+        }
+    }
+
+    /**
+     * Makes the recorded call on the target.
+     *
+     * @return false if the call was skipped.
+     */
+    private boolean apply(TraceRecord r) throws IOException, ClassNotFoundException {
+        switch (r.op) {
+            case GET_PLAYER_IDS:
+                target.getPlayerIds();
+                break;
+            case CREATE_PLAYER:
+                target.createPlayer(r.stringArg(0), r.stringArg(1), r.stringArg(2), r.stringArg(3));
+                break;
+            case DEACTIVATE_PLAYER:
+                target.deactivatePlayer(r.intArg(0));
+                break;
+            case IS_DEACTIVATED_PLAYER:
+                target.isDeactivatedPlayer(r.intArg(0));
+                break;
+            case UPDATE_PLAYER_DISPLAY_NAME:
+                target.updatePlayerDisplayName(r.intArg(0), r.stringArg(1));
+                break;
+            case GET_PLAYER_ID:
+                target.getPlayerId(r.stringArg(0));
+                break;
+            case GET_PLAYER_DISPLAY_NAME:
+                target.getPlayerDisplayName(r.intArg(0));
+                break;
+            case GET_PLAYER_EMAIL:
+                target.getPlayerEmail(r.intArg(0));
+                break;
+            case GET_PLAYER_LEAGUES:
+                target.getPlayerLeagues(r.intArg(0));
+                break;
+            case GET_PLAYER_OWNED_LEAGUES:
+                target.getPlayerOwnedLeagues(r.intArg(0));
+                break;
+            case GET_PLAYER_INVITES:
+                target.getPlayerInvites(r.intArg(0));
+                break;
+            case GET_PLAYER_ROUNDS_PLAYED:
+                target.getPlayerRoundsPlayed(r.intArg(0));
+                break;
+            case GET_PLAYER_ROUNDS_PERCENTAGE:
+                target.getPlayerRoundsPercentage(r.intArg(0));
+                break;
+            case GET_PLAYER_JOIN_DATE:
+                target.getPlayerJoinDate(r.intArg(0));
+                break;
+            case GET_LEAGUE_IDS:
+                target.getLeagueIds();
+                break;
+            case CREATE_LEAGUE:
+                target.createLeague(r.intArg(0), r.stringArg(1), r.gameTypeArg(2));
+                break;
+            case REMOVE_LEAGUE:
+                target.removeLeague(r.intArg(0));
+                break;
+            case GET_LEAGUE_NAME:
+                target.getLeagueName(r.intArg(0));
+                break;
+            case UPDATE_LEAGUE_NAME:
+                target.updateLeagueName(r.intArg(0), r.stringArg(1));
+                break;
+            case INVITE_PLAYER_TO_LEAGUE:
+                target.invitePlayerToLeague(r.intArg(0), r.stringArg(1));
+                break;
+            case ACCEPT_INVITE_TO_LEAGUE:
+                target.acceptInviteToLeague(r.intArg(0), r.intArg(1));
+                break;
+            case REMOVE_INVITE_FROM_LEAGUE:
+                target.removeInviteFromLeague(r.intArg(0), r.stringArg(1));
+                break;
+            case GET_LEAGUE_EMAIL_INVITES:
+                target.getLeagueEmailInvites(r.intArg(0));
+                break;
+            case GET_LEAGUE_PLAYER_INVITES:
+                target.getLeaguePlayerInvites(r.intArg(0));
+                break;
+            case GET_LEAGUE_PLAYERS:
+                target.getLeaguePlayers(r.intArg(0));
+                break;
+            case GET_LEAGUE_OWNERS:
+                target.getLeagueOwners(r.intArg(0));
+                break;
+            case GET_LEAGUE_STATUS:
+                target.getLeagueStatus(r.intArg(0));
+                break;
+            case SET_LEAGUE_START_DATE:
+                target.setLeagueStartDate(r.intArg(0), r.intArg(1));
+                break;
+            case SET_LEAGUE_END_DATE:
+                target.setLeagueEndDate(r.intArg(0), r.intArg(1));
+                break;
+            case GET_LEAGUE_START_DATE:
+                target.getLeagueStartDate(r.intArg(0));
+                break;
+            case GET_LEAGUE_CLOSE_DATE:
+                target.getLeagueCloseDate(r.intArg(0));
+                break;
+            case RESET_LEAGUE:
+                target.resetLeague(r.intArg(0));
+                break;
+            case CLONE_LEAGUE:
+                target.cloneLeague(r.intArg(0), r.stringArg(1));
+                break;
+            case IS_LEAGUE_PLAYER_ACTIVE:
+                target.isLeaguePlayerActive(r.intArg(0), r.intArg(1));
+                break;
+            case SET_LEAGUE_PLAYER_INACTIVE:
+                target.setLeaguePlayerInactive(r.intArg(0), r.intArg(1));
+                break;
+            case SET_LEAGUE_PLAYER_ACTIVE:
+                target.setLeaguePlayerActive(r.intArg(0), r.intArg(1));
+                break;
+            case ADD_OWNER:
+                target.addOwner(r.intArg(0), r.intArg(1));
+                break;
+            case REMOVE_OWNER:
+                target.removeOwner(r.intArg(0), r.intArg(1));
+                break;
+            case REGISTER_GAME_REPORT:
+                target.registerGameReport(r.intArg(0), r.intArg(1), r.intArg(2), r.stringArg(3));
+                break;
+            case GET_GAME_REPORT:
+                target.getGameReport(r.intArg(0), r.intArg(1), r.intArg(2));
+                break;
+            case REGISTER_DAY_SCORES:
+                target.registerDayScores(r.intArg(0), r.intArg(1), r.intArrayArg(2));
+                break;
+            case VOID_DAY_POINTS:
+                target.voidDayPoints(r.intArg(0), r.intArg(1));
+                break;
+            case GET_DAY_STATUS:
+                target.getDayStatus(r.intArg(0), r.intArg(1));
+                break;
+            case GET_DAY_SCORES:
+                target.getDayScores(r.intArg(0), r.intArg(1));
+                break;
+            case GET_DAY_POINTS:
+                target.getDayPoints(r.intArg(0), r.intArg(1));
+                break;
+            case GET_DAY_RANKING:
+                target.getDayRanking(r.intArg(0), r.intArg(1));
+                break;
+            case GET_WEEK_STATUS:
+                target.getWeekStatus(r.intArg(0), r.intArg(1));
+                break;
+            case GET_WEEK_POINTS:
+                target.getWeekPoints(r.intArg(0), r.intArg(1));
+                break;
+            case GET_WEEK_RANKING:
+                target.getWeekRanking(r.intArg(0), r.intArg(1));
+                break;
+            case GET_MONTH_STATUS:
+                target.getMonthStatus(r.intArg(0), r.intArg(1));
+                break;
+            case GET_MONTH_POINTS:
+                target.getMonthPoints(r.intArg(0), r.intArg(1));
+                break;
+            case GET_MONTH_RANKING:
+                target.getMonthRanking(r.intArg(0), r.intArg(1));
+                break;
+            case GET_YEAR_STATUS:
+                target.getYearStatus(r.intArg(0), r.intArg(1));
+                break;
+            case GET_YEAR_POINTS:
+                target.getYearPoints(r.intArg(0), r.intArg(1));
+                break;
+            case GET_YEAR_RANKING:
+                target.getYearRanking(r.intArg(0), r.intArg(1));
+                break;
+            case ERASE_GAMES_LEAGUE_DATA:
+                target.eraseGamesLeagueData();
+                break;
+            case SAVE_GAMES_LEAGUE_DATA:
+                // the recorded file is left alone
+                target.saveGamesLeagueData(scratch.toString());
+                break;
+            case LOAD_GAMES_LEAGUE_DATA:
+                if (r.stringArg(0) == null || !Files.exists(Paths.get(r.stringArg(0)))) {
+                    return false;
+                }
+                target.loadGamesLeagueData(r.stringArg(0));
+                break;
+            default:
+                throw new IllegalStateException("No replay for " + r.op + ".");
+        }
+        return true;
+    }
+
+    /**
+     * Waits until every call handed to a worker has run.
+     */
+    private void awaitIdle() {
+        for (int spins = 0; inFlight.get() > 0; spins++) {
+            if (workerFailure != null) {
+                throw new IllegalStateException("A replay worker failed.", workerFailure);
+            }
+            // barriers are usually short, but do not starve the workers of a core
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long wait = nanoTime - System.nanoTime();
+        while (wait > 0) {
+            LockSupport.parkNanos(wait);
+            wait = nanoTime - System.nanoTime();
+        }
+    }
+
+    private String report(long records, long elapsedNanos) {
+        long calls = 0;
+        long mismatched = 0;
+        long skips = 0;
+        for (int op = 0; op < replayed.length; op++) {
+            calls += replayed[op].getCount();
+            mismatched += mismatches.get(op);
+            skips += skipped.get(op);
+        }
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append("records=").append(records)
+            .append(" threads=").append(threads)
+            .append(" speed=").append(recordedSpeed ? "recorded" : "max")
+            .append(" seconds=").append(String.format("%.3f", seconds))
+            .append(" callsPerSecond=").append(seconds == 0 ? 0 : Math.round(calls / seconds))
+            .append(" mismatches=").append(mismatched)
+            .append(" skipped=").append(skips);
+        for (TraceOp op : TraceOp.values()) {
+            LatencyHistogram latency = replayed[op.ordinal()];
+            if (latency.getCount() == 0 && skipped.get(op.ordinal()) == 0) {
+                continue;
+            }
+            LatencyHistogram original = recorded[op.ordinal()];
+            report.append('\n')
+                .append("method=").append(op.method)
+                .append(" calls=").append(latency.getCount())
+                .append(" mismatches=").append(mismatches.get(op.ordinal()))
+                .append(" skipped=").append(skipped.get(op.ordinal()))
+                .append(" p50Micros=").append(micros(latency.getValueAt(0.5)))
+                .append(" p99Micros=").append(micros(latency.getValueAt(0.99)))
+                .append(" p999Micros=").append(micros(latency.getValueAt(0.999)))
+                .append(" maxMicros=").append(micros(latency.getMax()))
+                .append(" recordedP50Micros=").append(micros(original.getValueAt(0.5)))
+                .append(" recordedP99Micros=").append(micros(original.getValueAt(0.99)));
+        }
+        return report.toString();
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+
+    /**
+     * Runs the calls handed to it in order, until interrupted.
+     */
+    private final class Worker extends Thread {
+
+        final BlockingQueue<TraceRecord> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+        Worker(int index) {
+            super("trace-replay-" + index);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    TraceRecord record = queue.take();
+                    try {
+                        TraceReplay.this.run(record);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // replay finished
+            } catch (Throwable e) {
+                workerFailure = e;
+            }
+        }
+    }
+}
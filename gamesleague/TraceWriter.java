@@ -0,0 +1,152 @@
+package gamesleague;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes GamesLeagueInterface calls to a compact binary trace file.
+ * <p>
+ * The file starts with a magic number, the version and the wall-clock time
+ * the trace started at. Each record is the opcode (see {@link TraceOp}), the
+ * start of the call as a delta from the previous record's, its duration, the
+ * day it was made on as a delta from the previous record's, the arguments and
+ * the outcome. Numbers are variable length, zigzag encoded where they may be
+ * negative, so most take one or two bytes. Strings are kept in a table as
+ * they are first written and repeats are written as a reference to it, so
+ * the emails and game reports that recur through a day cost a byte or two.
+ * <p>
+ * Records are buffered and written out as the buffer fills, so the last
+ * records are only on disk once the writer is closed.
+ */
+class TraceWriter implements Closeable {
+
+    static final int MAGIC = 0x474C5452;
+    static final int VERSION = 1;
+    // strings of more UTF-8 bytes than this are written out every time rather than kept
+    static final int MAX_TABLE_STRING = 256;
+    static final int MAX_TABLE_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ChannelOutput out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private long previousStart = 0;
+    private int previousDay = 0;
+    private long records = 0;
+
+    /**
+     * Creates the trace file, replacing any existing one.
+     */
+    TraceWriter(String filename, long startMillis) throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        out = new ChannelOutput(channel);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeVarLong(startMillis);
+    }
+
+    /**
+     * Appends a call.
+     *
+     * @param startNanos Nanoseconds from the start of the trace to the start of the call.
+     * @param args The arguments, matching the op's argument kinds.
+     * @param outcome The exception the call threw, or null if it returned.
+     */
+    synchronized void write(TraceOp op, long startNanos, long durationNanos, int day,
+            Object[] args, Throwable outcome) throws IOException {
+        out.writeByte(op.ordinal());
+        out.writeVarLong(zigzag(startNanos - previousStart));
+        out.writeVarLong(Math.max(durationNanos, 0));
+        out.writeVarLong(zigzag(day - previousDay));
+        previousStart = startNanos;
+        previousDay = day;
+        for (int i = 0; i < op.args.length(); i++) {
+            switch (op.args.charAt(i)) {
+                case 'I':
+                    out.writeVarLong(zigzag((Integer) args[i]));
+                    break;
+                case 'S':
+                    writeString((String) args[i]);
+                    break;
+                case 'A':
+                    writeIntArray((int[]) args[i]);
+                    break;
+                case 'G':
+                    out.writeByte(args[i] == null ? -1 : ((GameType) args[i]).ordinal());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument kind in " + op + ".");
+            }
+        }
+        writeString(outcome == null ? "" : outcome.getClass().getSimpleName());
+        records++;
+    }
+
+    synchronized long getRecords() {
+        return records;
+    }
+
+    public synchronized void close() throws IOException {
+        try {
+            out.flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes 0 for null, 1 and the bytes for a string written out in full,
+     * or 2 plus its index for a string already in the table.
+     */
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeVarLong(0);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index != null) {
+            out.writeVarLong(2 + index);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeVarLong(1);
+        out.writeVarLong(bytes.length);
+        out.writeBytes(bytes);
+        if (isTableString(bytes.length, strings.size())) {
+            strings.put(value, strings.size());
+        }
+    }
+
+    private void writeIntArray(int[] values) throws IOException {
+        if (values == null) {
+            out.writeVarLong(0);
+            return;
+        }
+        out.writeVarLong(values.length + 1L);
+        for (int value : values) {
+            out.writeVarLong(zigzag(value));
+        }
+    }
+
+    /**
+     * @return Whether a string just written in full is added to the table;
+     *         the reader must decide the same way.
+     */
+    static boolean isTableString(int byteLength, int tableSize) {
+        return byteLength <= MAX_TABLE_STRING && tableSize < MAX_TABLE_SIZE;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}